@@ -13,20 +13,16 @@
 package org.sonatype.nexus.internal.event;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Supplier;
 
-import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
-import org.sonatype.goodies.common.Time;
 import org.sonatype.goodies.lifecycle.LifecycleSupport;
 import org.sonatype.nexus.common.app.ManagedLifecycle;
 import org.sonatype.nexus.common.event.EventAware.Asynchronous;
@@ -34,14 +30,15 @@ import org.sonatype.nexus.common.event.HasAffinity;
 import org.sonatype.nexus.thread.NexusExecutorService;
 import org.sonatype.nexus.thread.NexusThreadFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
-import static com.google.common.util.concurrent.MoreExecutors.newSequentialExecutor;
 import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.TASKS;
 import static org.sonatype.nexus.common.event.EventHelper.asReplicating;
 import static org.sonatype.nexus.common.event.EventHelper.isReplicating;
@@ -57,6 +54,19 @@ import static org.sonatype.nexus.internal.event.EventManagerImpl.HOST_THREAD_POO
  * and subscribers will again be called directly by the originating thread. This avoids
  * asynchronous subscribers from having services disappear beneath them.
  *
+ * Deliveries are handed to the thread pool, which grows up to {@code EventManagerImpl.poolSize} threads so a slow
+ * subscriber only ever holds up its own delivery. When every thread is busy the configured {@link OverflowPolicy}
+ * decides what happens: by default the posting thread waits for a thread to take the delivery, while
+ * {@link OverflowPolicy#CALLER_RUNS} has the posting thread, which may be serving an HTTP request, deliver the event
+ * itself. Event threads that post events always deliver them themselves when the pool is busy, as waiting on the pool
+ * could deadlock.
+ *
+ * Ordering: events with the same {@link HasAffinity affinity} are delivered in the order they were posted, and all
+ * deliveries of one event complete before the next event with that affinity is delivered. Such events are posted on
+ * the single thread of an {@link EventPartition} chosen by hashing the affinity, which then delivers them itself. A
+ * slow subscriber of an affinity event therefore holds up later events that hash to the same partition. Events
+ * without affinity are delivered in no particular order.
+ *
  * @since 3.2
  */
 @Named
@@ -67,40 +77,91 @@ class EventExecutor
     implements Executor
 {
   /**
-   * Like {@link CallerRunsPolicy} but it continues to work after the executor is shutdown.
+   * What to do with a delivery when all event threads are busy.
+   *
+   * @since 3.72
    */
-  private static final RejectedExecutionHandler CALLER_RUNS_FAILSAFE = (command, executor) -> command.run();
+  enum OverflowPolicy
+  {
+    /**
+     * Run the delivery on the posting thread, which may be an HTTP request thread.
+     */
+    CALLER_RUNS,
+
+    /**
+     * Wait until an event thread takes the delivery; this is the default.
+     */
+    BLOCK
+  }
+
+  private static final String METRIC_PREFIX = "nexus.event";
+
+  private static final long HAND_OFF_CHECK_MILLIS = 100;
+
+  /**
+   * Marks threads that are posting an affinity event; deliveries then run on the same thread to keep them in order.
+   */
+  private static final ThreadLocal<Boolean> POSTING_WITH_AFFINITY = new ThreadLocal<>();
+
+  /**
+   * Marks threads of the event pool; they never wait for the pool, as it could be waiting on them.
+   */
+  private static final ThreadLocal<Boolean> EVENT_THREAD = new ThreadLocal<>();
 
   private final boolean affinityEnabled;
 
-  private final int affinityCacheSize;
+  private final int poolSize;
+
+  private final int partitionCount;
 
-  private final Time affinityTimeout;
+  private final int partitionCapacity;
 
-  private final boolean singleCoordinator;
+  private final OverflowPolicy overflowPolicy;
 
-  private final boolean fairThreading;
+  private MetricRegistry metricRegistry = new MetricRegistry();
 
   private NexusExecutorService eventProcessor;
 
-  private NexusExecutorService affinityProcessor;
+  private EventPartition[] partitions;
+
+  private NexusExecutorService[] partitionExecutors;
 
-  private LoadingCache<String, AffinityBarrier> affinityBarriers;
+  private Meter overflows;
 
   private volatile boolean asyncProcessing;
 
   @Inject
   public EventExecutor(@Named("${nexus.event.affinityEnabled:-true}") final boolean affinityEnabled,
-                       @Named("${nexus.event.affinityCacheSize:-1000}") final int affinityCacheSize,
-                       @Named("${nexus.event.affinityTimeout:-1s}") final Time affinityTimeout,
-                       @Named("${nexus.event.singleCoordinator:-false}") final boolean singleCoordinator,
-                       @Named("${nexus.event.fairThreading:-false}") final boolean fairThreading)
+                       @Named("${nexus.event.partitions:-64}") final int partitionCount,
+                       @Named("${nexus.event.partitionCapacity:-1000}") final int partitionCapacity,
+                       @Named("${nexus.event.overflowPolicy:-BLOCK}") final OverflowPolicy overflowPolicy)
   {
+    this(affinityEnabled, HOST_THREAD_POOL_SIZE, partitionCount, partitionCapacity, overflowPolicy);
+  }
+
+  @VisibleForTesting
+  EventExecutor(final boolean affinityEnabled,
+                final int poolSize,
+                final int partitionCount,
+                final int partitionCapacity,
+                final OverflowPolicy overflowPolicy)
+  {
+    checkArgument(poolSize > 0, "Must have at least one event thread");
+    checkArgument(partitionCount > 0, "Must have at least one event partition");
+    checkArgument(partitionCapacity > 0, "Event partition capacity must be positive");
     this.affinityEnabled = affinityEnabled;
-    this.affinityCacheSize = affinityCacheSize;
-    this.affinityTimeout = checkNotNull(affinityTimeout);
-    this.singleCoordinator = singleCoordinator;
-    this.fairThreading = fairThreading;
+    this.poolSize = poolSize;
+    this.partitionCount = partitionCount;
+    this.partitionCapacity = partitionCapacity;
+    this.overflowPolicy = checkNotNull(overflowPolicy);
+  }
+
+  /**
+   * @since 3.72
+   */
+  @Inject
+  public void setMetricRegistry(final MetricRegistry metricRegistry) {
+    this.metricRegistry = checkNotNull(metricRegistry);
   }
 
   /**
@@ -108,48 +169,35 @@ class EventExecutor
    */
   @Override
   protected void doStart() throws Exception {
+    overflows = metricRegistry.meter(METRIC_PREFIX + ".overflow");
 
+    ThreadFactory threadFactory = new NexusThreadFactory("event", "event-manager");
     ThreadPoolExecutor threadPool = new ThreadPoolExecutor(
         0,
-        HOST_THREAD_POOL_SIZE,
+        poolSize,
         60L,
         TimeUnit.SECONDS,
-        new SynchronousQueue<>(fairThreading), // rendezvous only, zero capacity
-        new NexusThreadFactory("event", "event-manager"),
-        CALLER_RUNS_FAILSAFE
+        new SynchronousQueue<>(), // rendezvous only, zero capacity
+        runnable -> threadFactory.newThread(() -> {
+          EVENT_THREAD.set(Boolean.TRUE);
+          runnable.run();
+        }),
+        this::overflow
     );
 
     eventProcessor = NexusExecutorService.forCurrentSubject(threadPool);
 
     if (affinityEnabled) {
-
-      Supplier<Executor> coordinator;
-      if (singleCoordinator) {
-        // like singleThreadExecutor but with custom rejection handler
-        ThreadPoolExecutor affinityThread = new ThreadPoolExecutor(
-            1,
-            1,
-            0L,
-            TimeUnit.SECONDS,
-            new LinkedBlockingQueue<>(), // allow queueing up of requests
-            new NexusThreadFactory("affinity", "affinity-manager"),
-            CALLER_RUNS_FAILSAFE
-        );
-
-        affinityProcessor = NexusExecutorService.forCurrentSubject(affinityThread);
-
-        // use single-thread queue to coordinate all events (delivery to subscribers is still multi-threaded)
-        coordinator = () -> affinityProcessor;
-      }
-      else {
-        // multi-threaded coordination and delivery, with sequential coordination for events with same affinity
-        coordinator = () -> newSequentialExecutor(eventProcessor); // wraps behaviour on top of eventProcessor
+      partitions = new EventPartition[partitionCount];
+      partitionExecutors = new NexusExecutorService[partitionCount];
+      for (int i = 0; i < partitionCount; i++) {
+        String prefix = MetricRegistry.name(METRIC_PREFIX, "partition", Integer.toString(i));
+        EventPartition partition =
+            new EventPartition(i, partitionCapacity, metricRegistry.timer(prefix + ".latency"), overflows);
+        metricRegistry.register(prefix + ".depth", (Gauge<Integer>) partition::getDepth);
+        partitions[i] = partition;
+        partitionExecutors[i] = NexusExecutorService.forCurrentSubject(partition);
       }
-
-      affinityBarriers = CacheBuilder.newBuilder()
-          .maximumSize(affinityCacheSize)
-          .build(CacheLoader.from(() ->
-              new AffinityBarrier(coordinator.get(), eventProcessor, affinityTimeout)));
     }
 
     asyncProcessing = true;
@@ -158,9 +206,28 @@ class EventExecutor
   @Override
   protected void doStop() throws Exception {
     if (asyncProcessing) {
-      shutdown(affinityProcessor);
-      shutdown(eventProcessor);
       asyncProcessing = false;
+      ThreadPoolExecutor threadPool = (ThreadPoolExecutor) eventProcessor.getTargetExecutorService();
+      threadPool.shutdown();
+      if (partitions != null) {
+        for (EventPartition partition : partitions) {
+          partition.shutdown();
+        }
+      }
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      try {
+        if (partitions != null) {
+          for (EventPartition partition : partitions) {
+            partition.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+          }
+        }
+        threadPool.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      }
+      catch (InterruptedException e) {
+        log.debug("Interrupted while waiting for termination", e);
+        Thread.currentThread().interrupt();
+      }
+      metricRegistry.removeMatching(MetricFilter.startsWith(METRIC_PREFIX + ".partition"));
     }
   }
 
@@ -170,11 +237,17 @@ class EventExecutor
   @VisibleForTesting
   boolean isCalmPeriod() {
     if (asyncProcessing) {
-      return isCalmPeriod(affinityProcessor) && isCalmPeriod(eventProcessor);
-    }
-    else {
-      return true; // single-threaded mode is always calm
+      if (partitions != null) {
+        for (EventPartition partition : partitions) {
+          if (partition.getDepth() > 0) {
+            return false;
+          }
+        }
+      }
+      ThreadPoolExecutor threadPool = (ThreadPoolExecutor) eventProcessor.getTargetExecutorService();
+      return threadPool.getQueue().isEmpty() && threadPool.getActiveCount() == 0;
     }
+    return true; // single-threaded mode is always calm
   }
 
   /**
@@ -194,9 +267,22 @@ class EventExecutor
   public void executeWithAffinity(final String affinity, final Runnable postEventToAsyncBus) {
     checkState(affinityEnabled);
     if (asyncProcessing) {
-      Runnable command = inheritIsReplicating(postEventToAsyncBus);
-      AffinityBarrier barrier = affinityBarriers.getUnchecked(affinity);
-      barrier.coordinate(command); // waits (on separate thread) for last event delivery to complete before posting
+      Runnable command = inheritIsReplicating(() -> {
+        POSTING_WITH_AFFINITY.set(Boolean.TRUE);
+        try {
+          postEventToAsyncBus.run(); // eventually calls back into execute (below)
+        }
+        finally {
+          POSTING_WITH_AFFINITY.remove();
+        }
+      });
+      try {
+        partitionExecutors[partitionFor(affinity)].execute(command); // waits while the partition is full
+      }
+      catch (RejectedExecutionException e) {
+        log.debug("Event partition unavailable, posting on current thread", e);
+        command.run();
+      }
     }
     else {
       postEventToAsyncBus.run();
@@ -208,48 +294,58 @@ class EventExecutor
    */
   @Override
   public void execute(final Runnable deliverEventToSubscriber) {
-    if (asyncProcessing) {
-      Runnable command = inheritIsReplicating(deliverEventToSubscriber);
-      AffinityBarrier barrier = affinityEnabled ? AffinityBarrier.current() : null;
-      if (barrier != null) {
-        barrier.execute(command); // tracks each event delivery to help with coordination of the next posting request
+    if (!asyncProcessing) {
+      deliverEventToSubscriber.run();
+    }
+    else if (POSTING_WITH_AFFINITY.get() != null) {
+      // deliver in order on the partition thread; events posted by the subscriber are dispatched as usual
+      POSTING_WITH_AFFINITY.remove();
+      try {
+        deliverEventToSubscriber.run();
       }
-      else {
-        eventProcessor.execute(command);
+      finally {
+        POSTING_WITH_AFFINITY.set(Boolean.TRUE);
       }
     }
     else {
-      deliverEventToSubscriber.run();
+      eventProcessor.execute(inheritIsReplicating(deliverEventToSubscriber));
     }
   }
 
-  /**
-   * @return {@code true} if the thread pool backing the (optional) executor service is inactive
-   */
-  private boolean isCalmPeriod(@Nullable final NexusExecutorService executorService) {
-    if (executorService != null) {
-      ThreadPoolExecutor threadPool = (ThreadPoolExecutor) executorService.getTargetExecutorService();
-      return threadPool.getQueue().isEmpty() && threadPool.getActiveCount() == 0;
-    }
-    else {
-      return true; // service not enabled, consider as calm
-    }
+  private int partitionFor(final String affinity) {
+    int hash = affinity.hashCode();
+    return Math.floorMod(hash ^ (hash >>> 16), partitionCount);
   }
 
   /**
-   * @return {@code true} if the thread pool backing the (optional) executor service is shutdown
+   * Applies the {@link OverflowPolicy} when every event thread is busy; like {@code CallerRunsPolicy} this continues
+   * to work after the pool is shutdown.
    */
-  private void shutdown(@Nullable final NexusExecutorService executorService) {
-    if (executorService != null) {
-      ThreadPoolExecutor threadPool = (ThreadPoolExecutor) executorService.getTargetExecutorService();
-      threadPool.shutdown();
+  private void overflow(final Runnable command, final ThreadPoolExecutor threadPool) {
+    if (threadPool.isShutdown()) {
+      command.run();
+      return;
+    }
+    overflows.mark();
+    if (overflowPolicy == OverflowPolicy.BLOCK && !isEventThread()) {
       try {
-        threadPool.awaitTermination(5L, TimeUnit.SECONDS);
+        // hand off to the next event thread to finish its delivery, unless the pool is shutdown meanwhile
+        while (!threadPool.isShutdown()) {
+          if (threadPool.getQueue().offer(command, HAND_OFF_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            return;
+          }
+        }
       }
       catch (InterruptedException e) {
-        log.debug("Interrupted while waiting for termination", e);
+        Thread.currentThread().interrupt();
+        log.debug("Interrupted while waiting for an event thread, delivering on posting thread");
       }
     }
+    command.run();
+  }
+
+  private static boolean isEventThread() {
+    return EVENT_THREAD.get() != null || EventPartition.isPartitionThread();
   }
 
   /**
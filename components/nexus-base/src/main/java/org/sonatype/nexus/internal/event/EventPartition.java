@@ -0,0 +1,220 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Single-consumer partition of the event dispatcher; tasks are run one at a time in submission order by a dedicated
+ * thread.
+ *
+ * Submission is lock-free while the partition has space. The number of waiting tasks is bounded by the partition
+ * capacity; once it is full other threads block until the consumer frees up space. Tasks submitted by partition
+ * threads themselves are always accepted, so subscribers that post events can't deadlock on a full partition.
+ *
+ * @since 3.72
+ */
+class EventPartition
+    extends AbstractExecutorService
+{
+  private static final Logger log = LoggerFactory.getLogger(EventPartition.class);
+
+  private static final ThreadLocal<EventPartition> CURRENT_PARTITION = new ThreadLocal<>();
+
+  private final Queue<QueuedTask> queue = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger depth = new AtomicInteger();
+
+  private final Semaphore space;
+
+  private final Timer latency;
+
+  private final Meter overflows;
+
+  private final Thread consumer;
+
+  private volatile boolean waiting;
+
+  private volatile boolean shutdown;
+
+  EventPartition(final int index, final int capacity, final Timer latency, final Meter overflows) {
+    checkArgument(capacity > 0, "Partition capacity must be positive");
+    this.space = new Semaphore(capacity);
+    this.latency = checkNotNull(latency);
+    this.overflows = checkNotNull(overflows);
+    this.consumer = new NexusThreadFactory("event", "event-partition-" + index).newThread(this::consume);
+    this.consumer.start();
+  }
+
+  /**
+   * Returns {@code true} if the current thread is consuming any event partition.
+   */
+  static boolean isPartitionThread() {
+    return CURRENT_PARTITION.get() != null;
+  }
+
+  /**
+   * Number of tasks waiting or running in this partition.
+   */
+  int getDepth() {
+    return depth.get();
+  }
+
+  /**
+   * Queues the task, waiting for space if the partition is full.
+   *
+   * @throws RejectedExecutionException if the partition is shut down or the thread is interrupted while waiting
+   */
+  @Override
+  public void execute(final Runnable command) {
+    checkNotNull(command);
+    if (shutdown) {
+      throw new RejectedExecutionException("Event partition is shut down");
+    }
+    boolean bounded = !isPartitionThread();
+    if (bounded && !space.tryAcquire()) {
+      overflows.mark();
+      log.debug("Event partition is full, waiting for space");
+      try {
+        space.acquire();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RejectedExecutionException("Interrupted while waiting for event partition", e);
+      }
+      if (shutdown) {
+        space.release();
+        throw new RejectedExecutionException("Event partition is shut down");
+      }
+    }
+    depth.incrementAndGet();
+    queue.add(new QueuedTask(command, System.nanoTime(), bounded));
+    if (waiting) {
+      LockSupport.unpark(consumer);
+    }
+  }
+
+  private void consume() {
+    CURRENT_PARTITION.set(this);
+    try {
+      while (true) {
+        QueuedTask task = queue.poll();
+        if (task != null) {
+          run(task);
+        }
+        else if (shutdown) {
+          break;
+        }
+        else {
+          waiting = true;
+          if (queue.isEmpty() && !shutdown) {
+            LockSupport.park(this);
+          }
+          waiting = false;
+        }
+      }
+    }
+    finally {
+      CURRENT_PARTITION.remove();
+    }
+  }
+
+  private void run(final QueuedTask task) {
+    latency.update(System.nanoTime() - task.queuedAt, NANOSECONDS);
+    try {
+      task.command.run();
+    }
+    catch (Throwable e) { // NOSONAR: keep consuming whatever goes wrong
+      log.warn("Unexpected failure dispatching event", e);
+    }
+    finally {
+      done(task);
+    }
+  }
+
+  private void done(final QueuedTask task) {
+    depth.decrementAndGet();
+    if (task.bounded) {
+      space.release();
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    shutdown = true;
+    LockSupport.unpark(consumer);
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    shutdown();
+    List<Runnable> pending = new ArrayList<>();
+    for (QueuedTask task = queue.poll(); task != null; task = queue.poll()) {
+      done(task);
+      pending.add(task.command);
+    }
+    consumer.interrupt();
+    return pending;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return shutdown;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return shutdown && !consumer.isAlive();
+  }
+
+  @Override
+  public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+    consumer.join(Math.max(1, unit.toMillis(timeout)));
+    return !consumer.isAlive();
+  }
+
+  private static final class QueuedTask
+  {
+    private final Runnable command;
+
+    private final long queuedAt;
+
+    private final boolean bounded;
+
+    QueuedTask(final Runnable command, final long queuedAt, final boolean bounded) {
+      this.command = command;
+      this.queuedAt = queuedAt;
+      this.bounded = bounded;
+    }
+  }
+}
@@ -13,15 +13,21 @@
 package org.sonatype.nexus.internal.event;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-import org.sonatype.goodies.common.Time;
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.common.event.EventAware.Asynchronous;
 import org.sonatype.nexus.common.event.EventHelper;
 import org.sonatype.nexus.common.event.EventManager;
+import org.sonatype.nexus.common.event.HasAffinity;
+import org.sonatype.nexus.internal.event.EventExecutor.OverflowPolicy;
 import org.sonatype.nexus.security.subject.FakeAlmightySubject;
 
 import com.google.common.base.Throwables;
@@ -31,6 +37,8 @@ import org.junit.Test;
 
 import static org.awaitility.Awaitility.await;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
@@ -191,7 +199,182 @@ public class EventManagerImplTest
   }
 
   private static EventExecutor newEventExecutor() {
-    return new EventExecutor(false, 0, Time.seconds(0), false, false);
+    return new EventExecutor(false, 4, 100, OverflowPolicy.CALLER_RUNS);
+  }
+
+  @Test
+  public void eventsWithSameAffinityAreHandledInOrder() throws Exception {
+    EventExecutor executor = new EventExecutor(true, 4, 100, OverflowPolicy.BLOCK);
+    EventManager underTest = new EventManagerImpl(new DefaultBeanLocator(), executor);
+    AffinityHandler handler = new AffinityHandler();
+    underTest.register(handler);
+
+    executor.start();
+
+    for (int i = 0; i < 50; i++) {
+      for (String affinity : new String[]{"a", "b", "c"}) {
+        int sequence = i;
+        FakeAlmightySubject.forUserId("testUser").execute(
+            () -> underTest.post(new AffinityEvent(affinity, sequence)));
+      }
+    }
+
+    await().atMost(5, TimeUnit.SECONDS).until(underTest::isCalmPeriod);
+
+    executor.stop();
+
+    List<Integer> expected = IntStream.range(0, 50).boxed().collect(Collectors.toList());
+    for (String affinity : new String[]{"a", "b", "c"}) {
+      assertThat(handler.handled.get(affinity), contains(expected.toArray()));
+    }
+  }
+
+  @Test
+  public void eventsWithSameAffinityStayInOrderWhenPartitionIsFull() throws Exception {
+    EventExecutor executor = new EventExecutor(true, 4, 1, 1, OverflowPolicy.CALLER_RUNS);
+    EventManager underTest = new EventManagerImpl(new DefaultBeanLocator(), executor);
+    AffinityHandler handler = new AffinityHandler();
+    underTest.register(handler);
+
+    executor.start();
+
+    // a single partition holding one event at a time, so posting waits for space
+    for (int i = 0; i < 30; i++) {
+      for (String affinity : new String[]{"a", "b", "c"}) {
+        int sequence = i;
+        FakeAlmightySubject.forUserId("testUser").execute(
+            () -> underTest.post(new AffinityEvent(affinity, sequence)));
+      }
+    }
+
+    await().atMost(5, TimeUnit.SECONDS).until(underTest::isCalmPeriod);
+
+    executor.stop();
+
+    List<Integer> expected = IntStream.range(0, 30).boxed().collect(Collectors.toList());
+    for (String affinity : new String[]{"a", "b", "c"}) {
+      assertThat(handler.handled.get(affinity), contains(expected.toArray()));
+    }
+  }
+
+  @Test
+  public void slowSubscriberDoesNotHoldUpOtherDeliveries() throws Exception {
+    EventExecutor executor = new EventExecutor(false, 4, 1, 1, OverflowPolicy.BLOCK);
+    EventManager underTest = new EventManagerImpl(new DefaultBeanLocator(), executor);
+    BlockingHandler handler = new BlockingHandler();
+    underTest.register(handler);
+
+    executor.start();
+
+    FakeAlmightySubject.forUserId("testUser").execute(() -> underTest.post("first"));
+    handler.started.await(5, TimeUnit.SECONDS);
+
+    FakeAlmightySubject.forUserId("testUser").execute(() -> underTest.post("second"));
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> handler.handledByThread.size() == 2);
+    assertThat(handler.handledByThread, not(hasItem(Thread.currentThread())));
+
+    handler.release.countDown();
+    executor.stop();
+  }
+
+  @Test
+  public void deliveriesRunOnPostingThreadWhenAllThreadsAreBusy() throws Exception {
+    EventExecutor executor = new EventExecutor(false, 1, 1, 1, OverflowPolicy.CALLER_RUNS);
+    EventManager underTest = new EventManagerImpl(new DefaultBeanLocator(), executor);
+    BlockingHandler handler = new BlockingHandler();
+    underTest.register(handler);
+
+    executor.start();
+
+    FakeAlmightySubject.forUserId("testUser").execute(() -> underTest.post("first"));
+    handler.started.await(5, TimeUnit.SECONDS);
+
+    FakeAlmightySubject.forUserId("testUser").execute(() -> underTest.post("second"));
+
+    assertThat(handler.handledByThread, hasItem(Thread.currentThread()));
+
+    handler.release.countDown();
+    executor.stop();
+
+    assertThat(handler.handledByThread, hasSize(2));
+  }
+
+  @Test
+  public void deliveriesWaitForAnEventThreadWhenAllThreadsAreBusy() throws Exception {
+    EventExecutor executor = new EventExecutor(false, 1, 1, 1, OverflowPolicy.BLOCK);
+    EventManager underTest = new EventManagerImpl(new DefaultBeanLocator(), executor);
+    BlockingHandler handler = new BlockingHandler();
+    underTest.register(handler);
+
+    executor.start();
+
+    FakeAlmightySubject.forUserId("testUser").execute(() -> underTest.post("first"));
+    handler.started.await(5, TimeUnit.SECONDS);
+
+    Thread poster = new Thread(() -> FakeAlmightySubject.forUserId("testUser").execute(() -> underTest.post("second")));
+    poster.start();
+
+    Thread.sleep(200);
+    assertThat(poster.isAlive(), is(true));
+    assertThat(handler.handledByThread, hasSize(1));
+
+    handler.release.countDown();
+    poster.join(5000);
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> handler.handledByThread.size() == 2);
+    assertThat(handler.handledByThread, not(hasItem(poster)));
+
+    executor.stop();
+  }
+
+  private static class AffinityEvent
+      implements HasAffinity
+  {
+    private final String affinity;
+
+    private final int sequence;
+
+    AffinityEvent(final String affinity, final int sequence) {
+      this.affinity = affinity;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public String getAffinity() {
+      return affinity;
+    }
+  }
+
+  private class AffinityHandler
+      implements Asynchronous
+  {
+    private final Map<String, List<Integer>> handled = new ConcurrentHashMap<>();
+
+    @Subscribe
+    public void handle(final AffinityEvent event) throws Exception {
+      Thread.sleep(event.sequence % 3); // vary handling time
+      handled.computeIfAbsent(event.affinity, k -> new CopyOnWriteArrayList<>()).add(event.sequence);
+    }
+  }
+
+  private class BlockingHandler
+      implements Asynchronous
+  {
+    private final List<Thread> handledByThread = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Subscribe
+    public void handle(final String event) throws Exception {
+      handledByThread.add(Thread.currentThread());
+      if ("first".equals(event)) {
+        started.countDown();
+        release.await(5, TimeUnit.SECONDS);
+      }
+    }
   }
 
   private class AsyncHandler
@@ -12,9 +12,12 @@
  */
 package org.sonatype.nexus.blobstore.api;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
 
+import com.google.common.io.ByteStreams;
+
 /**
  * A handle for binary data stored within a {@link BlobStore}.
  *
@@ -42,6 +45,32 @@ public interface Blob
    */
   InputStream getInputStream();
 
+  /**
+   * Opens an input stream to a range of the blob's content, starting at {@code offset} and returning at most
+   * {@code length} bytes. By default the content before the offset is read and skipped; blob stores that can read
+   * ranges directly should override this.
+   *
+   * @throws BlobStoreException may be thrown if the blob is {@link BlobStore#delete deleted} or
+   *                            {@link BlobStore#delete hard deleted}.
+   * @since 3.72
+   */
+  default InputStream getInputStream(final long offset, final long length) {
+    InputStream in = getInputStream();
+    try {
+      ByteStreams.skipFully(in, offset);
+      return ByteStreams.limit(in, length);
+    }
+    catch (IOException e) {
+      try {
+        in.close();
+      }
+      catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw new BlobStoreException(e, getId());
+    }
+  }
+
   /**
    * Provides metrics about this Blob.
    *
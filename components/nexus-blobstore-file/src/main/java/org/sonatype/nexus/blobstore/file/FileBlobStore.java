@@ -17,6 +17,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileStore;
@@ -26,6 +28,7 @@ import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDate;
 import java.util.Date;
@@ -59,11 +62,13 @@ import org.sonatype.nexus.blobstore.api.BlobStoreConfiguration;
 import org.sonatype.nexus.blobstore.api.BlobStoreException;
 import org.sonatype.nexus.blobstore.api.BlobStoreMetrics;
 import org.sonatype.nexus.blobstore.api.BlobStoreUsageChecker;
+import org.sonatype.nexus.blobstore.api.FileBackedBlob;
 import org.sonatype.nexus.blobstore.api.OperationMetrics;
 import org.sonatype.nexus.blobstore.api.OperationType;
 import org.sonatype.nexus.blobstore.api.RawObjectAccess;
 import org.sonatype.nexus.blobstore.api.metrics.BlobStoreMetricsService;
 import org.sonatype.nexus.blobstore.file.internal.BlobCollisionException;
+import org.sonatype.nexus.blobstore.file.internal.FileContentPool;
 import org.sonatype.nexus.blobstore.file.internal.FileOperations;
 import org.sonatype.nexus.blobstore.metrics.MonitoringBlobStoreMetrics;
 import org.sonatype.nexus.blobstore.quota.BlobStoreQuotaUsageChecker;
@@ -83,6 +88,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.hash.HashCode;
+import com.google.common.io.ByteStreams;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.AgeFileFilter;
 import org.apache.commons.lang.time.DateUtils;
@@ -129,6 +135,11 @@ public class FileBlobStore
 
   public static final String PATH_KEY = "path";
 
+  /**
+   * @since 3.72
+   */
+  public static final String DEDUPLICATE_KEY = "deduplicate";
+
   @VisibleForTesting
   public static final String METADATA_FILENAME = "metadata.properties";
 
@@ -148,6 +159,11 @@ public class FileBlobStore
 
   public static final String TMP = "tmp";
 
+  /**
+   * @since 3.72
+   */
+  public static final String CONTENT_POOL = "content-pool";
+
   private static final boolean RETRY_ON_COLLISION =
       SystemPropertiesHelper.getBoolean("nexus.blobstore.retryOnCollision", true);
 
@@ -186,6 +202,9 @@ public class FileBlobStore
 
   private final BlobStoreQuotaUsageChecker blobStoreQuotaUsageChecker;
 
+  @Nullable
+  private FileContentPool contentPool;
+
   @Inject
   public FileBlobStore(
       final BlobIdLocationResolver blobIdLocationResolver,
@@ -251,6 +270,7 @@ public class FileBlobStore
       metadata.store();
     }
     liveBlobs = CacheBuilder.newBuilder().weakValues().build(from(FileBlob::new));
+    contentPool = createContentPool(storageDir);
     blobDeletionIndex.initIndex(metadata, this);
     metricsService.init(this);
 
@@ -258,6 +278,27 @@ public class FileBlobStore
     blobStoreQuotaUsageChecker.start();
   }
 
+  /**
+   * Creates the pool of shared content when the blob store is configured to deduplicate content.
+   */
+  @Nullable
+  private FileContentPool createContentPool(final Path storageDir) throws IOException {
+    Object deduplicate = blobStoreConfiguration.attributes(CONFIG_KEY).get(DEDUPLICATE_KEY, false);
+    if (!Boolean.parseBoolean(deduplicate.toString())) {
+      return null;
+    }
+    if (!FileContentPool.isSupported(storageDir)) {
+      log.warn("Not deduplicating content of blob store {} as its file system doesn't support hard links",
+          blobStoreConfiguration.getName());
+      return null;
+    }
+    FileContentPool pool = new FileContentPool(storageDir.resolve(CONTENT_POOL), fileOperations);
+    int released = pool.compact();
+    log.info("Deduplicating content of blob store {}: {} bytes pooled, {} bytes saved, {} unused files released",
+        blobStoreConfiguration.getName(), pool.getPooledSize(), pool.getSharedSize(), released);
+    return pool;
+  }
+
   @Override
   public Stream<BlobId> getBlobIdUpdatedSinceStream(final int sinceDays) {
     if (sinceDays < 0) {
@@ -301,6 +342,7 @@ public class FileBlobStore
   @Override
   protected void doStop() throws Exception {
     liveBlobs = null;
+    contentPool = null;
     try {
       blobDeletionIndex.stopIndex();
     }
@@ -412,6 +454,10 @@ public class FileBlobStore
         log.debug("Writing blob {} to {}", blobId, blobPath);
 
         final StreamMetrics streamMetrics = ingester.ingestTo(temporaryBlobPath);
+        if (contentPool != null && !isDirectPath) {
+          // replace the content by a link to the same content if that is already stored
+          contentPool.share(temporaryBlobPath, streamMetrics.getSha1(), streamMetrics.getSize());
+        }
         final BlobMetrics metrics = new BlobMetrics(new DateTime(), streamMetrics.getSha1(), streamMetrics.getSize());
         blob.refresh(headers, metrics);
 
@@ -576,6 +622,7 @@ public class FileBlobStore
       Long contentSize = getContentSizeForDeletion(blobId);
 
       Path blobPath = contentPath(blobId);
+      String sharedSha1 = getSharedSha1ForDeletion(blobId, blobPath);
 
       boolean blobDeleted = delete(blobPath);
       delete(attributePath);
@@ -583,6 +630,9 @@ public class FileBlobStore
       if (blobDeleted && contentSize != null) {
         metricsService.recordDeletion(contentSize);
       }
+      if (blobDeleted && sharedSha1 != null) {
+        contentPool.release(sharedSha1);
+      }
 
       return blobDeleted;
     }
@@ -603,6 +653,33 @@ public class FileBlobStore
         .orElse(null);
   }
 
+  /**
+   * Returns the SHA-1 of the blob's content if it links to shared content.
+   */
+  @Nullable
+  private String getSharedSha1ForDeletion(final BlobId blobId, final Path blobPath) {
+    if (contentPool == null) {
+      return null;
+    }
+    return Optional.ofNullable(getFileBlobAttributes(blobId))
+        .map(BlobAttributes::getMetrics)
+        .map(BlobMetrics::getSha1Hash)
+        .filter(sha1 -> contentPool.isShared(blobPath, sha1))
+        .orElse(null);
+  }
+
+  /**
+   * Returns the approximate space used by the blob store on disk. This is less than the total size reported by
+   * {@link #getMetrics()} when blobs share deduplicated content.
+   *
+   * @since 3.72
+   */
+  @Guarded(by = STARTED)
+  public long getPhysicalSize() {
+    long totalSize = metricsService.getMetrics().getTotalSize();
+    return contentPool != null ? totalSize - contentPool.getSharedSize() : totalSize;
+  }
+
   @Override
   @Guarded(by = STARTED)
   public BlobStoreMetricsService<FileBlobStore> getMetricsService() {
@@ -654,6 +731,10 @@ public class FileBlobStore
       else {
         doCompactWithDeletedBlobIndex(inUseChecker);
       }
+
+      if (contentPool != null) {
+        compactContentPool();
+      }
     }
     catch (BlobStoreException | TaskInterruptedException e) {
       throw e;
@@ -834,6 +915,8 @@ public class FileBlobStore
       Path blobDir = getAbsoluteBlobDir();
       FileUtils.deleteDirectory(reconciliationLogDir.toFile());
       if (fileOperations.deleteEmptyDirectory(contentDir)) {
+        // without any blobs left, all pooled content is unused
+        FileUtils.deleteDirectory(blobDir.resolve(CONTENT_POOL).toFile());
         fileOperations.deleteQuietly(blobDir.resolve("metadata.properties"));
         File[] files = blobDir.toFile().listFiles((dir, name) -> name.endsWith(DELETIONS_FILENAME));
         if (files != null) {
@@ -922,6 +1005,13 @@ public class FileBlobStore
     progressLogger.flush();
   }
 
+  private void compactContentPool() throws IOException {
+    int released = contentPool.compact();
+    log.info("Released {} unused files from the content pool of blob store {}, which uses {} bytes on disk for {} " +
+        "bytes of blobs", released, blobStoreConfiguration.getName(), getPhysicalSize(),
+        metricsService.getMetrics().getTotalSize());
+  }
+
   private void pruneEmptyDirectories(final ProgressLogIntervalHelper progressLogger, final Path directPathDir) {
     long timestamp = new Date().getTime() - pruneEmptyDirectoryAge;
 
@@ -1042,6 +1132,7 @@ public class FileBlobStore
 
   class FileBlob
       extends BlobSupport
+      implements FileBackedBlob
   {
     FileBlob(final BlobId blobId) {
       super(blobId);
@@ -1065,6 +1156,47 @@ public class FileBlobStore
         throw new BlobStoreException(e, getId());
       }
     }
+
+    @Override
+    protected InputStream doGetInputStream(final long offset, final long length) {
+      Path contentPath = contentPath(getId());
+      try {
+        checkExists(contentPath, getId());
+        FileChannel channel = FileChannel.open(contentPath, StandardOpenOption.READ);
+        try {
+          channel.position(offset);
+        }
+        catch (IOException e) {
+          channel.close();
+          throw e;
+        }
+        return performanceLogger.maybeWrapForPerformanceLogging(
+            new BufferedInputStream(ByteStreams.limit(Channels.newInputStream(channel), length)));
+      }
+      catch (BlobStoreException e) {
+        markStale();
+        throw e;
+      }
+      catch (Exception e) {
+        throw new BlobStoreException(e, getId());
+      }
+    }
+
+    @Override
+    public FileChannel openFileChannel() {
+      Path contentPath = contentPath(getId());
+      try {
+        checkExists(contentPath, getId());
+        return FileChannel.open(contentPath, StandardOpenOption.READ);
+      }
+      catch (BlobStoreException e) {
+        markStale();
+        throw e;
+      }
+      catch (Exception e) {
+        throw new BlobStoreException(e, getId());
+      }
+    }
   }
 
   private interface BlobIngester
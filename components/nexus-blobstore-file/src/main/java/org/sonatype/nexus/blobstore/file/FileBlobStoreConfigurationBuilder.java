@@ -29,6 +29,8 @@ public class FileBlobStoreConfigurationBuilder
 {
   private String path;
 
+  private boolean deduplicate;
+
   /**
    * Creates a new builder using the specified name for the resulting blob store. Unless customized, the name is also
    * used as the path for the blob store.
@@ -49,6 +51,16 @@ public class FileBlobStoreConfigurationBuilder
     return this;
   }
 
+  /**
+   * Sets whether blobs with the same content share a single copy of it.
+   *
+   * @since 3.72
+   */
+  public FileBlobStoreConfigurationBuilder deduplicate(final boolean deduplicate) {
+    this.deduplicate = deduplicate;
+    return this;
+  }
+
   /**
    * Creates the configuration for the desired file blob store.
    */
@@ -56,6 +68,9 @@ public class FileBlobStoreConfigurationBuilder
   public BlobStoreConfiguration build() {
     final BlobStoreConfiguration configuration = super.build();
     configuration.attributes(FileBlobStore.CONFIG_KEY).set(FileBlobStore.PATH_KEY, path);
+    if (deduplicate) {
+      configuration.attributes(FileBlobStore.CONFIG_KEY).set(FileBlobStore.DEDUPLICATE_KEY, true);
+    }
     return configuration;
   }
 }
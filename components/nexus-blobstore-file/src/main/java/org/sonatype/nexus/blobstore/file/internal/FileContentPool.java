@@ -0,0 +1,222 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.file.internal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.sonatype.goodies.common.ComponentSupport;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.util.concurrent.Striped;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Content-addressed pool of content shared by the blobs of a file blob store.
+ *
+ * Each distinct content, identified by its SHA-1, is kept once in the pool and blobs with the same content are hard
+ * links to the pooled file. The link count of the pooled file serves as its reference count: the content is released
+ * once the link from the pool is the only one left.
+ *
+ * As SHA-1 collisions can be crafted, content is only shared once it has been compared byte for byte with the pooled
+ * content.
+ *
+ * @since 3.72
+ */
+public class FileContentPool
+    extends ComponentSupport
+{
+  private static final String LINK_COUNT_ATTRIBUTE = "unix:nlink";
+
+  private static final int LOCK_STRIPES = 64;
+
+  private static final Pattern SHA1 = Pattern.compile("[0-9a-f]{40}");
+
+  private final Path poolDir;
+
+  private final FileOperations fileOperations;
+
+  private final Striped<Lock> locks = Striped.lock(LOCK_STRIPES);
+
+  private final AtomicLong pooledSize = new AtomicLong();
+
+  private final AtomicLong sharedSize = new AtomicLong();
+
+  public FileContentPool(final Path poolDir, final FileOperations fileOperations) {
+    this.poolDir = checkNotNull(poolDir);
+    this.fileOperations = checkNotNull(fileOperations);
+  }
+
+  /**
+   * Can blobs in the given directory share content? This needs hard links with a visible link count.
+   */
+  public static boolean isSupported(final Path directory) {
+    try {
+      return Files.getAttribute(directory, LINK_COUNT_ATTRIBUTE) instanceof Integer;
+    }
+    catch (UnsupportedOperationException | IllegalArgumentException | IOException e) { // NOSONAR
+      return false;
+    }
+  }
+
+  /**
+   * Shares newly ingested content: if the same content is already pooled the file is replaced by a link to the pooled
+   * copy, otherwise the file is added to the pool.
+   *
+   * @return {@code true} if the content was already pooled
+   */
+  public boolean share(final Path content, final String sha1, final long size) throws IOException {
+    if (!SHA1.matcher(sha1).matches()) {
+      log.debug("Not sharing content {} with unexpected SHA-1 {}", content, sha1);
+      return false;
+    }
+    Path pooled = pooledPath(sha1);
+    Lock lock = locks.get(sha1);
+    lock.lock();
+    try {
+      if (!fileOperations.exists(pooled)) {
+        fileOperations.hardLink(content, pooled);
+        pooledSize.addAndGet(size);
+        return false;
+      }
+      if (Files.size(pooled) != size) {
+        log.warn("Not sharing content {} as pooled content {} has a different size", content, pooled);
+        return false;
+      }
+      if (!MoreFiles.asByteSource(pooled).contentEquals(MoreFiles.asByteSource(content))) {
+        log.warn("Not sharing content {} as pooled content {} with the same SHA-1 differs", content, pooled);
+        return false;
+      }
+      fileOperations.delete(content);
+      fileOperations.hardLink(pooled, content);
+      sharedSize.addAndGet(size);
+      log.debug("Shared pooled content {} with {}", pooled, content);
+      return true;
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Is the given file a link to pooled content?
+   */
+  public boolean isShared(final Path content, final String sha1) {
+    if (!SHA1.matcher(sha1).matches()) {
+      return false;
+    }
+    try {
+      return Files.isSameFile(content, pooledPath(sha1));
+    }
+    catch (IOException e) { // NOSONAR
+      return false;
+    }
+  }
+
+  /**
+   * Releases a reference to pooled content, after the blob linking to it has been deleted; the content is deleted
+   * from the pool once it has no references left.
+   */
+  public void release(final String sha1) throws IOException {
+    Path pooled = pooledPath(sha1);
+    Lock lock = locks.get(sha1);
+    lock.lock();
+    try {
+      long size = Files.size(pooled);
+      if (linkCount(pooled) > 1) {
+        sharedSize.addAndGet(-size);
+      }
+      else if (fileOperations.delete(pooled)) {
+        pooledSize.addAndGet(-size);
+        log.debug("Released pooled content {}", pooled);
+      }
+    }
+    catch (NoSuchFileException e) { // NOSONAR
+      log.debug("Pooled content for {} already released", sha1);
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Walks the pool, releasing any content which is no longer referenced and recounting the size of the pool.
+   *
+   * @return number of pooled files released
+   */
+  public int compact() throws IOException {
+    if (!Files.isDirectory(poolDir)) {
+      return 0;
+    }
+    long pooled = 0;
+    long shared = 0;
+    int released = 0;
+    try (Stream<Path> files = Files.walk(poolDir)) {
+      for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+        String sha1 = file.getFileName().toString();
+        Lock lock = locks.get(sha1);
+        lock.lock();
+        try {
+          long size = Files.size(file);
+          int links = linkCount(file);
+          if (links > 1) {
+            pooled += size;
+            shared += size * (links - 2);
+          }
+          else if (fileOperations.delete(file)) {
+            released++;
+          }
+        }
+        catch (NoSuchFileException e) { // NOSONAR
+          // released concurrently
+        }
+        finally {
+          lock.unlock();
+        }
+      }
+    }
+    pooledSize.set(pooled);
+    sharedSize.set(shared);
+    return released;
+  }
+
+  /**
+   * Returns the size of the content held in the pool.
+   */
+  public long getPooledSize() {
+    return pooledSize.get();
+  }
+
+  /**
+   * Returns the size of content saved by sharing, i.e. the difference between the logical and physical size of the
+   * blobs linking to the pool.
+   */
+  public long getSharedSize() {
+    return sharedSize.get();
+  }
+
+  private Path pooledPath(final String sha1) {
+    return poolDir.resolve(sha1.substring(0, 2)).resolve(sha1.substring(2, 4)).resolve(sha1);
+  }
+
+  private static int linkCount(final Path file) throws IOException {
+    return (Integer) Files.getAttribute(file, LINK_COUNT_ATTRIBUTE);
+  }
+}
@@ -249,6 +249,17 @@ public abstract class FileBlobStoreITSupport
     assertThat(deletedBlob, is(nullValue()));
   }
 
+  @Test
+  public void rangeOfBlobCanBeRead() throws Exception {
+    final byte[] content = randomBytes();
+
+    final Blob blob = underTest.create(new ByteArrayInputStream(content), TEST_HEADERS);
+
+    try (InputStream input = blob.getInputStream(10, 20)) {
+      assertThat(ByteStreams.toByteArray(input), is(equalTo(Arrays.copyOfRange(content, 10, 30))));
+    }
+  }
+
   protected byte[] randomBytes() {
     final byte[] content = new byte[TEST_DATA_LENGTH];
     new Random().nextBytes(content);
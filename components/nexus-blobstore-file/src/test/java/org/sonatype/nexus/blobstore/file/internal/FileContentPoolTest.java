@@ -0,0 +1,135 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.file.internal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.google.common.hash.Hashing;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assume.assumeTrue;
+
+public class FileContentPoolTest
+    extends TestSupport
+{
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Path contentDir;
+
+  private FileContentPool underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    Path root = tempFolder.getRoot().toPath();
+    assumeTrue(FileContentPool.isSupported(root));
+    contentDir = Files.createDirectories(root.resolve("content"));
+    underTest = new FileContentPool(root.resolve("content-pool"), new SimpleFileOperations());
+  }
+
+  @Test
+  public void identicalContentIsStoredOnce() throws Exception {
+    Path first = write("a.bytes", "abc");
+    Path second = write("b.bytes", "abc");
+
+    assertThat(underTest.share(first, sha1("abc"), 3), is(false));
+    assertThat(underTest.share(second, sha1("abc"), 3), is(true));
+
+    assertThat(Files.isSameFile(first, second), is(true));
+    assertThat(underTest.isShared(second, sha1("abc")), is(true));
+    assertThat(underTest.getPooledSize(), is(3L));
+    assertThat(underTest.getSharedSize(), is(3L));
+  }
+
+  @Test
+  public void contentIsReleasedWithTheLastReference() throws Exception {
+    Path first = write("a.bytes", "abc");
+    Path second = write("b.bytes", "abc");
+    underTest.share(first, sha1("abc"), 3);
+    underTest.share(second, sha1("abc"), 3);
+
+    Files.delete(first);
+    underTest.release(sha1("abc"));
+
+    assertThat(underTest.getPooledSize(), is(3L));
+    assertThat(underTest.getSharedSize(), is(0L));
+    assertThat(new String(Files.readAllBytes(second), UTF_8), is("abc"));
+
+    Files.delete(second);
+    underTest.release(sha1("abc"));
+
+    assertThat(underTest.getPooledSize(), is(0L));
+    assertThat(underTest.isShared(write("c.bytes", "abc"), sha1("abc")), is(false));
+  }
+
+  @Test
+  public void compactReleasesUnreferencedContentAndRecountsSizes() throws Exception {
+    Path first = write("a.bytes", "abc");
+    Path second = write("b.bytes", "abc");
+    Path third = write("c.bytes", "abc");
+    Path other = write("d.bytes", "xyz");
+    underTest.share(first, sha1("abc"), 3);
+    underTest.share(second, sha1("abc"), 3);
+    underTest.share(third, sha1("abc"), 3);
+    underTest.share(other, sha1("xyz"), 3);
+
+    // deleted without releasing, as when a blob is overwritten
+    Files.delete(other);
+
+    assertThat(underTest.compact(), is(1));
+    assertThat(underTest.getPooledSize(), is(3L));
+    assertThat(underTest.getSharedSize(), is(6L));
+  }
+
+  @Test
+  public void contentWithUnexpectedSizeIsNotShared() throws Exception {
+    Path first = write("a.bytes", "abc");
+    Path second = write("b.bytes", "abcd");
+    underTest.share(first, sha1("abc"), 3);
+
+    assertThat(underTest.share(second, sha1("abc"), 4), is(false));
+    assertThat(Files.isSameFile(first, second), is(false));
+  }
+
+  @Test
+  public void differentContentWithTheSameSha1IsNotShared() throws Exception {
+    Path first = write("a.bytes", "abc");
+    Path second = write("b.bytes", "xyz");
+    underTest.share(first, sha1("abc"), 3);
+
+    // as if the second content collided with the first
+    assertThat(underTest.share(second, sha1("abc"), 3), is(false));
+    assertThat(Files.isSameFile(first, second), is(false));
+    assertThat(new String(Files.readAllBytes(second), UTF_8), is("xyz"));
+    assertThat(underTest.getSharedSize(), is(0L));
+  }
+
+  private Path write(final String name, final String content) throws IOException {
+    return Files.write(contentDir.resolve(name), content.getBytes(UTF_8));
+  }
+
+  @SuppressWarnings("deprecation")
+  private static String sha1(final String content) {
+    return Hashing.sha1().hashString(content, UTF_8).toString();
+  }
+}
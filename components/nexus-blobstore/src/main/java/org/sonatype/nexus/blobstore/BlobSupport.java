@@ -91,10 +91,28 @@ public abstract class BlobSupport
     return inputStream;
   }
 
+  @Override
+  public InputStream getInputStream(final long offset, final long length) {
+    InputStream inputStream = doGetInputStream(offset, length);
+    if (!inputStream.markSupported()) {
+      return new BufferedInputStream(inputStream);
+    }
+    return inputStream;
+  }
+
   /**
    * Gets the natural input stream for the given blob
    *
    * @since 3.19
    */
   protected abstract InputStream doGetInputStream();
+
+  /**
+   * Gets the natural input stream for a range of the given blob; by default the content before the offset is skipped.
+   *
+   * @since 3.72
+   */
+  protected InputStream doGetInputStream(final long offset, final long length) {
+    return Blob.super.getInputStream(offset, length);
+  }
 }
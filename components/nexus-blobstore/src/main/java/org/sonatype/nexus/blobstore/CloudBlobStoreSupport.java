@@ -12,12 +12,20 @@
  */
 package org.sonatype.nexus.blobstore;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
 
 import org.sonatype.nexus.blobstore.api.Blob;
 import org.sonatype.nexus.blobstore.api.BlobId;
+import org.sonatype.nexus.blobstore.cache.BlobContentCache;
+import org.sonatype.nexus.blobstore.cache.BlobContentCacheFactory;
 import org.sonatype.nexus.common.log.DryRunPrefix;
 
 /**
@@ -29,6 +37,11 @@ import org.sonatype.nexus.common.log.DryRunPrefix;
 public abstract class CloudBlobStoreSupport<T extends AttributesLocation>
     extends BlobStoreSupport<T>
 {
+  private BlobContentCacheFactory contentCacheFactory;
+
+  @Nullable
+  private volatile BlobContentCache contentCache;
+
   protected CloudBlobStoreSupport(
       final BlobIdLocationResolver blobIdLocationResolver,
       final DryRunPrefix dryRunPrefix)
@@ -36,6 +49,104 @@ public abstract class CloudBlobStoreSupport<T extends AttributesLocation>
     super(blobIdLocationResolver, dryRunPrefix);
   }
 
+  /**
+   * @since 3.72
+   */
+  @Inject
+  public void setContentCacheFactory(final BlobContentCacheFactory contentCacheFactory) {
+    this.contentCacheFactory = contentCacheFactory;
+  }
+
+  /**
+   * Starts the local content cache of this blob store, if enabled.
+   *
+   * @since 3.72
+   */
+  protected void startContentCache() throws IOException {
+    if (contentCacheFactory != null) {
+      contentCache = contentCacheFactory.create(blobStoreConfiguration.getName());
+      if (contentCache != null) {
+        contentCache.start();
+      }
+    }
+  }
+
+  /**
+   * @since 3.72
+   */
+  protected void stopContentCache() {
+    if (contentCache != null) {
+      contentCache.stop();
+      contentCache = null;
+    }
+  }
+
+  /**
+   * Deletes the local content cache of this blob store.
+   *
+   * @since 3.72
+   */
+  protected void removeContentCache() {
+    if (contentCacheFactory != null) {
+      contentCacheFactory.remove(blobStoreConfiguration.getName());
+    }
+  }
+
+  /**
+   * Returns the content of the given blob from the local content cache when possible, reading it from the remote
+   * store otherwise. Temporary and direct-path blobs are never cached.
+   *
+   * @since 3.72
+   */
+  protected InputStream getCachedInputStream(final BlobSupport blob, final Supplier<InputStream> remote) {
+    BlobContentCache cache = cacheFor(blob);
+    if (cache == null) {
+      return remote.get();
+    }
+    return cache.get(blob.getId(), blob.getMetrics().getContentSize(), remote);
+  }
+
+  /**
+   * Returns the given range of the blob from the local content cache when it holds the blob, reading the range from
+   * the remote store otherwise. Ranges read remotely are not added to the cache.
+   *
+   * @since 3.72
+   */
+  protected InputStream getCachedInputStream(
+      final BlobSupport blob,
+      final long offset,
+      final long length,
+      final Supplier<InputStream> remote)
+  {
+    BlobContentCache cache = cacheFor(blob);
+    InputStream cached = cache != null ? cache.getRange(blob.getId(), offset, length) : null;
+    return cached != null ? cached : remote.get();
+  }
+
+  @Nullable
+  private BlobContentCache cacheFor(final BlobSupport blob) {
+    BlobContentCache cache = contentCache;
+    Map<String, String> headers = blob.getHeaders();
+    if (cache == null || headers == null || blob.getMetrics() == null
+        || headers.containsKey(TEMPORARY_BLOB_HEADER)
+        || Boolean.parseBoolean(headers.get(DIRECT_PATH_BLOB_HEADER))) {
+      return null;
+    }
+    return cache;
+  }
+
+  /**
+   * Removes the given blob from the local content cache; called whenever the blob is changed or deleted.
+   *
+   * @since 3.72
+   */
+  protected void invalidateCachedContent(final BlobId blobId) {
+    BlobContentCache cache = contentCache;
+    if (cache != null) {
+      cache.invalidate(blobId);
+    }
+  }
+
   protected abstract Blob writeBlobProperties(BlobId blobId, Map<String, String> headers);
 
   @Override
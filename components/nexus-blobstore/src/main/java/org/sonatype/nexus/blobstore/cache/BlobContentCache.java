@@ -0,0 +1,484 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.cache;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.blobstore.api.BlobId;
+import org.sonatype.nexus.common.io.DirectoryHelper;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Size-bounded local disk cache of blob content, used as a read-through tier in front of remote blob stores.
+ *
+ * Content is keyed by {@link BlobId} and populated as it is read from the remote store; only complete reads are
+ * added to the cache. Entries are evicted in least-recently-used order once the cache exceeds its maximum size.
+ * Blob stores must {@link #invalidate(BlobId) invalidate} entries whenever the content or attributes of a blob
+ * change, including when the blob is deleted.
+ *
+ * Cached files survive restarts; the cache starts cold and indexes the existing files in the background.
+ *
+ * @since 3.72
+ */
+public class BlobContentCache
+    extends ComponentSupport
+{
+  private static final String CONTENT_SUFFIX = ".bytes";
+
+  private static final String TMP_DIRECTORY = "tmp";
+
+  private static final String[] METRICS = {"hits", "misses", "evictions", "size", "count"};
+
+  private final String name;
+
+  private final Path directory;
+
+  private final long maxSize;
+
+  private final long maxBlobSize;
+
+  private final MetricRegistry metricRegistry;
+
+  private final String metricPrefix;
+
+  private final Meter hits;
+
+  private final Meter misses;
+
+  private final Meter evictions;
+
+  /**
+   * Cached entries and their size in access order, guarded by {@code this}.
+   */
+  private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * Entries currently being read from the remote store, guarded by {@code this}.
+   */
+  private final Map<String, Object> loading = new HashMap<>();
+
+  private long totalSize;
+
+  private volatile boolean stopped;
+
+  public BlobContentCache(
+      final String name,
+      final Path directory,
+      final long maxSize,
+      final long maxBlobSize,
+      final MetricRegistry metricRegistry)
+  {
+    this.name = checkNotNull(name);
+    this.directory = checkNotNull(directory);
+    this.maxSize = maxSize;
+    this.maxBlobSize = Math.min(maxBlobSize, maxSize);
+    this.metricRegistry = checkNotNull(metricRegistry);
+
+    metricPrefix = MetricRegistry.name(BlobContentCache.class, name);
+    hits = metricRegistry.meter(MetricRegistry.name(metricPrefix, "hits"));
+    misses = metricRegistry.meter(MetricRegistry.name(metricPrefix, "misses"));
+    evictions = metricRegistry.meter(MetricRegistry.name(metricPrefix, "evictions"));
+    metricRegistry.register(MetricRegistry.name(metricPrefix, "size"), (Gauge<Long>) this::getSize);
+    metricRegistry.register(MetricRegistry.name(metricPrefix, "count"), (Gauge<Integer>) this::getCount);
+  }
+
+  /**
+   * Prepares the cache directory and starts indexing previously cached content in the background.
+   */
+  public void start() throws IOException {
+    DirectoryHelper.mkdir(directory);
+    DirectoryHelper.deleteIfExists(directory.resolve(TMP_DIRECTORY));
+    DirectoryHelper.mkdir(directory.resolve(TMP_DIRECTORY));
+
+    new NexusThreadFactory("blobstore-cache", name).newThread(this::warm).start();
+  }
+
+  /**
+   * Stops using the cache; cached content is kept on disk for the next start.
+   */
+  public void stop() {
+    stopped = true;
+    synchronized (this) {
+      entries.clear();
+      loading.clear();
+      totalSize = 0;
+    }
+    for (String metric : METRICS) {
+      metricRegistry.remove(MetricRegistry.name(metricPrefix, metric));
+    }
+  }
+
+  /**
+   * Returns the cached content of the given blob; on a miss the content is read from the {@code remote} supplier
+   * and added to the cache once it has been read completely.
+   *
+   * @param size the size of the blob content, used to decide if the content can be cached
+   */
+  public InputStream get(final BlobId blobId, final long size, final Supplier<InputStream> remote) {
+    String key = key(blobId);
+    if (!stopped) {
+      InputStream cached = openCached(key);
+      if (cached != null) {
+        hits.mark();
+        return cached;
+      }
+    }
+    misses.mark();
+
+    InputStream in = remote.get();
+    if (stopped || size < 0 || size > maxBlobSize) {
+      return in;
+    }
+
+    Object token = new Object();
+    synchronized (this) {
+      if (loading.putIfAbsent(key, token) != null) {
+        // another request is already caching this blob
+        return in;
+      }
+    }
+    Path tempFile = directory.resolve(TMP_DIRECTORY).resolve(UUID.randomUUID() + CONTENT_SUFFIX);
+    try {
+      return new CachingInputStream(in, Files.newOutputStream(tempFile), tempFile, key, token, size);
+    }
+    catch (IOException e) {
+      log.debug("Unable to cache content of blob {}", blobId, e);
+      synchronized (this) {
+        loading.remove(key, token);
+      }
+      return in;
+    }
+  }
+
+  /**
+   * Returns the given range of the cached content of the blob. Ranges are never read into the cache, so a miss leaves
+   * the caller to read the range from the remote store.
+   *
+   * @return {@code null} if the blob isn't cached
+   */
+  @Nullable
+  public InputStream getRange(final BlobId blobId, final long offset, final long length) {
+    if (stopped) {
+      return null;
+    }
+    InputStream cached = openCached(key(blobId), offset);
+    if (cached != null) {
+      hits.mark();
+      return ByteStreams.limit(cached, length);
+    }
+    return null;
+  }
+
+  /**
+   * Removes any cached content of the given blob.
+   */
+  public void invalidate(final BlobId blobId) {
+    String key = key(blobId);
+    synchronized (this) {
+      loading.remove(key);
+      remove(key);
+    }
+  }
+
+  public synchronized long getSize() {
+    return totalSize;
+  }
+
+  public synchronized int getCount() {
+    return entries.size();
+  }
+
+  private InputStream openCached(final String key) {
+    return openCached(key, 0);
+  }
+
+  private synchronized InputStream openCached(final String key, final long offset) {
+    if (entries.get(key) != null) {
+      try {
+        // opened while holding the lock so the file can't be evicted in between; open files survive eviction
+        SeekableByteChannel channel = Files.newByteChannel(contentPath(key));
+        try {
+          channel.position(offset);
+        }
+        catch (IOException | RuntimeException e) {
+          channel.close();
+          throw e;
+        }
+        return Channels.newInputStream(channel);
+      }
+      catch (IOException e) {
+        log.debug("Unable to open cached content {}", key, e);
+        remove(key);
+      }
+    }
+    return null;
+  }
+
+  private synchronized void publish(final String key, final Object token, final Path tempFile, final long size)
+      throws IOException
+  {
+    if (stopped || !loading.remove(key, token)) {
+      // invalidated while it was being read
+      Files.deleteIfExists(tempFile);
+      return;
+    }
+    Path contentPath = contentPath(key);
+    DirectoryHelper.mkdir(contentPath.getParent());
+    Files.move(tempFile, contentPath, ATOMIC_MOVE, REPLACE_EXISTING);
+    add(key, size);
+  }
+
+  private synchronized void abandon(final String key, final Object token) {
+    loading.remove(key, token);
+  }
+
+  /**
+   * Indexes content cached before the last restart, without replacing anything cached in the meantime.
+   */
+  @VisibleForTesting
+  void warm() {
+    long count = 0;
+    try (Stream<Path> files = Files.walk(directory)) {
+      Iterator<Path> itr = files.iterator();
+      while (itr.hasNext() && !stopped) {
+        Path file = itr.next();
+        String fileName = file.getFileName().toString();
+        if (file.getParent().equals(directory.resolve(TMP_DIRECTORY)) || !fileName.endsWith(CONTENT_SUFFIX)) {
+          continue;
+        }
+        String key = fileName.substring(0, fileName.length() - CONTENT_SUFFIX.length());
+        try {
+          long size = Files.size(file);
+          synchronized (this) {
+            if (!stopped && !entries.containsKey(key) && !loading.containsKey(key)) {
+              add(key, size);
+              count++;
+            }
+          }
+        }
+        catch (NoSuchFileException e) { // NOSONAR
+          // evicted or invalidated concurrently
+        }
+      }
+      log.info("Indexed {} cached blobs for blob store {}", count, name);
+    }
+    catch (IOException | RuntimeException e) {
+      log.warn("Unable to index cached blobs for blob store {}", name, log.isDebugEnabled() ? e : null);
+    }
+  }
+
+  private void add(final String key, final long size) {
+    Long previous = entries.put(key, size);
+    totalSize += size - (previous != null ? previous : 0);
+    evict();
+  }
+
+  private void evict() {
+    Iterator<Entry<String, Long>> itr = entries.entrySet().iterator();
+    while (totalSize > maxSize && itr.hasNext()) {
+      Entry<String, Long> eldest = itr.next();
+      itr.remove();
+      totalSize -= eldest.getValue();
+      delete(eldest.getKey());
+      evictions.mark();
+    }
+  }
+
+  private void remove(final String key) {
+    Long size = entries.remove(key);
+    if (size != null) {
+      totalSize -= size;
+    }
+    delete(key);
+  }
+
+  private void delete(final String key) {
+    try {
+      Files.deleteIfExists(contentPath(key));
+    }
+    catch (IOException e) {
+      log.warn("Unable to delete cached content {}", key, log.isDebugEnabled() ? e : null);
+    }
+  }
+
+  private Path contentPath(final String key) {
+    return directory.resolve(key.substring(0, 2)).resolve(key + CONTENT_SUFFIX);
+  }
+
+  private static String key(final BlobId blobId) {
+    return Hashing.sha256().hashString(blobId.asUniqueString(), UTF_8).toString();
+  }
+
+  /**
+   * Copies remote content to a temporary file as it is read, adding it to the cache once everything was read.
+   */
+  private class CachingInputStream
+      extends FilterInputStream
+  {
+    private final Path tempFile;
+
+    private final String key;
+
+    private final Object token;
+
+    private final long size;
+
+    private OutputStream out;
+
+    private long copied;
+
+    CachingInputStream(
+        final InputStream in,
+        final OutputStream out,
+        final Path tempFile,
+        final String key,
+        final Object token,
+        final long size)
+    {
+      super(in);
+      this.out = out;
+      this.tempFile = tempFile;
+      this.key = key;
+      this.token = token;
+      this.size = size;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = in.read();
+      if (b >= 0) {
+        copy(new byte[]{(byte) b}, 0, 1);
+      }
+      else {
+        finish();
+      }
+      return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      int n = in.read(b, off, len);
+      if (n > 0) {
+        copy(b, off, n);
+      }
+      else if (n < 0) {
+        finish();
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+      // skipped content can't be cached
+      discard();
+      return in.skip(n);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        in.close();
+      }
+      finally {
+        discard();
+      }
+    }
+
+    private void copy(final byte[] b, final int off, final int len) {
+      if (out != null) {
+        try {
+          out.write(b, off, len);
+          copied += len;
+        }
+        catch (IOException e) {
+          log.debug("Unable to cache content {}", key, e);
+          discard();
+        }
+      }
+    }
+
+    private void finish() {
+      if (out != null) {
+        try {
+          out.close();
+          out = null;
+          if (copied == size) {
+            publish(key, token, tempFile, size);
+          }
+          else {
+            discard();
+          }
+        }
+        catch (IOException e) {
+          log.debug("Unable to cache content {}", key, e);
+          discard();
+        }
+      }
+    }
+
+    private void discard() {
+      if (out != null) {
+        try {
+          out.close();
+        }
+        catch (IOException e) {
+          log.debug("Unable to close cached content {}", key, e);
+        }
+        out = null;
+      }
+      abandon(key, token);
+      try {
+        Files.deleteIfExists(tempFile);
+      }
+      catch (IOException e) {
+        log.debug("Unable to delete {}", tempFile, e);
+      }
+    }
+  }
+}
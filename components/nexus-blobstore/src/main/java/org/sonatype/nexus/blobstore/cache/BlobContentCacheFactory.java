@@ -0,0 +1,100 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.cache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.common.ByteSize;
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.common.app.ApplicationDirectories;
+import org.sonatype.nexus.common.io.DirectoryHelper;
+
+import com.codahale.metrics.MetricRegistry;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Creates the local {@link BlobContentCache} of remote blob stores, when enabled.
+ *
+ * Each blob store gets its own cache directory under {@code ${data-dir}/blobs-cache}; the configured maximum size
+ * applies per blob store.
+ *
+ * @since 3.72
+ */
+@Named
+@Singleton
+public class BlobContentCacheFactory
+    extends ComponentSupport
+{
+  private static final String CACHE_DIRECTORY = "blobs-cache";
+
+  private final ApplicationDirectories applicationDirectories;
+
+  private final MetricRegistry metricRegistry;
+
+  private final boolean enabled;
+
+  private final ByteSize maxSize;
+
+  private final ByteSize maxBlobSize;
+
+  @Inject
+  public BlobContentCacheFactory(
+      final ApplicationDirectories applicationDirectories,
+      final MetricRegistry metricRegistry,
+      @Named("${nexus.blobstore.cache.enabled:-false}") final boolean enabled,
+      @Named("${nexus.blobstore.cache.maxSize:-10gb}") final ByteSize maxSize,
+      @Named("${nexus.blobstore.cache.maxBlobSize:-100mb}") final ByteSize maxBlobSize)
+  {
+    this.applicationDirectories = checkNotNull(applicationDirectories);
+    this.metricRegistry = checkNotNull(metricRegistry);
+    this.enabled = enabled;
+    this.maxSize = checkNotNull(maxSize);
+    this.maxBlobSize = checkNotNull(maxBlobSize);
+  }
+
+  /**
+   * Returns a new cache for the named blob store, or {@code null} if caching is disabled.
+   */
+  @Nullable
+  public BlobContentCache create(final String blobStoreName) {
+    if (!enabled) {
+      return null;
+    }
+    log.info("Caching content of blob store {} up to {}", blobStoreName, maxSize);
+    return new BlobContentCache(blobStoreName, directory(blobStoreName), maxSize.toBytes(), maxBlobSize.toBytes(),
+        metricRegistry);
+  }
+
+  /**
+   * Deletes any cached content of the named blob store.
+   */
+  public void remove(final String blobStoreName) {
+    try {
+      DirectoryHelper.deleteIfExists(directory(blobStoreName));
+    }
+    catch (IOException e) {
+      log.warn("Unable to delete cached content of blob store {}", blobStoreName, log.isDebugEnabled() ? e : null);
+    }
+  }
+
+  private Path directory(final String blobStoreName) {
+    return applicationDirectories.getWorkDirectory(CACHE_DIRECTORY).toPath().resolve(blobStoreName);
+  }
+}
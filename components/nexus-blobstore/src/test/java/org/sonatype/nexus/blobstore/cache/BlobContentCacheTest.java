@@ -0,0 +1,193 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.blobstore.api.BlobId;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.google.common.io.ByteStreams.toByteArray;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class BlobContentCacheTest
+    extends TestSupport
+{
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final AtomicInteger remoteReads = new AtomicInteger();
+
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+
+  private Path directory;
+
+  private BlobContentCache underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = tempFolder.getRoot().toPath().resolve("cache");
+    underTest = new BlobContentCache("test", directory, 10, 5, metricRegistry);
+    underTest.start();
+  }
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void completeReadsAreCached() throws Exception {
+    BlobId blobId = new BlobId("a");
+
+    assertThat(read(blobId, "abc"), is("abc"));
+    assertThat(read(blobId, "abc"), is("abc"));
+
+    assertThat(remoteReads.get(), is(1));
+    assertThat(metricRegistry.meter(metric("hits")).getCount(), is(1L));
+    assertThat(metricRegistry.meter(metric("misses")).getCount(), is(1L));
+  }
+
+  @Test
+  public void partialReadsAreNotCached() throws Exception {
+    BlobId blobId = new BlobId("a");
+
+    try (InputStream in = underTest.get(blobId, 3, remote("abc"))) {
+      in.read();
+    }
+
+    assertThat(underTest.getCount(), is(0));
+    assertThat(read(blobId, "abc"), is("abc"));
+    assertThat(remoteReads.get(), is(2));
+  }
+
+  @Test
+  public void largeBlobsAreNotCached() throws Exception {
+    BlobId blobId = new BlobId("a");
+
+    read(blobId, "abcdef");
+
+    assertThat(underTest.getCount(), is(0));
+  }
+
+  @Test
+  public void leastRecentlyUsedBlobsAreEvicted() throws Exception {
+    read(new BlobId("a"), "aaaa");
+    read(new BlobId("b"), "bbbb");
+    read(new BlobId("a"), "aaaa");
+    read(new BlobId("c"), "cccc");
+
+    assertThat(underTest.getCount(), is(2));
+    assertThat(underTest.getSize(), is(8L));
+    assertThat(metricRegistry.meter(metric("evictions")).getCount(), is(1L));
+
+    remoteReads.set(0);
+    read(new BlobId("a"), "aaaa");
+    assertThat(remoteReads.get(), is(0));
+  }
+
+  @Test
+  public void invalidatedBlobsAreReadAgain() throws Exception {
+    BlobId blobId = new BlobId("a");
+    read(blobId, "abc");
+
+    underTest.invalidate(blobId);
+
+    assertThat(read(blobId, "xyz"), is("xyz"));
+    assertThat(remoteReads.get(), is(2));
+  }
+
+  @Test
+  public void blobsInvalidatedWhileReadingAreNotCached() throws Exception {
+    BlobId blobId = new BlobId("a");
+
+    try (InputStream in = underTest.get(blobId, 3, remote("abc"))) {
+      underTest.invalidate(blobId);
+      toByteArray(in);
+    }
+
+    assertThat(underTest.getCount(), is(0));
+  }
+
+  @Test
+  public void cachedContentIsIndexedAfterRestart() throws Exception {
+    read(new BlobId("a"), "abc");
+    underTest.stop();
+
+    underTest = new BlobContentCache("test", directory, 10, 5, metricRegistry);
+    underTest.warm();
+
+    assertThat(underTest.getCount(), is(1));
+    assertThat(read(new BlobId("a"), "abc"), is("abc"));
+    assertThat(remoteReads.get(), is(1));
+  }
+
+  @Test
+  public void rangesAreServedFromCachedContent() throws Exception {
+    assertThat(underTest.getRange(new BlobId("a"), 1, 2), is(nullValue()));
+
+    read(new BlobId("a"), "abcd");
+
+    try (InputStream in = underTest.getRange(new BlobId("a"), 1, 2)) {
+      assertThat(new String(toByteArray(in), UTF_8), is("bc"));
+    }
+    assertThat(remoteReads.get(), is(1));
+    assertThat(metricRegistry.meter(metric("hits")).getCount(), is(1L));
+  }
+
+  @Test
+  public void stopKeepsMetricsOfCacheWithSameNamePrefix() throws Exception {
+    BlobContentCache other =
+        new BlobContentCache("test-backup", tempFolder.newFolder().toPath(), 10, 5, metricRegistry);
+
+    underTest.stop();
+
+    assertThat(metricRegistry.getNames(), hasSize(5));
+    other.stop();
+    assertThat(metricRegistry.getNames(), is(empty()));
+  }
+
+  private String read(final BlobId blobId, final String content) throws IOException {
+    try (InputStream in = underTest.get(blobId, content.length(), remote(content))) {
+      return new String(toByteArray(in), UTF_8);
+    }
+  }
+
+  private Supplier<InputStream> remote(final String content) {
+    return () -> {
+      remoteReads.incrementAndGet();
+      return new ByteArrayInputStream(content.getBytes(UTF_8));
+    };
+  }
+
+  private static String metric(final String name) {
+    return MetricRegistry.name(BlobContentCache.class, "test", name);
+  }
+}
@@ -12,17 +12,182 @@
  */
 package org.sonatype.nexus.bootstrap.jetty;
 
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.common.thread.VirtualThreads;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
+import com.google.common.annotations.VisibleForTesting;
+import org.eclipse.jetty.util.thread.Invocable;
+import org.eclipse.jetty.util.thread.Invocable.InvocationType;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.codahale.metrics.MetricRegistry.name;
 
 /**
  * Extension of {@link com.codahale.metrics.jetty9.InstrumentedQueuedThreadPool} that restores the default constructor.
+ *
+ * When {@link VirtualThreads#isEnabled() virtual threads are enabled} jobs which may block, such as handling requests,
+ * run on virtual threads instead so slow upstream or database calls don't exhaust the pool. Jetty's own acceptor and
+ * selector loops stay on the pool. Reserved threads are disabled in that mode so blocking jobs are always handed to
+ * {@link #execute(Runnable)} rather than run by a reserved pool thread. At most {@link #getMaxThreads()} blocking jobs
+ * run on virtual threads at once; further jobs are queued on the pool so its limits still apply.
  * 
  * @since 3.0
  */
 public final class InstrumentedQueuedThreadPool
     extends com.codahale.metrics.jetty9.InstrumentedQueuedThreadPool
 {
+  private static final Logger log = LoggerFactory.getLogger(InstrumentedQueuedThreadPool.class);
+
+  private final MetricRegistry metricRegistry;
+
+  @Nullable
+  private final Function<String, ThreadFactory> virtualThreadFactories;
+
+  private final AtomicInteger activeVirtualThreads = new AtomicInteger();
+
+  private final Counter virtualTasks = new Counter();
+
+  private final Counter pinnedVirtualThreads = new Counter();
+
+  private volatile ThreadFactory virtualThreadFactory;
+
+  private volatile Semaphore virtualThreadPermits;
+
+  private AutoCloseable pinningMonitor;
+
   public InstrumentedQueuedThreadPool() {
-    super(SharedMetricRegistries.getOrCreate("nexus"));
+    this(SharedMetricRegistries.getOrCreate("nexus"),
+        VirtualThreads.isEnabled() ? VirtualThreads::newThreadFactory : null);
+  }
+
+  /**
+   * @param virtualThreadFactories creates the factory of virtual threads for the given name, {@code null} to run all
+   *                               jobs on the pool
+   */
+  @VisibleForTesting
+  InstrumentedQueuedThreadPool(
+      final MetricRegistry metricRegistry,
+      @Nullable final Function<String, ThreadFactory> virtualThreadFactories)
+  {
+    super(metricRegistry);
+    this.metricRegistry = metricRegistry;
+    this.virtualThreadFactories = virtualThreadFactories;
+    if (virtualThreadFactories != null) {
+      setReservedThreads(0); // can only be changed before starting
+    }
+  }
+
+  /**
+   * @since 3.72
+   */
+  public boolean isVirtualThreads() {
+    return virtualThreadFactory != null;
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    if (virtualThreadFactories != null) {
+      virtualThreadPermits = new Semaphore(getMaxThreads());
+      virtualThreadFactory = virtualThreadFactories.apply(getName() + "-virtual");
+      log.info("Running blocking jobs of {} on virtual threads", getName());
+    }
+    else if (Boolean.getBoolean(VirtualThreads.ENABLED_PROPERTY)) {
+      log.warn("Virtual threads are not supported by this JDK, running all jobs of {} on platform threads", getName());
+    }
+
+    super.doStart();
+
+    if (isVirtualThreads()) {
+      registerVirtualThreadMetrics();
+    }
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    if (isVirtualThreads()) {
+      virtualThreadFactory = null;
+      removeVirtualThreadMetrics();
+    }
+    super.doStop();
+  }
+
+  @Override
+  public void execute(final Runnable job) {
+    ThreadFactory factory = virtualThreadFactory;
+    Semaphore permits = virtualThreadPermits;
+    if (factory != null && isRunning() && isBlocking(job) && permits.tryAcquire()) {
+      try {
+        factory.newThread(() -> runVirtual(job, permits)).start();
+        virtualTasks.inc();
+        return;
+      }
+      catch (RuntimeException | Error e) { // NOSONAR fall back to the pool rather than losing the job
+        permits.release();
+        log.debug("Unable to start virtual thread, running job on the pool", e);
+      }
+    }
+    super.execute(job);
+  }
+
+  /**
+   * Only jobs which declare themselves blocking are moved, other jobs such as acceptors, selectors and reserved
+   * threads are long-running loops that belong on the pool.
+   */
+  private static boolean isBlocking(final Runnable job) {
+    return job instanceof Invocable && ((Invocable) job).getInvocationType() == InvocationType.BLOCKING;
+  }
+
+  private void runVirtual(final Runnable job, final Semaphore permits) {
+    activeVirtualThreads.incrementAndGet();
+    try {
+      job.run();
+    }
+    catch (Throwable e) { // NOSONAR match the pool, which logs job failures rather than losing them
+      log.warn("Job failed on virtual thread", e);
+    }
+    finally {
+      activeVirtualThreads.decrementAndGet();
+      permits.release();
+    }
+  }
+
+  private void registerVirtualThreadMetrics() {
+    String prefix = virtualThreadMetricsPrefix();
+    metricRegistry.register(name(prefix, "active"), (Gauge<Integer>) activeVirtualThreads::get);
+    metricRegistry.register(name(prefix, "tasks"), virtualTasks);
+    metricRegistry.register(name(prefix, "carriers"),
+        (Gauge<Integer>) () -> Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+            Runtime.getRuntime().availableProcessors()));
+    metricRegistry.register(name(prefix, "pinned"), pinnedVirtualThreads);
+    pinningMonitor = VirtualThreads.monitorPinning(event -> pinnedVirtualThreads.inc());
+  }
+
+  private void removeVirtualThreadMetrics() {
+    if (pinningMonitor != null) {
+      try {
+        pinningMonitor.close();
+      }
+      catch (Exception e) {
+        log.debug("Unable to stop monitoring pinned virtual threads", e);
+      }
+      pinningMonitor = null;
+    }
+    metricRegistry.removeMatching((metricName, metric) -> metricName.startsWith(virtualThreadMetricsPrefix() + '.'));
+  }
+
+  private String virtualThreadMetricsPrefix() {
+    return name(QueuedThreadPool.class, getName(), "virtual-threads");
   }
 }
@@ -0,0 +1,160 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.bootstrap.jetty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.codahale.metrics.MetricRegistry;
+import org.eclipse.jetty.util.thread.Invocable;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+public class InstrumentedQueuedThreadPoolTest
+    extends TestSupport
+{
+  private static final int MAX_THREADS = 4;
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private InstrumentedQueuedThreadPool underTest;
+
+  @After
+  public void tearDown() throws Exception {
+    release.countDown();
+    if (underTest != null) {
+      underTest.stop();
+    }
+  }
+
+  @Test
+  public void blockingJobsRunOnVirtualThreads() throws Exception {
+    start(fakeVirtualThreads());
+
+    assertThat(underTest.isVirtualThreads(), is(true));
+    assertThat(threadOf(new BlockingJob(null)), startsWith("test-pool-virtual-"));
+  }
+
+  @Test
+  public void otherJobsRunOnThePool() throws Exception {
+    start(fakeVirtualThreads());
+
+    CompletableFuture<String> thread = new CompletableFuture<>();
+    underTest.execute(() -> thread.complete(Thread.currentThread().getName()));
+
+    assertThat(thread.get(5, TimeUnit.SECONDS), startsWith("test-pool-"));
+    assertThat(thread.get().startsWith("test-pool-virtual-"), is(false));
+  }
+
+  @Test
+  public void blockingJobsRunOnThePoolWithoutVirtualThreads() throws Exception {
+    start(null);
+
+    assertThat(underTest.isVirtualThreads(), is(false));
+    String thread = threadOf(new BlockingJob(null));
+    assertThat(thread, startsWith("test-pool-"));
+    assertThat(thread.startsWith("test-pool-virtual-"), is(false));
+  }
+
+  @Test
+  public void blockingJobsBeyondMaxThreadsAreQueuedOnThePool() throws Exception {
+    start(fakeVirtualThreads());
+
+    List<BlockingJob> running = new ArrayList<>();
+    for (int i = 0; i < MAX_THREADS; i++) {
+      BlockingJob job = new BlockingJob(release);
+      underTest.execute(job);
+      running.add(job);
+    }
+    for (BlockingJob job : running) {
+      assertThat(job.thread.get(5, TimeUnit.SECONDS), startsWith("test-pool-virtual-"));
+    }
+
+    String overflow = threadOf(new BlockingJob(null));
+    assertThat(overflow.startsWith("test-pool-virtual-"), is(false));
+
+    release.countDown();
+    for (BlockingJob job : running) {
+      job.done.get(5, TimeUnit.SECONDS);
+    }
+    assertThat(threadOf(new BlockingJob(null)), startsWith("test-pool-virtual-"));
+  }
+
+  private void start(final Function<String, ThreadFactory> virtualThreads) throws Exception {
+    underTest = new InstrumentedQueuedThreadPool(new MetricRegistry(), virtualThreads);
+    underTest.setName("test-pool");
+    underTest.setMinThreads(2);
+    underTest.setMaxThreads(MAX_THREADS);
+    underTest.start();
+  }
+
+  private String threadOf(final BlockingJob job) throws Exception {
+    underTest.execute(job);
+    return job.thread.get(5, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Stands in for virtual threads, which aren't available on every JDK the tests run on.
+   */
+  private static Function<String, ThreadFactory> fakeVirtualThreads() {
+    AtomicInteger count = new AtomicInteger();
+    return name -> job -> new Thread(job, name + "-" + count.incrementAndGet());
+  }
+
+  private static class BlockingJob
+      implements Runnable, Invocable
+  {
+    private final CountDownLatch release;
+
+    private final CompletableFuture<String> thread = new CompletableFuture<>();
+
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    BlockingJob(final CountDownLatch release) {
+      this.release = release;
+    }
+
+    @Override
+    public InvocationType getInvocationType() {
+      return InvocationType.BLOCKING;
+    }
+
+    @Override
+    public void run() {
+      thread.complete(Thread.currentThread().getName());
+      try {
+        if (release != null) {
+          release.await(10, TimeUnit.SECONDS);
+        }
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      finally {
+        done.complete(null);
+      }
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.cleanup.datastore.search.criteria;
+
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.repository.Repository;
+
+/**
+ * A cleanup evaluator which can also be evaluated by the database, so components that can't be eligible for cleanup
+ * are never fetched.
+ *
+ * The condition is appended to the component query of the repository's {@code <format>_component} table, which is
+ * not aliased. Components matching the condition are still tested by the evaluator's predicate, so the condition may
+ * accept more components than the predicate but never fewer.
+ *
+ * @since 3.72
+ */
+public interface SqlCleanupEvaluator
+{
+  /**
+   * Creates a SQL condition which holds for every component that may be eligible for cleanup.
+   *
+   * @param repository   the repository being cleaned up
+   * @param value        the value associated with the CleanupPolicy for use with this criteria
+   * @param filterParams parameters of the condition, referred to as <code>#{filterParams.name}</code>; names should
+   *                     start with the criteria key to stay unique within a policy
+   * @return             the condition, or {@code null} if the value can't be evaluated by the database
+   */
+  @Nullable
+  String getFilter(Repository repository, String value, Map<String, Object> filterParams);
+}
@@ -12,6 +12,7 @@
  */
 package org.sonatype.nexus.cleanup.internal.content.search;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -22,6 +23,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -31,6 +33,7 @@ import org.sonatype.nexus.cleanup.content.search.CleanupComponentBrowse;
 import org.sonatype.nexus.cleanup.content.search.ContinuationBrowse;
 import org.sonatype.nexus.cleanup.datastore.search.criteria.AssetCleanupEvaluator;
 import org.sonatype.nexus.cleanup.datastore.search.criteria.ComponentCleanupEvaluator;
+import org.sonatype.nexus.cleanup.datastore.search.criteria.SqlCleanupEvaluator;
 import org.sonatype.nexus.cleanup.storage.CleanupPolicy;
 import org.sonatype.nexus.common.entity.Continuations;
 import org.sonatype.nexus.extdirect.model.PagedResponse;
@@ -40,6 +43,8 @@ import org.sonatype.nexus.repository.content.Asset;
 import org.sonatype.nexus.repository.content.Component;
 import org.sonatype.nexus.repository.content.facet.ContentFacet;
 import org.sonatype.nexus.repository.content.fluent.FluentComponent;
+import org.sonatype.nexus.repository.content.fluent.FluentComponents;
+import org.sonatype.nexus.repository.content.fluent.FluentQuery;
 import org.sonatype.nexus.repository.query.QueryOptions;
 import org.sonatype.nexus.scheduling.CancelableHelper;
 
@@ -47,6 +52,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sonatype.nexus.cleanup.content.search.CleanupBrowseServiceFactory.DEFAULT_BROWSE_SERVICE;
 
 /**
+ * Browses the components eligible for cleanup.
+ *
+ * Criteria backed by a {@link SqlCleanupEvaluator} narrow down the component query itself, so only components which
+ * may be eligible are fetched, together with their assets; the results are then tested against all criteria.
+ *
  * @since 3.38
  */
 @Named(DEFAULT_BROWSE_SERVICE)
@@ -88,7 +98,7 @@ public class DataStoreCleanupComponentBrowse
 
   @Override
   public Stream<FluentComponent> browseIncludingAssets(final CleanupPolicy policy, final Repository repository) {
-    return Continuations.streamOf(repository.facet(ContentFacet.class).components()::browseEager)
+    return Continuations.streamOf(getComponentQuery(repository, policy)::browseEager)
         .filter(createComponentFilter(repository, policy));
   }
 
@@ -232,6 +242,50 @@ public class DataStoreCleanupComponentBrowse
   protected ContinuationBrowse<FluentComponent> getComponentBrowser(
       final Repository repository, final CleanupPolicy policy)
   {
-    return repository.facet(ContentFacet.class).components()::browse;
+    return getComponentQuery(repository, policy)::browseEager;
+  }
+
+  /**
+   * Returns the query of components in the repository, narrowed down by the criteria which can be evaluated by the
+   * database.
+   *
+   * @param repository the Repository to query
+   * @param policy the Cleanup Policy whose criteria should be evaluated by the database
+   * @return the query of components which may be eligible for cleanup
+   * @since 3.72
+   */
+  protected FluentQuery<FluentComponent> getComponentQuery(final Repository repository, final CleanupPolicy policy) {
+    FluentComponents components = repository.facet(ContentFacet.class).components();
+
+    Map<String, Object> filterParams = new HashMap<>();
+    String filter = getFilterableCriteria(repository, policy).entrySet().stream()
+        .map(entry -> createSqlFilter(repository, entry.getKey(), entry.getValue(), filterParams))
+        .filter(Objects::nonNull)
+        .map(condition -> '(' + condition + ')')
+        .collect(Collectors.joining(" AND "));
+
+    if (filter.isEmpty()) {
+      return components;
+    }
+    log.debug("Querying components of {} for policy {} with filter {}", repository.getName(), policy.getName(),
+        filter);
+    return components.byFilter(filter, filterParams);
+  }
+
+  /*
+   * Creates the SQL condition of a single criteria, or null if it is only evaluated in Java.
+   */
+  @Nullable
+  private String createSqlFilter(
+      final Repository repository,
+      final String key,
+      final String value,
+      final Map<String, Object> filterParams)
+  {
+    Object evaluator = componentCriteria.containsKey(key) ? componentCriteria.get(key) : assetCriteria.get(key);
+    if (evaluator instanceof SqlCleanupEvaluator) {
+      return ((SqlCleanupEvaluator) evaluator).getFilter(repository, value, filterParams);
+    }
+    return null;
   }
 }
@@ -18,9 +18,19 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -34,23 +44,42 @@ import org.sonatype.nexus.cleanup.internal.method.CleanupMethod;
 import org.sonatype.nexus.cleanup.service.CleanupService;
 import org.sonatype.nexus.cleanup.storage.CleanupPolicy;
 import org.sonatype.nexus.cleanup.storage.CleanupPolicyStorage;
+import org.sonatype.nexus.common.entity.Continuations;
+import org.sonatype.nexus.logging.task.ProgressLogIntervalHelper;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.cleanup.CleanupFeatureCheck;
 import org.sonatype.nexus.repository.content.fluent.FluentComponent;
 import org.sonatype.nexus.repository.manager.RepositoryManager;
 import org.sonatype.nexus.repository.task.DeletionProgress;
 import org.sonatype.nexus.repository.types.GroupType;
+import org.sonatype.nexus.scheduling.TaskInterruptedException;
+import org.sonatype.nexus.thread.NexusExecutorService;
+import org.sonatype.nexus.thread.NexusThreadFactory;
 
 import com.google.common.base.Predicates;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Iterators;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.elasticsearch.search.SearchContextMissingException;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Objects.nonNull;
 import static org.sonatype.nexus.cleanup.config.CleanupPolicyConstants.RETAIN_KEY;
 import static org.sonatype.nexus.cleanup.config.CleanupPolicyConstants.RETAIN_SORT_BY_KEY;
+import static org.sonatype.nexus.datastore.api.DataStoreManager.DEFAULT_DATASTORE_NAME;
+import static org.sonatype.nexus.repository.config.ConfigurationConstants.DATA_STORE_NAME;
+import static org.sonatype.nexus.repository.config.ConfigurationConstants.STORAGE;
 
 /**
+ * Cleans up repositories according to their cleanup policies.
+ *
+ * Up to {@code nexus.cleanup.repositoryConcurrency} repositories are cleaned up at the same time. When
+ * {@code nexus.cleanup.dataStoreConcurrency} is greater than one, the components of each repository are deleted in
+ * batches which run concurrently, with at most that many batches running against each data store across all
+ * repositories.
+ *
  * @since 3.29
  */
 @Named
@@ -81,6 +110,14 @@ public class CleanupServiceImpl
 
   private final CleanupFeatureCheck cleanupFeatureCheck;
 
+  private int repositoryConcurrency = 1;
+
+  private int dataStoreConcurrency = 1;
+
+  private final ConcurrentMap<String, Semaphore> dataStorePermits = new ConcurrentHashMap<>();
+
+  private volatile ExecutorService batchExecutor;
+
   @Inject
   public CleanupServiceImpl(final RepositoryManager repositoryManager,
                             final CleanupPolicyStorage cleanupPolicyStorage,
@@ -99,14 +136,61 @@ public class CleanupServiceImpl
     this.cleanupFeatureCheck = cleanupFeatureCheck;
   }
 
+  /**
+   * @param repositoryConcurrency number of repositories to clean up at the same time
+   * @param dataStoreConcurrency  number of deletion batches to run at the same time against each data store
+   * @since 3.72
+   */
+  @Inject
+  public void configureConcurrency(
+      @Named("${nexus.cleanup.repositoryConcurrency:-4}") final int repositoryConcurrency,
+      @Named("${nexus.cleanup.dataStoreConcurrency:-4}") final int dataStoreConcurrency)
+  {
+    checkArgument(repositoryConcurrency > 0, "Repository concurrency must be positive");
+    checkArgument(dataStoreConcurrency > 0, "Data store concurrency must be positive");
+    this.repositoryConcurrency = repositoryConcurrency;
+    this.dataStoreConcurrency = dataStoreConcurrency;
+  }
+
   @Override
   public void cleanup(final BooleanSupplier cancelledCheck) {
+    List<Repository> repositories = StreamSupport.stream(repositoryManager.browse().spliterator(), false)
+        .filter(repository -> !repository.getType().equals(groupType))
+        .collect(Collectors.toList());
+
     AtomicLong totalDeletedCount = new AtomicLong(0L);
-    repositoryManager.browse().forEach(repository -> {
-      if (!cancelledCheck.getAsBoolean() && !repository.getType().equals(groupType)) {
-        totalDeletedCount.addAndGet(this.cleanup(repository, cancelledCheck));
+    int workers = Math.min(repositoryConcurrency, repositories.size());
+    if (workers <= 1 && dataStoreConcurrency <= 1) {
+      repositories.forEach(repository -> {
+        if (!cancelledCheck.getAsBoolean()) {
+          totalDeletedCount.addAndGet(this.cleanup(repository, cancelledCheck));
+        }
+      });
+    }
+    else {
+      log.info("Cleaning up {} repositories with {} workers, running up to {} deletion batches per data store",
+          repositories.size(), workers, dataStoreConcurrency);
+      ExecutorService repositoryExecutor = NexusExecutorService.forCurrentSubject(
+          Executors.newFixedThreadPool(Math.max(workers, 1), new NexusThreadFactory("cleanup", "repositories")));
+      batchExecutor = dataStoreConcurrency > 1 ? NexusExecutorService.forCurrentSubject(
+          Executors.newCachedThreadPool(new NexusThreadFactory("cleanup", "batches"))) : null;
+      try {
+        List<Future<Long>> results = repositories.stream()
+            .map(repository -> repositoryExecutor.submit(
+                () -> cancelledCheck.getAsBoolean() ? 0L : this.cleanup(repository, cancelledCheck)))
+            .collect(Collectors.toList());
+        for (Future<Long> result : results) {
+          totalDeletedCount.addAndGet(await(result));
+        }
       }
-    });
+      finally {
+        repositoryExecutor.shutdownNow();
+        if (batchExecutor != null) {
+          batchExecutor.shutdownNow();
+          batchExecutor = null;
+        }
+      }
+    }
     log.info("{} assets cleaned up across all repositories", totalDeletedCount.get());
   }
 
@@ -142,7 +226,7 @@ public class CleanupServiceImpl
       do {
         try {
           Stream<FluentComponent> componentsToDelete = browseService.browse(policy, repository);
-          DeletionProgress currentProgress = cleanupMethod.run(repository, componentsToDelete, cancelledCheck);
+          DeletionProgress currentProgress = delete(repository, policy, componentsToDelete, cancelledCheck);
           deletionProgress.update(currentProgress);
         }
         catch (Exception e) {
@@ -169,6 +253,110 @@ public class CleanupServiceImpl
     }
   }
 
+  /**
+   * Deletes the components, splitting them into batches which run concurrently when batch deletion is enabled.
+   */
+  private DeletionProgress delete(
+      final Repository repository,
+      final CleanupPolicy policy,
+      final Stream<FluentComponent> components,
+      final BooleanSupplier cancelledCheck)
+  {
+    ExecutorService executor = batchExecutor;
+    if (executor == null) {
+      return cleanupMethod.run(repository, components, cancelledCheck);
+    }
+
+    Semaphore permits = dataStorePermits.computeIfAbsent(dataStoreName(repository),
+        name -> new Semaphore(dataStoreConcurrency));
+    ProgressLogIntervalHelper progressLogger = new ProgressLogIntervalHelper(log, 60);
+    Stopwatch elapsed = Stopwatch.createStarted();
+    AtomicLong deleted = new AtomicLong();
+    List<Future<DeletionProgress>> batches = new ArrayList<>();
+    DeletionProgress progress = new DeletionProgress();
+    try {
+      Iterators.partition(components.iterator(), Continuations.BROWSE_LIMIT).forEachRemaining(batch -> {
+        if (cancelledCheck.getAsBoolean()) {
+          throw new TaskInterruptedException(
+              String.format("Thread '%s' is canceled", Thread.currentThread().getName()), true);
+        }
+        acquire(permits);
+        progressLogger.info("{} components cleaned up in repository {} using policy {} ({}/s)", deleted.get(),
+            repository.getName(), policy.getName(), rate(deleted.get(), elapsed));
+        try {
+          batches.add(executor.submit(() -> {
+            try {
+              DeletionProgress batchProgress = cleanupMethod.run(repository, batch.stream(), cancelledCheck);
+              deleted.addAndGet(batchProgress.getComponentCount());
+              return batchProgress;
+            }
+            finally {
+              permits.release();
+            }
+          }));
+        }
+        catch (RuntimeException e) {
+          permits.release();
+          throw e;
+        }
+      });
+    }
+    finally {
+      // wait for submitted batches even if browsing failed, so their permits are returned before any retry
+      for (Future<DeletionProgress> batch : batches) {
+        try {
+          DeletionProgress batchProgress = await(batch);
+          progress.addComponentCount(batchProgress.getComponentCount());
+          progress.addAssetCount(batchProgress.getAssetCount());
+          progress.setFailed(progress.isFailed() || batchProgress.isFailed());
+        }
+        catch (RuntimeException e) {
+          log.error("Failed to delete batch of components in repository {}", repository.getName(), e);
+          progress.setFailed(true);
+        }
+      }
+      progressLogger.flush();
+    }
+    log.info("{} components cleaned up in repository {} using policy {} in {} ({}/s)", deleted.get(),
+        repository.getName(), policy.getName(), elapsed, rate(deleted.get(), elapsed));
+    return progress;
+  }
+
+  private static String dataStoreName(final Repository repository) {
+    return Optional.ofNullable(repository.getConfiguration().getAttributes())
+        .map(attributes -> attributes.get(STORAGE))
+        .map(storage -> (String) storage.get(DATA_STORE_NAME))
+        .orElse(DEFAULT_DATASTORE_NAME);
+  }
+
+  private static long rate(final long count, final Stopwatch elapsed) {
+    return count * 1000 / Math.max(elapsed.elapsed(TimeUnit.MILLISECONDS), 1);
+  }
+
+  private static void acquire(final Semaphore permits) {
+    try {
+      permits.acquire();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TaskInterruptedException("Interrupted while waiting to delete components", true);
+    }
+  }
+
+  private static <T> T await(final Future<T> future) {
+    try {
+      return future.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TaskInterruptedException("Interrupted while waiting for cleanup", true);
+    }
+    catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
   private boolean hasExclusionCriteria(final Map<String, String> criteria) {
     return criteria.containsKey(RETAIN_KEY) || criteria.containsKey(RETAIN_SORT_BY_KEY);
   }
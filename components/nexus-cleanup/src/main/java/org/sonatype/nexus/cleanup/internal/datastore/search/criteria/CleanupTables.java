@@ -0,0 +1,39 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.cleanup.internal.datastore.search.criteria;
+
+import org.sonatype.nexus.repository.Repository;
+
+/**
+ * Names of the content tables referred to by cleanup filters.
+ *
+ * @since 3.72
+ */
+final class CleanupTables
+{
+  private CleanupTables() {
+    // no instances
+  }
+
+  static String component(final Repository repository) {
+    return repository.getFormat().getValue() + "_component";
+  }
+
+  static String asset(final Repository repository) {
+    return repository.getFormat().getValue() + "_asset";
+  }
+
+  static String assetBlob(final Repository repository) {
+    return repository.getFormat().getValue() + "_asset_blob";
+  }
+}
@@ -13,6 +13,7 @@
 package org.sonatype.nexus.cleanup.internal.datastore.search.criteria;
 
 import java.time.OffsetDateTime;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiPredicate;
 import java.util.stream.StreamSupport;
@@ -20,6 +21,7 @@ import java.util.stream.StreamSupport;
 import javax.inject.Named;
 
 import org.sonatype.nexus.cleanup.datastore.search.criteria.ComponentCleanupEvaluator;
+import org.sonatype.nexus.cleanup.datastore.search.criteria.SqlCleanupEvaluator;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.content.Asset;
 import org.sonatype.nexus.repository.content.AssetBlob;
@@ -37,7 +39,7 @@ import static org.sonatype.nexus.cleanup.config.CleanupPolicyConstants.LAST_BLOB
  */
 @Named(LAST_BLOB_UPDATED_KEY)
 public class LastBlobUpdatedCleanupEvaluator
-    implements ComponentCleanupEvaluator
+    implements ComponentCleanupEvaluator, SqlCleanupEvaluator
 {
   private static final Logger log = LoggerFactory.getLogger(LastBlobUpdatedCleanupEvaluator.class);
 
@@ -64,4 +66,18 @@ public class LastBlobUpdatedCleanupEvaluator
       return false;
     };
   }
+
+  /*
+   * The newest blob of the component's assets must have been created before the cut time; the maximum is null, and
+   * the comparison false, when none of the assets has a blob.
+   */
+  @Override
+  public String getFilter(final Repository repository, final String value, final Map<String, Object> filterParams) {
+    filterParams.put(LAST_BLOB_UPDATED_KEY, OffsetDateTime.now().minusSeconds(Long.valueOf(value)));
+
+    return "(SELECT MAX(B.blob_created) FROM " + CleanupTables.asset(repository) + " A"
+        + " INNER JOIN " + CleanupTables.assetBlob(repository) + " B ON A.asset_blob_id = B.asset_blob_id"
+        + " WHERE A.component_id = " + CleanupTables.component(repository) + ".component_id)"
+        + " < #{filterParams." + LAST_BLOB_UPDATED_KEY + "}";
+  }
 }
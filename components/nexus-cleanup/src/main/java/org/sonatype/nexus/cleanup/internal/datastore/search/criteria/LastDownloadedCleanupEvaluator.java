@@ -13,6 +13,7 @@
 package org.sonatype.nexus.cleanup.internal.datastore.search.criteria;
 
 import java.time.OffsetDateTime;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.BiPredicate;
 import java.util.stream.StreamSupport;
@@ -20,6 +21,7 @@ import java.util.stream.StreamSupport;
 import javax.inject.Named;
 
 import org.sonatype.nexus.cleanup.datastore.search.criteria.ComponentCleanupEvaluator;
+import org.sonatype.nexus.cleanup.datastore.search.criteria.SqlCleanupEvaluator;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.content.Asset;
 import org.sonatype.nexus.repository.content.AssetBlob;
@@ -37,7 +39,7 @@ import static org.sonatype.nexus.cleanup.config.CleanupPolicyConstants.LAST_DOWN
  */
 @Named(LAST_DOWNLOADED_KEY)
 public class LastDownloadedCleanupEvaluator
-    implements ComponentCleanupEvaluator
+    implements ComponentCleanupEvaluator, SqlCleanupEvaluator
 {
   private static final Logger log = LoggerFactory.getLogger(LastDownloadedCleanupEvaluator.class);
 
@@ -63,6 +65,20 @@ public class LastDownloadedCleanupEvaluator
     };
   }
 
+  /*
+   * Mirrors the predicate: the latest of each asset's last downloaded (or blob created) time must be before the cut
+   * time, and the comparison is false when no asset has either.
+   */
+  @Override
+  public String getFilter(final Repository repository, final String value, final Map<String, Object> filterParams) {
+    filterParams.put(LAST_DOWNLOADED_KEY, OffsetDateTime.now().minusSeconds(Long.valueOf(value)));
+
+    return "(SELECT MAX(COALESCE(A.last_downloaded, B.blob_created)) FROM " + CleanupTables.asset(repository) + " A"
+        + " LEFT JOIN " + CleanupTables.assetBlob(repository) + " B ON A.asset_blob_id = B.asset_blob_id"
+        + " WHERE A.component_id = " + CleanupTables.component(repository) + ".component_id)"
+        + " < #{filterParams." + LAST_DOWNLOADED_KEY + "}";
+  }
+
   private OffsetDateTime blobCreated(final Asset asset) {
     return asset.blob().map(AssetBlob::blobCreated).orElse(null);
   }
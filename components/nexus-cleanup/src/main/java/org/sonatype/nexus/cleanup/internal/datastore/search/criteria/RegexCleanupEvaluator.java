@@ -12,6 +12,7 @@
  */
 package org.sonatype.nexus.cleanup.internal.datastore.search.criteria;
 
+import java.util.Map;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -20,6 +21,7 @@ import javax.inject.Named;
 
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.cleanup.datastore.search.criteria.AssetCleanupEvaluator;
+import org.sonatype.nexus.cleanup.datastore.search.criteria.SqlCleanupEvaluator;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.content.Asset;
 
@@ -33,8 +35,22 @@ import static org.sonatype.nexus.cleanup.config.CleanupPolicyConstants.REGEX_KEY
 @Named(REGEX_KEY)
 public class RegexCleanupEvaluator
     extends ComponentSupport
-    implements AssetCleanupEvaluator
+    implements AssetCleanupEvaluator, SqlCleanupEvaluator
 {
+  /**
+   * Java regular expressions limited to constructs which mean the same in the database's (POSIX) dialect: escaped
+   * punctuation, the {@code \d}, {@code \s} and {@code \w} classes, and plain, non-capturing or look-ahead groups.
+   * Expressions using anything else, such as {@code \b} (a backspace in POSIX), are only evaluated in Java.
+   */
+  private static final Pattern PORTABLE_REGEX = Pattern.compile(
+      "(?:[^\\\\(]|\\\\[dDsSwW\\p{Punct}]|\\((?!\\?)|\\(\\?[:=!])*+");
+
+  /**
+   * Possessive quantifiers, POSIX bracket expressions and class intersections, which the database doesn't support or
+   * reads differently.
+   */
+  private static final Pattern NON_PORTABLE_REGEX = Pattern.compile("[*+?}]\\+|\\[[:.=]|&&");
+
   /*
    * Value is expected to be a regular expression which Java understands.
    */
@@ -52,4 +68,21 @@ public class RegexCleanupEvaluator
           String.format("Repository %s specifies an invalid regular expression.", repository.getName()), e);
     }
   }
+
+  /*
+   * Some asset of the component must have a matching path; the expression is anchored as the predicate matches
+   * entire paths.
+   */
+  @Override
+  public String getFilter(final Repository repository, final String value, final Map<String, Object> filterParams) {
+    if (!PORTABLE_REGEX.matcher(value).matches() || NON_PORTABLE_REGEX.matcher(value).find()) {
+      log.debug("Evaluating regular expression '{}' of repository {} in Java", value, repository.getName());
+      return null;
+    }
+    filterParams.put(REGEX_KEY, "^(?:" + value + ")$");
+
+    return "EXISTS (SELECT 1 FROM " + CleanupTables.asset(repository) + " A"
+        + " WHERE A.component_id = " + CleanupTables.component(repository) + ".component_id"
+        + " AND A.path ~ #{filterParams." + REGEX_KEY + "})";
+  }
 }
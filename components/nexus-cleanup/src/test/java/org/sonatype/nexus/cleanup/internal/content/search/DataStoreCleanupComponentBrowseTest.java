@@ -0,0 +1,133 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.cleanup.internal.content.search;
+
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.Map;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.cleanup.datastore.search.criteria.AssetCleanupEvaluator;
+import org.sonatype.nexus.cleanup.datastore.search.criteria.ComponentCleanupEvaluator;
+import org.sonatype.nexus.cleanup.internal.datastore.search.criteria.LastDownloadedCleanupEvaluator;
+import org.sonatype.nexus.cleanup.internal.datastore.search.criteria.RegexCleanupEvaluator;
+import org.sonatype.nexus.cleanup.storage.CleanupPolicy;
+import org.sonatype.nexus.repository.Format;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.content.facet.ContentFacet;
+import org.sonatype.nexus.repository.content.fluent.FluentComponent;
+import org.sonatype.nexus.repository.content.fluent.FluentComponents;
+import org.sonatype.nexus.repository.content.fluent.FluentQuery;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.cleanup.config.CleanupPolicyConstants.IS_PRERELEASE_KEY;
+import static org.sonatype.nexus.cleanup.config.CleanupPolicyConstants.LAST_DOWNLOADED_KEY;
+import static org.sonatype.nexus.cleanup.config.CleanupPolicyConstants.REGEX_KEY;
+
+public class DataStoreCleanupComponentBrowseTest
+    extends TestSupport
+{
+  @Mock
+  private Repository repository;
+
+  @Mock
+  private ContentFacet contentFacet;
+
+  @Mock
+  private FluentComponents components;
+
+  @Mock
+  private FluentQuery<FluentComponent> filteredComponents;
+
+  @Mock
+  private CleanupPolicy policy;
+
+  @Mock
+  private ComponentCleanupEvaluator prereleaseEvaluator;
+
+  private DataStoreCleanupComponentBrowse underTest;
+
+  @Before
+  public void setUp() {
+    when(repository.getFormat()).thenReturn(new Format("maven2") { });
+    when(repository.facet(ContentFacet.class)).thenReturn(contentFacet);
+    when(contentFacet.components()).thenReturn(components);
+    when(components.byFilter(anyString(), any())).thenReturn(filteredComponents);
+
+    Map<String, ComponentCleanupEvaluator> componentCriteria = ImmutableMap.of(
+        LAST_DOWNLOADED_KEY, new LastDownloadedCleanupEvaluator(),
+        IS_PRERELEASE_KEY, prereleaseEvaluator);
+    Map<String, AssetCleanupEvaluator> assetCriteria = ImmutableMap.of(REGEX_KEY, new RegexCleanupEvaluator());
+
+    underTest = new DataStoreCleanupComponentBrowse(componentCriteria, assetCriteria);
+  }
+
+  @Test
+  public void criteriaAreEvaluatedByTheDatabase() {
+    when(policy.getCriteria()).thenReturn(ImmutableMap.of(
+        LAST_DOWNLOADED_KEY, "86400",
+        REGEX_KEY, "org/foo/.*\\.jar",
+        IS_PRERELEASE_KEY, "true"));
+
+    assertThat(underTest.getComponentQuery(repository, policy), is(sameInstance(filteredComponents)));
+
+    ArgumentCaptor<String> filter = ArgumentCaptor.forClass(String.class);
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Map<String, Object>> filterParams = ArgumentCaptor.forClass(Map.class);
+    verify(components).byFilter(filter.capture(), filterParams.capture());
+
+    assertThat(filter.getValue(), is("((SELECT MAX(COALESCE(A.last_downloaded, B.blob_created))"
+        + " FROM maven2_asset A LEFT JOIN maven2_asset_blob B ON A.asset_blob_id = B.asset_blob_id"
+        + " WHERE A.component_id = maven2_component.component_id) < #{filterParams.lastDownloaded})"
+        + " AND (EXISTS (SELECT 1 FROM maven2_asset A WHERE A.component_id = maven2_component.component_id"
+        + " AND A.path ~ #{filterParams.regex}))"));
+    assertThat(filterParams.getValue().get(LAST_DOWNLOADED_KEY), instanceOf(OffsetDateTime.class));
+    assertThat(filterParams.getValue(), hasEntry(REGEX_KEY, "^(?:org/foo/.*\\.jar)$"));
+    assertThat(filterParams.getValue(), not(hasKey(IS_PRERELEASE_KEY)));
+  }
+
+  @Test
+  public void regularExpressionsWithJavaOnlyConstructsAreEvaluatedInJava() {
+    when(policy.getCriteria()).thenReturn(Collections.singletonMap(REGEX_KEY, "\\bfoo.*+"));
+
+    assertThat(underTest.getComponentQuery(repository, policy), is(sameInstance(components)));
+    verify(components, never()).byFilter(anyString(), any());
+  }
+
+  @Test
+  public void componentsAreBrowsedWithTheirAssets() {
+    when(policy.getCriteria()).thenReturn(Collections.singletonMap(LAST_DOWNLOADED_KEY, "86400"));
+
+    underTest.getComponentBrowser(repository, policy).browse(10, null);
+
+    verify(filteredComponents).browseEager(eq(10), eq(null));
+  }
+}
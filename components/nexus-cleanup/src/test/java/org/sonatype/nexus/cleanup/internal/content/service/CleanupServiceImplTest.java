@@ -13,8 +13,13 @@
 package org.sonatype.nexus.cleanup.internal.content.service;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.sonatype.goodies.testsupport.TestSupport;
@@ -24,6 +29,7 @@ import org.sonatype.nexus.cleanup.content.search.CleanupComponentBrowse;
 import org.sonatype.nexus.cleanup.internal.method.CleanupMethod;
 import org.sonatype.nexus.cleanup.storage.CleanupPolicy;
 import org.sonatype.nexus.cleanup.storage.CleanupPolicyStorage;
+import org.sonatype.nexus.common.entity.Continuations;
 import org.sonatype.nexus.repository.Format;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.Type;
@@ -35,7 +41,10 @@ import org.sonatype.nexus.repository.types.GroupType;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
 import org.elasticsearch.search.SearchContextMissingException;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -48,8 +57,11 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonMap;
 import static java.util.stream.Stream.empty;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assume.assumeFalse;
 import static org.junit.Assume.assumeTrue;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
@@ -161,6 +173,11 @@ public class CleanupServiceImplTest
     when(cleanupFeatureCheck.isRetainSupported(any())).thenReturn(true);
   }
 
+  @After
+  public void tearDown() {
+    ThreadContext.unbindSubject();
+  }
+
   @Test
   public void fetchPolicyForEachRepositoryAndRunCleanup() throws Exception {
     underTest.cleanup(cancelledCheck);
@@ -373,4 +390,32 @@ public class CleanupServiceImplTest
 
     return components;
   }
+
+  @Test
+  public void deleteBatchesConcurrently() {
+    Subject subject = mock(Subject.class);
+    when(subject.associateWith(any(Callable.class))).then(returnsFirstArg());
+    ThreadContext.bind(subject);
+
+    int componentCount = Continuations.BROWSE_LIMIT * 2 + 1;
+    List<FluentComponent> components = IntStream.range(0, componentCount)
+        .mapToObj(i -> mock(FluentComponent.class))
+        .collect(Collectors.toList());
+    when(browseService.browse(cleanupPolicy1, repository1)).thenReturn(components.stream());
+
+    AtomicLong deleted = new AtomicLong();
+    when(cleanupMethod.run(any(), any(), any())).thenAnswer(invocation -> {
+      DeletionProgress progress = new DeletionProgress();
+      progress.addComponentCount(((Stream<?>) invocation.getArgument(1)).count());
+      deleted.addAndGet(progress.getComponentCount());
+      return progress;
+    });
+
+    underTest.configureConcurrency(2, 2);
+    underTest.cleanup(cancelledCheck);
+
+    verify(cleanupMethod, times(3)).run(eq(repository1), any(), eq(cancelledCheck));
+    verify(cleanupMethod).run(eq(repository2), any(), eq(cancelledCheck));
+    assertThat(deleted.get(), is(componentCount + 1L));
+  }
 }
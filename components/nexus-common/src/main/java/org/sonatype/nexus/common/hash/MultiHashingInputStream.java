@@ -21,6 +21,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hasher;
@@ -31,6 +32,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 /**
  * An {@link InputStream} that maintains multiple hashes and the number of bytes of data read from it.
  *
+ * When more than one hash is maintained the hashers are updated in parallel on a shared pool of worker threads, so
+ * reading takes about as long as computing the slowest hash alone.
+ *
  * @see HashingInputStream
  * @since 3.0
  */
@@ -39,6 +43,9 @@ public class MultiHashingInputStream
 {
   private final Map<HashAlgorithm, Hasher> hashers = new LinkedHashMap<>();
 
+  @Nullable
+  private final PipelinedHasher pipeline;
+
   private long count;
 
   public MultiHashingInputStream(final Iterable<HashAlgorithm> algorithms, final InputStream inputStream) {
@@ -47,14 +54,20 @@ public class MultiHashingInputStream
     for (HashAlgorithm algorithm : algorithms) {
       hashers.put(algorithm, algorithm.function().newHasher());
     }
+    pipeline = PipelinedHasher.create(hashers.values());
   }
 
   @Override
   public int read() throws IOException {
     int b = in.read();
     if (b != -1) {
-      for (Hasher hasher : hashers.values()) {
-        hasher.putByte((byte) b);
+      if (pipeline != null) {
+        pipeline.putByte((byte) b);
+      }
+      else {
+        for (Hasher hasher : hashers.values()) {
+          hasher.putByte((byte) b);
+        }
       }
       count++;
     }
@@ -65,8 +78,13 @@ public class MultiHashingInputStream
   public int read(@Nonnull final byte[] bytes, final int off, final int len) throws IOException {
     int numRead = in.read(bytes, off, len);
     if (numRead != -1) {
-      for (Hasher hasher : hashers.values()) {
-        hasher.putBytes(bytes, off, numRead);
+      if (pipeline != null) {
+        pipeline.putBytes(bytes, off, numRead);
+      }
+      else {
+        for (Hasher hasher : hashers.values()) {
+          hasher.putBytes(bytes, off, numRead);
+        }
       }
       count += numRead;
     }
@@ -92,6 +110,9 @@ public class MultiHashingInputStream
    * Gets the {@link HashCode}s based on the data read from this stream.
    */
   public Map<HashAlgorithm, HashCode> hashes() {
+    if (pipeline != null) {
+      pipeline.finish();
+    }
     Map<HashAlgorithm, HashCode> hashes = new HashMap<>(hashers.size());
     for (Entry<HashAlgorithm, Hasher> entry : hashers.entrySet()) {
       hashes.put(entry.getKey(), entry.getValue().hash());
@@ -0,0 +1,220 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.common.hash;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.hash.Hasher;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import static org.sonatype.nexus.common.property.SystemPropertiesHelper.getBoolean;
+import static org.sonatype.nexus.common.property.SystemPropertiesHelper.getInteger;
+
+/**
+ * Feeds data to several {@link Hasher}s at once, each hasher being updated on a shared pool of worker threads.
+ *
+ * Data is collected into buffers which are handed to the workers when full; every hasher sees the buffers in order.
+ * Each stream uses a bounded number of buffers, recycled as soon as all hashers are done with them, so a fast reader
+ * waits for the slowest digest instead of queueing up content. Data which fits in a single buffer is hashed on the
+ * calling thread when the hashes are requested, so small content doesn't pay for the hand-over; the first buffer starts
+ * small and grows with the content, so small content doesn't pay for a full buffer either.
+ *
+ * Not thread-safe; meant to be driven by a single stream.
+ *
+ * @since 3.72
+ */
+class PipelinedHasher
+{
+  private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+
+  private static final boolean ENABLED = getBoolean("nexus.hashing.pipelined", true) && PROCESSORS > 1;
+
+  private static final int BUFFER_SIZE = getInteger("nexus.hashing.pipelined.bufferSize", 64 * 1024);
+
+  private static final int MAX_BUFFERS = getInteger("nexus.hashing.pipelined.maxBuffers", 4);
+
+  private static final int INITIAL_BUFFER_SIZE = Math.min(BUFFER_SIZE, 4 * 1024);
+
+  private final Hasher[] hashers;
+
+  private final CompletableFuture<?>[] tails;
+
+  private final BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<>(MAX_BUFFERS);
+
+  private int allocatedBuffers;
+
+  private byte[] buffer;
+
+  private int filled;
+
+  private boolean dispatched;
+
+  private PipelinedHasher(final Collection<Hasher> hashers) {
+    this.hashers = hashers.toArray(new Hasher[0]);
+    this.tails = new CompletableFuture<?>[this.hashers.length];
+    for (int i = 0; i < tails.length; i++) {
+      tails[i] = CompletableFuture.completedFuture(null);
+    }
+  }
+
+  /**
+   * Returns a pipelined hasher for the given hashers, or {@code null} if they are best updated on the calling thread.
+   */
+  @Nullable
+  static PipelinedHasher create(final Collection<Hasher> hashers) {
+    return ENABLED && hashers.size() > 1 ? new PipelinedHasher(hashers) : null;
+  }
+
+  void putByte(final byte b) throws IOException {
+    makeRoom(1);
+    buffer[filled++] = b;
+  }
+
+  void putBytes(final byte[] bytes, final int off, final int len) throws IOException {
+    int offset = off;
+    int remaining = len;
+    while (remaining > 0) {
+      makeRoom(remaining);
+      int n = Math.min(remaining, buffer.length - filled);
+      System.arraycopy(bytes, offset, buffer, filled, n);
+      filled += n;
+      offset += n;
+      remaining -= n;
+    }
+  }
+
+  /**
+   * Waits until all hashers have seen the data put so far.
+   */
+  void finish() {
+    if (!dispatched) {
+      if (filled > 0) {
+        for (Hasher hasher : hashers) {
+          hasher.putBytes(buffer, 0, filled);
+        }
+        filled = 0;
+      }
+      return;
+    }
+    if (filled > 0) {
+      dispatch();
+    }
+    try {
+      CompletableFuture.allOf(tails).join();
+    }
+    catch (CompletionException e) {
+      Throwables.throwIfUnchecked(Throwables.getRootCause(e));
+      throw e;
+    }
+  }
+
+  /**
+   * Hands the current buffer to the workers, one task per hasher; the buffer is recycled once all tasks have run.
+   */
+  private void dispatch() {
+    byte[] chunk = buffer;
+    int length = filled;
+    AtomicInteger pending = new AtomicInteger(hashers.length);
+    for (int i = 0; i < hashers.length; i++) {
+      Hasher hasher = hashers[i];
+      tails[i] = tails[i].handleAsync((ignored, failure) -> {
+        try {
+          if (failure != null) {
+            throw new CompletionException(failure);
+          }
+          hasher.putBytes(chunk, 0, length);
+          return null;
+        }
+        finally {
+          if (pending.decrementAndGet() == 0) {
+            freeBuffers.offer(chunk);
+          }
+        }
+      }, Workers.EXECUTOR);
+    }
+    buffer = null;
+    filled = 0;
+    dispatched = true;
+  }
+
+  /**
+   * Makes room in the current buffer, growing the first buffer towards the full size before anything is dispatched.
+   */
+  private void makeRoom(final int wanted) throws IOException {
+    if (buffer == null) {
+      acquireBuffer(wanted);
+    }
+    else if (filled == buffer.length) {
+      if (buffer.length < BUFFER_SIZE) {
+        buffer = Arrays.copyOf(buffer, bufferSize(buffer.length * 2, filled + wanted));
+      }
+      else {
+        dispatch();
+        acquireBuffer(wanted);
+      }
+    }
+  }
+
+  private void acquireBuffer(final int wanted) throws IOException {
+    buffer = freeBuffers.poll();
+    if (buffer == null) {
+      if (allocatedBuffers < MAX_BUFFERS) {
+        buffer = new byte[allocatedBuffers == 0 ? bufferSize(INITIAL_BUFFER_SIZE, wanted) : BUFFER_SIZE];
+        allocatedBuffers++;
+      }
+      else {
+        try {
+          buffer = freeBuffers.take();
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for hashing to catch up");
+        }
+      }
+    }
+    filled = 0;
+  }
+
+  @VisibleForTesting
+  int bufferCapacity() {
+    return buffer != null ? buffer.length : 0;
+  }
+
+  private static int bufferSize(final int size, final int wanted) {
+    return Math.min(BUFFER_SIZE, Math.max(size, wanted));
+  }
+
+  /**
+   * Lazily started pool of worker threads shared by all pipelined hashers.
+   */
+  private static class Workers
+  {
+    static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+        getInteger("nexus.hashing.pipelined.threads", PROCESSORS),
+        new ThreadFactoryBuilder().setNameFormat("nexus-hashing-%d").setDaemon(true).build());
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.common.thread;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sonatype.nexus.common.property.SystemPropertiesHelper.getBoolean;
+
+/**
+ * Helper to run blocking work on virtual threads when the JDK supports them (21 and later).
+ *
+ * Virtual threads are used only when {@code nexus.virtualThreads.enabled} is {@code true}; the JDK API is reached
+ * reflectively so callers still compile and run on older JDKs, where they fall back to platform threads.
+ *
+ * Virtual threads are cheap to create and are never pooled, so thread-locals only last as long as the task.
+ * Work that blocks while holding a monitor (for example in {@code synchronized} blocks or piped streams) pins the
+ * carrier thread and should stay on platform threads.
+ *
+ * @since 3.72
+ */
+public final class VirtualThreads
+{
+  public static final String ENABLED_PROPERTY = "nexus.virtualThreads.enabled";
+
+  private static final Logger log = LoggerFactory.getLogger(VirtualThreads.class);
+
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  private static final boolean supported = detectSupport();
+
+  private VirtualThreads() {
+    // static utility class
+  }
+
+  /**
+   * Does the running JDK support virtual threads?
+   */
+  public static boolean isSupported() {
+    return supported;
+  }
+
+  /**
+   * Are virtual threads supported and enabled?
+   */
+  public static boolean isEnabled() {
+    return supported && getBoolean(ENABLED_PROPERTY, false);
+  }
+
+  /**
+   * Returns a factory of virtual threads named {@code name-N}.
+   *
+   * @throws UnsupportedOperationException if virtual threads are not {@link #isSupported() supported}
+   */
+  public static ThreadFactory newThreadFactory(final String name) {
+    checkNotNull(name);
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+      return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+    }
+    catch (ReflectiveOperationException | LinkageError e) {
+      throw new UnsupportedOperationException("Virtual threads are not supported", e);
+    }
+  }
+
+  /**
+   * Notifies the listener with the JFR event each time a virtual thread blocks while pinned to its carrier for longer
+   * than the JFR threshold (20ms by default). Close the returned monitor to stop listening.
+   *
+   * @return {@code null} if pinning can't be monitored on this JDK
+   */
+  @Nullable
+  public static AutoCloseable monitorPinning(final Consumer<Object> listener) {
+    checkNotNull(listener);
+    if (!supported) {
+      return null;
+    }
+    try {
+      Class<?> streamType = Class.forName("jdk.jfr.consumer.RecordingStream");
+      AutoCloseable stream = (AutoCloseable) streamType.getConstructor().newInstance();
+      try {
+        streamType.getMethod("enable", String.class).invoke(stream, PINNED_EVENT);
+        streamType.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT, listener);
+        streamType.getMethod("startAsync").invoke(stream);
+        return stream;
+      }
+      catch (ReflectiveOperationException | RuntimeException e) {
+        stream.close();
+        throw e;
+      }
+    }
+    catch (Exception | LinkageError e) {
+      log.debug("Unable to monitor pinning of virtual threads", e);
+      return null;
+    }
+  }
+
+  private static boolean detectSupport() {
+    try {
+      Thread.class.getMethod("ofVirtual").invoke(null); // fails on JDKs where virtual threads are still a preview
+      return true;
+    }
+    catch (ReflectiveOperationException | RuntimeException e) { // NOSONAR
+      return false;
+    }
+  }
+}
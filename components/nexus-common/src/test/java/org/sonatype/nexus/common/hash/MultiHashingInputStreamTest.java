@@ -15,8 +15,11 @@ package org.sonatype.nexus.common.hash;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
 
 import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteStreams;
 import org.junit.Test;
 
@@ -46,6 +49,55 @@ public class MultiHashingInputStreamTest
     assertThat(andUseHashingStream.count(), is(equalTo(byteArrayLength)));
   }
 
+  @Test
+  public void allHashesAreAccurateForLargeContent() throws IOException {
+    byte[] bytes = new byte[5 * 1024 * 1024 + 17];
+    new Random(42).nextBytes(bytes);
+
+    MultiHashingInputStream hashingStream =
+        new MultiHashingInputStream(HashAlgorithm.ALL_HASH_ALGORITHMS.values(), new ByteArrayInputStream(bytes));
+    ByteStreams.copy(hashingStream, ByteStreams.nullOutputStream());
+
+    assertHashes(hashingStream.hashes(), bytes);
+    assertThat(hashingStream.count(), is((long) bytes.length));
+  }
+
+  @Test
+  public void allHashesAreAccurateForMixedReads() throws IOException {
+    byte[] bytes = new byte[300 * 1024];
+    new Random(7).nextBytes(bytes);
+
+    MultiHashingInputStream hashingStream =
+        new MultiHashingInputStream(HashAlgorithm.ALL_HASH_ALGORITHMS.values(), new ByteArrayInputStream(bytes));
+    byte[] buffer = new byte[10_000];
+    while (hashingStream.read() != -1) {
+      if (hashingStream.read(buffer, 3, 9_000) == -1) {
+        break;
+      }
+    }
+
+    assertHashes(hashingStream.hashes(), bytes);
+  }
+
+  @Test
+  public void allHashesAreAccurateForSmallContent() throws IOException {
+    byte[] bytes = "small".getBytes("UTF-8");
+
+    MultiHashingInputStream hashingStream =
+        new MultiHashingInputStream(HashAlgorithm.ALL_HASH_ALGORITHMS.values(), new ByteArrayInputStream(bytes));
+    ByteStreams.copy(hashingStream, ByteStreams.nullOutputStream());
+
+    assertHashes(hashingStream.hashes(), bytes);
+  }
+
+  @SuppressWarnings("deprecation")
+  private static void assertHashes(final Map<HashAlgorithm, HashCode> hashes, final byte[] bytes) {
+    assertThat(hashes.get(HashAlgorithm.MD5), is(Hashing.md5().hashBytes(bytes)));
+    assertThat(hashes.get(HashAlgorithm.SHA1), is(Hashing.sha1().hashBytes(bytes)));
+    assertThat(hashes.get(HashAlgorithm.SHA256), is(Hashing.sha256().hashBytes(bytes)));
+    assertThat(hashes.get(HashAlgorithm.SHA512), is(Hashing.sha512().hashBytes(bytes)));
+  }
+
   private MultiHashingInputStream createAndUseHashingStream(final byte[] bytes) throws IOException {
     final MultiHashingInputStream hashingStream = new MultiHashingInputStream(
         Arrays.asList(HashAlgorithm.SHA512), new ByteArrayInputStream(bytes));
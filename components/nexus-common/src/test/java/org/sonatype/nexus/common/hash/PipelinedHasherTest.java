@@ -0,0 +1,81 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.common.hash;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests for {@link PipelinedHasher}.
+ */
+public class PipelinedHasherTest
+{
+  private static final List<HashFunction> FUNCTIONS = asList(Hashing.sha256(), Hashing.sha512());
+
+  private List<Hasher> hashers;
+
+  private PipelinedHasher underTest;
+
+  @Before
+  public void setUp() {
+    hashers = FUNCTIONS.stream().map(HashFunction::newHasher).collect(Collectors.toList());
+    underTest = PipelinedHasher.create(hashers);
+    assumeTrue("pipelined hashing is disabled", underTest != null);
+  }
+
+  @Test
+  public void smallContentOnlyUsesASmallBuffer() throws Exception {
+    byte[] bytes = new byte[100];
+    new Random(1).nextBytes(bytes);
+
+    underTest.putByte(bytes[0]);
+    underTest.putBytes(bytes, 1, bytes.length - 1);
+
+    assertThat(underTest.bufferCapacity(), is(4 * 1024));
+
+    underTest.finish();
+
+    assertHashes(bytes);
+  }
+
+  @Test
+  public void firstBufferGrowsWithTheContent() throws Exception {
+    byte[] bytes = new byte[200 * 1024 + 3];
+    new Random(2).nextBytes(bytes);
+
+    for (int offset = 0; offset < bytes.length; offset += 3_000) {
+      underTest.putBytes(bytes, offset, Math.min(3_000, bytes.length - offset));
+    }
+    underTest.finish();
+
+    assertHashes(bytes);
+  }
+
+  private void assertHashes(final byte[] bytes) {
+    for (int i = 0; i < hashers.size(); i++) {
+      assertThat(hashers.get(i).hash(), is(FUNCTIONS.get(i).hashBytes(bytes)));
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.common.thread;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assume.assumeFalse;
+
+/**
+ * Tests for {@link VirtualThreads} on JDKs without virtual threads.
+ */
+public class VirtualThreadsTest
+    extends TestSupport
+{
+  @Before
+  public void setUp() {
+    assumeFalse("JDK supports virtual threads", VirtualThreads.isSupported());
+    System.setProperty(VirtualThreads.ENABLED_PROPERTY, "true");
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty(VirtualThreads.ENABLED_PROPERTY);
+  }
+
+  @Test
+  public void notEnabledWhenUnsupported() {
+    assertThat(VirtualThreads.isEnabled(), is(false));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void threadFactoryIsUnsupported() {
+    VirtualThreads.newThreadFactory("test");
+  }
+
+  @Test
+  public void pinningIsNotMonitored() {
+    assertThat(VirtualThreads.monitorPinning(event -> { }), is(nullValue()));
+  }
+}
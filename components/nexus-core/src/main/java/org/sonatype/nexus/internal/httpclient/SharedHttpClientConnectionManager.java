@@ -13,7 +13,14 @@
 package org.sonatype.nexus.internal.httpclient;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+import javax.annotation.Nullable;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -23,16 +30,28 @@ import org.sonatype.goodies.common.Time;
 import org.sonatype.goodies.lifecycle.Lifecycle;
 import org.sonatype.nexus.httpclient.SSLContextSelector;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.primitives.Ints;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.impl.conn.DefaultHttpClientConnectionOperator;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static com.codahale.metrics.MetricRegistry.name;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sonatype.nexus.common.app.ManagedLifecycleManager.isShuttingDown;
 import static org.sonatype.nexus.httpclient.HttpSchemes.HTTP;
@@ -43,6 +62,11 @@ import static org.sonatype.nexus.httpclient.HttpSchemes.HTTPS;
 /**
  * Shared {@link PoolingHttpClientConnectionManager}.
  *
+ * Connections are pooled per upstream host; {@code nexus.httpclient.connectionpool.hostSizes} overrides the pool size
+ * of busy hosts, e.g. {@code registry-1.docker.io=50,repo1.maven.org=40}. When metrics are available the whole pool
+ * reports its leased, available, pending and maximum connections, and the time spent waiting for a connection; each
+ * host listed in {@code hostSizes} reports the same metrics of its own.
+ *
  * @since 3.0
  */
 @Named("shared")
@@ -57,6 +81,18 @@ public class SharedHttpClientConnectionManager
 
   private final Time connectionPoolEvictingDelayTime;
 
+  private final Map<String, Integer> hostSizes;
+
+  /**
+   * Routes to the hosts listed in {@link #hostSizes}; routes are dropped once the pool has closed all their connections.
+   */
+  private final Set<HttpRoute> knownRoutes = ConcurrentHashMap.newKeySet();
+
+  private final Set<String> knownHosts = ConcurrentHashMap.newKeySet();
+
+  @Nullable
+  private MetricRegistry metricRegistry;
+
   private ConnectionEvictionThread evictionThread;
 
   @Inject
@@ -67,7 +103,8 @@ public class SharedHttpClientConnectionManager
       @Named("${nexus.httpclient.connectionpool.idleTime:-30s}") final Time connectionPoolIdleTime,
       @Named("${nexus.httpclient.connectionpool.evictingDelayTime:-5s}") final Time connectionPoolEvictingDelayTime,
       @Named("${nexus.httpclient.connectionpool.validateAfterInactivityTime:-2s}") final Time connectionPoolValidateAfterInactivityTime,
-      @Named("${nexus.httpclient.connectionpool.default.requestTimeout:-20s}") final Time defaultSocketTimeout)
+      @Named("${nexus.httpclient.connectionpool.default.requestTimeout:-20s}") final Time defaultSocketTimeout,
+      @Named("${nexus.httpclient.connectionpool.hostSizes:-}") final String hostSizes)
   {
     super(
         new DefaultHttpClientConnectionOperator(createRegistry(sslContextSelectors), null, null),
@@ -90,6 +127,37 @@ public class SharedHttpClientConnectionManager
 
     setDefaultSocketConfig(SocketConfig.custom().setSoTimeout(defaultSocketTimeout.toMillisI()).build());
     log.debug("Default socket timeout {}", defaultSocketTimeout);
+
+    this.hostSizes = parseHostSizes(hostSizes, connectionPoolMaxSize);
+    log.debug("Connection pool host sizes: {}", this.hostSizes);
+  }
+
+  @Inject
+  public void setMetricRegistry(final MetricRegistry metricRegistry) {
+    this.metricRegistry = checkNotNull(metricRegistry);
+    registerGauge(name(SharedHttpClientConnectionManager.class, "leased"), () -> getTotalStats().getLeased());
+    registerGauge(name(SharedHttpClientConnectionManager.class, "available"), () -> getTotalStats().getAvailable());
+    registerGauge(name(SharedHttpClientConnectionManager.class, "pending"), () -> getTotalStats().getPending());
+    registerGauge(name(SharedHttpClientConnectionManager.class, "max"), () -> getTotalStats().getMax());
+  }
+
+  /**
+   * Parses {@code host=size} entries; malformed entries and sizes below one are logged and ignored rather than failing
+   * startup.
+   */
+  @VisibleForTesting
+  static Map<String, Integer> parseHostSizes(final String hostSizes, final int connectionPoolMaxSize) {
+    Map<String, Integer> sizes = new ConcurrentHashMap<>();
+    for (String entry : Splitter.on(',').trimResults().omitEmptyStrings().split(hostSizes)) {
+      List<String> hostAndSize = Splitter.on('=').trimResults().limit(2).splitToList(entry);
+      Integer size = hostAndSize.size() == 2 ? Ints.tryParse(hostAndSize.get(1)) : null;
+      if (hostAndSize.get(0).isEmpty() || size == null || size <= 0) {
+        log.warn("Ignoring invalid connection pool host size: {}", entry);
+        continue;
+      }
+      sizes.put(hostAndSize.get(0).toLowerCase(), Math.min(size, connectionPoolMaxSize));
+    }
+    return sizes;
   }
 
   private static Registry<ConnectionSocketFactory> createRegistry(final List<SSLContextSelector> sslContextSelectors) {
@@ -99,6 +167,97 @@ public class SharedHttpClientConnectionManager
     return builder.build();
   }
 
+  @Override
+  public ConnectionRequest requestConnection(final HttpRoute route, final Object state) {
+    Integer size = hostSizes.get(route.getTargetHost().getHostName().toLowerCase());
+    if (size != null && knownRoutes.add(route)) {
+      routeAdded(route, size);
+    }
+    ConnectionRequest request = super.requestConnection(route, state);
+    if (metricRegistry == null) {
+      return request;
+    }
+    Timer leaseWait = metricRegistry.timer(name(SharedHttpClientConnectionManager.class, "lease-wait"));
+    Timer hostLeaseWait = size != null
+        ? metricRegistry.timer(name(SharedHttpClientConnectionManager.class, host(route), "lease-wait"))
+        : null;
+    return new ConnectionRequest()
+    {
+      @Override
+      public HttpClientConnection get(final long timeout, final TimeUnit timeUnit)
+          throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException
+      {
+        long start = System.nanoTime();
+        try {
+          return request.get(timeout, timeUnit);
+        }
+        finally {
+          long elapsed = System.nanoTime() - start;
+          leaseWait.update(elapsed, TimeUnit.NANOSECONDS);
+          if (hostLeaseWait != null) {
+            hostLeaseWait.update(elapsed, TimeUnit.NANOSECONDS);
+          }
+        }
+      }
+
+      @Override
+      public boolean cancel() {
+        return request.cancel();
+      }
+    };
+  }
+
+  /**
+   * Applies the configured pool size to a new route to a listed host and starts reporting metrics for that host.
+   */
+  private void routeAdded(final HttpRoute route, final int size) {
+    setMaxPerRoute(route, size);
+    log.debug("Connection pool size of {}: {}", route, size);
+
+    String host = host(route);
+    if (metricRegistry != null && knownHosts.add(host)) {
+      registerHostGauge(host, "leased", PoolStats::getLeased);
+      registerHostGauge(host, "available", PoolStats::getAvailable);
+      registerHostGauge(host, "pending", PoolStats::getPending);
+      registerHostGauge(host, "max", PoolStats::getMax);
+    }
+  }
+
+  private void registerHostGauge(final String host, final String metric, final ToIntFunction<PoolStats> stat) {
+    registerGauge(name(SharedHttpClientConnectionManager.class, host, metric), () ->
+        knownRoutes.stream()
+            .filter(route -> host.equals(host(route)))
+            .mapToInt(route -> stat.applyAsInt(getStats(route)))
+            .sum());
+  }
+
+  private void registerGauge(final String name, final Gauge<Integer> gauge) {
+    metricRegistry.register(name, gauge);
+  }
+
+  /**
+   * Also forgets routes the pool dropped after closing their last connection.
+   */
+  @Override
+  public void closeIdleConnections(final long idleTimeout, final TimeUnit timeUnit) {
+    super.closeIdleConnections(idleTimeout, timeUnit);
+    if (!knownRoutes.isEmpty()) {
+      knownRoutes.retainAll(getRoutes());
+    }
+  }
+
+  @VisibleForTesting
+  Set<HttpRoute> knownRoutes() {
+    return knownRoutes;
+  }
+
+  /**
+   * Upstream key used to group metrics, routes to the same host through different proxies share it.
+   */
+  private static String host(final HttpRoute route) {
+    return route.getTargetHost().toHostString();
+  }
+
   /**
    * Do nothing in order to avoid unwanted shutdown of shared connection manager.
    *
@@ -129,6 +288,15 @@ public class SharedHttpClientConnectionManager
     // underlying pool cannot be restarted, so avoid shutting it down when bouncing the service
     if (isShuttingDown()) {
       super.shutdown();
+      removeMetrics();
+    }
+  }
+
+  private void removeMetrics() {
+    if (metricRegistry != null) {
+      String prefix = SharedHttpClientConnectionManager.class.getName() + '.';
+      metricRegistry.removeMatching((name, metric) -> name.startsWith(prefix));
+      knownHosts.clear();
     }
   }
 }
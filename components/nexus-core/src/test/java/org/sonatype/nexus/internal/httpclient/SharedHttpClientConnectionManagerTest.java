@@ -0,0 +1,145 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.httpclient;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.goodies.common.Time;
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link SharedHttpClientConnectionManager}.
+ */
+public class SharedHttpClientConnectionManagerTest
+    extends TestSupport
+{
+  private static final HttpRoute CENTRAL = new HttpRoute(new HttpHost("repo1.maven.org", 443, "https"));
+
+  private static final HttpRoute OTHER = new HttpRoute(new HttpHost("example.com", 443, "https"));
+
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+
+  private SharedHttpClientConnectionManager underTest;
+
+  @Before
+  public void setUp() {
+    underTest = new SharedHttpClientConnectionManager(Collections.emptyList(), 20, 200, Time.seconds(30),
+        Time.seconds(5), Time.seconds(2), Time.seconds(20), "repo1.maven.org=40, Example.com=500");
+    underTest.setMetricRegistry(metricRegistry);
+  }
+
+  @After
+  public void tearDown() {
+    underTest.close();
+  }
+
+  @Test
+  public void hostSizesOverrideTheDefaultPoolSize() throws Exception {
+    underTest.requestConnection(CENTRAL, null).cancel();
+    underTest.requestConnection(OTHER, null).cancel();
+
+    assertThat(underTest.getMaxPerRoute(CENTRAL), is(40));
+    assertThat(underTest.getMaxPerRoute(OTHER), is(200));
+    assertThat(underTest.getMaxPerRoute(new HttpRoute(new HttpHost("localhost"))), is(20));
+  }
+
+  @Test
+  public void invalidHostSizesAreIgnored() {
+    Map<String, Integer> sizes = SharedHttpClientConnectionManager.parseHostSizes(
+        "a.example.com=ten, b.example.com, =5, c.example.com=0, d.example.com=-1, e.example.com=30, f.example.com=500",
+        200);
+
+    assertThat(sizes, is(ImmutableMap.of("e.example.com", 30, "f.example.com", 200)));
+  }
+
+  @Test
+  public void poolIsMeasuredPerUpstreamHost() throws Exception {
+    HttpClientConnection connection = underTest.requestConnection(CENTRAL, null).get(1, TimeUnit.SECONDS);
+
+    assertThat(gauge("repo1.maven.org:443", "leased"), is(1));
+    assertThat(gauge("repo1.maven.org:443", "available"), is(0));
+    assertThat(gauge("repo1.maven.org:443", "max"), is(40));
+
+    underTest.releaseConnection(connection, null, 1, TimeUnit.MINUTES);
+
+    assertThat(gauge("repo1.maven.org:443", "leased"), is(0));
+    assertThat(gauge("repo1.maven.org:443", "pending"), is(0));
+    assertThat(metricRegistry.timer(metric("repo1.maven.org:443", "lease-wait")).getCount(), is(1L));
+  }
+
+  @Test
+  public void unlistedHostsAreOnlyMeasuredInTotal() throws Exception {
+    HttpRoute localhost = new HttpRoute(new HttpHost("localhost", 8081, "http"));
+    HttpClientConnection connection = underTest.requestConnection(localhost, null).get(1, TimeUnit.SECONDS);
+
+    assertThat(totalGauge("leased"), is(1));
+    assertThat(metricRegistry.getGauges().containsKey(metric("localhost:8081", "leased")), is(false));
+    assertThat(underTest.knownRoutes(), is(empty()));
+
+    underTest.releaseConnection(connection, null, 1, TimeUnit.MINUTES);
+
+    assertThat(totalGauge("leased"), is(0));
+    assertThat(metricRegistry.timer(name(SharedHttpClientConnectionManager.class, "lease-wait")).getCount(), is(1L));
+    assertThat(metricRegistry.getTimers().containsKey(metric("localhost:8081", "lease-wait")), is(false));
+  }
+
+  @Test
+  public void closedRoutesAreDropped() throws Exception {
+    HttpClientConnection connection = underTest.requestConnection(CENTRAL, null).get(1, TimeUnit.SECONDS);
+    underTest.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+
+    assertThat(underTest.knownRoutes(), contains(CENTRAL));
+
+    underTest.releaseConnection(connection, null, 1, TimeUnit.MINUTES);
+    underTest.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+
+    assertThat(underTest.knownRoutes(), is(empty()));
+    assertThat(gauge("repo1.maven.org:443", "leased"), is(0));
+
+    underTest.requestConnection(CENTRAL, null).cancel();
+
+    assertThat(underTest.knownRoutes(), contains(CENTRAL));
+    assertThat(underTest.getMaxPerRoute(CENTRAL), is(40));
+  }
+
+  private int totalGauge(final String metric) {
+    return (Integer) ((Gauge<?>) metricRegistry.getGauges()
+        .get(name(SharedHttpClientConnectionManager.class, metric))).getValue();
+  }
+
+  private int gauge(final String host, final String metric) {
+    return (Integer) ((Gauge<?>) metricRegistry.getGauges().get(metric(host, metric))).getValue();
+  }
+
+  private static String metric(final String host, final String metric) {
+    return name(SharedHttpClientConnectionManager.class, host, metric);
+  }
+}
@@ -55,4 +55,28 @@ public interface DataSession<T extends Transaction>
    * @since 3.26
    */
   String sqlDialect();
+
+  /**
+   * Groups the writes made in this session into JDBC batches until the current transaction ends.
+   *
+   * Meant for bulk operations that run many identical writes in one transaction. Batched writes don't report how many
+   * rows they changed, and keys generated by the database are only set on the written entities when the batch is sent;
+   * this happens before any query or different write runs, or when {@link #flushWrites()} is called.
+   *
+   * Data stores that don't support batching ignore this request.
+   *
+   * @since 3.72
+   */
+  default void batchWrites() {
+    // batching is optional
+  }
+
+  /**
+   * Sends any batched writes to the database, reporting errors such as constraint violations.
+   *
+   * @since 3.72
+   */
+  default void flushWrites() {
+    // nothing batched
+  }
 }
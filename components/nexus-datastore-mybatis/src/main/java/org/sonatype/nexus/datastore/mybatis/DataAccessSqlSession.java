@@ -20,6 +20,7 @@ import org.sonatype.nexus.common.app.FrozenException;
 import org.sonatype.nexus.datastore.api.DataAccessException;
 
 import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.mapping.Environment;
@@ -44,12 +45,32 @@ import org.apache.ibatis.transaction.TransactionFactory;
 final class DataAccessSqlSession
     extends DefaultSqlSession
 {
+  private final Executor executor;
+
   public DataAccessSqlSession(final Configuration configuration) {
-    this(configuration, null);
+    this(configuration, (TransactionIsolationLevel) null);
   }
 
   public DataAccessSqlSession(final Configuration configuration, final TransactionIsolationLevel isolationLevel) {
-    super(configuration, newExecutor(configuration, isolationLevel));
+    this(configuration, newExecutor(configuration, isolationLevel));
+  }
+
+  private DataAccessSqlSession(final Configuration configuration, final Executor executor) {
+    super(configuration, executor);
+    this.executor = executor;
+  }
+
+  /**
+   * Groups the following writes into JDBC batches until the current transaction ends.
+   *
+   * @see EntityExecutor#batchWrites(int)
+   *
+   * @since 3.72
+   */
+  public void batchWrites(final int flushSize) {
+    if (executor instanceof EntityExecutor) {
+      ((EntityExecutor) executor).batchWrites(flushSize);
+    }
   }
 
   @Override
@@ -87,6 +108,16 @@ final class DataAccessSqlSession
     }
   }
 
+  @Override
+  public List<BatchResult> flushStatements() {
+    try {
+      return super.flushStatements();
+    }
+    catch (PersistenceException e) {
+      throw unwrapMyBatisException(e);
+    }
+  }
+
   @Override
   public void commit(final boolean force) {
     try {
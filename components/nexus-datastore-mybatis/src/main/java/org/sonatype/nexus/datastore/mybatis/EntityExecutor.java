@@ -26,8 +26,11 @@ import org.sonatype.nexus.datastore.api.SerializedAccessException;
 
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.BatchExecutorException;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlCommandType;
@@ -36,14 +39,18 @@ import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static java.util.Collections.emptyList;
 import static org.apache.ibatis.mapping.SqlCommandType.INSERT;
 import static org.sonatype.nexus.datastore.mybatis.CombUUID.combUUID;
 
 /**
  * MyBatis {@link Executor} wrapper that automatically generates {@link EntityId}s for new entities.
  *
+ * Writes can also be grouped into JDBC batches for the rest of a transaction, see {@link #batchWrites(int)}.
+ *
  * @since 3.19
  */
 final class EntityExecutor
@@ -56,6 +63,16 @@ final class EntityExecutor
   @Nullable
   private List<HasEntityId> generatedEntityIds;
 
+  @Nullable
+  private Executor batch;
+
+  @Nullable
+  private MappedStatement batchedStatement;
+
+  private int batchFlushSize;
+
+  private int batchedCount;
+
   public EntityExecutor(final Executor delegate, final FrozenChecker frozenChecker) {
     this.delegate = checkNotNull(delegate);
     this.frozenChecker = checkNotNull(frozenChecker);
@@ -71,6 +88,9 @@ final class EntityExecutor
       generateEntityId((HasEntityId) parameter);
     }
     try {
+      if (batchFlushSize > 0) {
+        return batchUpdate(ms, parameter);
+      }
       return delegate.update(ms, parameter);
     }
     catch (SQLException e) {
@@ -88,6 +108,7 @@ final class EntityExecutor
       throws SQLException
   {
     try {
+      flushBatch();
       return delegate.query(ms, parameter, rowBounds, resultHandler, cacheKey, boundSql);
     }
     catch (SQLException e) {
@@ -103,6 +124,7 @@ final class EntityExecutor
       throws SQLException
   {
     try {
+      flushBatch();
       return delegate.query(ms, parameter, rowBounds, resultHandler);
     }
     catch (SQLException e) {
@@ -117,6 +139,7 @@ final class EntityExecutor
       throws SQLException
   {
     try {
+      flushBatch();
       return delegate.queryCursor(ms, parameter, rowBounds);
     }
     catch (SQLException e) {
@@ -127,7 +150,13 @@ final class EntityExecutor
   @Override
   public List<BatchResult> flushStatements() throws SQLException {
     try {
-      return delegate.flushStatements();
+      List<BatchResult> batchResults = flushBatch();
+      if (batchResults.isEmpty()) {
+        return delegate.flushStatements();
+      }
+      List<BatchResult> results = new ArrayList<>(batchResults);
+      results.addAll(delegate.flushStatements());
+      return results;
     }
     catch (SQLException e) {
       throw mapException(e);
@@ -137,6 +166,7 @@ final class EntityExecutor
   @Override
   public void commit(final boolean required) throws SQLException {
     try {
+      flushBatch();
       delegate.commit(required);
       commitEntityIds();
     }
@@ -149,11 +179,15 @@ final class EntityExecutor
 
       throw e;
     }
+    finally {
+      endBatch();
+    }
   }
 
   @Override
   public void rollback(final boolean required) throws SQLException {
     rollbackEntityIds();
+    endBatch();
     try {
       delegate.rollback(required);
     }
@@ -201,6 +235,7 @@ final class EntityExecutor
     if (forceRollback) {
       rollbackEntityIds();
     }
+    endBatch();
     delegate.close(forceRollback);
   }
 
@@ -214,6 +249,76 @@ final class EntityExecutor
     delegate.setExecutorWrapper(executor);
   }
 
+  /**
+   * Groups the following inserts, updates and deletes into JDBC batches until the current transaction ends.
+   *
+   * Consecutive runs of the same statement share a batch, which is sent once it holds {@code flushSize} statements or
+   * before any query runs. Update counts aren't known until a batch is sent, so batched writes return
+   * {@link BatchExecutor#BATCH_UPDATE_RETURN_VALUE}. Keys generated by the database are set once the batch is sent;
+   * this happens before any different statement runs, as that statement may depend on those keys.
+   *
+   * @since 3.72
+   */
+  void batchWrites(final int flushSize) {
+    checkArgument(flushSize > 0, "Batch flush size must be positive");
+    this.batchFlushSize = flushSize;
+  }
+
+  /**
+   * Adds the write to the current batch, sending the batch when it's full.
+   */
+  private int batchUpdate(final MappedStatement ms, final Object parameter) throws SQLException {
+    if (batchedStatement != null && batchedStatement != ms
+        && batchedStatement.getKeyGenerator() instanceof Jdbc3KeyGenerator) {
+      flushBatch();
+    }
+    if (batch == null) {
+      batch = new BatchExecutor(ms.getConfiguration(), delegate.getTransaction());
+    }
+    delegate.clearLocalCache(); // results cached by earlier queries may be affected by this write
+    int result = batch.update(ms, parameter);
+    batchedStatement = ms;
+    if (++batchedCount >= batchFlushSize) {
+      flushBatch();
+    }
+    return result;
+  }
+
+  /**
+   * Sends any batched writes to the database.
+   */
+  private List<BatchResult> flushBatch() throws SQLException {
+    if (batchedStatement == null) {
+      return emptyList();
+    }
+    batchedStatement = null;
+    batchedCount = 0;
+    try {
+      return batch.flushStatements();
+    }
+    catch (BatchExecutorException e) {
+      throw e.getBatchUpdateException();
+    }
+  }
+
+  /**
+   * Stops batching writes, discarding any that haven't been sent.
+   */
+  private void endBatch() {
+    batchFlushSize = 0;
+    batchedStatement = null;
+    batchedCount = 0;
+    if (batch != null) {
+      try {
+        batch.rollback(false); // closes the batched statements, the transaction itself belongs to the delegate
+      }
+      catch (SQLException e) {
+        // NOSONAR: nothing left to send
+      }
+      batch = null;
+    }
+  }
+
   /**
    * Generates a new {@link EntityId} for the given entity.
    */
@@ -35,10 +35,22 @@ public final class MyBatisDataSession
 {
   private final SqlSession session;
 
+  private final int batchFlushSize;
+
   private Actions actions = new Actions();
 
   public MyBatisDataSession(final SqlSession session) {
+    this(session, 0);
+  }
+
+  /**
+   * @param batchFlushSize maximum number of writes sent in one JDBC batch when {@link #batchWrites() batching}
+   *
+   * @since 3.72
+   */
+  public MyBatisDataSession(final SqlSession session, final int batchFlushSize) {
     this.session = checkNotNull(session);
+    this.batchFlushSize = batchFlushSize;
   }
 
   @Override
@@ -66,6 +78,18 @@ public final class MyBatisDataSession
     actions.onRollback = addHook(actions.onRollback, hook);
   }
 
+  @Override
+  public void batchWrites() {
+    if (batchFlushSize > 0 && session instanceof DataAccessSqlSession) {
+      ((DataAccessSqlSession) session).batchWrites(batchFlushSize);
+    }
+  }
+
+  @Override
+  public void flushWrites() {
+    session.flushStatements();
+  }
+
   @Override
   public String sqlDialect() {
     return session.getConfiguration().getDatabaseId();
@@ -191,6 +191,8 @@ public class MyBatisDataStore
   @Nullable
   private Predicate<String> sensitiveAttributeFilter;
 
+  private int batchFlushSize = 1000;
+
   @Inject
   @Named(FeatureFlags.ORIENT_WARNING_NAMED)
   private boolean orientWarning;
@@ -352,7 +354,7 @@ public class MyBatisDataStore
   @Guarded(by = STARTED)
   @Override
   public MyBatisDataSession openSession() {
-    return new MyBatisDataSession(new DataAccessSqlSession(mybatisConfig));
+    return new MyBatisDataSession(new DataAccessSqlSession(mybatisConfig), batchFlushSize);
   }
 
   @Guarded(by = STARTED)
@@ -360,9 +362,9 @@ public class MyBatisDataStore
   public MyBatisDataSession openSession(final TransactionIsolation isolationLevel) {
     switch (isolationLevel) {
       case SERIALIZABLE:
-        return new MyBatisDataSession(new DataAccessSqlSession(mybatisConfig, SERIALIZABLE));
+        return new MyBatisDataSession(new DataAccessSqlSession(mybatisConfig, SERIALIZABLE), batchFlushSize);
       default:
-        return new MyBatisDataSession(new DataAccessSqlSession(mybatisConfig));
+        return new MyBatisDataSession(new DataAccessSqlSession(mybatisConfig), batchFlushSize);
     }
   }
 
@@ -414,6 +416,17 @@ public class MyBatisDataStore
     this.h2VersionUpgrader = checkNotNull(h2VersionUpgrader);
   }
 
+  /**
+   * Sets the maximum number of writes sent in one JDBC batch by sessions that
+   * {@link MyBatisDataSession#batchWrites() batch} their writes; zero or less disables batching.
+   *
+   * @since 3.72
+   */
+  @Inject
+  public void setBatchFlushSize(@Named("${nexus.datastore.batch.flushSize:-1000}") final int batchFlushSize) {
+    this.batchFlushSize = batchFlushSize;
+  }
+
   @Inject
   public void setManagedLifecycleManager(final ManagedLifecycleManager managedLifecycleManager) {
     this.managedLifecycleManager = checkNotNull(managedLifecycleManager);
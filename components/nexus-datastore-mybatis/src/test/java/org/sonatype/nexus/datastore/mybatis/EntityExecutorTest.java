@@ -12,6 +12,9 @@
  */
 package org.sonatype.nexus.datastore.mybatis;
 
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
 import org.sonatype.goodies.testsupport.TestSupport;
@@ -19,16 +22,29 @@ import org.sonatype.nexus.common.app.FrozenException;
 import org.sonatype.nexus.datastore.api.DuplicateKeyException;
 import org.sonatype.nexus.datastore.api.SerializedAccessException;
 
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
+import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.transaction.Transaction;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 
+import static org.apache.ibatis.mapping.SqlCommandType.INSERT;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -135,6 +151,93 @@ public class EntityExecutorTest
     verify(delegate, never()).update(ms, null);
   }
 
+  @Test
+  public void testBatchWrites() throws SQLException {
+    PreparedStatement statement = mockBatchConnection();
+    MappedStatement ms = insert("insertA", NoKeyGenerator.INSTANCE);
+
+    underTest.batchWrites(2);
+    assertThat(underTest.update(ms, null), is(BatchExecutor.BATCH_UPDATE_RETURN_VALUE));
+    underTest.update(ms, null);
+    verify(statement, times(2)).addBatch();
+    verify(statement).executeBatch();
+
+    underTest.update(ms, null);
+    underTest.query(null, null, null, null);
+    verify(statement, times(2)).executeBatch();
+    verify(delegate, never()).update(ms, null);
+    verify(delegate, times(3)).clearLocalCache();
+  }
+
+  @Test
+  public void testBatchWrites_generatedKeysFlushedBeforeOtherStatements() throws SQLException {
+    PreparedStatement statement = mockBatchConnection();
+    MappedStatement msWithKeys = insert("insertA", new Jdbc3KeyGenerator());
+    MappedStatement ms = insert("insertB", NoKeyGenerator.INSTANCE);
+
+    underTest.batchWrites(10);
+    underTest.update(ms, null);
+    underTest.update(msWithKeys, null);
+    underTest.update(msWithKeys, null);
+    verify(statement, never()).executeBatch();
+
+    underTest.update(ms, null);
+    verify(statement, times(2)).executeBatch();
+  }
+
+  @Test
+  public void testBatchWrites_endsWithTransaction() throws SQLException {
+    PreparedStatement statement = mockBatchConnection();
+    MappedStatement ms = insert("insertA", NoKeyGenerator.INSTANCE);
+
+    underTest.batchWrites(10);
+    underTest.update(ms, null);
+    underTest.commit(true);
+    verify(statement).executeBatch();
+    verify(delegate).commit(true);
+
+    underTest.update(ms, null);
+    verify(delegate).update(ms, null);
+
+    underTest.batchWrites(10);
+    underTest.update(ms, null);
+    underTest.rollback(true);
+    verify(statement).executeBatch();
+    verify(delegate).rollback(true);
+  }
+
+  @Test
+  public void testBatchWrites_exceptions() throws SQLException {
+    PreparedStatement statement = mockBatchConnection();
+    MappedStatement ms = insert("insertA", NoKeyGenerator.INSTANCE);
+    BatchUpdateException batchException = new BatchUpdateException("Batch failed", new int[0]);
+    batchException.setNextException(duplicateKeyException());
+    when(statement.executeBatch()).thenThrow(batchException);
+
+    underTest.batchWrites(10);
+    underTest.update(ms, null);
+    assertThrows(DuplicateKeyException.class, () -> underTest.flushStatements());
+  }
+
+  private PreparedStatement mockBatchConnection() throws SQLException {
+    Transaction transaction = mock(Transaction.class);
+    Connection connection = mock(Connection.class);
+    PreparedStatement statement = mock(PreparedStatement.class);
+    when(delegate.getTransaction()).thenReturn(transaction);
+    when(transaction.getConnection()).thenReturn(connection);
+    when(connection.prepareStatement(anyString())).thenReturn(statement);
+    when(connection.prepareStatement(anyString(), anyInt())).thenReturn(statement);
+    when(statement.executeBatch()).thenReturn(new int[0]);
+    return statement;
+  }
+
+  private static MappedStatement insert(final String id, final KeyGenerator keyGenerator) {
+    Configuration configuration = new Configuration();
+    return new MappedStatement.Builder(configuration, id, new StaticSqlSource(configuration, "INSERT " + id), INSERT)
+        .keyGenerator(keyGenerator)
+        .build();
+  }
+
   private static SQLException duplicateKeyException() {
     return new SQLException("Duplicate Key", DuplicateKeyException.SQL_STATE);
   }
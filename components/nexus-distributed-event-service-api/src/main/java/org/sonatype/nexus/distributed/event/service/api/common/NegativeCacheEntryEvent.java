@@ -0,0 +1,73 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.distributed.event.service.api.common;
+
+import org.sonatype.nexus.distributed.event.service.api.EventType;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Indicates that an entry was added to ({@link EventType#CREATED}) or removed from ({@link EventType#DELETED}) the
+ * negative cache of the provided repository. Entries are identified by the fingerprint of their cache key.
+ *
+ * @since 3.72
+ */
+public class NegativeCacheEntryEvent
+    extends DistributedEventSupport
+{
+  public static final String NAME = "NegativeCacheEntryEvent";
+
+  private final String repositoryName;
+
+  private final long fingerprint;
+
+  private final int statusCode;
+
+  @JsonCreator
+  public NegativeCacheEntryEvent(
+      @JsonProperty("eventType") final EventType eventType,
+      @JsonProperty("repositoryName") final String repositoryName,
+      @JsonProperty("fingerprint") final long fingerprint,
+      @JsonProperty("statusCode") final int statusCode)
+  {
+    super(eventType);
+    this.repositoryName = checkNotNull(repositoryName);
+    this.fingerprint = fingerprint;
+    this.statusCode = statusCode;
+  }
+
+  public String getRepositoryName() {
+    return repositoryName;
+  }
+
+  public long getFingerprint() {
+    return fingerprint;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  @Override
+  public String toString() {
+    return "NegativeCacheEntryEvent{" +
+        "eventType=" + getEventType() +
+        ", repositoryName='" + repositoryName + '\'' +
+        ", fingerprint=" + fingerprint +
+        ", statusCode=" + statusCode +
+        '}';
+  }
+}
@@ -20,7 +20,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 
@@ -34,7 +36,9 @@ import org.sonatype.nexus.repository.browse.node.BrowseNode;
 import org.sonatype.nexus.repository.browse.node.BrowsePath;
 import org.sonatype.nexus.repository.content.Component;
 import org.sonatype.nexus.repository.content.browse.store.BrowseNodeDAO;
+import org.sonatype.nexus.repository.content.browse.store.BrowseNodeData;
 import org.sonatype.nexus.repository.content.browse.store.BrowseNodeManager;
+import org.sonatype.nexus.repository.content.browse.store.BrowseNodeRebuild;
 import org.sonatype.nexus.repository.content.browse.store.BrowseNodeStore;
 import org.sonatype.nexus.repository.content.facet.ContentFacet;
 import org.sonatype.nexus.repository.content.facet.ContentFacetSupport;
@@ -79,6 +83,8 @@ public class BrowseFacetImpl
 
   private final int pageSize;
 
+  private boolean stagedRebuild = true;
+
   private String format;
 
   private BrowseNodeGenerator browseNodeGenerator;
@@ -98,6 +104,14 @@ public class BrowseFacetImpl
     this.pageSize = max(pageSize, 1);
   }
 
+  /**
+   * @since 3.72
+   */
+  @Inject
+  public void configureRebuild(@Named("${nexus.browse.rebuild.staged:-true}") final boolean stagedRebuild) {
+    this.stagedRebuild = stagedRebuild;
+  }
+
   @Override
   protected void doStart() throws Exception {
     ContentFacetSupport contentFacet = (ContentFacetSupport) getRepository().facet(ContentFacet.class);
@@ -136,7 +150,8 @@ public class BrowseFacetImpl
         .filter(Optional::isPresent)
         .map(Optional::get)
         .filter(fluentAsset -> !browseNodeManager.hasAssetNode(fluentAsset))
-        .forEach(fluentAsset -> createBrowseNodes(fluentAsset, componentsProcessed));
+        .forEach(fluentAsset -> createBrowseNodes(fluentAsset, componentsProcessed,
+            browseNodeManager::createBrowseNodes));
   }
 
   @Guarded(by = STARTED)
@@ -148,57 +163,111 @@ public class BrowseFacetImpl
   @Guarded(by = STARTED)
   @Override
   public void rebuildBrowseNodes(final Consumer<String> progressUpdater) {
-    log.info("Deleting browse nodes for repository {}", getRepository().getName());
+    String repositoryName = getRepository().getName();
+    try {
+      if (stagedRebuild) {
+        rebuildStagedBrowseNodes(progressUpdater);
+      }
+      else {
+        log.info("Deleting browse nodes for repository {}", repositoryName);
+
+        browseNodeManager.deleteBrowseNodes();
+
+        log.info("Rebuilding browse nodes for repository {}", repositoryName);
+
+        createAllBrowseNodes(progressUpdater, browseNodeManager::createBrowseNodes);
+      }
+    }
+    catch (Exception e) {
+      log.error("Unable to rebuild browse nodes for repository {}", repositoryName, e);
+    }
+  }
+
+  /**
+   * Rebuild browse nodes in a staging area, then replace the existing nodes with them. The existing nodes remain
+   * browsable until they are replaced.
+   */
+  private void rebuildStagedBrowseNodes(final Consumer<String> progressUpdater) {
+    String repositoryName = getRepository().getName();
 
-    browseNodeManager.deleteBrowseNodes();
+    log.info("Rebuilding browse nodes for repository {}", repositoryName);
 
-    log.info("Rebuilding browse nodes for repository {}", getRepository().getName());
+    try (BrowseNodeRebuild rebuild = browseNodeManager.startRebuild(pageSize)) {
+      String continuationToken = createAllBrowseNodes(progressUpdater, rebuild::stageBrowseNodes);
 
-    createAllBrowseNodes(progressUpdater);
+      int published = rebuild.publish();
+
+      log.info("Replaced browse nodes for repository {} with {} rebuilt nodes", repositoryName, published);
+
+      // catch up with assets added while the nodes were being staged
+      createRemainingBrowseNodes(continuationToken);
+    }
   }
 
   /**
    * Create browse nodes for every asset and their components in the repository.
+   *
+   * @return continuation token of the last page of assets
    */
-  private void createAllBrowseNodes(final Consumer<String> progressUpdater) {
+  @Nullable
+  private String createAllBrowseNodes(
+      final Consumer<String> progressUpdater,
+      final BiConsumer<List<BrowsePath>, Consumer<BrowseNodeData>> browseNodeCreator)
+  {
     String repositoryName = getRepository().getName();
-    try {
-      FluentAssets assets = getRepository().facet(ContentFacet.class).assets();
-
-      long total = assets.count();
-      if (total > 0) {
-        // useful for formats that have multiple assets per component
-        Map<Integer,Integer> processedComponents = newComponentCache();
-        ProgressLogIntervalHelper progressLogger = new ProgressLogIntervalHelper(log, 60);
-        Stopwatch sw = Stopwatch.createStarted();
-
-        long processed = 0;
-
-        Continuation<FluentAsset> page = assets.browse(pageSize, null);
-        while (!page.isEmpty()) {
-          page.forEach(fluentAsset -> createBrowseNodes(fluentAsset, processedComponents));
-          processed += page.size();
-
-          long elapsed = sw.elapsed(TimeUnit.MILLISECONDS);
-          progressLogger.info("Processed {} / {} {} assets in {} ms",
-              processed, total, repositoryName, elapsed);
-          if (progressUpdater != null) {
-            long percentageComplete = BigDecimal.valueOf(processed).divide(BigDecimal.valueOf(total),
-                2, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)).longValue();
-            progressUpdater.accept(
-                String.format("%d%% Complete", percentageComplete));
-          }
-
-          checkCancellation();
-
-          page = assets.browse(pageSize, page.nextContinuationToken());
+    String continuationToken = null;
+
+    FluentAssets assets = getRepository().facet(ContentFacet.class).assets();
+
+    long total = assets.count();
+    if (total > 0) {
+      // useful for formats that have multiple assets per component
+      Map<Integer,Integer> processedComponents = newComponentCache();
+      ProgressLogIntervalHelper progressLogger = new ProgressLogIntervalHelper(log, 60);
+      Stopwatch sw = Stopwatch.createStarted();
+
+      long processed = 0;
+
+      Continuation<FluentAsset> page = assets.browse(pageSize, null);
+      while (!page.isEmpty()) {
+        page.forEach(fluentAsset -> createBrowseNodes(fluentAsset, processedComponents, browseNodeCreator));
+        processed += page.size();
+        continuationToken = page.nextContinuationToken();
+
+        long elapsed = sw.elapsed(TimeUnit.MILLISECONDS);
+        progressLogger.info("Processed {} / {} {} assets in {} ms",
+            processed, total, repositoryName, elapsed);
+        if (progressUpdater != null) {
+          long percentageComplete = BigDecimal.valueOf(processed).divide(BigDecimal.valueOf(total),
+              2, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)).longValue();
+          progressUpdater.accept(
+              String.format("%d%% Complete", percentageComplete));
         }
 
-        progressLogger.flush(); // ensure the final progress message is flushed
+        checkCancellation();
+
+        page = assets.browse(pageSize, continuationToken);
       }
+
+      progressLogger.flush(); // ensure the final progress message is flushed
     }
-    catch (Exception e) {
-      log.error("Unable to rebuild browse nodes for repository {}", repositoryName, e);
+
+    return continuationToken;
+  }
+
+  /**
+   * Create browse nodes for assets after the given continuation token, and their components.
+   */
+  private void createRemainingBrowseNodes(@Nullable final String continuationToken) {
+    FluentAssets assets = getRepository().facet(ContentFacet.class).assets();
+
+    Map<Integer,Integer> processedComponents = newComponentCache();
+
+    Continuation<FluentAsset> page = assets.browse(pageSize, continuationToken);
+    while (!page.isEmpty()) {
+      page.forEach(fluentAsset -> createBrowseNodes(fluentAsset, processedComponents,
+          browseNodeManager::createBrowseNodes));
+      page = assets.browse(pageSize, page.nextContinuationToken());
     }
   }
 
@@ -206,23 +275,31 @@ public class BrowseFacetImpl
    * Create browse nodes for an asset and it's component.  Using a cache of component ids to limit component
    * nodes being recreated
    */
-  private void createBrowseNodes(final FluentAsset asset, final Map<Integer,Integer> componentsProcessed) {
+  private void createBrowseNodes(
+      final FluentAsset asset,
+      final Map<Integer,Integer> componentsProcessed,
+      final BiConsumer<List<BrowsePath>, Consumer<BrowseNodeData>> browseNodeCreator)
+  {
     if (browseNodeGenerator.hasMultipleAssetsPerComponent()) {
-      createAssetBrowseNodes(asset);
-      asset.component().ifPresent(component -> createComponentBrowseNodes(asset, component, componentsProcessed));
+      createAssetBrowseNodes(asset, browseNodeCreator);
+      asset.component().ifPresent(
+          component -> createComponentBrowseNodes(asset, component, componentsProcessed, browseNodeCreator));
     }
     else {
-      createCombinedAssetAndComponentBrowseNodes(asset);
+      createCombinedAssetAndComponentBrowseNodes(asset, browseNodeCreator);
     }
   }
 
   /**
    * Create browse nodes for each segment in an asset's path, assigning the asset to the final node
    */
-  private void createAssetBrowseNodes(final FluentAsset asset) {
+  private void createAssetBrowseNodes(
+      final FluentAsset asset,
+      final BiConsumer<List<BrowsePath>, Consumer<BrowseNodeData>> browseNodeCreator)
+  {
     List<BrowsePath> assetPaths = browseNodeGenerator.computeAssetPaths(asset);
     if (!assetPaths.isEmpty()) {
-      browseNodeManager.createBrowseNodes(assetPaths, node -> node.setAsset(asset));
+      browseNodeCreator.accept(assetPaths, node -> node.setAsset(asset));
     }
   }
 
@@ -233,14 +310,15 @@ public class BrowseFacetImpl
   private void createComponentBrowseNodes(
       final FluentAsset asset,
       final Component component,
-      final Map<Integer, Integer> componentsProcessed)
+      final Map<Integer, Integer> componentsProcessed,
+      final BiConsumer<List<BrowsePath>, Consumer<BrowseNodeData>> browseNodeCreator)
   {
     Integer internalComponentId = internalComponentId(component);
     // null will be returned when adding a key that isn't already in the cache
     if (componentsProcessed.put(internalComponentId, internalComponentId) == null) {
       List<BrowsePath> componentPaths = browseNodeGenerator.computeComponentPaths(asset);
       if (!componentPaths.isEmpty()) {
-        browseNodeManager.createBrowseNodes(componentPaths, node -> {
+        browseNodeCreator.accept(componentPaths, node -> {
           node.setComponent(component);
           findPackageUrl(component).map(PackageUrl::toString).ifPresent(node::setPackageUrl);
         });
@@ -251,10 +329,13 @@ public class BrowseFacetImpl
   /**
    * Create browse nodes for each segment in the asset's path, and assign the asset and component to the final node
    */
-  private void createCombinedAssetAndComponentBrowseNodes(final FluentAsset asset) {
+  private void createCombinedAssetAndComponentBrowseNodes(
+      final FluentAsset asset,
+      final BiConsumer<List<BrowsePath>, Consumer<BrowseNodeData>> browseNodeCreator)
+  {
     List<BrowsePath> assetPaths = browseNodeGenerator.computeAssetPaths(asset);
     if (!assetPaths.isEmpty()) {
-      browseNodeManager.createBrowseNodes(assetPaths, node -> {
+      browseNodeCreator.accept(assetPaths, node -> {
         node.setAsset(asset);
         asset.component().ifPresent(component -> {
           node.setComponent(component);
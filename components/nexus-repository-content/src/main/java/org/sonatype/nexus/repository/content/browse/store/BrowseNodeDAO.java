@@ -12,6 +12,7 @@
  */
 package org.sonatype.nexus.repository.content.browse.store;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -88,4 +89,30 @@ public interface BrowseNodeDAO
    * @return {@code true} if any browse nodes were deleted
    */
   boolean deleteBrowseNodes(@Param("repositoryId") int repositoryId, @Param("limit") int limit);
+
+  /**
+   * Stages browse nodes for a rebuild of the given repository, merging them with any nodes already staged.
+   *
+   * @param repositoryId the repository being rebuilt
+   * @param nodes the nodes to stage; must not contain the same display path twice
+   */
+  void stageBrowseNodes(@Param("repositoryId") int repositoryId, @Param("nodes") Collection<StagedBrowseNode> nodes);
+
+  /**
+   * Publishes the staged browse nodes at the given depth, under their already published parents.
+   *
+   * @param repositoryId the repository being rebuilt
+   * @param depth the depth of the nodes to publish, starting at zero for the root nodes
+   * @return number of browse nodes published
+   */
+  int publishStagedBrowseNodes(@Param("repositoryId") int repositoryId, @Param("depth") int depth);
+
+  /**
+   * Deletes the staged browse nodes of the given repository.
+   *
+   * @param repositoryId the repository being rebuilt
+   * @param limit when positive limits the number of staged browse nodes deleted per-call
+   * @return {@code true} if any staged browse nodes were deleted
+   */
+  boolean deleteStagedBrowseNodes(@Param("repositoryId") int repositoryId, @Param("limit") int limit);
 }
@@ -139,4 +139,13 @@ public class BrowseNodeManager
   public void deleteBrowseNodes() {
     browseNodeStore.deleteBrowseNodes(repositoryId);
   }
+
+  /**
+   * Starts rebuilding the browse nodes of the repository; close the rebuild once it has been published or abandoned.
+   *
+   * @param batchSize the number of nodes to stage at a time
+   */
+  public BrowseNodeRebuild startRebuild(final int batchSize) {
+    return new BrowseNodeRebuild(browseNodeStore, repositoryId, batchSize);
+  }
 }
@@ -0,0 +1,141 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.content.browse.store;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.repository.browse.node.BrowsePath;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Rebuilds the browse nodes of a repository without disturbing its existing tree.
+ *
+ * Nodes are merged in memory and written to a staging table in batches; folders shared by many assets are only
+ * written once while they're recently used. {@link #publish} then replaces the existing tree with the staged one in
+ * a single transaction, so the repository stays browsable throughout the rebuild.
+ *
+ * @since 3.72
+ */
+public class BrowseNodeRebuild
+    extends ComponentSupport
+    implements AutoCloseable
+{
+  private static final int RECENT_FOLDER_CACHE_SIZE = 10_000;
+
+  private final BrowseNodeStore<BrowseNodeDAO> browseNodeStore;
+
+  private final int repositoryId;
+
+  private final int batchSize;
+
+  private final Map<String, StagedBrowseNode> pending = new LinkedHashMap<>();
+
+  private final Map<String, String> recentFolders = new LinkedHashMap<String, String>(16, 0.75f, true)
+  {
+    @Override
+    protected boolean removeEldestEntry(final Entry<String, String> eldest) {
+      return size() > RECENT_FOLDER_CACHE_SIZE;
+    }
+  };
+
+  private long staged;
+
+  BrowseNodeRebuild(final BrowseNodeStore<BrowseNodeDAO> browseNodeStore, final int repositoryId, final int batchSize)
+  {
+    this.browseNodeStore = checkNotNull(browseNodeStore);
+    this.repositoryId = repositoryId;
+    checkArgument(batchSize > 0, "Must use a positive batch size");
+    this.batchSize = batchSize;
+
+    // discard anything left over from an earlier rebuild which didn't complete
+    browseNodeStore.deleteStagedBrowseNodes(repositoryId);
+  }
+
+  /**
+   * Stages browse nodes for the path, applying a final step to the last node.
+   */
+  public void stageBrowseNodes(final List<BrowsePath> paths, final Consumer<BrowseNodeData> finalStep) {
+    String parentPath = null;
+    for (int i = 0; i < paths.size(); i++) {
+      BrowsePath path = paths.get(i);
+      String displayPath = displayPath(parentPath, path.getDisplayName());
+      if (i == paths.size() - 1) {
+        BrowseNodeData node = new BrowseNodeData();
+        node.setRepositoryId(repositoryId);
+        node.setRequestPath(path.getRequestPath());
+        node.setDisplayName(path.getDisplayName());
+        finalStep.accept(node);
+        stage(new StagedBrowseNode(displayPath, parentPath, i, path.getDisplayName(), path.getRequestPath())
+            .assign(node));
+      }
+      else if (!path.getRequestPath().equals(recentFolders.put(displayPath, path.getRequestPath()))) {
+        stage(new StagedBrowseNode(displayPath, parentPath, i, path.getDisplayName(), path.getRequestPath()));
+      }
+      parentPath = displayPath;
+    }
+  }
+
+  /**
+   * Replaces the existing browse nodes of the repository with the staged nodes.
+   *
+   * @return number of browse nodes published
+   */
+  public int publish() {
+    flush();
+    log.debug("Publishing {} staged browse nodes in repository {}", staged, repositoryId);
+    return browseNodeStore.publishStagedBrowseNodes(repositoryId);
+  }
+
+  /**
+   * Discards the staged nodes.
+   */
+  @Override
+  public void close() {
+    pending.clear();
+    browseNodeStore.deleteStagedBrowseNodes(repositoryId);
+  }
+
+  private void stage(final StagedBrowseNode node) {
+    pending.merge(node.getDisplayPath(), node, StagedBrowseNode::merge);
+    if (pending.size() >= batchSize) {
+      flush();
+    }
+  }
+
+  private void flush() {
+    if (!pending.isEmpty()) {
+      List<StagedBrowseNode> nodes = new ArrayList<>(pending.values());
+      pending.clear();
+      browseNodeStore.stageBrowseNodes(repositoryId, nodes);
+      staged += nodes.size();
+    }
+  }
+
+  /**
+   * Display paths join the display names leading up to a node; any separators in the names are escaped.
+   */
+  private static String displayPath(@Nullable final String parentPath, final String displayName) {
+    String segment = displayName.replace("%", "%25").replace("/", "%2F");
+    return parentPath != null ? parentPath + '/' + segment : segment;
+  }
+}
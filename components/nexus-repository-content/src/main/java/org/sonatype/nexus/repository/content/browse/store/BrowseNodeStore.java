@@ -12,6 +12,7 @@
  */
 package org.sonatype.nexus.repository.content.browse.store;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -125,4 +126,52 @@ public class BrowseNodeStore<T extends BrowseNodeDAO>
     log.debug("Deleted all browse nodes in repository {}", repositoryId);
     return deleted;
   }
+
+  /**
+   * Stages browse nodes for a rebuild of the given repository, merging them with any nodes already staged.
+   *
+   * @param repositoryId the repository being rebuilt
+   * @param nodes the nodes to stage; must not contain the same display path twice
+   */
+  @Transactional
+  public void stageBrowseNodes(final int repositoryId, final Collection<StagedBrowseNode> nodes) {
+    dao().stageBrowseNodes(repositoryId, nodes);
+  }
+
+  /**
+   * Replaces all browse nodes in the given repository with its staged nodes, in a single transaction.
+   *
+   * @param repositoryId the repository being rebuilt
+   * @return number of browse nodes published
+   */
+  @Transactional
+  public int publishStagedBrowseNodes(final int repositoryId) {
+    log.debug("Replacing browse nodes in repository {} with staged nodes", repositoryId);
+    dao().deleteBrowseNodes(repositoryId, 0);
+    int published = 0;
+    int depth = 0;
+    int count;
+    // nodes are only published when their parent is, so stop at the first level without any
+    while ((count = dao().publishStagedBrowseNodes(repositoryId, depth++)) > 0) {
+      published += count;
+    }
+    log.debug("Published {} staged browse nodes in repository {}", published, repositoryId);
+    return published;
+  }
+
+  /**
+   * Deletes all staged browse nodes of the given repository.
+   *
+   * @param repositoryId the repository being rebuilt
+   * @return {@code true} if any staged browse nodes were deleted
+   */
+  @Transactional
+  public boolean deleteStagedBrowseNodes(final int repositoryId) {
+    boolean deleted = false;
+    while (dao().deleteStagedBrowseNodes(repositoryId, deleteBatchSize())) {
+      commitChangesSoFar();
+      deleted = true;
+    }
+    return deleted;
+  }
 }
@@ -0,0 +1,132 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.content.browse.store;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Browse node staged while rebuilding the tree of a repository.
+ *
+ * Staged nodes are identified by their display path, which is how {@link BrowseNodeDAO#mergeBrowseNode} identifies
+ * nodes, so they can be written in any order and linked to their parents when published.
+ *
+ * @since 3.72
+ */
+public class StagedBrowseNode
+{
+  private final String displayPath;
+
+  @Nullable
+  private final String parentPath;
+
+  private final int depth;
+
+  private final String displayName;
+
+  private String requestPath;
+
+  @Nullable
+  private Integer dbComponentId; // NOSONAR: internal id
+
+  @Nullable
+  private Integer dbAssetId; // NOSONAR: internal id
+
+  @Nullable
+  private String packageUrl;
+
+  StagedBrowseNode(
+      final String displayPath,
+      @Nullable final String parentPath,
+      final int depth,
+      final String displayName,
+      final String requestPath)
+  {
+    this.displayPath = checkNotNull(displayPath);
+    this.parentPath = parentPath;
+    this.depth = depth;
+    this.displayName = checkNotNull(displayName);
+    this.requestPath = checkNotNull(requestPath);
+  }
+
+  /**
+   * Copies the component, asset and package url assigned to the given node.
+   */
+  StagedBrowseNode assign(final BrowseNodeData node) {
+    this.dbComponentId = node.dbComponentId;
+    this.dbAssetId = node.dbAssetId;
+    this.packageUrl = node.getPackageUrl();
+    return this;
+  }
+
+  /**
+   * Merges a later staging of the same node, following the same rules as {@link BrowseNodeDAO#mergeBrowseNode}.
+   */
+  StagedBrowseNode merge(final StagedBrowseNode later) {
+    if (later.requestPath.endsWith("/")) {
+      requestPath = later.requestPath;
+    }
+    if (later.dbComponentId != null) {
+      dbComponentId = later.dbComponentId;
+      packageUrl = later.packageUrl;
+    }
+    if (later.dbAssetId != null) {
+      dbAssetId = later.dbAssetId;
+    }
+    return this;
+  }
+
+  public String getDisplayPath() {
+    return displayPath;
+  }
+
+  @Nullable
+  public String getParentPath() {
+    return parentPath;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public String getDisplayName() {
+    return displayName;
+  }
+
+  public String getRequestPath() {
+    return requestPath;
+  }
+
+  @Nullable
+  public Integer getDbComponentId() {
+    return dbComponentId;
+  }
+
+  @Nullable
+  public Integer getDbAssetId() {
+    return dbAssetId;
+  }
+
+  @Nullable
+  public String getPackageUrl() {
+    return packageUrl;
+  }
+
+  @Override
+  public String toString() {
+    return "StagedBrowseNode{" + "displayPath='" + displayPath + "', requestPath='" + requestPath + "', depth='" +
+        depth + "', packageUrl='" + packageUrl + "', dbComponentId='" + dbComponentId + "', dbAssetId='" + dbAssetId +
+        "}'";
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.content.group;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.common.app.FeatureFlag;
+import org.sonatype.nexus.common.event.EventAware;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.content.event.asset.AssetCreatedEvent;
+import org.sonatype.nexus.repository.content.event.asset.AssetEvent;
+import org.sonatype.nexus.repository.content.event.asset.AssetUploadedEvent;
+import org.sonatype.nexus.repository.group.GroupFacet;
+import org.sonatype.nexus.repository.manager.RepositoryManager;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sonatype.nexus.common.app.FeatureFlags.DATASTORE_ENABLED;
+
+/**
+ * Makes groups forget which member served a path when another member gains content for it, so that requests follow
+ * the group order again; see {@link GroupFacet#getMemberHit(String)}. Hits are invalidated by asset path, which groups
+ * only track for formats whose request paths are asset paths.
+ *
+ * @since 3.72
+ */
+@FeatureFlag(name = DATASTORE_ENABLED)
+@Named
+@Singleton
+public class GroupMemberHitEventHandler
+    extends ComponentSupport
+    implements EventAware // synchronous so groups stop preferring other members before the content is served
+{
+  private final RepositoryManager repositoryManager;
+
+  @Inject
+  public GroupMemberHitEventHandler(final RepositoryManager repositoryManager) {
+    this.repositoryManager = checkNotNull(repositoryManager);
+  }
+
+  @AllowConcurrentEvents
+  @Subscribe
+  public void on(final AssetCreatedEvent event) {
+    invalidateMemberHits(event);
+  }
+
+  @AllowConcurrentEvents
+  @Subscribe
+  public void on(final AssetUploadedEvent event) {
+    invalidateMemberHits(event);
+  }
+
+  private void invalidateMemberHits(final AssetEvent event) {
+    event.getRepository().ifPresent(member -> {
+      String path = event.getAsset().path();
+      for (String groupName : repositoryManager.findContainingGroups(member.getName())) {
+        Repository group = repositoryManager.get(groupName);
+        if (group != null) {
+          log.trace("Member {} of group {} has new content for {}", member, groupName, path);
+          group.optionalFacet(GroupFacet.class).ifPresent(facet -> facet.invalidateMemberHit(path));
+        }
+      }
+    });
+  }
+}
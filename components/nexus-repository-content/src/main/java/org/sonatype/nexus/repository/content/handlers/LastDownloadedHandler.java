@@ -48,9 +48,15 @@ public class LastDownloadedHandler
 {
   private final GlobalRepositorySettings globalSettings;
 
+  private final LastDownloadedRecorder lastDownloadedRecorder;
+
   @Inject
-  public LastDownloadedHandler(final GlobalRepositorySettings globalSettings) {
+  public LastDownloadedHandler(
+      final GlobalRepositorySettings globalSettings,
+      final LastDownloadedRecorder lastDownloadedRecorder)
+  {
     this.globalSettings = checkNotNull(globalSettings);
+    this.lastDownloadedRecorder = checkNotNull(lastDownloadedRecorder);
   }
 
   @Override
@@ -77,7 +83,10 @@ public class LastDownloadedHandler
   protected void maybeUpdateLastDownloaded(@Nullable final Asset asset) {
     if (asset != null && !isNextUpdateInFuture(asset.lastDownloaded())) {
       if (asset instanceof FluentAsset) {
-        ((FluentAsset) asset).markAsDownloaded();
+        // prefer deferring the update to a later bulk write, unless the recorder is unavailable or overloaded
+        if (!lastDownloadedRecorder.markAsDownloaded((FluentAsset) asset)) {
+          ((FluentAsset) asset).markAsDownloaded();
+        }
       }
       else {
         log.debug("Cannot mark read-only asset {} as downloaded", asset.path());
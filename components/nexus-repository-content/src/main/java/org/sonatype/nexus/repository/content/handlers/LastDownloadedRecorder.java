@@ -0,0 +1,296 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.content.handlers;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.lifecycle.LifecycleSupport;
+import org.sonatype.nexus.common.app.FeatureFlag;
+import org.sonatype.nexus.common.app.ManagedLifecycle;
+import org.sonatype.nexus.common.time.UTC;
+import org.sonatype.nexus.repository.content.Asset;
+import org.sonatype.nexus.repository.content.facet.ContentFacet;
+import org.sonatype.nexus.repository.content.facet.ContentFacetSupport;
+import org.sonatype.nexus.repository.content.fluent.FluentAsset;
+import org.sonatype.nexus.repository.content.store.AssetStore;
+import org.sonatype.nexus.scheduling.PeriodicJobService;
+import org.sonatype.nexus.scheduling.PeriodicJobService.PeriodicJob;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sonatype.nexus.common.app.FeatureFlags.DATASTORE_ENABLED;
+import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.SERVICES;
+import static org.sonatype.nexus.repository.content.store.InternalIds.internalAssetId;
+
+/**
+ * Write-behind recorder of asset last downloaded times.
+ *
+ * Downloads are coalesced per repository and asset in memory, then written to the content store in bulk updates
+ * either periodically or once enough downloads are pending. If too many downloads are pending the recorder refuses
+ * new ones so callers fall back to updating the asset directly. Anything still pending is written on shutdown so
+ * cleanup policies based on the last downloaded time stay correct; the content store is resolved when the download is
+ * recorded because repositories have already been destroyed by the time this recorder stops.
+ *
+ * @since 3.72
+ */
+@FeatureFlag(name = DATASTORE_ENABLED)
+@ManagedLifecycle(phase = SERVICES)
+@Named
+@Singleton
+public class LastDownloadedRecorder
+    extends LifecycleSupport
+{
+  private static final String RECORDER_KEY_PREFIX = "nexus.lastDownloaded.writeBehind.";
+
+  private static final String ENABLED_KEY = RECORDER_KEY_PREFIX + "enabled";
+
+  private static final String FLUSH_ON_COUNT_KEY = RECORDER_KEY_PREFIX + "flushOnCount";
+
+  private static final String FLUSH_ON_SECONDS_KEY = RECORDER_KEY_PREFIX + "flushOnSeconds";
+
+  private static final String MAX_PENDING_KEY = RECORDER_KEY_PREFIX + "maxPending";
+
+  private final PeriodicJobService periodicJobService;
+
+  private final boolean enabled;
+
+  private final int flushOnCount;
+
+  private final int flushOnSeconds;
+
+  private final int maxPending;
+
+  private final Map<PendingKey, PendingDownload> pendingDownloads = new ConcurrentHashMap<>();
+
+  private final AtomicInteger pendingCount = new AtomicInteger();
+
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+  private final Object flushMutex = new Object();
+
+  private final Meter recorded;
+
+  private final Meter rejected;
+
+  private final Meter failed;
+
+  private final Histogram batchSize;
+
+  private final Timer flushTimer;
+
+  private PeriodicJob flushTask;
+
+  @Inject
+  public LastDownloadedRecorder(
+      final PeriodicJobService periodicJobService,
+      final MetricRegistry metricRegistry,
+      @Named("${" + ENABLED_KEY + ":-true}") final boolean enabled,
+      @Named("${" + FLUSH_ON_COUNT_KEY + ":-500}") final int flushOnCount,
+      @Named("${" + FLUSH_ON_SECONDS_KEY + ":-5}") final int flushOnSeconds,
+      @Named("${" + MAX_PENDING_KEY + ":-50000}") final int maxPending)
+  {
+    this.periodicJobService = checkNotNull(periodicJobService);
+    this.enabled = enabled;
+    checkArgument(flushOnCount > 0, FLUSH_ON_COUNT_KEY + " must be positive");
+    this.flushOnCount = flushOnCount;
+    checkArgument(flushOnSeconds > 0, FLUSH_ON_SECONDS_KEY + " must be positive");
+    this.flushOnSeconds = flushOnSeconds;
+    checkArgument(maxPending >= flushOnCount, MAX_PENDING_KEY + " must be at least " + FLUSH_ON_COUNT_KEY);
+    this.maxPending = maxPending;
+
+    recorded = metricRegistry.meter(MetricRegistry.name(getClass(), "recorded"));
+    rejected = metricRegistry.meter(MetricRegistry.name(getClass(), "rejected"));
+    failed = metricRegistry.meter(MetricRegistry.name(getClass(), "failed"));
+    batchSize = metricRegistry.histogram(MetricRegistry.name(getClass(), "batchSize"));
+    flushTimer = metricRegistry.timer(MetricRegistry.name(getClass(), "flush"));
+    metricRegistry.gauge(MetricRegistry.name(getClass(), "pending"), () -> (Gauge<Integer>) pendingCount::get);
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    if (enabled) {
+      periodicJobService.startUsing();
+      flushTask = periodicJobService.schedule(this::flush, flushOnSeconds);
+    }
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    if (enabled) {
+      flushTask.cancel();
+      try {
+        flush();
+      }
+      finally {
+        periodicJobService.stopUsing();
+      }
+    }
+  }
+
+  /**
+   * Records that the given asset has just been downloaded.
+   *
+   * @return {@code false} if the download was not recorded and the caller should update the asset directly
+   */
+  public boolean markAsDownloaded(final FluentAsset asset) {
+    if (!enabled || !isStarted()) {
+      return false;
+    }
+    if (pendingCount.get() >= maxPending) {
+      log.debug("Too many pending downloads, cannot defer update of {}", asset.path());
+      rejected.mark();
+      requestFlush();
+      return false;
+    }
+
+    AssetStore<?> assetStore = ((ContentFacetSupport) asset.repository().facet(ContentFacet.class)).stores().assetStore;
+    PendingKey key = new PendingKey(assetStore, internalAssetId(asset));
+    if (pendingDownloads.put(key, new PendingDownload(asset)) == null
+        && pendingCount.incrementAndGet() >= flushOnCount) {
+      requestFlush();
+    }
+    recorded.mark();
+    return true;
+  }
+
+  @VisibleForTesting
+  int pendingCount() {
+    return pendingCount.get();
+  }
+
+  private void requestFlush() {
+    if (flushRequested.compareAndSet(false, true)) {
+      periodicJobService.runOnce(this::flush, 0);
+    }
+  }
+
+  /**
+   * Writes all pending downloads to their content stores in batches of at most {@code flushOnCount} assets.
+   */
+  @VisibleForTesting
+  void flush() {
+    synchronized (flushMutex) {
+      flushRequested.set(false);
+      Map<AssetStore<?>, Batch> batches = new HashMap<>();
+      for (Entry<PendingKey, PendingDownload> entry : pendingDownloads.entrySet()) {
+        // a download recorded since this entry was read replaces it and is left for the next flush
+        if (!pendingDownloads.remove(entry.getKey(), entry.getValue())) {
+          continue;
+        }
+        pendingCount.decrementAndGet();
+
+        AssetStore<?> assetStore = entry.getKey().assetStore;
+        Batch batch = batches.computeIfAbsent(assetStore, s -> new Batch());
+        batch.add(entry.getValue());
+        if (batch.assets.size() >= flushOnCount) {
+          writeBatch(assetStore, batch.assets, batch.lastDownloaded);
+          batches.remove(assetStore);
+        }
+      }
+      batches.forEach((assetStore, batch) -> writeBatch(assetStore, batch.assets, batch.lastDownloaded));
+    }
+  }
+
+  /**
+   * Writes a batch of downloads using the most recent download time; this may be later than some of the actual
+   * downloads in the batch by up to the flush period, which is well within the last downloaded interval.
+   */
+  private void writeBatch(
+      final AssetStore<?> assetStore,
+      final List<Asset> batch,
+      final OffsetDateTime lastDownloaded)
+  {
+    batchSize.update(batch.size());
+    try (Timer.Context ignored = flushTimer.time()) {
+      assetStore.markAsDownloaded(batch, lastDownloaded);
+    }
+    catch (RuntimeException e) {
+      log.warn("Failed to update last downloaded time of {} assets", batch.size(), log.isDebugEnabled() ? e : null);
+      failed.mark(batch.size());
+    }
+  }
+
+  private static final class PendingKey
+  {
+    final AssetStore<?> assetStore;
+
+    final int assetId;
+
+    PendingKey(final AssetStore<?> assetStore, final int assetId) {
+      this.assetStore = checkNotNull(assetStore);
+      this.assetId = assetId;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof PendingKey)) {
+        return false;
+      }
+      PendingKey that = (PendingKey) o;
+      return assetId == that.assetId && assetStore.equals(that.assetStore);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * assetStore.hashCode() + assetId;
+    }
+  }
+
+  private static class Batch
+  {
+    final List<Asset> assets = new ArrayList<>();
+
+    OffsetDateTime lastDownloaded;
+
+    void add(final PendingDownload download) {
+      assets.add(download.asset);
+      if (lastDownloaded == null || download.downloaded.isAfter(lastDownloaded)) {
+        lastDownloaded = download.downloaded;
+      }
+    }
+  }
+
+  private static class PendingDownload
+  {
+    final Asset asset;
+
+    final OffsetDateTime downloaded;
+
+    PendingDownload(final Asset asset) {
+      this.asset = asset;
+      this.downloaded = UTC.now();
+    }
+  }
+}
@@ -12,20 +12,23 @@
  */
 package org.sonatype.nexus.repository.content.search;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor.AbortPolicy;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nullable;
+import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.sonatype.goodies.lifecycle.LifecycleSupport;
@@ -49,6 +52,11 @@ import org.sonatype.nexus.scheduling.PeriodicJobService;
 import org.sonatype.nexus.scheduling.PeriodicJobService.PeriodicJob;
 import org.sonatype.nexus.thread.NexusThreadFactory;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.annotation.CachedGauge;
 import com.codahale.metrics.annotation.Gauge;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ArrayListMultimap;
@@ -60,6 +68,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.Integer.parseInt;
 import static java.lang.Thread.MIN_PRIORITY;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toList;
 import static org.sonatype.nexus.repository.content.search.SearchEventHandler.RequestType.INDEX;
@@ -74,8 +84,12 @@ import static org.sonatype.nexus.repository.content.store.InternalIds.toExternal
  * work on that thread by simply marking the component id as pending in a concurrent map.
  * A background task periodically grabs a page of components and sends them for indexing.
  *
- * If too many components build up events will start to be posted to flush additional pages.
- * These events are handled by an asynchronous receiver using threads from the event pool.
+ * If too many components build up then flush workers are started, up to the size of the flush pool. Each worker
+ * keeps flushing pages until the backlog drops below a page. Requests for the same component are coalesced while
+ * pending, and page sizes grow with the backlog (up to a maximum) so large imports are indexed in bigger batches.
+ *
+ * The number of pending requests is bounded; once it is exceeded the thread that triggered the event flushes a page
+ * itself, slowing down producers until indexing catches up.
  *
  * @since 3.26
  */
@@ -93,6 +107,12 @@ public abstract class SearchEventHandler
 
   protected static final String FLUSH_POOL_SIZE = HANDLER_KEY_PREFIX + "flushPoolSize";
 
+  protected static final String MAX_PENDING_KEY = HANDLER_KEY_PREFIX + "maxPending";
+
+  protected static final String MAX_BATCH_SIZE_KEY = HANDLER_KEY_PREFIX + "maxBatchSize";
+
+  private static final String METRIC_PREFIX = "nexus.search.eventHandler";
+
   enum RequestType
   {
     INDEX, PURGE
@@ -108,12 +128,26 @@ public abstract class SearchEventHandler
 
   private final boolean noPurgeDelay;
 
-  private final Map<String, String> pendingRequests = new ConcurrentHashMap<>();
+  private final Map<String, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
 
-  private final AtomicInteger pendingCount = new AtomicInteger();
+  private final AtomicInteger activeFlushes = new AtomicInteger();
 
   private final int poolSize;
 
+  private int maxPending = 50_000;
+
+  private int maxBatchSize = 1_000;
+
+  private MetricRegistry metricRegistry = new MetricRegistry();
+
+  private Histogram batchSizes;
+
+  private Meter throughput;
+
+  private Meter backPressure;
+
+  private Timer timeToSearchable;
+
   protected ThreadPoolExecutor threadPoolExecutor;
 
   private Object flushMutex = new Object();
@@ -128,7 +162,7 @@ public abstract class SearchEventHandler
       @Named("${" + FLUSH_ON_COUNT_KEY + ":-100}") final int flushOnCount,
       @Named("${" + FLUSH_ON_SECONDS_KEY + ":-2}") final int flushOnSeconds,
       @Named("${" + NO_PURGE_DELAY_KEY + ":-true}") final boolean noPurgeDelay,
-      @Named("${" + FLUSH_POOL_SIZE + ":-128}") final int poolSize)
+      @Named("${" + FLUSH_POOL_SIZE + ":-16}") final int poolSize)
   {
     this.repositoryManager = checkNotNull(repositoryManager);
     this.periodicJobService = checkNotNull(periodicJobService);
@@ -142,19 +176,46 @@ public abstract class SearchEventHandler
     this.poolSize = poolSize;
   }
 
+  /**
+   * @since 3.72
+   */
+  @Inject
+  public void configureBacklog(
+      @Named("${" + MAX_PENDING_KEY + ":-50000}") final int maxPending,
+      @Named("${" + MAX_BATCH_SIZE_KEY + ":-1000}") final int maxBatchSize)
+  {
+    checkArgument(maxPending > 0, MAX_PENDING_KEY + " must be positive");
+    this.maxPending = maxPending;
+    this.maxBatchSize = Math.max(maxBatchSize, flushOnCount);
+  }
+
+  /**
+   * @since 3.72
+   */
+  @Inject
+  public void setMetricRegistry(final MetricRegistry metricRegistry) {
+    this.metricRegistry = checkNotNull(metricRegistry);
+  }
+
   @Override
   protected void doStart() throws Exception {
+    batchSizes = metricRegistry.histogram(METRIC_PREFIX + ".batchSize");
+    throughput = metricRegistry.meter(METRIC_PREFIX + ".throughput");
+    backPressure = metricRegistry.meter(METRIC_PREFIX + ".backPressure");
+    timeToSearchable = metricRegistry.timer(METRIC_PREFIX + ".timeToSearchable");
+
     if (flushOnCount > 1) {
       periodicJobService.startUsing();
       flushTask = periodicJobService.schedule(this::pollSearchUpdateRequest, flushOnSeconds);
     }
 
+    // at most one task per flush worker is ever queued
     this.threadPoolExecutor = new ThreadPoolExecutor(
         poolSize, // core-size
         poolSize, // max-size
         0L, // keep-alive
         TimeUnit.MILLISECONDS,
-        new LinkedBlockingQueue<>(), // allow queueing up of requests
+        new ArrayBlockingQueue<>(poolSize),
         new NexusThreadFactory(getThreadPoolId(), "flushAndPurge", MIN_PRIORITY),
         new AbortPolicy());
   }
@@ -178,6 +239,28 @@ public abstract class SearchEventHandler
     return threadPoolExecutor.getQueue().size();
   }
 
+  /**
+   * @since 3.72
+   */
+  @Gauge(name = METRIC_PREFIX + ".pending")
+  public int pendingRequestCount() {
+    return pendingRequests.size();
+  }
+
+  /**
+   * Age in milliseconds of the oldest pending request.
+   *
+   * @since 3.72
+   */
+  @CachedGauge(name = METRIC_PREFIX + ".lag", timeout = 5, timeoutUnit = SECONDS)
+  public long pendingRequestLag() {
+    long now = System.nanoTime();
+    return pendingRequests.values().stream()
+        .mapToLong(request -> NANOSECONDS.toMillis(now - request.queuedAt))
+        .max()
+        .orElse(0);
+  }
+
   /**
    * Allow event processing to be disabled.
    *
@@ -198,6 +281,7 @@ public abstract class SearchEventHandler
     if (processEvents && componentId > 0) {
       markComponentAsPending(requestKey(format, componentId), repoTag(INDEX, repository));
       maybeTriggerAsyncFlush();
+      maybeApplyBackPressure();
     }
   }
 
@@ -212,6 +296,7 @@ public abstract class SearchEventHandler
     if (processEvents && componentId > 0) {
       markComponentAsPending(requestKey(format, componentId), repoTag(PURGE, repository));
       maybeTriggerAsyncPurge();
+      maybeApplyBackPressure();
     }
   }
 
@@ -313,6 +398,7 @@ public abstract class SearchEventHandler
     }
 
     maybeTriggerAsyncPurge();
+    maybeApplyBackPressure();
   }
 
   // no need to watch for AssetPurgeEvent because that's only sent when purging assets without components
@@ -350,39 +436,88 @@ public abstract class SearchEventHandler
   }
 
   private void markComponentAsPending(final String requestKey, final String repoTag) {
-    // bump count if this is the first time we've seen this request key in this batch
-    if (pendingRequests.put(requestKey, repoTag) == null) {
-      pendingCount.getAndIncrement();
-    }
+    // coalesce with any pending request for the same component, keeping the latest type and the earliest time
+    pendingRequests.merge(requestKey, new PendingRequest(repoTag, System.nanoTime()),
+        (pending, latest) -> new PendingRequest(latest.repoTag, pending.queuedAt));
   }
 
   private boolean maybeTriggerAsyncFlush() {
-    // if there are lots of pending requests then reduce count by a page and
-    // trigger an asynchronous flush event (which will actually do the work)
-    if (pendingCount.getAndUpdate(c -> c >= flushOnCount ? c - flushOnCount : c) >= flushOnCount) {
-      threadPoolExecutor.execute(() -> flushPageOfComponents(null));
-      return true;
-    }
-    return false;
+    // if there are lots of pending requests then start an asynchronous flush worker (which will actually do the work)
+    return pendingRequests.size() >= flushOnCount && startFlushWorker(null);
   }
 
   private boolean maybeTriggerAsyncPurge() {
     // if it's still too early to flush requests, but we don't want to delay
-    // outstanding purge requests then trigger an asynchronous purge event
-    if (!maybeTriggerAsyncFlush() && noPurgeDelay) {
-      threadPoolExecutor.execute(() -> flushPageOfComponents(PURGE));
+    // outstanding purge requests then trigger an asynchronous purge
+    return !maybeTriggerAsyncFlush() && noPurgeDelay && startFlushWorker(PURGE);
+  }
+
+  /**
+   * Flushes a page on the calling thread when too many requests are pending, to slow down producers.
+   */
+  private void maybeApplyBackPressure() {
+    if (pendingRequests.size() > maxPending) {
+      backPressure.mark();
+      flushPageOfComponents(null);
+    }
+  }
+
+  /**
+   * Starts a flush worker, unless all workers are busy in which case the running workers will pick up the work.
+   */
+  private boolean startFlushWorker(@Nullable final RequestType requestType) {
+    if (activeFlushes.getAndUpdate(n -> n < poolSize ? n + 1 : n) >= poolSize) {
+      return false;
+    }
+    try {
+      threadPoolExecutor.execute(() -> runFlushWorker(requestType));
       return true;
     }
-    return false;
+    catch (RejectedExecutionException e) {
+      activeFlushes.decrementAndGet();
+      log.debug("Unable to start search flush worker", e);
+      return false;
+    }
+  }
+
+  private void runFlushWorker(@Nullable final RequestType requestType) {
+    try {
+      if (requestType != null) {
+        flushPageOfComponents(requestType);
+      }
+      else {
+        while (pendingRequests.size() >= flushOnCount && !threadPoolExecutor.isShutdown()) {
+          flushPageOfComponents(null);
+        }
+      }
+    }
+    finally {
+      activeFlushes.decrementAndGet();
+    }
+    // catch any backlog that built up while this worker was finishing
+    if (requestType == null && !threadPoolExecutor.isShutdown()) {
+      maybeTriggerAsyncFlush();
+    }
   }
 
   /**
    * Used by scheduled flush task to poll for work.
    */
   void pollSearchUpdateRequest() {
-    if (pendingCount.get() > 0) {
+    if (!pendingRequests.isEmpty()) {
       flushPageOfComponents(null);
     }
+    // make sure a large backlog isn't left waiting for the next event
+    maybeTriggerAsyncFlush();
+  }
+
+  /**
+   * Returns the size of the next page; this grows with the backlog so it can be shared among the flush workers.
+   */
+  @VisibleForTesting
+  int nextPageSize() {
+    int workers = Math.max(1, activeFlushes.get());
+    return Math.max(flushOnCount, Math.min(maxBatchSize, pendingRequests.size() / workers));
   }
 
   /**
@@ -392,23 +527,32 @@ public abstract class SearchEventHandler
    */
   void flushPageOfComponents(@Nullable final RequestType requestType) {
     Multimap<String, EntityId> requestsByRepository = ArrayListMultimap.create();
+    List<Long> queuedTimes = new ArrayList<>();
 
     // only allow one thread to remove entries at a time while still allowing other threads to add entries
     synchronized (flushMutex) {
 
       // remove page and invert it to get mapping from repository to components
-      Iterator<Entry<String, String>> itr = pendingRequests.entrySet().iterator();
-      for (int i = 0; i < flushOnCount && itr.hasNext(); i++) {
-        Entry<String, String> entry = itr.next();
+      int pageSize = nextPageSize();
+      Iterator<Entry<String, PendingRequest>> itr = pendingRequests.entrySet().iterator();
+      for (int i = 0; i < pageSize && itr.hasNext(); i++) {
+        Entry<String, PendingRequest> entry = itr.next();
+        PendingRequest request = entry.getValue();
 
-        if (requestType == null || entry.getValue().startsWith(requestType.name())) {
+        if (requestType == null || request.repoTag.startsWith(requestType.name())) {
           // requests are scoped per-repository so it's safe to drop the format here
-          requestsByRepository.put(entry.getValue(), componentId(entry.getKey()));
+          requestsByRepository.put(request.repoTag, componentId(entry.getKey()));
+          queuedTimes.add(request.queuedAt);
           itr.remove();
         }
       }
     }
 
+    if (queuedTimes.isEmpty()) {
+      return;
+    }
+    batchSizes.update(queuedTimes.size());
+
     // deliver index/purge requests to the relevant repositories
     requestsByRepository.asMap().forEach(
         (repoTag, componentIds) -> ofNullable(repositoryManager.get(repositoryName(repoTag))).ifPresent(
@@ -421,6 +565,10 @@ public abstract class SearchEventHandler
                     searchFacet.purge(componentIds);
                   }
                 })));
+
+    long now = System.nanoTime();
+    queuedTimes.forEach(queuedAt -> timeToSearchable.update(now - queuedAt, NANOSECONDS));
+    throughput.mark(queuedTimes.size());
   }
 
   @VisibleForTesting
@@ -428,6 +576,18 @@ public abstract class SearchEventHandler
     return threadPoolExecutor.getQueue().isEmpty() && threadPoolExecutor.getActiveCount() == 0;
   }
 
+  private static final class PendingRequest
+  {
+    private final String repoTag;
+
+    private final long queuedAt;
+
+    PendingRequest(final String repoTag, final long queuedAt) {
+      this.repoTag = repoTag;
+      this.queuedAt = queuedAt;
+    }
+  }
+
   /**
    * Binds the format with the component id to get a unique request key.
    */
@@ -262,6 +262,19 @@ public interface AssetDAO
    */
   void markAsDownloaded(Asset asset);
 
+  /**
+   * Updates the last downloaded time of the given assets in the content data store.
+   * Assets already marked as downloaded at or after the given time are left unchanged.
+   *
+   * @param assetIds the internal ids of the assets to update
+   * @param lastDownloaded when the assets were last downloaded
+   *
+   * @since 3.72
+   */
+  void markAssetsAsDownloaded(
+      @Param("assetIds") Collection<Integer> assetIds,
+      @Param("lastDownloaded") OffsetDateTime lastDownloaded);
+
   /**
    * Deletes an asset from the content data store.
    *
@@ -354,13 +367,6 @@ public interface AssetDAO
       @Param("componentId") int componentId,
       @Param("updateComponentEntityVersion") boolean updateComponentEntityVersion);
 
-  /**
-   * Updates the entity version for the components identified for the specified component ids
-   */
-  void updateEntityVersions(
-      @Param("componentIds") int[] componentIds,
-      @Param("updateComponentEntityVersion") boolean updateComponentEntityVersion);
-
   /**
    * Selects the component ids for the assets identified by the asset ids
    *
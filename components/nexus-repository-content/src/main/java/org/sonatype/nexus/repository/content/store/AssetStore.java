@@ -375,6 +375,22 @@ public class AssetStore<T extends AssetDAO>
     postCommitEvent(() -> new AssetDownloadedEvent(asset));
   }
 
+  /**
+   * Updates the last downloaded time of the given assets in the content data store.
+   *
+   * @param assets the assets to update
+   * @param lastDownloaded when the assets were last downloaded
+   *
+   * @since 3.72
+   */
+  @Transactional
+  public void markAsDownloaded(final Collection<Asset> assets, final OffsetDateTime lastDownloaded) {
+    dao().markAssetsAsDownloaded(assets.stream().map(InternalIds::internalAssetId).collect(Collectors.toList()),
+        lastDownloaded);
+
+    assets.forEach(asset -> postCommitEvent(() -> new AssetDownloadedEvent(asset)));
+  }
+
   /**
    * Deletes an asset from the content data store.
    *
@@ -438,7 +454,11 @@ public class AssetStore<T extends AssetDAO>
 
     int count = purgeAssets(assetIds);
     if (clustered && componentIds.length > 0) {
-      dao().updateEntityVersions(componentIds, clustered);
+      // count is known, so the remaining identical version updates can share JDBC batches
+      thisSession().batchWrites();
+      for (int componentId : componentIds) {
+        dao().updateEntityVersion(componentId, clustered);
+      }
     }
     return count;
   }
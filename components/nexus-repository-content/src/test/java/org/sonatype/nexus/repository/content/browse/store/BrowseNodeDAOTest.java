@@ -348,6 +348,69 @@ public class BrowseNodeDAOTest
     }
   }
 
+  @Test
+  public void testStagedRebuild() {
+    try (DataSession<?> session = sessionRule.openSession(DEFAULT_DATASTORE_NAME)) {
+      BrowseNodeDAO dao = session.access(TestBrowseNodeDAO.class);
+
+      dao.stageBrowseNodes(1, asList(
+          stagedNode("delta", "/d/"),
+          stagedNode("delta/one", "/d/1").assign(betaTwo)));
+
+      // staging the same display path again merges the nodes
+      dao.stageBrowseNodes(1, asList(
+          stagedNode("delta", "/d"),
+          stagedNode("delta/two", "/d/2").assign(betaThree)));
+
+      // the existing tree is still browsable
+      assertThat(getListing(dao), hasSize(3));
+
+      dao.deleteBrowseNodes(1, 0);
+      assertThat(dao.publishStagedBrowseNodes(1, 0), is(1));
+      assertThat(dao.publishStagedBrowseNodes(1, 1), is(2));
+      assertThat(dao.publishStagedBrowseNodes(1, 2), is(0));
+
+      List<BrowseNode> listing;
+
+      listing = getListing(dao);
+      assertThat(listing, hasSize(1));
+      assertThat(listing.get(0).getName(), is("delta"));
+      assertThat(listing.get(0).getPath(), is("/d/"));
+      assertThat(listing.get(0).isLeaf(), is(false));
+
+      listing = getListing(dao, "delta");
+      assertThat(listing, hasSize(2));
+      assertThat(listing.get(0).getPath(), is("/d/1"));
+      assertThat(listing.get(0).getComponentId(), is(toExternalId(internalComponentId(component2))));
+      assertThat(listing.get(1).getPath(), is("/d/2"));
+      assertThat(listing.get(1).getAssetId(), is(toExternalId(internalAssetId(asset2))));
+
+      assertThat(dao.deleteStagedBrowseNodes(1, 0), is(true));
+      assertThat(dao.deleteStagedBrowseNodes(1, 0), is(false));
+    }
+  }
+
+  @Test
+  public void testStagedNodesOfDeletedContentArePublishedWithoutIt() {
+    try (DataSession<?> session = sessionRule.openSession(DEFAULT_DATASTORE_NAME)) {
+      BrowseNodeDAO dao = session.access(TestBrowseNodeDAO.class);
+
+      dao.stageBrowseNodes(1, asList(
+          stagedNode("delta", "/d/"),
+          stagedNode("delta/two", "/d/2").assign(betaThree)));
+
+      session.access(TestAssetDAO.class).deleteAsset(asset2);
+
+      dao.deleteBrowseNodes(1, 0);
+      dao.publishStagedBrowseNodes(1, 0);
+      dao.publishStagedBrowseNodes(1, 1);
+
+      List<BrowseNode> listing = getListing(dao, "delta");
+      assertThat(listing, hasSize(1));
+      assertThat(listing.get(0).getAssetId(), is(nullValue()));
+    }
+  }
+
   private List<BrowseNode> getListing(final BrowseNodeDAO dao, final String... paths) {
     List<BrowseNode> listing = dao.getByDisplayPath(1, asList(paths), 100, null, null);
     listing.sort(byName);
@@ -369,6 +432,12 @@ public class BrowseNodeDAOTest
         new FieldMatcher<BrowseNode>(expected, BrowseNode::getAssetId));
   }
 
+  private static StagedBrowseNode stagedNode(final String displayPath, final String requestPath) {
+    int lastSlash = displayPath.lastIndexOf('/');
+    return new StagedBrowseNode(displayPath, lastSlash > 0 ? displayPath.substring(0, lastSlash) : null,
+        displayPath.split("/").length - 1, displayPath.substring(lastSlash + 1), requestPath);
+  }
+
   private BrowseNodeData createNode(
       @Nullable final BrowseNodeData parent,
       final String displayName,
@@ -0,0 +1,107 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.content.group;
+
+import java.util.Optional;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.content.Asset;
+import org.sonatype.nexus.repository.content.event.asset.AssetCreatedEvent;
+import org.sonatype.nexus.repository.content.event.asset.AssetEvent;
+import org.sonatype.nexus.repository.content.event.asset.AssetUploadedEvent;
+import org.sonatype.nexus.repository.group.GroupFacet;
+import org.sonatype.nexus.repository.manager.RepositoryManager;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class GroupMemberHitEventHandlerTest
+    extends TestSupport
+{
+  @Mock
+  private RepositoryManager repositoryManager;
+
+  @Mock
+  private Repository member;
+
+  @Mock
+  private Repository group;
+
+  @Mock
+  private GroupFacet groupFacet;
+
+  @Mock
+  private Asset asset;
+
+  private GroupMemberHitEventHandler underTest;
+
+  @Before
+  public void setUp() {
+    when(member.getName()).thenReturn("member");
+    when(group.optionalFacet(GroupFacet.class)).thenReturn(Optional.of(groupFacet));
+    when(repositoryManager.get("group")).thenReturn(group);
+    when(asset.path()).thenReturn("/org/example/a.jar");
+    underTest = new GroupMemberHitEventHandler(repositoryManager);
+  }
+
+  @Test
+  public void createdAssetsInvalidateHitsOfContainingGroupsByAssetPath() {
+    when(repositoryManager.findContainingGroups("member")).thenReturn(ImmutableList.of("group", "missing"));
+
+    underTest.on(event(AssetCreatedEvent.class, Optional.of(member)));
+
+    verify(groupFacet).invalidateMemberHit("/org/example/a.jar");
+  }
+
+  @Test
+  public void uploadedAssetsInvalidateHitsOfContainingGroups() {
+    when(repositoryManager.findContainingGroups("member")).thenReturn(ImmutableList.of("group"));
+
+    underTest.on(event(AssetUploadedEvent.class, Optional.of(member)));
+
+    verify(groupFacet).invalidateMemberHit("/org/example/a.jar");
+  }
+
+  @Test
+  public void groupsWithoutGroupFacetAreSkipped() {
+    when(repositoryManager.findContainingGroups("member")).thenReturn(ImmutableList.of("group"));
+    when(group.optionalFacet(GroupFacet.class)).thenReturn(Optional.empty());
+
+    underTest.on(event(AssetCreatedEvent.class, Optional.of(member)));
+
+    verify(groupFacet, never()).invalidateMemberHit("/org/example/a.jar");
+  }
+
+  @Test
+  public void eventsWithoutRepositoryAreIgnored() {
+    underTest.on(event(AssetCreatedEvent.class, Optional.empty()));
+
+    verifyNoInteractions(repositoryManager, groupFacet);
+  }
+
+  private <E extends AssetEvent> E event(final Class<E> type, final Optional<Repository> repository) {
+    E event = mock(type);
+    when(event.getRepository()).thenReturn(repository);
+    when(event.getAsset()).thenReturn(asset);
+    return event;
+  }
+}
@@ -70,6 +70,9 @@ public class LastDownloadedHandlerTest
   @Mock
   private GlobalRepositorySettings globalSettings;
 
+  @Mock
+  private LastDownloadedRecorder lastDownloadedRecorder;
+
   private AttributesMap attributes;
 
   private LastDownloadedHandler underTest;
@@ -78,7 +81,7 @@ public class LastDownloadedHandlerTest
   public void setup() throws Exception {
     configureHappyPath();
 
-    underTest = new LastDownloadedHandler(globalSettings);
+    underTest = new LastDownloadedHandler(globalSettings, lastDownloadedRecorder);
   }
 
   @Test
@@ -101,6 +104,18 @@ public class LastDownloadedHandlerTest
     assertThat(handledResponse, is(equalTo(response)));
   }
 
+  @Test
+  public void shouldDeferMarkingAssetAsDownloadedWhenRecorderAccepts() throws Exception {
+    when(lastDownloadedRecorder.markAsDownloaded(asset)).thenReturn(true);
+
+    Response handledResponse = underTest.handle(context);
+
+    verify(lastDownloadedRecorder).markAsDownloaded(asset);
+    verify(asset, never()).markAsDownloaded();
+
+    assertThat(handledResponse, is(equalTo(response)));
+  }
+
   @Test
   public void shouldMarkAssetAsDownloadedWhenNotModified() throws Exception {
     when(response.getStatus()).thenReturn(new Status(false, 304));
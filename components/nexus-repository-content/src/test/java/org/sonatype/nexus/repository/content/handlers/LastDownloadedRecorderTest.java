@@ -0,0 +1,231 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.content.handlers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.blobstore.api.BlobStoreManager;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.content.Asset;
+import org.sonatype.nexus.repository.content.facet.ContentFacet;
+import org.sonatype.nexus.repository.content.facet.ContentFacetStores;
+import org.sonatype.nexus.repository.content.facet.ContentFacetSupport;
+import org.sonatype.nexus.repository.content.fluent.FluentAsset;
+import org.sonatype.nexus.repository.content.store.AssetData;
+import org.sonatype.nexus.repository.content.store.AssetStore;
+import org.sonatype.nexus.repository.content.store.FormatStoreManager;
+import org.sonatype.nexus.repository.content.store.WrappedContent;
+import org.sonatype.nexus.scheduling.PeriodicJobService;
+import org.sonatype.nexus.scheduling.PeriodicJobService.PeriodicJob;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class LastDownloadedRecorderTest
+    extends TestSupport
+{
+  @Mock
+  private PeriodicJobService periodicJobService;
+
+  @Mock
+  private PeriodicJob flushJob;
+
+  @Mock
+  private Repository repository;
+
+  @Mock
+  private ContentFacetSupport contentFacet;
+
+  @Mock
+  private FormatStoreManager formatStoreManager;
+
+  @Mock
+  private AssetStore<?> assetStore;
+
+  private LastDownloadedRecorder underTest;
+
+  @Before
+  public void setup() throws Exception {
+    doReturn(assetStore).when(formatStoreManager).assetStore("content");
+    ContentFacetStores stores =
+        new ContentFacetStores(mock(BlobStoreManager.class), "default", formatStoreManager, "content");
+
+    when(periodicJobService.schedule(any(), anyInt())).thenReturn(flushJob);
+    when(repository.getName()).thenReturn("test");
+    when(repository.facet(ContentFacet.class)).thenReturn(contentFacet);
+    when(contentFacet.stores()).thenReturn(stores);
+
+    underTest = new LastDownloadedRecorder(periodicJobService, new MetricRegistry(), true, 2, 5, 4);
+    underTest.start();
+  }
+
+  @Test
+  public void downloadsAreCoalescedPerAsset() {
+    FluentAsset asset = asset(1);
+
+    assertThat(underTest.markAsDownloaded(asset), is(true));
+    assertThat(underTest.markAsDownloaded(asset), is(true));
+    assertThat(underTest.pendingCount(), is(1));
+
+    underTest.flush();
+
+    verify(assetStore).markAsDownloaded(batchOf(1), any());
+    assertThat(underTest.pendingCount(), is(0));
+  }
+
+  @Test
+  public void flushIsRequestedOnceEnoughDownloadsArePending() {
+    underTest.markAsDownloaded(asset(1));
+    verify(periodicJobService, never()).runOnce(any(), anyInt());
+
+    underTest.markAsDownloaded(asset(2));
+    verify(periodicJobService).runOnce(any(), anyInt());
+  }
+
+  @Test
+  public void pendingDownloadsAreWrittenInBatches() {
+    underTest.markAsDownloaded(asset(1));
+    underTest.markAsDownloaded(asset(2));
+    underTest.markAsDownloaded(asset(3));
+
+    underTest.flush();
+
+    ArgumentCaptor<Collection<Asset>> batches = ArgumentCaptor.forClass(Collection.class);
+    verify(assetStore, times(2)).markAsDownloaded(batches.capture(), any());
+    assertThat(batches.getAllValues().get(0).size() + batches.getAllValues().get(1).size(), is(3));
+  }
+
+  @Test
+  public void downloadsAreRejectedWhenTooManyArePending() {
+    for (int i = 1; i <= 4; i++) {
+      assertThat(underTest.markAsDownloaded(asset(i)), is(true));
+    }
+
+    assertThat(underTest.markAsDownloaded(asset(5)), is(false));
+  }
+
+  @Test
+  public void pendingDownloadsAreWrittenOnShutdown() throws Exception {
+    underTest.markAsDownloaded(asset(1));
+
+    underTest.stop();
+
+    verify(flushJob).cancel();
+    verify(assetStore).markAsDownloaded(batchOf(1), any());
+    assertThat(underTest.markAsDownloaded(asset(2)), is(false));
+  }
+
+  @Test
+  public void pendingDownloadsAreWrittenAfterRepositoriesAreDestroyed() throws Exception {
+    underTest.markAsDownloaded(asset(1));
+
+    // repositories stop before this recorder, destroying their facets
+    when(repository.facet(ContentFacet.class)).thenThrow(new IllegalStateException("destroyed"));
+    underTest.stop();
+
+    verify(assetStore).markAsDownloaded(batchOf(1), any());
+  }
+
+  @Test
+  public void downloadsRecordedDuringFlushAreNotLost() throws Exception {
+    underTest.stop();
+    underTest = new LastDownloadedRecorder(periodicJobService, new MetricRegistry(), true, 10, 5, 1_000_000);
+    underTest.start();
+
+    AtomicInteger written = new AtomicInteger();
+    doAnswer(invocation -> {
+      written.addAndGet(invocation.<Collection<Asset>>getArgument(0).size());
+      return null;
+    }).when(assetStore).markAsDownloaded(any(), any());
+
+    List<FluentAsset> assets = new ArrayList<>();
+    for (int i = 1; i <= 2000; i++) {
+      assets.add(asset(i));
+    }
+
+    AtomicBoolean recording = new AtomicBoolean(true);
+    Thread flusher = new Thread(() -> {
+      while (recording.get()) {
+        underTest.flush();
+      }
+    });
+    flusher.start();
+
+    ExecutorService recorders = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        int offset = t;
+        futures.add(recorders.submit(() -> {
+          for (int i = offset; i < assets.size(); i += 4) {
+            assertThat(underTest.markAsDownloaded(assets.get(i)), is(true));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+    finally {
+      recorders.shutdown();
+      recording.set(false);
+      flusher.join();
+    }
+
+    underTest.flush();
+
+    assertThat(written.get(), is(2000));
+    assertThat(underTest.pendingCount(), is(0));
+  }
+
+  private static Collection<Asset> batchOf(final int size) {
+    return argThat(batch -> batch.size() == size);
+  }
+
+  private FluentAsset asset(final int assetId) {
+    AssetData assetData = new AssetData();
+    assetData.setAssetId(assetId);
+    assetData.setPath("/asset" + assetId);
+
+    FluentAsset asset = mock(FluentAsset.class, withSettings().extraInterfaces(WrappedContent.class));
+    when(((WrappedContent<Asset>) asset).unwrap()).thenReturn(assetData);
+    when(asset.repository()).thenReturn(repository);
+    when(asset.path()).thenReturn(assetData.path());
+    return asset;
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.content.search;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.entity.EntityId;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.manager.RepositoryManager;
+import org.sonatype.nexus.scheduling.PeriodicJobService;
+import org.sonatype.nexus.scheduling.PeriodicJobService.PeriodicJob;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SearchEventHandlerTest
+    extends TestSupport
+{
+  @Mock
+  private RepositoryManager repositoryManager;
+
+  @Mock
+  private PeriodicJobService periodicJobService;
+
+  @Mock
+  private PeriodicJob flushJob;
+
+  @Mock
+  private Repository repository;
+
+  @Mock
+  private SearchFacet searchFacet;
+
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+
+  private SearchEventHandler underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    when(periodicJobService.schedule(any(), anyInt())).thenReturn(flushJob);
+    when(repository.getName()).thenReturn("test");
+    when(repository.optionalFacet(SearchFacet.class)).thenReturn(Optional.of(searchFacet));
+    when(repositoryManager.get("test")).thenReturn(repository);
+
+    underTest = new SearchEventHandler(repositoryManager, periodicJobService, 100, 2, false, 1) { };
+    underTest.configureBacklog(5, 1000);
+    underTest.setMetricRegistry(metricRegistry);
+    underTest.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    underTest.stop();
+  }
+
+  @Test
+  public void requestsAreCoalescedPerComponent() {
+    underTest.requestIndex("raw", 1, repository);
+    underTest.requestIndex("raw", 1, repository);
+    underTest.requestIndex("raw", 2, repository);
+    assertThat(underTest.pendingRequestCount(), is(2));
+
+    underTest.pollSearchUpdateRequest();
+
+    verify(searchFacet).index(batchOf(2));
+    assertThat(underTest.pendingRequestCount(), is(0));
+    assertThat(metricRegistry.histogram("nexus.search.eventHandler.batchSize").getSnapshot().getMax(), is(2L));
+    assertThat(metricRegistry.meter("nexus.search.eventHandler.throughput").getCount(), is(2L));
+    assertThat(metricRegistry.timer("nexus.search.eventHandler.timeToSearchable").getCount(), is(2L));
+  }
+
+  @Test
+  public void latestRequestTypeWins() {
+    underTest.requestIndex("raw", 1, repository);
+    underTest.requestPurge("raw", 1, repository);
+
+    underTest.pollSearchUpdateRequest();
+
+    verify(searchFacet, never()).index(any());
+    verify(searchFacet).purge(batchOf(1));
+  }
+
+  @Test
+  public void producersFlushWhenTooManyRequestsArePending() {
+    for (int i = 1; i <= 5; i++) {
+      underTest.requestIndex("raw", i, repository);
+    }
+    verify(searchFacet, never()).index(any());
+
+    underTest.requestIndex("raw", 6, repository);
+
+    verify(searchFacet).index(batchOf(6));
+    assertThat(underTest.pendingRequestCount(), is(0));
+    assertThat(metricRegistry.meter("nexus.search.eventHandler.backPressure").getCount(), is(1L));
+  }
+
+  private static Collection<EntityId> batchOf(final int size) {
+    return argThat(ids -> ids.size() == size);
+  }
+}
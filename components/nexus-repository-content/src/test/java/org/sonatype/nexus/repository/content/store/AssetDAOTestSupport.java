@@ -382,6 +382,42 @@ public class AssetDAOTestSupport
     }
   }
 
+  public void testBulkLastDownloaded() {
+    AssetData asset1 = randomAsset(repositoryId);
+    AssetData asset2 = randomAsset(repositoryId);
+    AssetData asset3 = randomAsset(repositoryId);
+
+    try (DataSession<?> session = sessionRule.openSession(DEFAULT_DATASTORE_NAME)) {
+      AssetDAO dao = session.access(TestAssetDAO.class);
+      dao.createAsset(asset1, false);
+      dao.createAsset(asset2, false);
+      dao.createAsset(asset3, false);
+      session.getTransaction().commit();
+    }
+
+    OffsetDateTime lastDownloaded = UTC.now().truncatedTo(ChronoUnit.SECONDS);
+
+    try (DataSession<?> session = sessionRule.openSession(DEFAULT_DATASTORE_NAME)) {
+      AssetDAO dao = session.access(TestAssetDAO.class);
+
+      dao.markAssetsAsDownloaded(asList(asset1.assetId, asset2.assetId), lastDownloaded);
+
+      assertThat(dao.readPath(repositoryId, asset1.path()).get().lastDownloaded().get().isEqual(lastDownloaded),
+          is(true));
+      assertThat(dao.readPath(repositoryId, asset2.path()).get().lastDownloaded().get().isEqual(lastDownloaded),
+          is(true));
+      assertFalse(dao.readPath(repositoryId, asset3.path()).get().lastDownloaded().isPresent());
+
+      // an older download time never moves last downloaded backwards
+      dao.markAssetsAsDownloaded(singletonList(asset1.assetId), lastDownloaded.minusDays(1));
+
+      assertThat(dao.readPath(repositoryId, asset1.path()).get().lastDownloaded().get().isEqual(lastDownloaded),
+          is(true));
+
+      session.getTransaction().commit();
+    }
+  }
+
   public void testAttachingBlobs() throws InterruptedException {
 
     AssetBlobData assetBlob1 = randomAssetBlob();
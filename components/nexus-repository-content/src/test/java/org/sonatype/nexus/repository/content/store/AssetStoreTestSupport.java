@@ -367,6 +367,33 @@ public class AssetStoreTestSupport
     });
   }
 
+  public void testDeleteAssetsByPathsOfSeveralComponents() {
+    ComponentData component1 = randomComponent(repositoryId);
+    ComponentData component2 = randomComponent(repositoryId);
+    ComponentData component3 = randomComponent(repositoryId);
+    component2.setVersion(component1.version() + ".2"); // make sure versions are different
+    component3.setVersion(component1.version() + ".3");
+
+    AssetData asset1 = generateAsset(repositoryId, "/asset1/asset1.jar");
+    AssetData asset2 = generateAsset(repositoryId, "/asset2/asset2.jar");
+    AssetData asset3 = generateAsset(repositoryId, "/asset3/asset3.jar");
+    asset1.setComponent(component1);
+    asset2.setComponent(component2);
+    asset3.setComponent(component3);
+
+    inTx(() -> {
+      createComponents(component1, component2, component3);
+      Stream.of(asset1, asset2, asset3).forEach(underTest::createAsset);
+    });
+
+    // the entity version updates of the deleted assets' components are sent as one batch
+    inTx(() -> assertThat(underTest.deleteAssetsByPaths(repositoryId,
+        asList(asset1.path(), asset2.path(), asset3.path())), is(3)));
+
+    inTx(() -> Stream.of(component1, component2, component3)
+        .forEach(component -> assertEntityVersion(component.componentId, entityVersioningEnabled ? 3 : null)));
+  }
+
   protected void createComponents(ComponentData... components) {
     stream(components).forEach(componentStore::createComponent);
   }
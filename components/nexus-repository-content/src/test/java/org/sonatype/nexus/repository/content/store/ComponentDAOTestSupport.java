@@ -27,8 +27,10 @@ import org.sonatype.nexus.common.entity.Continuation;
 import org.sonatype.nexus.common.time.UTC;
 import org.sonatype.nexus.datastore.api.DataSession;
 import org.sonatype.nexus.datastore.api.DuplicateKeyException;
+import org.sonatype.nexus.repository.content.AssetBlob;
 import org.sonatype.nexus.repository.content.Component;
 import org.sonatype.nexus.repository.content.ComponentSet;
+import org.sonatype.nexus.repository.content.store.example.TestAssetBlobDAO;
 import org.sonatype.nexus.repository.content.store.example.TestAssetDAO;
 import org.sonatype.nexus.repository.content.store.example.TestComponentDAO;
 import org.sonatype.nexus.repository.content.store.example.TestContentRepositoryDAO;
@@ -48,6 +50,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -664,6 +667,43 @@ public class ComponentDAOTestSupport
     }
   }
 
+  public void testBrowseComponentsEagerIncludesAssetBlobs() {
+    ComponentData component = randomComponent(repositoryId);
+    AssetData assetWithBlob = randomAsset(repositoryId);
+    AssetData assetWithoutBlob = randomAsset(repositoryId);
+    assetWithoutBlob.setPath(assetWithBlob.path() + "/2"); // make sure paths are different
+    AssetBlobData assetBlob = randomAssetBlob();
+
+    try (DataSession<?> session = sessionRule.openSession(DEFAULT_DATASTORE_NAME)) {
+      session.access(TestComponentDAO.class).createComponent(component, entityVersionEnabled);
+      assetWithBlob.setComponent(component);
+      assetWithoutBlob.setComponent(component);
+      session.access(TestAssetBlobDAO.class).createAssetBlob(assetBlob);
+      assetWithBlob.setAssetBlob(assetBlob);
+      session.access(TestAssetDAO.class).createAsset(assetWithBlob, entityVersionEnabled);
+      session.access(TestAssetDAO.class).createAsset(assetWithoutBlob, entityVersionEnabled);
+      session.getTransaction().commit();
+    }
+
+    try (DataSession<?> session = sessionRule.openSession(DEFAULT_DATASTORE_NAME)) {
+      ComponentDAO dao = session.access(TestComponentDAO.class);
+
+      Continuation<ComponentData> components =
+          dao.browseComponentsEager(newHashSet(repositoryId), 10, null, null, null, null);
+      assertThat(components, hasSize(1));
+
+      Map<String, Optional<AssetBlob>> blobs = new HashMap<>();
+      components.iterator().next().getAssets().forEach(asset -> blobs.put(asset.path(), asset.blob()));
+      assertThat(blobs.size(), is(2));
+
+      AssetBlob blob = blobs.get(assetWithBlob.path()).get();
+      assertThat(blob.blobRef(), is(assetBlob.blobRef()));
+      assertThat(blob.blobSize(), is(assetBlob.blobSize()));
+      assertThat(blob.blobCreated(), is(notNullValue()));
+      assertFalse(blobs.get(assetWithoutBlob.path()).isPresent());
+    }
+  }
+
   public void testNormalizationMethods(){
     ContentRepositoryData randomContentRepository= randomContentRepository();
     createContentRepository(randomContentRepository);
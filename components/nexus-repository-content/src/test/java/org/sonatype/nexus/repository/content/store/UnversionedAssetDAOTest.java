@@ -36,6 +36,11 @@ public class UnversionedAssetDAOTest
     super.testLastDownloaded();
   }
 
+  @Test
+  public void testBulkLastDownloaded() {
+    super.testBulkLastDownloaded();
+  }
+
   @Test
   public void testAttachingBlobs() throws InterruptedException {
     super.testAttachingBlobs();
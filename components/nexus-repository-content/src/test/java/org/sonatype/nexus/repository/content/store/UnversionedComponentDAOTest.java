@@ -72,6 +72,11 @@ public class UnversionedComponentDAOTest
     super.testContinuationSetBrowsing();
   }
 
+  @Test
+  public void testBrowseComponentsEagerIncludesAssetBlobs() {
+    super.testBrowseComponentsEagerIncludesAssetBlobs();
+  }
+
   @Test
   public void testNormalizationMethods(){
     super.testNormalizationMethods();
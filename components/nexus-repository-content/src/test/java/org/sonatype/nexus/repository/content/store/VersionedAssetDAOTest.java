@@ -39,6 +39,11 @@ public class VersionedAssetDAOTest
     super.testLastDownloaded();
   }
 
+  @Test
+  public void testBulkLastDownloaded() {
+    super.testBulkLastDownloaded();
+  }
+
   @Test
   public void testAttachingBlobs() throws InterruptedException {
     super.testAttachingBlobs();
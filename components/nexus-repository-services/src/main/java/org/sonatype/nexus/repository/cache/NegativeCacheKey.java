@@ -27,4 +27,14 @@ public interface NegativeCacheKey
    * @return true  if this key is a parent of passed in key.
    */
   boolean isParentOf(NegativeCacheKey key);
+
+  /**
+   * Returns a string that identifies this key, from which the compact form held by the negative cache is derived;
+   * equal keys must return equal strings.
+   *
+   * @since 3.72
+   */
+  default String asString() {
+    return getClass().getName() + ':' + this;
+  }
 }
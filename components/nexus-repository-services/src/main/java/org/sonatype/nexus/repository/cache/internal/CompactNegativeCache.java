@@ -0,0 +1,188 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.cache.internal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.annotation.Nullable;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Negative cache of one repository, holding the 64-bit fingerprint of each cached key plus the cached status code.
+ *
+ * Entries expire after the configured time-to-live; the least recently used entries are evicted once the cache holds
+ * its share of the {@link NegativeCacheManager} budget, which may change as repositories come and go. Lookups don't
+ * lock the cache, so concurrent requests to the same repository don't wait on each other.
+ *
+ * @since 3.72
+ */
+class CompactNegativeCache
+{
+  private static final int STATUS_BITS = 16;
+
+  private static final long STATUS_MASK = (1L << STATUS_BITS) - 1;
+
+  private static final String[] METRICS = {"hits", "misses", "evictions", "size"};
+
+  private final String repositoryName;
+
+  private final long timeToLiveMillis;
+
+  private final LongSupplier clock;
+
+  private final Ticker ticker;
+
+  private final MetricRegistry metricRegistry;
+
+  private final Meter hits;
+
+  private final Meter misses;
+
+  private final Meter evictions;
+
+  /**
+   * Maps key fingerprints to their expiry time, shifted left to make room for the status code.
+   */
+  private volatile Cache<Long, Long> entries;
+
+  private volatile int maxEntries;
+
+  CompactNegativeCache(
+      final String repositoryName,
+      final long timeToLive,
+      final TimeUnit unit,
+      final int maxEntries,
+      final LongSupplier clock,
+      final MetricRegistry metricRegistry)
+  {
+    this.repositoryName = checkNotNull(repositoryName);
+    this.timeToLiveMillis = unit.toMillis(timeToLive);
+    this.clock = checkNotNull(clock);
+    this.ticker = new Ticker()
+    {
+      @Override
+      public long read() {
+        return MILLISECONDS.toNanos(clock.getAsLong());
+      }
+    };
+    this.metricRegistry = checkNotNull(metricRegistry);
+    this.maxEntries = maxEntries;
+    this.entries = newCache(maxEntries);
+
+    hits = metricRegistry.meter(metricName("hits"));
+    misses = metricRegistry.meter(metricName("misses"));
+    evictions = metricRegistry.meter(metricName("evictions"));
+    metricRegistry.gauge(metricName("size"), () -> (Gauge<Integer>) this::size);
+  }
+
+  String getRepositoryName() {
+    return repositoryName;
+  }
+
+  /**
+   * Returns the cached status code, or {@code null} if the fingerprint isn't cached or has expired.
+   */
+  @Nullable
+  Integer get(final long fingerprint) {
+    Cache<Long, Long> entries = this.entries;
+    Long value = entries.getIfPresent(fingerprint);
+    if (value != null) {
+      if ((value >>> STATUS_BITS) > clock.getAsLong()) {
+        hits.mark();
+        return (int) (value & STATUS_MASK);
+      }
+      entries.asMap().remove(fingerprint, value);
+    }
+    misses.mark();
+    return null;
+  }
+
+  /**
+   * Caches the status code for the fingerprint, returning {@code true} if it wasn't cached before.
+   */
+  boolean put(final long fingerprint, final int statusCode) {
+    checkArgument(statusCode >= 0 && statusCode <= STATUS_MASK, "Invalid status code %s", statusCode);
+    long expiresAt = clock.getAsLong() + timeToLiveMillis;
+    return entries.asMap().put(fingerprint, (expiresAt << STATUS_BITS) | statusCode) == null;
+  }
+
+  boolean remove(final long fingerprint) {
+    return entries.asMap().remove(fingerprint) != null;
+  }
+
+  void clear() {
+    entries.invalidateAll();
+  }
+
+  int size() {
+    return (int) entries.size();
+  }
+
+  int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * Changes the share of the budget, moving the cached entries to a cache of the new size; when shrinking, entries
+   * beyond the new size are evicted. Entries cached by concurrent requests while moving may be dropped.
+   */
+  synchronized void setMaxEntries(final int maxEntries) {
+    if (maxEntries == this.maxEntries) {
+      return;
+    }
+    Cache<Long, Long> resized = newCache(maxEntries);
+    resized.putAll(entries.asMap());
+    this.maxEntries = maxEntries;
+    this.entries = resized;
+  }
+
+  /**
+   * Removes the metrics of this cache.
+   */
+  void close() {
+    clear();
+    for (String metric : METRICS) {
+      metricRegistry.remove(metricName(metric));
+    }
+  }
+
+  private Cache<Long, Long> newCache(final int maximumSize) {
+    return CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(timeToLiveMillis, MILLISECONDS)
+        .ticker(ticker)
+        .removalListener(notification -> {
+          if (notification.getCause() == RemovalCause.SIZE) {
+            evictions.mark();
+          }
+        })
+        .build();
+  }
+
+  private String metricName(final String metric) {
+    return name(NegativeCacheFacetImpl.class, repositoryName, metric);
+  }
+}
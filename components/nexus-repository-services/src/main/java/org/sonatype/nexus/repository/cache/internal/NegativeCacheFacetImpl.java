@@ -12,19 +12,12 @@
  */
 package org.sonatype.nexus.repository.cache.internal;
 
-import java.util.concurrent.TimeUnit;
-
-import javax.cache.Cache;
-import javax.cache.Cache.Entry;
-import javax.cache.expiry.CreatedExpiryPolicy;
-import javax.cache.expiry.Duration;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import org.sonatype.goodies.common.Time;
-import org.sonatype.nexus.cache.CacheHelper;
 import org.sonatype.nexus.common.stateguard.Guarded;
 import org.sonatype.nexus.repository.FacetSupport;
 import org.sonatype.nexus.repository.cache.NegativeCacheFacet;
@@ -42,6 +35,10 @@ import static org.sonatype.nexus.repository.FacetSupport.State.STARTED;
 /**
  * Default {@link NegativeCacheFacet} implementation.
  *
+ * Entries are held in compact form by a {@link CompactNegativeCache} that shares the memory budget of the
+ * {@link NegativeCacheManager} with other repositories. As only a fingerprint of each key is kept,
+ * {@link #invalidateSubset(NegativeCacheKey)} clears the whole cache and cached statuses lose their message.
+ *
  * @since 3.0
  */
 @Named
@@ -49,7 +46,7 @@ public class NegativeCacheFacetImpl
     extends FacetSupport
     implements NegativeCacheFacet
 {
-  private final CacheHelper cacheHelper;
+  private final NegativeCacheManager cacheManager;
 
   @VisibleForTesting
   static final String CONFIG_KEY = "negativeCache";
@@ -78,11 +75,11 @@ public class NegativeCacheFacetImpl
 
   private Config config;
 
-  private Cache<NegativeCacheKey, Status> cache;
+  private CompactNegativeCache cache;
 
   @Inject
-  public NegativeCacheFacetImpl(final CacheHelper cacheHelper) {
-    this.cacheHelper = checkNotNull(cacheHelper);
+  public NegativeCacheFacetImpl(final NegativeCacheManager cacheManager) {
+    this.cacheManager = checkNotNull(cacheManager);
   }
 
   @Override
@@ -132,23 +129,23 @@ public class NegativeCacheFacetImpl
 
   @Override
   protected void doDestroy() throws Exception {
-    cache = null;
+    maybeDestroyCache();
     config = null;
   }
 
   private void maybeCreateCache() {
     if (cache == null) {
       log.debug("Creating negative-cache for: {}", getRepository());
-      cache = cacheHelper.maybeCreateCache(getCacheName(), NegativeCacheKey.class, Status.class,
-          CreatedExpiryPolicy.factoryOf(new Duration(TimeUnit.MINUTES, config.timeToLive)));
-      log.debug("Created negative-cache: {}", cache);
+      cache = cacheManager.create(getRepository().getName(), config.timeToLive);
     }
   }
 
   private void maybeDestroyCache() {
-    log.debug("Destroying negative-cache for: {}", getRepository());
-    cacheHelper.maybeDestroyCache(getCacheName());
-    cache = null;
+    if (cache != null) {
+      log.debug("Destroying negative-cache for: {}", getRepository());
+      cacheManager.release(cache);
+      cache = null;
+    }
   }
 
   @Override
@@ -156,7 +153,10 @@ public class NegativeCacheFacetImpl
   public Status get(final NegativeCacheKey key) {
     checkNotNull(key);
     if (cache != null) {
-      return cache.get(key);
+      Integer statusCode = cache.get(NegativeCacheManager.fingerprint(key));
+      if (statusCode != null) {
+        return Status.failure(statusCode);
+      }
     }
     return null;
   }
@@ -168,7 +168,10 @@ public class NegativeCacheFacetImpl
     checkNotNull(status);
     if (cache != null) {
       log.debug("Adding {}={} to negative-cache of {}", key, status, getRepository());
-      cache.put(key, status);
+      long fingerprint = NegativeCacheManager.fingerprint(key);
+      if (cache.put(fingerprint, status.getCode())) {
+        cacheManager.added(getRepository().getName(), fingerprint, status.getCode());
+      }
     }
   }
 
@@ -176,20 +179,22 @@ public class NegativeCacheFacetImpl
   @Guarded(by = STARTED)
   public void invalidate(final NegativeCacheKey key) {
     checkNotNull(key);
-    if (cache != null && cache.remove(key)) {
+    long fingerprint = NegativeCacheManager.fingerprint(key);
+    if (cache != null && cache.remove(fingerprint)) {
       log.debug("Removing {} from negative-cache of {}", key, getRepository());
+      cacheManager.removed(getRepository().getName(), fingerprint);
     }
   }
 
+  /**
+   * Only fingerprints of keys are cached so children can't be identified, this clears the whole cache instead.
+   */
   @Override
   public void invalidateSubset(final NegativeCacheKey key) {
+    checkNotNull(key);
     if (cache != null) {
-      invalidate(key);
-      for (final Entry<NegativeCacheKey, Status> entry : cache) {
-        if (!key.equals(entry.getKey()) && key.isParentOf(entry.getKey())) {
-          invalidate(entry.getKey());
-        }
-      }
+      log.debug("Removing all from negative-cache of {} to invalidate {}", getRepository(), key);
+      cache.clear();
     }
   }
 
@@ -198,7 +203,7 @@ public class NegativeCacheFacetImpl
   public void invalidate() {
     if (cache != null) {
       log.debug("Removing all from negative-cache of {}", getRepository());
-      cache.removeAll();
+      cache.clear();
     }
   }
 
@@ -210,4 +215,9 @@ public class NegativeCacheFacetImpl
   public String getCacheName() {
     return getRepository().getName() + "#negative-cache";
   }
+
+  @VisibleForTesting
+  CompactNegativeCache getCache() {
+    return cache;
+  }
 }
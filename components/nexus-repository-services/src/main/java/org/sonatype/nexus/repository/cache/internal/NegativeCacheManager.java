@@ -0,0 +1,176 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.cache.internal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.common.ByteSize;
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.common.event.EventAware;
+import org.sonatype.nexus.common.event.EventHelper;
+import org.sonatype.nexus.common.event.EventManager;
+import org.sonatype.nexus.distributed.event.service.api.EventType;
+import org.sonatype.nexus.distributed.event.service.api.common.NegativeCacheEntryEvent;
+import org.sonatype.nexus.repository.cache.NegativeCacheKey;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.sonatype.nexus.distributed.event.service.api.EventType.CREATED;
+import static org.sonatype.nexus.distributed.event.service.api.EventType.DELETED;
+
+/**
+ * Manages the {@link CompactNegativeCache}s of all repositories within a global memory budget.
+ *
+ * The budget is split evenly between the repositories with an enabled negative cache and rebalanced as they come and
+ * go, so a single repository probed for millions of missing paths can't take memory from all the others. When
+ * distributed, entries added or removed on this node are propagated to the other nodes of the cluster.
+ *
+ * @since 3.72
+ */
+@Named
+@Singleton
+public class NegativeCacheManager
+    extends ComponentSupport
+    implements EventAware
+{
+  /**
+   * Approximate heap used by each entry: the cache entry with its access and write links, plus the boxed fingerprint
+   * and value.
+   */
+  @VisibleForTesting
+  static final int ENTRY_SIZE = 112;
+
+  @VisibleForTesting
+  static final int MIN_ENTRIES = 1000;
+
+  private static final HashFunction FINGERPRINT = Hashing.murmur3_128();
+
+  private final MetricRegistry metricRegistry;
+
+  private final EventManager eventManager;
+
+  private final long maxEntries;
+
+  private final boolean distributed;
+
+  private final Map<String, CompactNegativeCache> caches = new ConcurrentHashMap<>();
+
+  @Inject
+  public NegativeCacheManager(
+      final MetricRegistry metricRegistry,
+      final EventManager eventManager,
+      @Named("${nexus.negativeCache.maxSize:-256mb}") final ByteSize maxSize,
+      @Named("${nexus.negativeCache.distributed:-false}") final boolean distributed)
+  {
+    this.metricRegistry = checkNotNull(metricRegistry);
+    this.eventManager = checkNotNull(eventManager);
+    this.maxEntries = checkNotNull(maxSize).toBytes() / ENTRY_SIZE;
+    this.distributed = distributed;
+  }
+
+  /**
+   * Creates the negative cache of the named repository, replacing any previous one.
+   */
+  synchronized CompactNegativeCache create(final String repositoryName, final int timeToLiveMinutes) {
+    CompactNegativeCache previous = caches.remove(repositoryName);
+    if (previous != null) {
+      previous.close();
+    }
+    CompactNegativeCache cache = new CompactNegativeCache(repositoryName, timeToLiveMinutes, MINUTES,
+        share(caches.size() + 1), System::currentTimeMillis, metricRegistry);
+    caches.put(repositoryName, cache);
+    rebalance();
+    return cache;
+  }
+
+  /**
+   * Releases the given negative cache, returning its share of the budget to the other repositories.
+   */
+  synchronized void release(final CompactNegativeCache cache) {
+    if (caches.remove(cache.getRepositoryName(), cache)) {
+      cache.close();
+      rebalance();
+    }
+  }
+
+  /**
+   * Returns the compact form of the key held by the negative caches.
+   */
+  static long fingerprint(final NegativeCacheKey key) {
+    return FINGERPRINT.hashString(key.asString(), UTF_8).asLong();
+  }
+
+  /**
+   * Notifies other nodes that an entry was added to the negative cache of the named repository.
+   */
+  void added(final String repositoryName, final long fingerprint, final int statusCode) {
+    distribute(CREATED, repositoryName, fingerprint, statusCode);
+  }
+
+  /**
+   * Notifies other nodes that an entry was removed from the negative cache of the named repository.
+   */
+  void removed(final String repositoryName, final long fingerprint) {
+    distribute(DELETED, repositoryName, fingerprint, 0);
+  }
+
+  private void distribute(
+      final EventType eventType,
+      final String repositoryName,
+      final long fingerprint,
+      final int statusCode)
+  {
+    if (distributed && !EventHelper.isReplicating()) {
+      eventManager.post(new NegativeCacheEntryEvent(eventType, repositoryName, fingerprint, statusCode));
+    }
+  }
+
+  @Subscribe
+  public void on(final NegativeCacheEntryEvent event) {
+    if (event.isLocal()) {
+      return;
+    }
+    CompactNegativeCache cache = caches.get(event.getRepositoryName());
+    if (cache == null) {
+      return; // repository not loaded on this node or its negative cache is disabled
+    }
+    if (event.getEventType() == CREATED) {
+      cache.put(event.getFingerprint(), event.getStatusCode());
+    }
+    else if (event.getEventType() == DELETED) {
+      cache.remove(event.getFingerprint());
+    }
+  }
+
+  private void rebalance() {
+    int share = share(caches.size());
+    caches.values().forEach(cache -> cache.setMaxEntries(share));
+    log.debug("Negative caches of {} repositories hold up to {} entries each", caches.size(), share);
+  }
+
+  private int share(final int cacheCount) {
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_ENTRIES, maxEntries / Math.max(1, cacheCount)));
+  }
+}
@@ -44,6 +44,11 @@ public class PathNegativeCacheKey
         && ((PathNegativeCacheKey) key).path.startsWith(path);
   }
 
+  @Override
+  public String asString() {
+    return "path:" + path;
+  }
+
   @Override
   public boolean equals(final Object o) {
     if (this == o) {
@@ -42,6 +42,11 @@ public class ValueNegativeCacheKey
     return false;
   }
 
+  @Override
+  public String asString() {
+    return "value:" + value;
+  }
+
   @Override
   public boolean equals(final Object o) {
     if (this == o) {
@@ -71,4 +71,35 @@ public interface GroupFacet
    * Maintains the latest cache information in the given content's attributes.
    */
   void maintainCacheInfo(final AttributesMap attributesMap);
+
+  /**
+   * Returns the member which last served the path, or {@code null} if not known.
+   *
+   * Paths are request paths, which are only tracked for formats where they are also the paths of the served assets so
+   * that {@link #invalidateMemberHit(String)} can be called with asset paths.
+   *
+   * @since 3.72
+   */
+  @Nullable
+  default Repository getMemberHit(final String path) {
+    return null;
+  }
+
+  /**
+   * Records the member which served the path, {@code null} if no member served it.
+   *
+   * @since 3.72
+   */
+  default void recordMemberHit(final String path, @Nullable final Repository member) {
+    // no-op
+  }
+
+  /**
+   * Forgets which member served the path, typically because another member's content for it has changed.
+   *
+   * @since 3.72
+   */
+  default void invalidateMemberHit(final String path) {
+    // no-op
+  }
 }
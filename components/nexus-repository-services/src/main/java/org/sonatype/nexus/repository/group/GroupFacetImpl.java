@@ -25,6 +25,7 @@ import javax.inject.Named;
 import javax.validation.ConstraintViolation;
 import javax.validation.constraints.NotNull;
 
+import org.sonatype.goodies.common.Time;
 import org.sonatype.nexus.common.collect.AttributesMap;
 import org.sonatype.nexus.common.stateguard.Guarded;
 import org.sonatype.nexus.repository.FacetSupport;
@@ -40,7 +41,11 @@ import org.sonatype.nexus.repository.types.GroupType;
 import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.validation.ConstraintViolationFactory;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -87,6 +92,17 @@ public class GroupFacetImpl
 
   protected CacheController cacheController;
 
+  private int memberHitsMaxSize;
+
+  private Time memberHitsExpireAfter;
+
+  private Set<String> memberHitsFormats = Collections.emptySet();
+
+  private MetricRegistry metricRegistry;
+
+  @Nullable
+  private GroupMemberHits memberHits;
+
   @Inject
   public GroupFacetImpl(final RepositoryManager repositoryManager,
                         final ConstraintViolationFactory constraintViolationFactory,
@@ -99,6 +115,27 @@ public class GroupFacetImpl
     this.repositoryCacheInvalidationService = checkNotNull(repositoryCacheInvalidationService);
   }
 
+  /**
+   * Configures the cache of which member served each path; a maximum size of zero disables it.
+   *
+   * Member hits are keyed by request path and invalidated by asset path, so the cache is only used by the given
+   * formats, whose request paths are the paths of the assets they serve.
+   *
+   * @since 3.72
+   */
+  @Inject
+  public void configureMemberHits(
+      @Named("${nexus.group.memberHits.maxSize:-10000}") final int maxSize,
+      @Named("${nexus.group.memberHits.expireAfter:-10m}") final Time expireAfter,
+      @Named("${nexus.group.memberHits.formats:-maven2,raw}") final String formats,
+      final MetricRegistry metricRegistry)
+  {
+    this.memberHitsMaxSize = maxSize;
+    this.memberHitsExpireAfter = checkNotNull(expireAfter);
+    this.memberHitsFormats = ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(formats));
+    this.metricRegistry = checkNotNull(metricRegistry);
+  }
+
   @Override
   protected void doValidate(final Configuration configuration) throws Exception {
     facet(ConfigurationFacet.class).validateSection(configuration, CONFIG_KEY, Config.class);
@@ -141,6 +178,12 @@ public class GroupFacetImpl
 
     cacheController = new CacheController(-1, null);
 
+    if (memberHits == null && memberHitsMaxSize > 0
+        && memberHitsFormats.contains(getRepository().getFormat().getValue())) {
+      memberHits = new GroupMemberHits(getRepository().getName(), memberHitsMaxSize, memberHitsExpireAfter,
+          metricRegistry);
+    }
+
     log.debug("Config: {}", config);
   }
 
@@ -153,12 +196,19 @@ public class GroupFacetImpl
     // check whether any members or their ordering have changed
     if (!Iterables.elementsEqual(config.memberNames, previousMemberNames)) {
       cacheController.invalidateCache();
+      if (memberHits != null) {
+        memberHits.invalidateAll();
+      }
     }
   }
 
   @Override
   protected void doDestroy() throws Exception {
     config = null;
+    if (memberHits != null) {
+      memberHits.close();
+      memberHits = null;
+    }
   }
 
   @Override
@@ -237,11 +287,50 @@ public class GroupFacetImpl
   public void invalidateGroupCaches() {
     log.info("Invalidating group caches of {}", getRepository().getName());
     cacheController.invalidateCache();
+    if (memberHits != null) {
+      memberHits.invalidateAll();
+    }
     for (Repository repository : members()) {
       repositoryCacheInvalidationService.processCachesInvalidation(repository);
     }
   }
 
+  @Nullable
+  @Override
+  public Repository getMemberHit(final String path) {
+    String memberName = memberHits != null ? memberHits.get(path) : null;
+    return memberName != null ? repositoryManager.get(memberName) : null;
+  }
+
+  @Override
+  public void recordMemberHit(final String path, @Nullable final Repository member) {
+    if (memberHits == null) {
+      return;
+    }
+    String memberName = member != null ? member.getName() : null;
+    boolean hit = memberName != null && memberName.equals(memberHits.get(path));
+    memberHits.served(hit);
+    if (memberName == null) {
+      memberHits.invalidate(path);
+    }
+    else if (!hit) {
+      memberHits.put(path, memberName);
+    }
+  }
+
+  @Override
+  public void invalidateMemberHit(final String path) {
+    if (memberHits != null) {
+      memberHits.invalidate(path);
+    }
+  }
+
+  @VisibleForTesting
+  @Nullable
+  GroupMemberHits getMemberHits() {
+    return memberHits;
+  }
+
   @Override
   public boolean isStale(@Nullable final Content content) {
     if (content == null) {
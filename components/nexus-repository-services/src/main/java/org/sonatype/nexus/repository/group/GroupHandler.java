@@ -12,11 +12,13 @@
  */
 package org.sonatype.nexus.repository.group;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
 
 import javax.annotation.Nonnull;
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
@@ -28,6 +30,7 @@ import org.sonatype.nexus.repository.view.Handler;
 import org.sonatype.nexus.repository.view.Request;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.ViewFacet;
+import org.sonatype.nexus.transaction.UnitOfWork;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Maps;
@@ -57,6 +60,8 @@ public class GroupHandler
   public static final String INSUFFICIENT_LICENSE =
       "Deploying to groups is a PRO-licensed feature. See https://links.sonatype.com/product-nexus-repository";
 
+  private GroupMemberDispatcher memberDispatcher;
+
   /**
    * Request-context state container for set of repositories already dispatched to.
    */
@@ -88,6 +93,14 @@ public class GroupHandler
     }
   }
 
+  /**
+   * @since 3.72
+   */
+  @Inject
+  public void setMemberDispatcher(final GroupMemberDispatcher memberDispatcher) {
+    this.memberDispatcher = memberDispatcher;
+  }
+
   @Nonnull
   @Override
   public Response handle(@Nonnull final Context context) throws Exception {
@@ -119,6 +132,9 @@ public class GroupHandler
   /**
    * Returns the first OK response from member repositories or {@link HttpResponses#notFound()} if none of the members
    * responded with OK.
+   *
+   * The member which last served the request path is tried first; members ahead of it are only skipped while the
+   * group knows they haven't gained content for the path since.
    */
   protected Response getFirst(@Nonnull final Context context,
                               @Nonnull final List<Repository> members,
@@ -126,6 +142,24 @@ public class GroupHandler
       throws Exception
   {
     final Request request = context.getRequest();
+    final GroupFacet groupFacet = context.getRepository().optionalFacet(GroupFacet.class).orElse(null);
+    final String path = groupFacet != null && request.getParameters().isEmpty() ? request.getPath() : null;
+
+    if (path != null) {
+      Repository member = groupFacet.getMemberHit(path);
+      if (member != null && members.contains(member) && !dispatched.contains(member)) {
+        log.trace("Trying member which last served {}: {}", path, member);
+        dispatched.add(member);
+
+        final Response response = member.facet(ViewFacet.class).dispatch(request, context);
+        log.trace("Member {} response {}", member, response.getStatus());
+        if (isValidResponse(response)) {
+          groupFacet.recordMemberHit(path, response.getStatus().isSuccessful() ? member : null);
+          return response;
+        }
+      }
+    }
+
     for (Repository member : members) {
       log.trace("Trying member: {}", member);
       // track repositories we have dispatched to, prevent circular dispatch for nested groups
@@ -139,9 +173,15 @@ public class GroupHandler
       final Response response = view.dispatch(request, context);
       log.trace("Member {} response {}", member, response.getStatus());
       if (isValidResponse(response)) {
+        if (path != null) {
+          groupFacet.recordMemberHit(path, response.getStatus().isSuccessful() ? member : null);
+        }
         return response;
       }
     }
+    if (path != null) {
+      groupFacet.recordMemberHit(path, null);
+    }
     return notFoundResponse(context);
   }
 
@@ -161,6 +201,9 @@ public class GroupHandler
    * different request then provided by the {@link Context#getRequest()} while still using the
    * same {@link Context} to execute the request in.
    *
+   * Members are dispatched concurrently when {@link GroupMemberDispatcher} is enabled, none of them is a group (nested
+   * groups share the {@link DispatchedRepositories} of the request) and no unit-of-work is bound to this thread.
+   *
    * @param request  {@link Request} that could be different then the {@link Context#getRequest()}
    * @param context  {@link Context}
    * @param members  {@link Repository}'s
@@ -174,6 +217,20 @@ public class GroupHandler
                                                        @Nonnull final DispatchedRepositories dispatched)
       throws Exception
   {
+    if (memberDispatcher != null && memberDispatcher.isEnabled()) {
+      List<Repository> pending = new ArrayList<>();
+      for (Repository member : members) {
+        if (!dispatched.contains(member)) {
+          pending.add(member);
+        }
+      }
+      if (pending.size() > 1 && canDispatchConcurrently(pending)) {
+        pending.forEach(dispatched::add);
+        log.trace("Dispatching concurrently to members: {}", pending);
+        return memberDispatcher.dispatch(request, context, pending);
+      }
+    }
+
     final LinkedHashMap<Repository, Response> responses = Maps.newLinkedHashMap();
     for (Repository member : members) {
       log.trace("Trying member: {}", member);
@@ -193,6 +250,14 @@ public class GroupHandler
     return responses;
   }
 
+  private static boolean canDispatchConcurrently(final List<Repository> members) {
+    if (members.stream().anyMatch(member -> member.optionalFacet(GroupFacet.class).isPresent())) {
+      return false;
+    }
+    UnitOfWork work = UnitOfWork.pause();
+    UnitOfWork.resume(work);
+    return work == null;
+  }
 
   /**
    * Returns standard 404 with no message. Override for format specific messaging.
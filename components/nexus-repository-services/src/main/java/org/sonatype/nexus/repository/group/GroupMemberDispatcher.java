@@ -0,0 +1,195 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.group;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.nexus.common.app.ManagedLifecycle;
+import org.sonatype.nexus.common.collect.AttributesMap;
+import org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Headers;
+import org.sonatype.nexus.repository.view.Request;
+import org.sonatype.nexus.repository.view.Response;
+import org.sonatype.nexus.repository.view.ViewFacet;
+import org.sonatype.nexus.security.ClientInfo;
+import org.sonatype.nexus.security.ClientInfoProvider;
+import org.sonatype.nexus.thread.NexusExecutorService;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import com.google.common.base.Throwables;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.SERVICES;
+
+/**
+ * Dispatches a request to several group members concurrently, on a bounded pool shared by all groups.
+ *
+ * Each member is sent its own copy of the request, as member handlers may change its headers and attributes. As when
+ * members are dispatched one after another, every member is awaited for as long as it takes to respond, so merged
+ * responses are never built from only some members. Member threads are never interrupted, as that could abort their
+ * blob store or database I/O; a member still running when another fails is left to finish, filling its proxy cache.
+ * When all threads are busy the requesting thread dispatches itself. Member threads run as the requesting subject
+ * with its client info, so content they store is attributed to the requesting user and address.
+ *
+ * @since 3.72
+ */
+@Named
+@ManagedLifecycle(phase = SERVICES)
+@Singleton
+public class GroupMemberDispatcher
+    extends StateGuardLifecycleSupport
+{
+  private static final String POOL_ID = "group-fanout";
+
+  private final ClientInfoProvider clientInfoProvider;
+
+  private final int threads;
+
+  private volatile ExecutorService executor;
+
+  @Inject
+  public GroupMemberDispatcher(
+      final ClientInfoProvider clientInfoProvider,
+      @Named("${nexus.group.fanout.threads:-20}") final int threads)
+  {
+    this.clientInfoProvider = checkNotNull(clientInfoProvider);
+    this.threads = threads;
+  }
+
+  @Override
+  protected void doStart() {
+    if (threads > 0) {
+      ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, SECONDS, new SynchronousQueue<>(),
+          new NexusThreadFactory(POOL_ID, "group fan-out"), new CallerRunsPolicy());
+      pool.allowCoreThreadTimeOut(true);
+      executor = NexusExecutorService.forCurrentSubject(pool);
+    }
+  }
+
+  @Override
+  protected void doStop() {
+    if (executor != null) {
+      // let members in flight finish rather than interrupting their I/O
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+  /**
+   * Returns {@code true} if members can be dispatched concurrently.
+   */
+  public boolean isEnabled() {
+    return executor != null;
+  }
+
+  /**
+   * Dispatches the request to all given members, returning their responses in member order.
+   *
+   * The first failure of any member is rethrown once the members before it have responded; the other members keep
+   * running in the background.
+   */
+  public LinkedHashMap<Repository, Response> dispatch(@Nonnull final Request request,
+                                                      @Nonnull final Context context,
+                                                      @Nonnull final List<Repository> members)
+      throws Exception
+  {
+    ExecutorService executor = this.executor;
+    checkState(executor != null, "Concurrent dispatch is not enabled");
+
+    ClientInfo clientInfo = clientInfoProvider.getCurrentThreadClientInfo();
+    Thread caller = Thread.currentThread();
+
+    Map<Repository, Future<Response>> pending = new LinkedHashMap<>();
+    for (Repository member : members) {
+      Request memberRequest = copy(request);
+      pending.put(member, executor.submit(() -> {
+        if (Thread.currentThread() == caller) {
+          // pool was busy, so the requesting thread is dispatching with its own client info
+          return member.facet(ViewFacet.class).dispatch(memberRequest, context);
+        }
+        return dispatchAs(clientInfo, member, memberRequest, context);
+      }));
+    }
+
+    LinkedHashMap<Repository, Response> responses = new LinkedHashMap<>();
+    for (Entry<Repository, Future<Response>> entry : pending.entrySet()) {
+      Response response = await(entry.getValue());
+      log.trace("Member {} response {}", entry.getKey(), response.getStatus());
+      responses.put(entry.getKey(), response);
+    }
+    return responses;
+  }
+
+  private Response dispatchAs(
+      @Nullable final ClientInfo clientInfo,
+      final Repository member,
+      final Request request,
+      final Context context) throws Exception
+  {
+    boolean bound = clientInfo != null && clientInfo.getRemoteIP() != null && clientInfo.getUserid() != null;
+    if (bound) {
+      clientInfoProvider.setClientInfo(clientInfo.getRemoteIP(), clientInfo.getUserid());
+    }
+    try {
+      return member.facet(ViewFacet.class).dispatch(request, context);
+    }
+    finally {
+      if (bound) {
+        clientInfoProvider.unsetClientInfo();
+      }
+    }
+  }
+
+  private static Response await(final Future<Response> future) throws Exception {
+    try {
+      return future.get();
+    }
+    catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), Exception.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  private static Request copy(final Request request) {
+    Headers headers = new Headers();
+    for (String name : request.getHeaders().names()) {
+      headers.set(name, request.getHeaders().getAll(name));
+    }
+    return new Request.Builder()
+        .copy(request)
+        .headers(headers)
+        .attributes(new AttributesMap(new HashMap<>(request.getAttributes().backing())))
+        .build();
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.group;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.goodies.common.Time;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Remembers which member of a group last served a path, so requests for it can try that member first rather than
+ * missing in the members before it.
+ *
+ * Entries expire after a while, so members ahead of the remembered one are eventually consulted again even when they
+ * gain content without telling the group.
+ *
+ * @since 3.72
+ */
+class GroupMemberHits
+{
+  private final Cache<String, String> members;
+
+  private final MetricRegistry metricRegistry;
+
+  private final String metricPrefix;
+
+  private final Meter hits;
+
+  private final Meter misses;
+
+  GroupMemberHits(final String groupName, final int maxSize, final Time expireAfter,
+                  final MetricRegistry metricRegistry)
+  {
+    this.members = CacheBuilder.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(expireAfter.toMillis(), TimeUnit.MILLISECONDS)
+        .build();
+    this.metricRegistry = checkNotNull(metricRegistry);
+    this.metricPrefix = name(GroupFacet.class, groupName, "member-hits");
+    this.hits = metricRegistry.meter(name(metricPrefix, "hits"));
+    this.misses = metricRegistry.meter(name(metricPrefix, "misses"));
+    metricRegistry.remove(name(metricPrefix, "ratio"));
+    metricRegistry.register(name(metricPrefix, "ratio"), new RatioGauge()
+    {
+      @Override
+      protected Ratio getRatio() {
+        return Ratio.of(hits.getCount(), hits.getCount() + misses.getCount());
+      }
+    });
+  }
+
+  /**
+   * Returns the name of the member which last served the path, if known.
+   */
+  @Nullable
+  String get(final String path) {
+    return members.getIfPresent(path);
+  }
+
+  void put(final String path, final String memberName) {
+    members.put(path, memberName);
+  }
+
+  /**
+   * Records whether the remembered member still served the path.
+   */
+  void served(final boolean hit) {
+    (hit ? hits : misses).mark();
+  }
+
+  void invalidate(final String path) {
+    members.invalidate(path);
+  }
+
+  void invalidateAll() {
+    members.invalidateAll();
+  }
+
+  long size() {
+    return members.size();
+  }
+
+  void close() {
+    members.invalidateAll();
+    metricRegistry.removeMatching((name, metric) -> name.startsWith(metricPrefix + '.'));
+  }
+}
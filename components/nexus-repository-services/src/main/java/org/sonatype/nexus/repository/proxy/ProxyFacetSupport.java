@@ -16,16 +16,21 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.validation.constraints.NotNull;
 
+import org.sonatype.goodies.common.ByteSize;
 import org.sonatype.nexus.common.cooperation2.Cooperation2;
 import org.sonatype.nexus.common.cooperation2.Cooperation2Factory;
 import org.sonatype.nexus.common.io.Cooperation;
@@ -46,6 +51,7 @@ import org.sonatype.nexus.repository.httpclient.RemoteBlockedIOException;
 import org.sonatype.nexus.repository.replication.PullReplicationSupport;
 import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.payloads.HttpEntityPayload;
 import org.sonatype.nexus.transaction.RetryDeniedException;
 import org.sonatype.nexus.validation.constraint.Url;
@@ -159,6 +165,12 @@ public abstract class ProxyFacetSupport
 
   private Cooperation2 proxyCooperation;
 
+  private boolean streamThroughEnabled;
+
+  private long streamThroughMinimumSize;
+
+  private Executor streamThroughExecutor;
+
   @Override
   public ProxyRepositoryConfiguration getConfiguration() {
     return config;
@@ -210,6 +222,34 @@ public abstract class ProxyFacetSupport
         .threadsPerKey(threadsPerKey);
   }
 
+  /**
+   * Configures stream-through downloads; large remote content is relayed to requesters while it is being stored.
+   *
+   * @param streamThroughExecutor runs the background stores, shared by all proxy repositories
+   * @param streamThroughEnabled  should remote content be relayed while it is being stored
+   * @param minimumSize           only relay remote content with a known size of at least this many bytes
+   * @since 3.72
+   */
+  @Inject
+  protected void configureStreamThrough(
+      final StreamThroughExecutor streamThroughExecutor,
+      @Named("${nexus.proxy.streamThrough.enabled:-false}") final boolean streamThroughEnabled,
+      @Named("${nexus.proxy.streamThrough.minimumSize:-10mb}") final ByteSize minimumSize)
+  {
+    configureStreamThrough((Executor) streamThroughExecutor, streamThroughEnabled, minimumSize);
+  }
+
+  @VisibleForTesting
+  void configureStreamThrough(
+      final Executor streamThroughExecutor,
+      final boolean streamThroughEnabled,
+      final ByteSize minimumSize)
+  {
+    this.streamThroughExecutor = checkNotNull(streamThroughExecutor);
+    this.streamThroughEnabled = streamThroughEnabled;
+    this.streamThroughMinimumSize = minimumSize.toBytes();
+  }
+
   @VisibleForTesting
   void buildCooperation() {
     buildCooperation(getRepository());
@@ -352,7 +392,12 @@ public abstract class ProxyFacetSupport
         downloading.set(TRUE);
       }
       remote = fetch(context, content);
-      if (remote != null) {
+      Content relay = remote != null && isStreamThrough(context, remote) ? storeInBackground(context, remote) : null;
+      if (relay != null) {
+        content = relay;
+        remote = null; // now owned by the background store
+      }
+      else if (remote != null) {
         content = store(context, remote);
         if (remote.equals(content)) {
           // remote wasn't stored; make reusable copy for cooperation
@@ -381,6 +426,65 @@ public abstract class ProxyFacetSupport
     return content;
   }
 
+  /**
+   * Should the given remote content be relayed to requesters while it is being stored? By default only large content
+   * of a known size is streamed through; formats which need to rewrite remote content should return {@code false}.
+   *
+   * @since 3.72
+   */
+  protected boolean isStreamThrough(final Context context, final Content remote) {
+    return streamThroughEnabled
+        && streamThroughExecutor != null
+        && remote.getSize() != Payload.UNKNOWN_SIZE
+        && remote.getSize() >= streamThroughMinimumSize;
+  }
+
+  /**
+   * Stores the remote content on a background thread while relaying it to the requester and cooperating threads.
+   * Readers see an error rather than the end of the stream if the store fails, in which case nothing is committed.
+   * Returns {@code null} if no background thread is available, leaving the remote content to be stored directly.
+   */
+  @Nullable
+  private Content storeInBackground(final Context context, final Content remote) throws IOException {
+    Path spoolFile = Files.createTempFile("proxy-", ".spool");
+    StreamThroughContent relay;
+    try {
+      relay = new StreamThroughContent(remote, spoolFile);
+    }
+    catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(spoolFile);
+      throw e;
+    }
+    try {
+      streamThroughExecutor.execute(() -> {
+        downloading.set(TRUE);
+        try {
+          relay.complete(store(context, relay.tee()));
+        }
+        catch (Exception | Error e) { // NOSONAR report all errors to readers
+          log.warn("Failed to store {} in proxy repo {} while streaming through, discarding stored copy",
+              getUrl(context), getRepository().getName(), log.isDebugEnabled() ? e : null);
+          relay.fail(e);
+        }
+        finally {
+          downloading.remove();
+          try {
+            remote.close();
+          }
+          catch (IOException e) {
+            log.debug("Unable to close remote content", e);
+          }
+        }
+      });
+    }
+    catch (RejectedExecutionException e) {
+      log.debug("No thread available to stream {} through, storing it directly", getUrl(context), e);
+      relay.fail(e); // nobody has read the relay yet, so this just removes the spool file
+      return null;
+    }
+    return relay;
+  }
+
   /**
    * Path + query parameters provide a unique enough request key for known formats. If a format needs to add more
    * context then they should customize this method.
@@ -0,0 +1,473 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.proxy;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.common.collect.AttributesMap;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Payload;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Temporary reusable {@link Content} that relays remote content to readers while it is being stored.
+ *
+ * The background store consumes the {@link #tee() tee} of the remote content; every byte it reads is appended to a
+ * local spool file which any number of readers can tail concurrently. Readers only see the end of the stream once
+ * the store has completed successfully, if the store fails then readers receive an {@link IOException} instead.
+ *
+ * The spool file is removed once the store has finished and the last reader is closed; readers arriving after that
+ * are served from the stored content, which also supplies the attributes from then on. If nothing was stored then the
+ * spool is kept for late readers until this content is closed.
+ *
+ * Until then the remote attributes are served without the remote ETag and last modified time, as the stored content
+ * is validated differently; the store itself still sees all remote attributes.
+ *
+ * Locks are used rather than monitors because readers and the store block on I/O while coordinating; blocking inside
+ * a monitor would pin virtual threads to their carrier.
+ *
+ * @since 3.72
+ */
+class StreamThroughContent
+    extends Content
+{
+  public StreamThroughContent(final Content remote, final Path spoolFile) throws IOException {
+    super(new Spool(remote, spoolFile), withoutValidators(remote.getAttributes()));
+  }
+
+  /**
+   * Returns content for storing that copies the remote payload into the spool as it is read.
+   */
+  public Content tee() {
+    return spool().tee;
+  }
+
+  /**
+   * Marks the store as complete; any remaining remote content is drained into the spool for waiting readers.
+   */
+  public void complete(@Nullable final Content stored) throws IOException {
+    spool().complete(stored);
+  }
+
+  /**
+   * Marks the store as failed; readers will receive an {@link IOException} instead of the end of the stream.
+   */
+  public void fail(final Throwable cause) {
+    spool().fail(cause);
+  }
+
+  /**
+   * Returns the attributes of the stored content once the store has completed, otherwise those of the remote content.
+   */
+  @Override
+  public AttributesMap getAttributes() {
+    Content stored = spool().stored();
+    return stored != null ? stored.getAttributes() : super.getAttributes();
+  }
+
+  private static AttributesMap withoutValidators(final AttributesMap remoteAttributes) {
+    AttributesMap attributes = new AttributesMap(new HashMap<>(remoteAttributes.backing()));
+    attributes.remove(Content.CONTENT_ETAG);
+    attributes.remove(Content.CONTENT_LAST_MODIFIED);
+    return attributes;
+  }
+
+  @VisibleForTesting
+  boolean isSpooling() {
+    return Files.exists(spool().spoolFile);
+  }
+
+  private Spool spool() {
+    return (Spool) getPayload();
+  }
+
+  private static class Spool
+      extends ComponentSupport
+      implements Payload
+  {
+    private final Content remote;
+
+    private final Path spoolFile;
+
+    private final OutputStream spoolOut;
+
+    private final Content tee;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition spooled = lock.newCondition();
+
+    private TeeInputStream teeIn;
+
+    private long written;
+
+    private boolean completed;
+
+    private Throwable failure;
+
+    private int readers;
+
+    private boolean closed;
+
+    private boolean deleted;
+
+    private Content stored;
+
+    Spool(final Content remote, final Path spoolFile) throws IOException {
+      this.remote = checkNotNull(remote);
+      this.spoolFile = checkNotNull(spoolFile);
+      this.spoolOut = Files.newOutputStream(spoolFile);
+      this.tee = new Content(remote, new TeePayload());
+    }
+
+    @Override
+    public InputStream openInputStream() throws IOException {
+      lock.lock();
+      try {
+        if (deleted) {
+          if (failure != null) {
+            throw new IOException("Failed to store remote content", failure);
+          }
+          if (stored == null) {
+            throw new IOException("Remote content is no longer available");
+          }
+          return stored.openInputStream();
+        }
+        readers++;
+        return new TailInputStream(Files.newInputStream(spoolFile));
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public long getSize() {
+      return remote.getSize();
+    }
+
+    @Nullable
+    @Override
+    public String getContentType() {
+      return remote.getContentType();
+    }
+
+    @Override
+    public void close() {
+      lock.lock();
+      try {
+        closed = true;
+        maybeDelete();
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+
+    @Nullable
+    private Content stored() {
+      lock.lock();
+      try {
+        return stored;
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+
+    private void append(final byte[] bytes, final int off, final int len) throws IOException {
+      lock.lock();
+      try {
+        spoolOut.write(bytes, off, len);
+        spoolOut.flush();
+        written += len;
+        spooled.signalAll();
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+
+    void complete(@Nullable final Content storedContent) throws IOException {
+      TeeInputStream in;
+      lock.lock();
+      try {
+        in = teeIn;
+      }
+      finally {
+        lock.unlock();
+      }
+      if (in == null) {
+        // the store didn't read the remote content at all
+        in = (TeeInputStream) tee.openInputStream();
+      }
+      in.drain();
+      lock.lock();
+      try {
+        spoolOut.close();
+        if (storedContent != tee) {
+          stored = storedContent;
+        }
+        completed = true;
+        spooled.signalAll();
+        maybeDelete();
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+
+    void fail(final Throwable cause) {
+      lock.lock();
+      try {
+        try {
+          spoolOut.close();
+        }
+        catch (IOException e) {
+          log.debug("Unable to close spool {}", spoolFile, e);
+        }
+        failure = checkNotNull(cause);
+        spooled.signalAll();
+        maybeDelete();
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+
+    private void release() {
+      lock.lock();
+      try {
+        readers--;
+        maybeDelete();
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+
+    private void maybeDelete() {
+      // without a stored copy the spool is the only source for late readers
+      boolean finished = failure != null || (completed && (stored != null || closed));
+      if (finished && readers <= 0 && !deleted) {
+        deleted = true;
+        try {
+          Files.deleteIfExists(spoolFile);
+        }
+        catch (IOException e) {
+          log.warn("Unable to delete spool {}", spoolFile, e);
+        }
+      }
+    }
+
+    /**
+     * Blocks until more content is spooled; returns the number of bytes available from the given position,
+     * or -1 once the store has completed and everything was read.
+     */
+    private long awaitAvailable(final long position) throws IOException {
+      lock.lock();
+      try {
+        while (position >= written && !completed && failure == null) {
+          spooled.await();
+        }
+        if (failure != null) {
+          throw new IOException("Failed to store remote content", failure);
+        }
+        return position < written ? written - position : -1;
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for remote content");
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+
+    private class TeePayload
+        implements Payload
+    {
+      @Override
+      public InputStream openInputStream() throws IOException {
+        lock.lock();
+        try {
+          checkState(teeIn == null, "Remote content can only be stored once");
+          teeIn = new TeeInputStream(remote.openInputStream());
+          return teeIn;
+        }
+        finally {
+          lock.unlock();
+        }
+      }
+
+      @Override
+      public long getSize() {
+        return remote.getSize();
+      }
+
+      @Nullable
+      @Override
+      public String getContentType() {
+        return remote.getContentType();
+      }
+    }
+
+    /**
+     * Copies remote content into the spool as it is read; the remote stream stays open after {@link #close()}
+     * so anything the store didn't consume can still be drained for waiting readers.
+     */
+    private class TeeInputStream
+        extends FilterInputStream
+    {
+      private final ReentrantLock readLock = new ReentrantLock();
+
+      private boolean eof;
+
+      TeeInputStream(final InputStream in) {
+        super(in);
+      }
+
+      @Override
+      public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n > 0 ? b[0] & 0xff : -1;
+      }
+
+      @Override
+      public int read(final byte[] b, final int off, final int len) throws IOException {
+        readLock.lock();
+        try {
+          int n = in.read(b, off, len);
+          if (n > 0) {
+            append(b, off, n);
+          }
+          else if (n < 0) {
+            eof = true;
+          }
+          return n;
+        }
+        finally {
+          readLock.unlock();
+        }
+      }
+
+      @Override
+      public long skip(final long n) throws IOException {
+        // skipped content still needs to reach the spool
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long remaining = n;
+        while (remaining > 0) {
+          int count = read(buffer, 0, (int) Math.min(remaining, buffer.length));
+          if (count < 0) {
+            break;
+          }
+          remaining -= count;
+        }
+        return n - remaining;
+      }
+
+      @Override
+      public boolean markSupported() {
+        return false;
+      }
+
+      @Override
+      public void close() {
+        // remote stream is closed by the owner of the remote content
+      }
+
+      void drain() throws IOException {
+        byte[] buffer = new byte[8192];
+        readLock.lock();
+        try {
+          while (!eof) {
+            read(buffer, 0, buffer.length);
+          }
+        }
+        finally {
+          readLock.unlock();
+        }
+      }
+    }
+
+    /**
+     * Reads the spool, waiting for the background store whenever it catches up with the spooled content.
+     */
+    private class TailInputStream
+        extends InputStream
+    {
+      private final InputStream in;
+
+      private long position;
+
+      private boolean closed;
+
+      TailInputStream(final InputStream in) {
+        this.in = in;
+      }
+
+      @Override
+      public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n > 0 ? b[0] & 0xff : -1;
+      }
+
+      @Override
+      public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+          return 0;
+        }
+        long available = awaitAvailable(position);
+        if (available < 0) {
+          return -1;
+        }
+        int n = in.read(b, off, (int) Math.min(len, available));
+        if (n > 0) {
+          position += n;
+        }
+        return n;
+      }
+
+      @Override
+      public void close() throws IOException {
+        if (!closed) {
+          closed = true;
+          try {
+            in.close();
+          }
+          finally {
+            release();
+          }
+        }
+      }
+    }
+  }
+}
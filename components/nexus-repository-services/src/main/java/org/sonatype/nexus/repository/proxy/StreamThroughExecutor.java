@@ -0,0 +1,109 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.proxy;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.nexus.common.app.ManagedLifecycle;
+import org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport;
+import org.sonatype.nexus.security.ClientInfo;
+import org.sonatype.nexus.security.ClientInfoProvider;
+import org.sonatype.nexus.thread.NexusExecutorService;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.SERVICES;
+
+/**
+ * Runs stream-through stores for all proxy repositories on a single bounded pool.
+ *
+ * Work is rejected with a {@link RejectedExecutionException} when all threads are busy or the pool is stopped, in
+ * which case the proxy stores the remote content on the requesting thread as usual. Stores run as the requesting
+ * subject with its client info, so stored content is attributed to the requesting user and address.
+ *
+ * @since 3.72
+ */
+@Named
+@ManagedLifecycle(phase = SERVICES)
+@Singleton
+public class StreamThroughExecutor
+    extends StateGuardLifecycleSupport
+    implements Executor
+{
+  private static final String POOL_ID = "proxy-stream-through";
+
+  private final ClientInfoProvider clientInfoProvider;
+
+  private final int threads;
+
+  private volatile ExecutorService executor;
+
+  @Inject
+  public StreamThroughExecutor(
+      final ClientInfoProvider clientInfoProvider,
+      @Named("${nexus.proxy.streamThrough.threads:-20}") final int threads)
+  {
+    this.clientInfoProvider = checkNotNull(clientInfoProvider);
+    this.threads = threads;
+  }
+
+  @Override
+  protected void doStart() {
+    if (threads > 0) {
+      ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, SECONDS, new SynchronousQueue<>(),
+          new NexusThreadFactory(POOL_ID, "stream-through"));
+      pool.allowCoreThreadTimeOut(true);
+      executor = NexusExecutorService.forCurrentSubject(pool);
+    }
+  }
+
+  @Override
+  protected void doStop() {
+    if (executor != null) {
+      // let any in-flight stores complete so their requesters are not cut short
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+  @Override
+  public void execute(final Runnable command) {
+    ExecutorService executor = this.executor;
+    if (executor == null) {
+      throw new RejectedExecutionException("Stream-through is not running");
+    }
+    ClientInfo clientInfo = clientInfoProvider.getCurrentThreadClientInfo();
+    if (clientInfo == null || clientInfo.getRemoteIP() == null || clientInfo.getUserid() == null) {
+      executor.execute(command);
+      return;
+    }
+    executor.execute(() -> {
+      clientInfoProvider.setClientInfo(clientInfo.getRemoteIP(), clientInfo.getUserid());
+      try {
+        command.run();
+      }
+      finally {
+        clientInfoProvider.unsetClientInfo();
+      }
+    });
+  }
+}
@@ -27,9 +27,12 @@ import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.manager.RepositoryDeletedEvent;
 import org.sonatype.nexus.repository.manager.RepositoryUpdatedEvent;
 import org.sonatype.nexus.repository.routing.RoutingRule;
+import org.sonatype.nexus.repository.routing.RoutingRuleDeletedEvent;
 import org.sonatype.nexus.repository.routing.RoutingRuleInvalidatedEvent;
 import org.sonatype.nexus.repository.routing.RoutingRuleStore;
+import org.sonatype.nexus.repository.routing.RoutingRuleUpdatedEvent;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -39,8 +42,8 @@ import com.google.common.eventbus.Subscribe;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * An in-memory cache of the RoutingRule assigned to a Repository. Uses events to know when to invalidate the
- * cache.
+ * An in-memory cache of the RoutingRule assigned to a Repository, along with its compiled {@link RoutingRuleMatcher}.
+ * Uses events to know when to invalidate the cache.
  *
  * @since 3.17
  */
@@ -53,16 +56,26 @@ public class RoutingRuleCache
   private final LoadingCache<Repository, Optional<EntityId>> repositoryAssignedCache =
       CacheBuilder.newBuilder().build(new RepositoryMappingCacheLoader());
 
-  private final LoadingCache<EntityId, Optional<RoutingRule>> routingRuleCache =
+  private final LoadingCache<EntityId, Optional<RoutingRuleMatcher>> routingRuleCache =
       CacheBuilder.newBuilder().build(new RoutingRuleCacheLoader());
 
   private final RoutingRuleStore routingRuleStore;
 
+  private MetricRegistry metricRegistry = new MetricRegistry();
+
   @Inject
   public RoutingRuleCache(final RoutingRuleStore routingRuleStore) {
     this.routingRuleStore = checkNotNull(routingRuleStore);
   }
 
+  /**
+   * @since 3.72
+   */
+  @Inject
+  public void setMetricRegistry(final MetricRegistry metricRegistry) {
+    this.metricRegistry = checkNotNull(metricRegistry);
+  }
+
   /**
    * Retrieves the routing rule assigned to a repository or null if one is not assigned.
    *
@@ -71,8 +84,19 @@ public class RoutingRuleCache
    */
   @Nullable
   public RoutingRule getRoutingRule(final Repository repository) {
+    RoutingRuleMatcher matcher = getRoutingRuleMatcher(repository);
+    return matcher != null ? matcher.getRoutingRule() : null;
+  }
+
+  /**
+   * Retrieves the compiled form of the routing rule assigned to a repository or null if one is not assigned.
+   *
+   * @since 3.72
+   */
+  @Nullable
+  RoutingRuleMatcher getRoutingRuleMatcher(final Repository repository) {
     try {
-      return repositoryAssignedCache.get(repository).map(this::getRoutingRule).orElse(null);
+      return repositoryAssignedCache.get(repository).map(this::getRoutingRuleMatcher).orElse(null);
     }
     catch (ExecutionException e) {
       log.error("An error occurred retrieving the routing rule for repository: {}", repository.getName(), e);
@@ -97,7 +121,7 @@ public class RoutingRuleCache
     }
   }
 
-  private RoutingRule getRoutingRule(final EntityId id) {
+  private RoutingRuleMatcher getRoutingRuleMatcher(final EntityId id) {
     try {
       return routingRuleCache.get(id).orElse(null);
     }
@@ -125,6 +149,31 @@ public class RoutingRuleCache
     routingRuleCache.invalidate(event.getRoutingRuleId());
   }
 
+  @AllowConcurrentEvents
+  @Subscribe
+  public void handle(final RoutingRuleUpdatedEvent event) {
+    Optional<RoutingRuleMatcher> previous = routingRuleCache.getIfPresent(event.getRoutingRule().id());
+    routingRuleCache.invalidate(event.getRoutingRule().id());
+
+    // metrics are named after the rule, so drop those of its old name when renamed
+    if (previous != null && previous.isPresent()) {
+      String previousName = previous.get().getRoutingRule().name();
+      if (!previousName.equals(event.getRoutingRule().name())) {
+        removeMetrics(previousName);
+      }
+    }
+  }
+
+  @AllowConcurrentEvents
+  @Subscribe
+  public void handle(final RoutingRuleDeletedEvent event) {
+    removeMetrics(event.getRoutingRule().name());
+  }
+
+  private void removeMetrics(final String routingRuleName) {
+    RoutingRuleMatcher.removeMetrics(metricRegistry, routingRuleName);
+  }
+
   private static class RepositoryMappingCacheLoader
       extends CacheLoader<Repository, Optional<EntityId>>
   {
@@ -135,11 +184,12 @@ public class RoutingRuleCache
   }
 
   private class RoutingRuleCacheLoader
-      extends CacheLoader<EntityId, Optional<RoutingRule>>
+      extends CacheLoader<EntityId, Optional<RoutingRuleMatcher>>
   {
     @Override
-    public Optional<RoutingRule> load(final EntityId key) throws Exception {
-      return Optional.ofNullable(routingRuleStore.getById(key.getValue()));
+    public Optional<RoutingRuleMatcher> load(final EntityId key) throws Exception {
+      return Optional.ofNullable(routingRuleStore.getById(key.getValue()))
+          .map(routingRule -> new RoutingRuleMatcher(routingRule, metricRegistry));
     }
   }
 }
@@ -68,13 +68,13 @@ public class RoutingRuleHelperImpl
 
   @Override
   public boolean isAllowed(final Repository repository, final String path) {
-    RoutingRule routingRule = routingRuleCache.getRoutingRule(repository);
+    RoutingRuleMatcher matcher = routingRuleCache.getRoutingRuleMatcher(repository);
 
-    if (routingRule == null) {
+    if (matcher == null) {
       return true;
     }
 
-    return isAllowed(routingRule, path);
+    return matcher.isAllowed(path);
   }
 
   public boolean isAllowed(final RoutingRule routingRule, final String path) {
@@ -83,8 +83,7 @@ public class RoutingRuleHelperImpl
 
   @Override
   public boolean isAllowed(final RoutingMode mode, final List<String> matchers, final String path) {
-    boolean matches = matchers.stream().anyMatch(path::matches);
-    return (!matches && mode == RoutingMode.BLOCK) || (matches && mode == RoutingMode.ALLOW);
+    return RoutingRuleMatcher.isAllowed(mode, RoutingRuleMatcher.compile(matchers).test(path));
   }
 
   @Override
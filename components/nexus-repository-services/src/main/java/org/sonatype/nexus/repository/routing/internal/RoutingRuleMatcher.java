@@ -0,0 +1,114 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.routing.internal;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.sonatype.nexus.repository.routing.RoutingMode;
+import org.sonatype.nexus.repository.routing.RoutingRule;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A {@link RoutingRule} with its matchers compiled once, into a single alternation where possible, so requests don't
+ * recompile the expressions as {@link String#matches(String)} does.
+ *
+ * Evaluations of each rule are timed and blocked requests counted under the rule's name.
+ *
+ * @since 3.72
+ */
+class RoutingRuleMatcher
+{
+  /**
+   * Constructs which don't keep their meaning inside a larger alternation: back-references and named groups, which are
+   * numbered or named across the whole expression, and quoting or comments, which can run past the end of a matcher.
+   * Matchers using them are kept as separate patterns.
+   */
+  private static final Pattern NOT_COMBINABLE = Pattern.compile("\\\\[1-9kQ]|\\(\\?<[a-zA-Z]|\\(\\?[a-wyz-]*x");
+
+  private static final String EVALUATIONS = "evaluations";
+
+  private static final String BLOCKED = "blocked";
+
+  private final RoutingRule routingRule;
+
+  private final Predicate<String> matcher;
+
+  private final Timer evaluations;
+
+  private final Meter blocked;
+
+  RoutingRuleMatcher(final RoutingRule routingRule, final MetricRegistry metricRegistry) {
+    this.routingRule = checkNotNull(routingRule);
+    this.matcher = compile(routingRule.matchers());
+    this.evaluations = metricRegistry.timer(name(RoutingRule.class, routingRule.name(), EVALUATIONS));
+    this.blocked = metricRegistry.meter(name(RoutingRule.class, routingRule.name(), BLOCKED));
+  }
+
+  /**
+   * Removes the metrics recorded for the named rule.
+   */
+  static void removeMetrics(final MetricRegistry metricRegistry, final String routingRuleName) {
+    metricRegistry.remove(name(RoutingRule.class, routingRuleName, EVALUATIONS));
+    metricRegistry.remove(name(RoutingRule.class, routingRuleName, BLOCKED));
+  }
+
+  RoutingRule getRoutingRule() {
+    return routingRule;
+  }
+
+  boolean isAllowed(final String path) {
+    boolean allowed;
+    try (Timer.Context ignored = evaluations.time()) {
+      allowed = isAllowed(routingRule.mode(), matcher.test(path));
+    }
+    if (!allowed) {
+      blocked.mark();
+    }
+    return allowed;
+  }
+
+  static boolean isAllowed(final RoutingMode mode, final boolean matches) {
+    return (!matches && mode == RoutingMode.BLOCK) || (matches && mode == RoutingMode.ALLOW);
+  }
+
+  /**
+   * Compiles the matchers into a predicate matching paths that any of them matches entirely.
+   */
+  static Predicate<String> compile(final List<String> matchers) {
+    List<Pattern> patterns = matchers.stream().map(Pattern::compile).collect(toList());
+    if (patterns.isEmpty()) {
+      return path -> false;
+    }
+    if (patterns.size() > 1 && matchers.stream().noneMatch(m -> NOT_COMBINABLE.matcher(m).find())) {
+      try {
+        Pattern combined = Pattern.compile(matchers.stream().collect(joining(")|(?:", "(?:", ")")));
+        return path -> combined.matcher(path).matches();
+      }
+      catch (PatternSyntaxException e) { // NOSONAR
+        // fall back to the separate patterns
+      }
+    }
+    return path -> patterns.stream().anyMatch(pattern -> pattern.matcher(path).matches());
+  }
+}
@@ -35,6 +35,7 @@ import org.sonatype.nexus.repository.manager.RepositoryManager;
 import org.sonatype.nexus.repository.search.index.IndexNamingPolicy;
 import org.sonatype.nexus.repository.search.index.SearchIndexFacet;
 import org.sonatype.nexus.repository.search.query.SearchSubjectHelper.SubjectRegistration;
+import org.sonatype.nexus.repository.search.selector.ContentAuthFilterBuilder;
 import org.sonatype.nexus.repository.search.selector.ContentAuthPluginScriptFactory;
 import org.sonatype.nexus.repository.security.RepositoryViewPermission;
 import org.sonatype.nexus.security.SecurityHelper;
@@ -66,6 +67,7 @@ import org.elasticsearch.search.sort.SortBuilder;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 import static org.elasticsearch.index.query.QueryBuilders.scriptQuery;
 import static org.sonatype.nexus.repository.search.index.SearchConstants.TYPE;
 import static org.sonatype.nexus.repository.search.query.RepositoryQueryBuilder.repositoryQuery;
@@ -99,6 +101,8 @@ public class ElasticSearchQueryServiceImpl
 
   private static final int MAX_ELASTIC_RESPONSE_SIZE = 10000;
 
+  private ContentAuthFilterBuilder contentAuthFilterBuilder;
+
   /**
    * @param client source for a {@link Client}
    * @param repositoryManager the repositoryManager
@@ -123,6 +127,14 @@ public class ElasticSearchQueryServiceImpl
     this.profile = profile;
   }
 
+  /**
+   * @since 3.72
+   */
+  @Inject
+  public void setContentAuthFilterBuilder(final ContentAuthFilterBuilder contentAuthFilterBuilder) {
+    this.contentAuthFilterBuilder = contentAuthFilterBuilder;
+  }
+
   @Override
   public Iterable<SearchHit> browse(final QueryBuilder query) {
     if (!validateQuery(query)) {
@@ -130,12 +142,12 @@ public class ElasticSearchQueryServiceImpl
     }
 
     RepositoryQueryBuilder repoQuery = repositoryQuery(query);
-    final String[] searchableIndexes = getSearchableIndexes(repoQuery);
-    if (searchableIndexes.length == 0) {
+    final List<Repository> repositories = getSearchableRepositories(repoQuery);
+    if (repositories.isEmpty()) {
       return emptyList();
     }
 
-    return () -> new SearchHitIterator(query, searchableIndexes, repoQuery.skipContentSelectors);
+    return () -> new SearchHitIterator(query, repositories, repoQuery.skipContentSelectors);
   }
 
   @Override
@@ -145,7 +157,8 @@ public class ElasticSearchQueryServiceImpl
     }
 
     RepositoryQueryBuilder repoQuery = repositoryQuery(query);
-    final String[] searchableIndexes = getSearchableIndexes(repoQuery);
+    final List<Repository> repositories = getSearchableRepositories(repoQuery);
+    final String[] searchableIndexes = indexNames(repositories);
     if (searchableIndexes.length == 0) {
       return EMPTY_SEARCH_RESPONSE;
     }
@@ -155,7 +168,7 @@ public class ElasticSearchQueryServiceImpl
     }
 
     try (SubjectRegistration registration = searchSubjectHelper.register(securityHelper.subject())) {
-      QueryBuilder selectorFilter = scriptQuery(ContentAuthPluginScriptFactory.newScript(registration.getId()));
+      QueryBuilder selectorFilter = selectorFilter(repositories, registration);
       return executeSearch(repoQuery, searchableIndexes, from, size, selectorFilter);
     }
   }
@@ -169,7 +182,8 @@ public class ElasticSearchQueryServiceImpl
     checkNotNull(aggregations);
 
     RepositoryQueryBuilder repoQuery = repositoryQuery(query);
-    final String[] searchableIndexes = getSearchableIndexes(repoQuery);
+    final List<Repository> repositories = getSearchableRepositories(repoQuery);
+    final String[] searchableIndexes = indexNames(repositories);
     if (searchableIndexes.length == 0) {
       return EMPTY_SEARCH_RESPONSE;
     }
@@ -179,7 +193,7 @@ public class ElasticSearchQueryServiceImpl
     }
 
     try (SubjectRegistration registration = searchSubjectHelper.register(securityHelper.subject())) {
-      QueryBuilder selectorFilter = scriptQuery(ContentAuthPluginScriptFactory.newScript(registration.getId()));
+      QueryBuilder selectorFilter = selectorFilter(repositories, registration);
       return executeSearch(repoQuery, searchableIndexes, aggregations, selectorFilter);
     }
   }
@@ -266,7 +280,8 @@ public class ElasticSearchQueryServiceImpl
     }
 
     RepositoryQueryBuilder repoQuery = repositoryQuery(query);
-    final String[] searchableIndexes = getSearchableIndexes(repoQuery);
+    final List<Repository> repositories = getSearchableRepositories(repoQuery);
+    final String[] searchableIndexes = indexNames(repositories);
     if (searchableIndexes.length == 0) {
       return 0;
     }
@@ -282,12 +297,23 @@ public class ElasticSearchQueryServiceImpl
     }
 
     try (SubjectRegistration registration = searchSubjectHelper.register(securityHelper.subject())) {
-      QueryBuilder selectorFilter = scriptQuery(ContentAuthPluginScriptFactory.newScript(registration.getId()));
+      QueryBuilder selectorFilter = selectorFilter(repositories, registration);
       searchRequestBuilder.setPostFilter(selectorFilter);
       return searchRequestBuilder.execute().actionGet().getHits().totalHits();
     }
   }
 
+  /**
+   * Returns the filter applying the content selectors of the current subject, registered for use by the script.
+   */
+  private QueryBuilder selectorFilter(final List<Repository> repositories, final SubjectRegistration registration) {
+    QueryBuilder scriptFilter = scriptQuery(ContentAuthPluginScriptFactory.newScript(registration.getId()));
+    if (contentAuthFilterBuilder == null) {
+      return scriptFilter;
+    }
+    return contentAuthFilterBuilder.buildFilter(repositories, scriptFilter);
+  }
+
   private boolean validateQuery(final QueryBuilder query) {
     checkNotNull(query);
     try {
@@ -315,6 +341,10 @@ public class ElasticSearchQueryServiceImpl
 
   @VisibleForTesting
   String[] getSearchableIndexes(final RepositoryQueryBuilder repoQuery) {
+    return indexNames(getSearchableRepositories(repoQuery));
+  }
+
+  private List<Repository> getSearchableRepositories(final RepositoryQueryBuilder repoQuery) {
     Stream<Repository> repositories = StreamSupport
         .stream(repositoryManager.browse().spliterator(), false)
         .filter(ElasticSearchQueryServiceImpl::repoOnlineAndHasSearchIndexFacet);
@@ -330,7 +360,11 @@ public class ElasticSearchQueryServiceImpl
           .filter(r -> securityHelper.allPermitted(new RepositoryViewPermission(r, BROWSE)));
     }
 
-    return repositories
+    return repositories.collect(toList());
+  }
+
+  private String[] indexNames(final List<Repository> repositories) {
+    return repositories.stream()
         .map(indexNamingPolicy::indexName)
         .toArray(String[]::new);
   }
@@ -367,6 +401,8 @@ public class ElasticSearchQueryServiceImpl
   {
     private final QueryBuilder query;
 
+    private final List<Repository> repositories;
+
     private final String[] searchableIndexes;
 
     private final boolean skipPermissionCheck;
@@ -378,11 +414,12 @@ public class ElasticSearchQueryServiceImpl
     private boolean noMoreHits = false;
 
     SearchHitIterator(final QueryBuilder query,
-                      final String[] searchableIndexes, // NOSONAR
+                      final List<Repository> repositories,
                       final boolean skipPermissionCheck)
     {
       this.query = query;
-      this.searchableIndexes = searchableIndexes;
+      this.repositories = repositories;
+      this.searchableIndexes = indexNames(repositories);
       this.skipPermissionCheck = skipPermissionCheck;
     }
 
@@ -400,8 +437,7 @@ public class ElasticSearchQueryServiceImpl
             .setProfile(profile);
         if (!skipPermissionCheck) {
           try (SubjectRegistration registration = searchSubjectHelper.register(securityHelper.subject())) {
-            QueryBuilder selectorFilter = scriptQuery(ContentAuthPluginScriptFactory.newScript(registration.getId()));
-            builder.setPostFilter(selectorFilter);
+            builder.setPostFilter(selectorFilter(repositories, registration));
             response = builder.execute().actionGet();
           }
         }
@@ -0,0 +1,205 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.search.selector;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.manager.RepositoryManager;
+import org.sonatype.nexus.repository.security.RepositoryContentSelectorPermission;
+import org.sonatype.nexus.repository.security.RepositoryViewPermission;
+import org.sonatype.nexus.security.SecurityHelper;
+import org.sonatype.nexus.selector.CselSelector;
+import org.sonatype.nexus.selector.SelectorConfiguration;
+import org.sonatype.nexus.selector.SelectorEvaluationException;
+import org.sonatype.nexus.selector.SelectorManager;
+
+import org.apache.shiro.authz.Permission;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toSet;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.existsQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.sonatype.nexus.repository.search.index.SearchConstants.ASSETS;
+import static org.sonatype.nexus.repository.search.index.SearchConstants.FORMAT;
+import static org.sonatype.nexus.repository.search.index.SearchConstants.NAME;
+import static org.sonatype.nexus.repository.search.index.SearchConstants.REPOSITORY_NAME;
+import static org.sonatype.nexus.security.BreadActions.READ;
+
+/**
+ * Builds the filter which limits search hits to the content the current subject may read, the same decision
+ * {@link ContentAuthPluginScript} makes per hit.
+ *
+ * Repositories the subject may view (directly or through a group) are filtered by name, and CSEL content selectors
+ * which only test the format are compiled to native filters by {@link CselToElasticSearch}, so Elasticsearch can
+ * apply them to its indexes instead of calling back into Java for every candidate hit. Repositories where some
+ * permitted selector can't be compiled, such as a JEXL selector, are filtered with the script.
+ *
+ * Selectors testing the path are always left to the script: it only considers the first asset of a component, whereas
+ * a filter on the multi-valued asset names would consider every asset and so decide differently.
+ *
+ * @since 3.72
+ */
+@Named
+@Singleton
+public class ContentAuthFilterBuilder
+    extends ComponentSupport
+{
+  private static final String ASSET_PATH = ASSETS + '.' + NAME;
+
+  private final SecurityHelper securityHelper;
+
+  private final SelectorManager selectorManager;
+
+  private final RepositoryManager repositoryManager;
+
+  private final boolean enabled;
+
+  private final CselToElasticSearch cselToElasticSearch = new CselToElasticSearch();
+
+  @Inject
+  public ContentAuthFilterBuilder(
+      final SecurityHelper securityHelper,
+      final SelectorManager selectorManager,
+      final RepositoryManager repositoryManager,
+      @Named("${nexus.elasticsearch.nativeContentSelectors:-true}") final boolean enabled)
+  {
+    this.securityHelper = checkNotNull(securityHelper);
+    this.selectorManager = checkNotNull(selectorManager);
+    this.repositoryManager = checkNotNull(repositoryManager);
+    this.enabled = enabled;
+  }
+
+  /**
+   * Returns the filter for hits from the given repositories, using the script filter where selectors can't be
+   * compiled.
+   */
+  public QueryBuilder buildFilter(final List<Repository> repositories, final QueryBuilder scriptFilter) {
+    if (!enabled) {
+      return scriptFilter;
+    }
+
+    Map<Repository, Set<String>> repositoryNames = new HashMap<>();
+    for (Repository repository : repositories) {
+      Set<String> names = new LinkedHashSet<>();
+      names.add(repository.getName());
+      names.addAll(repositoryManager.findContainingGroups(repository.getName()));
+      repositoryNames.put(repository, names);
+    }
+
+    List<SelectorConfiguration> selectors = null;
+    Map<String, Optional<QueryBuilder>> compiled = new HashMap<>();
+    BoolQueryBuilder permitted = boolQuery().minimumShouldMatch(1);
+    boolean anyPermitted = false;
+    int scripted = 0;
+
+    for (Repository repository : repositories) {
+      String format = repository.getFormat().getValue();
+      Set<String> names = repositoryNames.get(repository);
+      QueryBuilder inRepository = termQuery(REPOSITORY_NAME, repository.getName());
+
+      if (securityHelper.anyPermitted(viewPermissions(format, names))) {
+        permitted.should(inRepository);
+        anyPermitted = true;
+        continue;
+      }
+
+      if (selectors == null) {
+        selectors = selectorManager.browseActive(
+            repositoryNames.values().stream().flatMap(Set::stream).collect(toSet()),
+            repositories.stream().map(r -> r.getFormat().getValue()).collect(toSet()));
+      }
+
+      BoolQueryBuilder selected = boolQuery().minimumShouldMatch(1);
+      boolean anySelected = false;
+      boolean needsScript = false;
+      for (SelectorConfiguration selector : selectors) {
+        if (!securityHelper.anyPermitted(contentPermissions(selector, format, names))) {
+          continue;
+        }
+        Optional<QueryBuilder> query = compiled.computeIfAbsent(selector.getName(), name -> compile(selector));
+        if (!query.isPresent()) {
+          needsScript = true;
+          break;
+        }
+        selected.should(query.get());
+        anySelected = true;
+      }
+
+      if (needsScript) {
+        permitted.should(boolQuery().filter(inRepository).filter(scriptFilter));
+        anyPermitted = true;
+        scripted++;
+      }
+      else if (anySelected) {
+        permitted.should(boolQuery().filter(inRepository).filter(selected));
+        anyPermitted = true;
+      }
+    }
+
+    log.trace("Content selectors of {} out of {} repositories need the script filter", scripted,
+        repositories.size());
+
+    // the script never permits components without assets
+    return boolQuery()
+        .filter(existsQuery(ASSET_PATH))
+        .filter(anyPermitted ? permitted : boolQuery().mustNot(matchAllQuery()));
+  }
+
+  private Optional<QueryBuilder> compile(final SelectorConfiguration selector) {
+    if (!CselSelector.TYPE.equals(selector.getType())) {
+      return Optional.empty();
+    }
+    // only single-valued fields give the same answer as the script, which tests the first asset's path
+    SelectorQueryBuilder queryBuilder = new SelectorQueryBuilder().propertyAlias("format", FORMAT);
+    try {
+      selectorManager.toSql(selector, queryBuilder, cselToElasticSearch);
+      return Optional.ofNullable(queryBuilder.getQuery());
+    }
+    catch (SelectorEvaluationException e) {
+      log.debug("Content selector {} will be evaluated by script", selector.getName(), e);
+      return Optional.empty();
+    }
+  }
+
+  private static Permission[] viewPermissions(final String format, final Set<String> names) {
+    return names.stream()
+        .map(name -> new RepositoryViewPermission(format, name, READ))
+        .toArray(Permission[]::new);
+  }
+
+  private static Permission[] contentPermissions(
+      final SelectorConfiguration selector,
+      final String format,
+      final Set<String> names)
+  {
+    return names.stream()
+        .map(name -> new RepositoryContentSelectorPermission(selector.getName(), format, name, singletonList(READ)))
+        .toArray(Permission[]::new);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.search.selector;
+
+import org.sonatype.nexus.selector.CselToSql;
+import org.sonatype.nexus.selector.ParserVisitorSupport;
+
+import org.apache.commons.jexl3.JexlException;
+import org.apache.commons.jexl3.parser.ASTAndNode;
+import org.apache.commons.jexl3.parser.ASTEQNode;
+import org.apache.commons.jexl3.parser.ASTIdentifier;
+import org.apache.commons.jexl3.parser.ASTJexlScript;
+import org.apache.commons.jexl3.parser.ASTNENode;
+import org.apache.commons.jexl3.parser.ASTOrNode;
+import org.apache.commons.jexl3.parser.ASTReferenceExpression;
+import org.apache.commons.jexl3.parser.ASTStringLiteral;
+import org.apache.commons.jexl3.parser.JexlNode;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+
+/**
+ * Walks the script, transforming CSEL expressions into Elasticsearch filters: {@code ==} and {@code !=} become term
+ * filters. Other operators, such as {@code =^} and {@code =~}, fail the transformation, as do properties without a
+ * field alias in the {@link SelectorQueryBuilder}.
+ *
+ * @since 3.72
+ */
+public class CselToElasticSearch
+    extends ParserVisitorSupport
+    implements CselToSql<SelectorQueryBuilder>
+{
+  private static final String EXPECTED_STRING_LITERAL = "Expected string literal";
+
+  @Override
+  public void transformCselToSql(final ASTJexlScript script, final SelectorQueryBuilder builder) {
+    if (script.jjtGetNumChildren() != 1) {
+      throw new JexlException(script, "Expected a single expression");
+    }
+    builder.setQuery((QueryBuilder) script.jjtGetChild(0).jjtAccept(this, builder));
+  }
+
+  @Override
+  protected Object doVisit(final JexlNode node, final Object data) {
+    throw new JexlException(node, "Expression not supported by Elasticsearch, failing node is " + node);
+  }
+
+  /**
+   * Transform `a || b` into a filter which requires either
+   */
+  @Override
+  protected Object visit(final ASTOrNode node, final Object data) {
+    BoolQueryBuilder query = boolQuery().minimumShouldMatch(1);
+    for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+      query.should((QueryBuilder) node.jjtGetChild(i).jjtAccept(this, data));
+    }
+    return query;
+  }
+
+  /**
+   * Transform `a && b` into a filter which requires both
+   */
+  @Override
+  protected Object visit(final ASTAndNode node, final Object data) {
+    BoolQueryBuilder query = boolQuery();
+    for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+      query.filter((QueryBuilder) node.jjtGetChild(i).jjtAccept(this, data));
+    }
+    return query;
+  }
+
+  /**
+   * Transform `a == "b"` into a term filter
+   */
+  @Override
+  protected Object visit(final ASTEQNode node, final Object data) {
+    return termQuery(field(property(node), data), literal(node).getLiteral());
+  }
+
+  /**
+   * Transform `a != "b"` into a negated term filter; only equivalent for fields holding a single value per document
+   */
+  @Override
+  protected Object visit(final ASTNENode node, final Object data) {
+    return boolQuery().mustNot(termQuery(field(property(node), data), literal(node).getLiteral()));
+  }
+
+  /**
+   * Apply `( expression )`
+   */
+  @Override
+  protected Object visit(final ASTReferenceExpression node, final Object data) {
+    if (node.jjtGetNumChildren() != 1) {
+      return doVisit(node, data);
+    }
+    return node.jjtGetChild(0).jjtAccept(this, data);
+  }
+
+  private static ASTIdentifier property(final JexlNode node) {
+    JexlNode leftChild = node.jjtGetChild(LEFT);
+    JexlNode rightChild = node.jjtGetChild(RIGHT);
+    if (leftChild instanceof ASTIdentifier && rightChild instanceof ASTStringLiteral) {
+      return (ASTIdentifier) leftChild;
+    }
+    if (rightChild instanceof ASTIdentifier && leftChild instanceof ASTStringLiteral) {
+      return (ASTIdentifier) rightChild;
+    }
+    throw new JexlException(node, EXPECTED_STRING_LITERAL);
+  }
+
+  private static ASTStringLiteral literal(final JexlNode node) {
+    JexlNode leftChild = node.jjtGetChild(LEFT);
+    return (ASTStringLiteral) (leftChild instanceof ASTStringLiteral ? leftChild : node.jjtGetChild(RIGHT));
+  }
+
+  private static String field(final ASTIdentifier identifier, final Object data) {
+    String field = ((SelectorQueryBuilder) data).field(identifier.getName());
+    if (field == null) {
+      throw new JexlException(identifier, "No search field for " + identifier.getName());
+    }
+    return field;
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.search.selector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.elasticsearch.index.query.QueryBuilder;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Builder of Elasticsearch filters for content selectors.
+ *
+ * @see CselToElasticSearch
+ *
+ * @since 3.72
+ */
+public class SelectorQueryBuilder
+{
+  private final Map<String, String> propertyAliases = new HashMap<>();
+
+  private QueryBuilder query;
+
+  /**
+   * Aliases the given property name to a specific (not analyzed) document field.
+   *
+   * The field should hold a single value per document: filters on multi-valued fields match when any value does, so
+   * for example {@code !=} would exclude documents where just one of the values is equal.
+   */
+  public SelectorQueryBuilder propertyAlias(final String name, final String field) {
+    propertyAliases.put(checkNotNull(name), checkNotNull(field));
+    return this;
+  }
+
+  /**
+   * Returns the document field of the given property, or {@code null} if it has none.
+   */
+  @Nullable
+  public String field(final String name) {
+    return propertyAliases.get(name);
+  }
+
+  public void setQuery(final QueryBuilder query) {
+    this.query = checkNotNull(query);
+  }
+
+  /**
+   * Returns the filter built from the last selector, or {@code null} if none has been built.
+   */
+  @Nullable
+  public QueryBuilder getQuery() {
+    return query;
+  }
+
+  public void clearQuery() {
+    query = null;
+  }
+}
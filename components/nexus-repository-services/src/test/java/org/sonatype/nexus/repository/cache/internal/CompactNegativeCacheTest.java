@@ -0,0 +1,172 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.cache.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CompactNegativeCacheTest
+    extends TestSupport
+{
+  private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+
+  private CompactNegativeCache underTest;
+
+  @Before
+  public void setUp() {
+    underTest = new CompactNegativeCache("test", 10, MINUTES, 3, clock::get, metricRegistry);
+  }
+
+  @Test
+  public void cachesStatusCodes() {
+    assertThat(underTest.put(1L, 404), is(true));
+    assertThat(underTest.put(1L, 404), is(false));
+    underTest.put(2L, 410);
+
+    assertThat(underTest.get(1L), is(404));
+    assertThat(underTest.get(2L), is(410));
+    assertThat(underTest.get(3L), is(nullValue()));
+    assertThat(metricRegistry.meter(metric("hits")).getCount(), is(2L));
+    assertThat(metricRegistry.meter(metric("misses")).getCount(), is(1L));
+  }
+
+  @Test
+  public void entriesExpire() {
+    underTest.put(1L, 404);
+    clock.addAndGet(MINUTES.toMillis(10) - 1);
+    assertThat(underTest.get(1L), is(404));
+
+    clock.incrementAndGet();
+    assertThat(underTest.get(1L), is(nullValue()));
+    assertThat(underTest.size(), is(0));
+  }
+
+  @Test
+  public void leastRecentlyUsedEntriesAreEvicted() {
+    underTest.put(1L, 404);
+    underTest.put(2L, 404);
+    underTest.put(3L, 404);
+    underTest.get(1L);
+    underTest.put(4L, 404);
+
+    assertThat(underTest.get(2L), is(nullValue()));
+    assertThat(underTest.get(1L), is(404));
+    assertThat(underTest.size(), is(3));
+    assertThat(metricRegistry.meter(metric("evictions")).getCount(), is(1L));
+  }
+
+  @Test
+  public void shrinkingEvictsEntries() {
+    underTest.put(1L, 404);
+    underTest.put(2L, 404);
+    underTest.put(3L, 404);
+
+    underTest.setMaxEntries(1);
+
+    assertThat(underTest.getMaxEntries(), is(1));
+    assertThat(underTest.size(), is(1));
+    assertThat(metricRegistry.meter(metric("evictions")).getCount(), is(2L));
+  }
+
+  @Test
+  public void growingKeepsEntries() {
+    underTest.put(1L, 404);
+    underTest.put(2L, 410);
+    clock.addAndGet(MINUTES.toMillis(5));
+
+    underTest.setMaxEntries(10);
+
+    assertThat(underTest.get(1L), is(404));
+    assertThat(underTest.get(2L), is(410));
+    clock.addAndGet(MINUTES.toMillis(5));
+    assertThat(underTest.get(1L), is(nullValue()));
+  }
+
+  @Test
+  public void concurrentLookupsSeeCachedEntries() throws Exception {
+    underTest = new CompactNegativeCache("test", 10, MINUTES, 1000, clock::get, metricRegistry);
+    for (long i = 0; i < 100; i++) {
+      underTest.put(i, 404);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Integer>> lookups = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        lookups.add(executor.submit(() -> {
+          int found = 0;
+          for (long j = 0; j < 1000; j++) {
+            if (underTest.get(j % 100) != null) {
+              found++;
+            }
+          }
+          return found;
+        }));
+      }
+      for (Future<Integer> lookup : lookups) {
+        assertThat(lookup.get(10, SECONDS), is(1000));
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void closeRemovesMetrics() {
+    CompactNegativeCache other = new CompactNegativeCache("test2", 10, MINUTES, 3, clock::get, metricRegistry);
+
+    underTest.close();
+
+    String prefix = name(NegativeCacheFacetImpl.class, "test2") + '.';
+    assertThat(metricRegistry.getNames().stream().allMatch(name -> name.startsWith(prefix)), is(true));
+    other.close();
+    assertThat(metricRegistry.getNames(), is(empty()));
+  }
+
+  @Test
+  public void closeKeepsMetricsOfRepositoryWithDottedName() {
+    CompactNegativeCache other = new CompactNegativeCache("test.b", 10, MINUTES, 3, clock::get, metricRegistry);
+
+    underTest.close();
+
+    assertThat(metricRegistry.getNames(), hasSize(4));
+    other.close();
+    assertThat(metricRegistry.getNames(), is(empty()));
+  }
+
+  private static String metric(final String name) {
+    return name(NegativeCacheFacetImpl.class, "test", name);
+  }
+}
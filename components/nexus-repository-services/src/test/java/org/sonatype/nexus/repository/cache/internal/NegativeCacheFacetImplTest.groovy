@@ -12,18 +12,17 @@
  */
 package org.sonatype.nexus.repository.cache.internal
 
-import javax.cache.Cache
-import javax.cache.configuration.MutableConfiguration
-
+import org.sonatype.goodies.common.ByteSize
 import org.sonatype.goodies.testsupport.TestSupport
-import org.sonatype.nexus.cache.CacheHelper
 import org.sonatype.nexus.common.event.EventManager
+import org.sonatype.nexus.distributed.event.service.api.common.NegativeCacheEntryEvent
 import org.sonatype.nexus.repository.Repository
 import org.sonatype.nexus.repository.cache.NegativeCacheKey
 import org.sonatype.nexus.repository.config.ConfigurationFacet
 import org.sonatype.nexus.repository.http.HttpStatus
 import org.sonatype.nexus.repository.view.Status
 
+import com.codahale.metrics.MetricRegistry
 import org.junit.Before
 import org.junit.Test
 import org.mockito.ArgumentCaptor
@@ -32,8 +31,11 @@ import static org.mockito.ArgumentMatchers.any
 import static org.mockito.Mockito.eq
 import static org.mockito.Mockito.mock
 import static org.mockito.Mockito.never
+import static org.mockito.Mockito.times
 import static org.mockito.Mockito.verify
 import static org.mockito.Mockito.when
+import static org.sonatype.nexus.distributed.event.service.api.EventType.CREATED
+import static org.sonatype.nexus.distributed.event.service.api.EventType.DELETED
 
 /**
  * Tests for {@link NegativeCacheFacetImpl}.
@@ -47,9 +49,9 @@ class NegativeCacheFacetImplTest
 
   private Status status
 
-  private CacheHelper cacheHelper
+  private EventManager eventManager
 
-  private Cache cache
+  private MetricRegistry metricRegistry
 
   private Repository repository
 
@@ -57,12 +59,12 @@ class NegativeCacheFacetImplTest
 
   @Before
   void setUp() {
-    cacheHelper = mock(CacheHelper)
-    cache = mock(Cache)
-    when(cacheHelper.maybeCreateCache(any(), any(), any(), any())).thenReturn(cache)
-    underTest = new NegativeCacheFacetImpl(cacheHelper)
+    eventManager = mock(EventManager)
+    metricRegistry = new MetricRegistry()
+    underTest = new NegativeCacheFacetImpl(
+        new NegativeCacheManager(metricRegistry, eventManager, ByteSize.megaBytes(1), true))
     underTest.installDependencies(mock(EventManager))
-    key = mock(NegativeCacheKey)
+    key = new PathNegativeCacheKey('/some/path')
     status = Status.failure(HttpStatus.NOT_FOUND, '404')
     repository = mock(Repository)
     when(repository.name).thenReturn('test')
@@ -78,30 +80,6 @@ class NegativeCacheFacetImplTest
     when(repository.facet(ConfigurationFacet.class)).thenReturn(configurationFacet)
   }
 
-  /**
-   * Given:
-   * - no configuration present
-   * Then:
-   * - cache is not created
-   * - get returns null
-   * - facet methods skip cache invocations
-   * - destroy does not remove cache
-   */
-  @Test
-  void 'no configuration present no cache'() {
-    underTest.attach(repository)
-    underTest.init()
-    underTest.start()
-    verify(cacheHelper, never()).maybeCreateCache(any(String), any(Class), any(Class), any(MutableConfiguration))
-    assert underTest.get(key) == null
-    underTest.put(key, Status.failure(HttpStatus.NOT_FOUND, '404'))
-    underTest.invalidate(key)
-    underTest.invalidate()
-    underTest.stop()
-    underTest.destroy()
-    verify(cacheHelper, never()).maybeDestroyCache(any(String))
-  }
-
   /**
    * Given:
    * - configuration present
@@ -110,7 +88,6 @@ class NegativeCacheFacetImplTest
    * - cache is not created
    * - get returns null
    * - facet methods skip cache invocations
-   * - cache is not removed
    */
   @Test
   void 'not enabled no cache'() {
@@ -118,14 +95,15 @@ class NegativeCacheFacetImplTest
     underTest.attach(repository)
     underTest.init()
     underTest.start()
-    verify(cacheHelper, never()).maybeCreateCache(any(String), any(Class), any(Class), any(MutableConfiguration))
+    assert underTest.cache == null
+    underTest.put(key, status)
     assert underTest.get(key) == null
-    underTest.put(key, Status.failure(HttpStatus.NOT_FOUND, '404'))
     underTest.invalidate(key)
     underTest.invalidate()
     underTest.stop()
     underTest.destroy()
-    verify(cacheHelper, never()).maybeDestroyCache(any(String))
+    assert metricRegistry.names.empty
+    verify(eventManager, never()).post(any())
   }
 
   /**
@@ -134,48 +112,29 @@ class NegativeCacheFacetImplTest
    * - enabled = true
    * Then:
    * - cache is created
-   * - cache is removed
+   * - cache is released with its metrics on destroy
    */
   @Test
-  void 'cache is created and removed'() {
+  void 'cache is created and released'() {
     config.enabled = true
     underTest.attach(repository)
     underTest.init()
     underTest.start()
-    ArgumentCaptor<String> cacheNameCaptor = ArgumentCaptor.forClass(String)
-    ArgumentCaptor<MutableConfiguration> configCaptor = ArgumentCaptor.forClass(MutableConfiguration)
-    verify(cacheHelper).maybeCreateCache(cacheNameCaptor.capture(), any(Class), any(Class), configCaptor.capture())
-    when(cache.name).thenReturn(cacheNameCaptor.value)
+    assert underTest.cache != null
+    assert !metricRegistry.names.empty
     underTest.stop()
     underTest.destroy()
-    verify(cacheHelper, never()).maybeDestroyCache(any(String))
+    assert underTest.cache == null
+    assert metricRegistry.names.empty
   }
 
   /**
    * Given:
    * - configuration present
    * - enabled = true
-   * - cache manager is not active (already being shutdown)
    * Then:
-   * - cache is not removed
-   */
-  @Test
-  void 'cache is not removed when manager is not active'() {
-    config.enabled = true
-    underTest.attach(repository)
-    underTest.init()
-    underTest.start()
-    underTest.stop()
-    underTest.destroy()
-    verify(cacheHelper, never()).maybeDestroyCache(any(String))
-  }
-
-  /**
-   * Given:
-   * - configuration present
-   * - enabled = true
-   * Then:
-   * - put puts key/status into cache
+   * - put caches the status code which get returns
+   * - new entries are distributed once
    */
   @Test
   void 'put caches element'() {
@@ -184,49 +143,34 @@ class NegativeCacheFacetImplTest
     underTest.init()
     underTest.start()
     underTest.put(key, status)
-    ArgumentCaptor<NegativeCacheKey> keyCaptor = ArgumentCaptor.forClass(NegativeCacheKey)
-    ArgumentCaptor<Status> statusCaptor = ArgumentCaptor.forClass(Status)
-    verify(cache).put(keyCaptor.capture(), statusCaptor.capture())
-    assert key == keyCaptor.value
-    assert status == statusCaptor.value
-  }
-
-  /**
-   * Given:
-   * - configuration present
-   * - enabled = true
-   * - cache returns an element
-   * Then:
-   * - get retrieves element from cache and returns status
-   */
-  @Test
-  void 'get returns status'() {
-    config.enabled = true
-    underTest.attach(repository)
-    underTest.init()
-    underTest.start()
-    when(cache.get(key)).thenReturn(status)
-    Status actualStatus = underTest.get(key)
-    assert actualStatus == status
+    underTest.put(key, status)
+    assert underTest.get(key).code == HttpStatus.NOT_FOUND
+    assert !underTest.get(key).successful
+    ArgumentCaptor<NegativeCacheEntryEvent> eventCaptor = ArgumentCaptor.forClass(NegativeCacheEntryEvent)
+    verify(eventManager, times(1)).post(eventCaptor.capture())
+    assert eventCaptor.value.eventType == CREATED
+    assert eventCaptor.value.repositoryName == 'test'
+    assert eventCaptor.value.fingerprint == NegativeCacheManager.fingerprint(key)
+    assert eventCaptor.value.statusCode == HttpStatus.NOT_FOUND
   }
 
   /**
    * Given:
    * - configuration present
    * - enabled = true
-   * - cache does not have an element for key (returns null)
+   * - cache does not have an element for key
    * Then:
-   * - get retrieves element from cache and returns null
+   * - get returns null
    */
   @Test
-  void 'get returns null when cache returns null'() {
+  void 'get returns null when not cached'() {
     config.enabled = true
     underTest.attach(repository)
     underTest.init()
     underTest.start()
-    when(cache.get(key)).thenReturn(null)
-    Status actualStatus = underTest.get(key)
-    assert actualStatus == null
+    underTest.put(new PathNegativeCacheKey('/other/path'), status)
+    assert underTest.get(key) == null
+    assert underTest.get(new ValueNegativeCacheKey('/some/path')) == null
   }
 
   /**
@@ -234,7 +178,7 @@ class NegativeCacheFacetImplTest
    * - configuration present
    * - enabled = true
    * Then:
-   * - invalidate removes key from cache
+   * - invalidate removes key from cache and distributes the removal
    */
   @Test
   void 'invalidate removes element'() {
@@ -242,8 +186,12 @@ class NegativeCacheFacetImplTest
     underTest.attach(repository)
     underTest.init()
     underTest.start()
+    underTest.put(key, status)
     underTest.invalidate(key)
-    verify(cache).remove(key)
+    assert underTest.get(key) == null
+    ArgumentCaptor<NegativeCacheEntryEvent> eventCaptor = ArgumentCaptor.forClass(NegativeCacheEntryEvent)
+    verify(eventManager, times(2)).post(eventCaptor.capture())
+    assert eventCaptor.value.eventType == DELETED
   }
 
   /**
@@ -259,8 +207,10 @@ class NegativeCacheFacetImplTest
     underTest.attach(repository)
     underTest.init()
     underTest.start()
+    underTest.put(key, status)
+    underTest.put(new PathNegativeCacheKey('/other/path'), status)
     underTest.invalidate()
-    verify(cache).removeAll()
+    assert underTest.cache.size() == 0
   }
 
   /**
@@ -269,49 +219,19 @@ class NegativeCacheFacetImplTest
    * - enabled = true
    * - cached entries
    * Then:
-   * - invalidate removes all child keys from cache
+   * - invalidate subset removes all keys, as children can't be told apart from other keys
    */
   @Test
   void 'invalidate subset removes key and all child keys'() {
-    NegativeCacheKey key1 = mock(NegativeCacheKey)
-    NegativeCacheKey key2 = mock(NegativeCacheKey)
-    Cache.Entry<NegativeCacheKey, Status> entry1 = mock(Cache.Entry)
-    Cache.Entry<NegativeCacheKey, Status> entry2 = mock(Cache.Entry)
-    when(entry1.key).thenReturn(key1)
-    when(entry2.key).thenReturn(key2)
-    mockIterable(cache, entry1, entry2)
-    when(key.isParentOf(key1)).thenReturn(false)
-    when(key.isParentOf(key2)).thenReturn(true)
+    NegativeCacheKey parent = new PathNegativeCacheKey('/some/')
     config.enabled = true
     underTest.attach(repository)
     underTest.init()
     underTest.start()
-    underTest.invalidateSubset(key)
-    verify(cache).remove(key)
-    verify(cache, never()).remove(key1)
-    verify(cache).remove(key2)
-  }
-
-  static void mockIterable(Cache<?,?> iterable, Object... values) {
-    Iterator<?> mockIterator = mock(Iterator)
-    when(iterable.iterator()).thenReturn(mockIterator)
-
-    if (values.length == 0) {
-      when(mockIterator.hasNext()).thenReturn(false)
-    }
-    else if (values.length == 1) {
-      when(mockIterator.hasNext()).thenReturn(true, false)
-      when(mockIterator.next()).thenReturn(values[0])
-    }
-    else {
-      Boolean[] hasNextResponses = new Boolean[values.length]
-      for (int i = 0; i < hasNextResponses.length-1; i++) {
-        hasNextResponses[i] = true
-      }
-      hasNextResponses[hasNextResponses.length - 1] = false
-      when(mockIterator.hasNext()).thenReturn(true, hasNextResponses)
-      Object[] valuesMinusTheFirst = Arrays.copyOfRange(values, 1, values.length)
-      when(mockIterator.next()).thenReturn(values[0], valuesMinusTheFirst)
-    }
+    underTest.put(parent, status)
+    underTest.put(key, status)
+    underTest.invalidateSubset(parent)
+    assert underTest.get(parent) == null
+    assert underTest.get(key) == null
   }
 }
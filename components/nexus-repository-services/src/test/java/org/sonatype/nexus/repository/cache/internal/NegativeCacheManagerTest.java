@@ -0,0 +1,102 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.cache.internal;
+
+import org.sonatype.goodies.common.ByteSize;
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.event.EventManager;
+import org.sonatype.nexus.distributed.event.service.api.common.NegativeCacheEntryEvent;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.sonatype.nexus.distributed.event.service.api.EventType.CREATED;
+import static org.sonatype.nexus.distributed.event.service.api.EventType.DELETED;
+import static org.sonatype.nexus.repository.cache.internal.NegativeCacheManager.ENTRY_SIZE;
+import static org.sonatype.nexus.repository.cache.internal.NegativeCacheManager.MIN_ENTRIES;
+
+public class NegativeCacheManagerTest
+    extends TestSupport
+{
+  private static final int BUDGET = 4 * MIN_ENTRIES;
+
+  @Mock
+  private EventManager eventManager;
+
+  private NegativeCacheManager underTest;
+
+  @Before
+  public void setUp() {
+    underTest = manager(true);
+  }
+
+  @Test
+  public void budgetIsSplitBetweenRepositories() {
+    CompactNegativeCache a = underTest.create("a", 10);
+    assertThat(a.getMaxEntries(), is(BUDGET));
+
+    CompactNegativeCache b = underTest.create("b", 10);
+    assertThat(a.getMaxEntries(), is(BUDGET / 2));
+    assertThat(b.getMaxEntries(), is(BUDGET / 2));
+
+    underTest.release(b);
+    assertThat(a.getMaxEntries(), is(BUDGET));
+  }
+
+  @Test
+  public void sharesHaveAMinimum() {
+    CompactNegativeCache first = underTest.create("repo0", 10);
+    for (int i = 1; i < 8; i++) {
+      underTest.create("repo" + i, 10);
+    }
+    assertThat(first.getMaxEntries(), is(MIN_ENTRIES));
+  }
+
+  @Test
+  public void remoteEntriesAreApplied() {
+    CompactNegativeCache cache = underTest.create("a", 10);
+
+    NegativeCacheEntryEvent created = new NegativeCacheEntryEvent(CREATED, "a", 42L, 404);
+    created.setRemoteNodeId("other");
+    underTest.on(created);
+    assertThat(cache.get(42L), is(404));
+
+    NegativeCacheEntryEvent deleted = new NegativeCacheEntryEvent(DELETED, "a", 42L, 0);
+    deleted.setRemoteNodeId("other");
+    underTest.on(deleted);
+    assertThat(cache.get(42L), is(nullValue()));
+
+    underTest.on(new NegativeCacheEntryEvent(CREATED, "a", 42L, 404));
+    assertThat(cache.get(42L), is(nullValue()));
+  }
+
+  @Test
+  public void localEntriesAreOnlyDistributedWhenEnabled() {
+    underTest.added("a", 42L, 404);
+    manager(false).added("a", 43L, 404);
+
+    verify(eventManager).post(any(NegativeCacheEntryEvent.class));
+  }
+
+  private NegativeCacheManager manager(final boolean distributed) {
+    return new NegativeCacheManager(new MetricRegistry(), eventManager, ByteSize.bytes((long) BUDGET * ENTRY_SIZE),
+        distributed);
+  }
+}
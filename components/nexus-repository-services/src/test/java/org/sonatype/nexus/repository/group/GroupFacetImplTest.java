@@ -16,6 +16,7 @@ import java.util.Optional;
 
 import javax.validation.ConstraintViolation;
 
+import org.sonatype.goodies.common.Time;
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.common.collect.AttributesMap;
 import org.sonatype.nexus.common.collect.NestedAttributesMap;
@@ -33,6 +34,7 @@ import org.sonatype.nexus.repository.types.HostedType;
 import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.validation.ConstraintViolationFactory;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.junit.Before;
@@ -40,6 +42,7 @@ import org.junit.Test;
 import org.mockito.Mock;
 
 import static com.google.common.collect.ImmutableList.copyOf;
+import static com.codahale.metrics.MetricRegistry.name;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.contains;
 import static org.junit.Assert.assertNotNull;
@@ -167,6 +170,52 @@ public class GroupFacetImplTest
     assertThat(underTest.isStale(content), is(false));
   }
 
+  @Test
+  public void memberHitsAreRememberedUntilInvalidated() throws Exception {
+    MetricRegistry metricRegistry = new MetricRegistry();
+    underTest.configureMemberHits(100, Time.minutes(10), "maven2, raw", metricRegistry);
+    when(format.getValue()).thenReturn("raw");
+    Repository hosted1 = hostedRepository("hosted1");
+    Config config = new Config();
+    config.memberNames = ImmutableSet.of(hosted1.getName());
+    Configuration configuration = mock(Configuration.class);
+    when(configurationFacet.readSection(configuration, CONFIG_KEY, Config.class)).thenReturn(config);
+    underTest.doConfigure(configuration);
+
+    underTest.recordMemberHit("/a", hosted1);
+    assertThat(underTest.getMemberHit("/a"), is(hosted1));
+    underTest.recordMemberHit("/a", hosted1);
+
+    underTest.invalidateMemberHit("/a");
+    assertNull(underTest.getMemberHit("/a"));
+
+    underTest.recordMemberHit("/b", hosted1);
+    underTest.invalidateGroupCaches();
+    assertNull(underTest.getMemberHit("/b"));
+
+    String metric = name(GroupFacet.class, "repositoryUnderTest", "member-hits");
+    assertThat(metricRegistry.meter(name(metric, "hits")).getCount(), is(1L));
+    assertThat(metricRegistry.meter(name(metric, "misses")).getCount(), is(2L));
+
+    underTest.doDestroy();
+    assertThat(metricRegistry.getGauges().containsKey(name(metric, "ratio")), is(false));
+  }
+
+  @Test
+  public void memberHitsAreNotTrackedForOtherFormats() throws Exception {
+    underTest.configureMemberHits(100, Time.minutes(10), "maven2,raw", new MetricRegistry());
+    when(format.getValue()).thenReturn("npm");
+    Repository hosted1 = hostedRepository("hosted1");
+    Config config = new Config();
+    config.memberNames = ImmutableSet.of(hosted1.getName());
+    Configuration configuration = mock(Configuration.class);
+    when(configurationFacet.readSection(configuration, CONFIG_KEY, Config.class)).thenReturn(config);
+    underTest.doConfigure(configuration);
+
+    underTest.recordMemberHit("/a", hosted1);
+    assertNull(underTest.getMemberHit("/a"));
+  }
+
   private ConstraintViolationFactory makeConstraintViolationFactory() {
     ConstraintViolationFactory constraintViolationFactory = mock(ConstraintViolationFactory.class);
     doReturn(mock(ConstraintViolation.class))
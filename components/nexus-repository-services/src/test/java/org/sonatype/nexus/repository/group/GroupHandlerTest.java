@@ -12,12 +12,15 @@
  */
 package org.sonatype.nexus.repository.group;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Optional;
 
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.group.GroupHandler.DispatchedRepositories;
 import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Parameters;
 import org.sonatype.nexus.repository.view.Request;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.ViewFacet;
@@ -29,7 +32,11 @@ import org.mockito.Mock;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -51,6 +58,12 @@ public class GroupHandlerTest
   @Mock
   private Request request;
 
+  @Mock
+  private Repository group;
+
+  @Mock
+  private GroupFacet groupFacet;
+
   @Mock
   private Repository proxy1;
 
@@ -63,6 +76,9 @@ public class GroupHandlerTest
   @Mock
   private ViewFacet viewFacet2;
 
+  @Mock
+  private GroupMemberDispatcher memberDispatcher;
+
   private GroupHandler underTest;
 
   @Before
@@ -70,6 +86,7 @@ public class GroupHandlerTest
     underTest = new GroupHandler();
 
     when(context.getRequest()).thenReturn(request);
+    when(context.getRepository()).thenReturn(group);
     when(proxy1.getName()).thenReturn("Proxy 1");
     when(proxy1.facet(ViewFacet.class)).thenReturn(viewFacet1);
     when(proxy2.getName()).thenReturn("Proxy 2");
@@ -152,6 +169,90 @@ public class GroupHandlerTest
     verify(viewFacet2, times(0)).dispatch(request, context);
   }
 
+  @Test
+  public void memberWhichLastServedThePathIsTriedFirst() throws Exception {
+    enableMemberHits(proxy2);
+    Response ok2 = ok();
+    setupDispatch(ok(), ok2);
+
+    assertGetFirst(ok2);
+    verify(viewFacet1, never()).dispatch(request, context);
+    verify(groupFacet).recordMemberHit("/a", proxy2);
+  }
+
+  @Test
+  public void whenMemberWhichLastServedThePathMissesThenGroupOrderApplies() throws Exception {
+    enableMemberHits(proxy2);
+    Response ok1 = ok();
+    setupDispatch(ok1, notFound());
+
+    assertGetFirst(ok1);
+    verify(viewFacet2, times(1)).dispatch(request, context);
+    verify(groupFacet).recordMemberHit("/a", proxy1);
+  }
+
+  @Test
+  public void memberWhichServedThePathIsRecorded() throws Exception {
+    enableMemberHits(null);
+    Response ok2 = ok();
+    setupDispatch(notFound(), ok2);
+
+    assertGetFirst(ok2);
+    verify(groupFacet).recordMemberHit("/a", proxy2);
+
+    setupDispatch(notFound(), notFound());
+
+    assertGetFirstNotFound(asList(proxy1, proxy2));
+    verify(groupFacet).recordMemberHit("/a", null);
+  }
+
+  @Test
+  public void requestsWithParametersDoNotUseMemberHits() throws Exception {
+    enableMemberHits(proxy2);
+    Parameters parameters = new Parameters();
+    parameters.set("q", "x");
+    when(request.getParameters()).thenReturn(parameters);
+    Response ok1 = ok();
+    setupDispatch(ok1, ok());
+
+    assertGetFirst(ok1);
+    verify(groupFacet, never()).getMemberHit("/a");
+  }
+
+  @Test
+  public void getAllDispatchesMembersConcurrentlyWhenEnabled() throws Exception {
+    LinkedHashMap<Repository, Response> responses = new LinkedHashMap<>();
+    when(memberDispatcher.isEnabled()).thenReturn(true);
+    when(memberDispatcher.dispatch(request, context, asList(proxy1, proxy2))).thenReturn(responses);
+    underTest.setMemberDispatcher(memberDispatcher);
+    DispatchedRepositories dispatched = new DispatchedRepositories();
+
+    assertThat(underTest.getAll(context, asList(proxy1, proxy2), dispatched), is(sameInstance(responses)));
+    assertThat(dispatched.getDispatched(), contains("Proxy 1", "Proxy 2"));
+    verify(viewFacet1, never()).dispatch(request, context);
+  }
+
+  @Test
+  public void getAllDispatchesNestedGroupsSequentially() throws Exception {
+    when(memberDispatcher.isEnabled()).thenReturn(true);
+    when(proxy2.optionalFacet(GroupFacet.class)).thenReturn(Optional.of(groupFacet));
+    underTest.setMemberDispatcher(memberDispatcher);
+    setupDispatch(ok(), notFound());
+
+    LinkedHashMap<Repository, Response> responses =
+        underTest.getAll(context, asList(proxy1, proxy2), new DispatchedRepositories());
+
+    assertThat(responses.keySet(), contains(proxy1, proxy2));
+    verify(memberDispatcher, never()).dispatch(any(), any(), any());
+  }
+
+  private void enableMemberHits(final Repository lastServedBy) {
+    when(group.optionalFacet(GroupFacet.class)).thenReturn(Optional.of(groupFacet));
+    when(request.getPath()).thenReturn("/a");
+    when(request.getParameters()).thenReturn(new Parameters());
+    when(groupFacet.getMemberHit("/a")).thenReturn(lastServedBy);
+  }
+
   private void setupDispatch(final Response response1, final Response response2) throws Exception {
     when(viewFacet1.dispatch(request, context)).thenReturn(response1);
     when(viewFacet2.dispatch(request, context)).thenReturn(response2);
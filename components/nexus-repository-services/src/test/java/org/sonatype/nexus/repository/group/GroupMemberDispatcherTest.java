@@ -0,0 +1,225 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.group;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Request;
+import org.sonatype.nexus.repository.view.Response;
+import org.sonatype.nexus.repository.view.ViewFacet;
+import org.sonatype.nexus.security.ClientInfo;
+import org.sonatype.nexus.security.ClientInfoProvider;
+
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.repository.http.HttpResponses.notFound;
+import static org.sonatype.nexus.repository.http.HttpResponses.ok;
+import static org.sonatype.nexus.repository.http.HttpStatus.OK;
+
+public class GroupMemberDispatcherTest
+    extends TestSupport
+{
+  @Mock
+  private Subject subject;
+
+  @Mock
+  private Context context;
+
+  @Mock
+  private ClientInfoProvider clientInfoProvider;
+
+  @Mock
+  private Repository member1;
+
+  @Mock
+  private Repository member2;
+
+  @Mock
+  private ViewFacet viewFacet1;
+
+  @Mock
+  private ViewFacet viewFacet2;
+
+  private final Request request = new Request.Builder().action("GET").path("/a").header("X-Test", "a").build();
+
+  private GroupMemberDispatcher underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    when(subject.associateWith(any(Callable.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    ThreadContext.bind(subject);
+
+    when(member1.getName()).thenReturn("member1");
+    when(member1.facet(ViewFacet.class)).thenReturn(viewFacet1);
+    when(member2.getName()).thenReturn("member2");
+    when(member2.facet(ViewFacet.class)).thenReturn(viewFacet2);
+
+    underTest = new GroupMemberDispatcher(clientInfoProvider, 4);
+    underTest.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    underTest.stop();
+    ThreadContext.unbindSubject();
+  }
+
+  @Test
+  public void membersAreDispatchedConcurrently() throws Exception {
+    CountDownLatch bothDispatched = new CountDownLatch(2);
+    when(viewFacet1.dispatch(any(), any())).thenAnswer(invocation -> awaitOther(bothDispatched));
+    when(viewFacet2.dispatch(any(), any())).thenAnswer(invocation -> awaitOther(bothDispatched));
+
+    LinkedHashMap<Repository, Response> responses = underTest.dispatch(request, context, asList(member1, member2));
+
+    assertThat(responses.keySet(), contains(member1, member2));
+    assertThat(responses.get(member1).getStatus().getCode(), is(OK));
+    assertThat(responses.get(member2).getStatus().getCode(), is(OK));
+  }
+
+  @Test
+  public void slowMembersAreAwaited() throws Exception {
+    when(viewFacet1.dispatch(any(), any())).thenAnswer(invocation -> {
+      Thread.sleep(500);
+      return ok();
+    });
+    when(viewFacet2.dispatch(any(), any())).thenReturn(ok());
+
+    LinkedHashMap<Repository, Response> responses = underTest.dispatch(request, context, asList(member1, member2));
+
+    assertThat(responses.get(member1).getStatus().getCode(), is(OK));
+    assertThat(responses.get(member2).getStatus().getCode(), is(OK));
+  }
+
+  @Test
+  public void otherMembersFinishWithoutInterruptionAfterFailure() throws Exception {
+    CountDownLatch failed = new CountDownLatch(1);
+    CountDownLatch finished = new CountDownLatch(1);
+    AtomicBoolean interrupted = new AtomicBoolean();
+    when(viewFacet1.dispatch(any(), any())).thenThrow(new IOException("failed"));
+    when(viewFacet2.dispatch(any(), any())).thenAnswer(invocation -> {
+      try {
+        failed.await(5, SECONDS);
+      }
+      catch (InterruptedException e) {
+        interrupted.set(true);
+      }
+      finished.countDown();
+      return ok();
+    });
+
+    try {
+      underTest.dispatch(request, context, asList(member1, member2));
+      fail("Expected IOException");
+    }
+    catch (IOException e) {
+      // expected
+    }
+    failed.countDown();
+
+    assertThat(finished.await(5, SECONDS), is(true));
+    assertThat(interrupted.get(), is(false));
+  }
+
+  @Test(expected = IOException.class)
+  public void failuresArePropagated() throws Exception {
+    when(viewFacet1.dispatch(any(), any())).thenReturn(ok());
+    when(viewFacet2.dispatch(any(), any())).thenThrow(new IOException("failed"));
+
+    underTest.dispatch(request, context, asList(member1, member2));
+  }
+
+  @Test
+  public void membersCannotChangeTheRequestOfOtherMembers() throws Exception {
+    when(viewFacet1.dispatch(any(), any())).thenAnswer(invocation -> {
+      Request memberRequest = invocation.getArgument(0);
+      memberRequest.getHeaders().remove("X-Test");
+      memberRequest.getAttributes().set("changed", true);
+      return notFound();
+    });
+    when(viewFacet2.dispatch(any(), any())).thenReturn(ok());
+
+    underTest.dispatch(request, context, asList(member1, member2));
+
+    assertThat(request.getHeaders().get("X-Test"), is("a"));
+    assertThat(request.getAttributes().get("changed"), is(nullValue()));
+  }
+
+  @Test
+  public void membersSeeTheClientInfoOfTheRequest() throws Exception {
+    ThreadLocal<String> remoteIp = new ThreadLocal<>();
+    ThreadLocal<String> userId = new ThreadLocal<>();
+    when(clientInfoProvider.getCurrentThreadClientInfo()).thenAnswer(invocation ->
+        remoteIp.get() != null ? ClientInfo.builder().remoteIP(remoteIp.get()).userId(userId.get()).build() : null);
+    doAnswer(invocation -> {
+      remoteIp.set(invocation.getArgument(0));
+      userId.set(invocation.getArgument(1));
+      return null;
+    }).when(clientInfoProvider).setClientInfo(any(), any());
+    doAnswer(invocation -> {
+      remoteIp.remove();
+      userId.remove();
+      return null;
+    }).when(clientInfoProvider).unsetClientInfo();
+
+    AtomicReference<ClientInfo> memberClientInfo = new AtomicReference<>();
+    AtomicReference<Thread> memberThread = new AtomicReference<>();
+    when(viewFacet1.dispatch(any(), any())).thenAnswer(invocation -> {
+      memberClientInfo.set(clientInfoProvider.getCurrentThreadClientInfo());
+      memberThread.set(Thread.currentThread());
+      return ok();
+    });
+    when(viewFacet2.dispatch(any(), any())).thenReturn(ok());
+
+    clientInfoProvider.setClientInfo("10.0.0.1", "alice");
+    try {
+      underTest.dispatch(request, context, asList(member1, member2));
+    }
+    finally {
+      clientInfoProvider.unsetClientInfo();
+    }
+
+    assertThat(memberThread.get(), is(not(Thread.currentThread())));
+    assertThat(memberClientInfo.get().getRemoteIP(), is("10.0.0.1"));
+    assertThat(memberClientInfo.get().getUserid(), is("alice"));
+  }
+
+  private static Response awaitOther(final CountDownLatch bothDispatched) throws InterruptedException {
+    bothDispatched.countDown();
+    return bothDispatched.await(5, SECONDS) ? ok() : notFound();
+  }
+}
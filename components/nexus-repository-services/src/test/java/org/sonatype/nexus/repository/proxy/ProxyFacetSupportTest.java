@@ -13,12 +13,19 @@
 package org.sonatype.nexus.repository.proxy;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import org.sonatype.goodies.common.ByteSize;
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.common.collect.AttributesMap;
 import org.sonatype.nexus.common.collect.NestedAttributesMap;
@@ -38,6 +45,7 @@ import org.sonatype.nexus.repository.httpclient.RemoteBlockedIOException;
 import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.Context;
 import org.sonatype.nexus.repository.view.Request;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
 import org.sonatype.nexus.transaction.RetryDeniedException;
 
 import org.apache.http.HttpResponse;
@@ -53,16 +61,21 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Spy;
 
+import static com.google.common.io.ByteStreams.toByteArray;
 import static java.util.Collections.singletonMap;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -510,4 +523,103 @@ public class ProxyFacetSupportTest
         underTest.normalizeURLPath(URI.create("https://remoteserver/com/foo/thisisaspace"))
     );
   }
+  @Test
+  public void streamThroughRelaysRemoteContentWhileItIsStored() throws Exception {
+    byte[] bytes = randomBytes();
+    Content remote = new Content(new BytesPayload(bytes, "application/octet-stream"));
+    remote.getAttributes().set(CacheInfo.class, cacheInfo);
+    doReturn(null).when(underTest).getCachedContent(missingContext);
+    doReturn(remote).when(underTest).fetch(missingContext, null);
+    doAnswer(invocation -> {
+      Content stored;
+      try (InputStream in = invocation.<Content>getArgument(1).openInputStream()) {
+        stored = new Content(new BytesPayload(toByteArray(in), "application/octet-stream"));
+      }
+      stored.getAttributes().set(CacheInfo.class, mock(CacheInfo.class));
+      return stored;
+    }).when(underTest).store(eq(missingContext), any());
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      underTest.configureStreamThrough(executor, true, ByteSize.bytes(1));
+
+      Content relay = underTest.get(missingContext);
+
+      assertThat(relay, instanceOf(StreamThroughContent.class));
+      assertThat(read(relay), is(bytes));
+      executor.shutdown();
+      assertThat(executor.awaitTermination(10, SECONDS), is(true));
+      assertThat(relay.getAttributes().get(CacheInfo.class), not(cacheInfo));
+      assertThat(((StreamThroughContent) relay).isSpooling(), is(false));
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void streamThroughServesLateReadersFromSpoolWhenNothingIsStored() throws Exception {
+    byte[] bytes = randomBytes();
+    Content remote = new Content(new BytesPayload(bytes, "application/octet-stream"));
+    doReturn(null).when(underTest).getCachedContent(missingContext);
+    doReturn(remote).when(underTest).fetch(missingContext, null);
+    doReturn(null).when(underTest).store(eq(missingContext), any());
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      underTest.configureStreamThrough(executor, true, ByteSize.bytes(1));
+
+      Content relay = underTest.get(missingContext);
+      executor.shutdown();
+      assertThat(executor.awaitTermination(10, SECONDS), is(true));
+
+      assertThat(read(relay), is(bytes));
+      assertThat(read(relay), is(bytes));
+      relay.close();
+      assertThat(((StreamThroughContent) relay).isSpooling(), is(false));
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void streamThroughStoresDirectlyWhenNoThreadIsAvailable() throws Exception {
+    Content remote = new Content(new BytesPayload(randomBytes(), "application/octet-stream"));
+    doReturn(null).when(underTest).getCachedContent(missingContext);
+    doReturn(remote).when(underTest).fetch(missingContext, null);
+    doReturn(storedContent).when(underTest).store(missingContext, remote);
+
+    underTest.configureStreamThrough(command -> {
+      throw new RejectedExecutionException("busy");
+    }, true, ByteSize.bytes(1));
+
+    assertThat(underTest.get(missingContext), is(storedContent));
+  }
+
+  @Test
+  public void streamThroughSkipsSmallContent() throws Exception {
+    Content remote = new Content(new BytesPayload(randomBytes(), "application/octet-stream"));
+    doReturn(null).when(underTest).getCachedContent(missingContext);
+    doReturn(remote).when(underTest).fetch(missingContext, null);
+    doReturn(storedContent).when(underTest).store(missingContext, remote);
+
+    Executor executor = mock(Executor.class);
+    underTest.configureStreamThrough(executor, true, ByteSize.megaBytes(1));
+
+    assertThat(underTest.get(missingContext), is(storedContent));
+    verify(executor, never()).execute(any());
+  }
+
+  private static byte[] randomBytes() {
+    byte[] bytes = new byte[100_000];
+    new Random().nextBytes(bytes);
+    return bytes;
+  }
+
+  private static byte[] read(final Content content) throws IOException {
+    try (InputStream in = content.openInputStream()) {
+      return toByteArray(in);
+    }
+  }
 }
@@ -0,0 +1,157 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.proxy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.google.common.io.ByteStreams.toByteArray;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+public class StreamThroughContentTest
+    extends TestSupport
+{
+  private final byte[] bytes = new byte[100_000];
+
+  private ExecutorService executor;
+
+  private StreamThroughContent underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    new Random().nextBytes(bytes);
+    executor = Executors.newFixedThreadPool(2);
+    Content remote = new Content(new BytesPayload(bytes, "application/octet-stream"));
+    underTest = new StreamThroughContent(remote, Files.createTempFile("proxy-", ".spool"));
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void readersReceiveContentWhileItIsStored() throws Exception {
+    Future<byte[]> first = executor.submit(() -> read(underTest));
+    Future<byte[]> second = executor.submit(() -> read(underTest));
+
+    Content stored = storeInChunks();
+    underTest.complete(stored);
+
+    assertThat(first.get(), is(bytes));
+    assertThat(second.get(), is(bytes));
+    assertThat(underTest.isSpooling(), is(false));
+  }
+
+  @Test
+  public void remoteValidatorsAreNotServedBeforeContentIsStored() throws Exception {
+    Content remote = new Content(new BytesPayload(bytes, "application/octet-stream"));
+    remote.getAttributes().set(Content.CONTENT_ETAG, "\"remote\"");
+    remote.getAttributes().set(Content.CONTENT_LAST_MODIFIED, DateTime.now());
+    remote.getAttributes().set("other", "value");
+    StreamThroughContent relay = new StreamThroughContent(remote, Files.createTempFile("proxy-", ".spool"));
+
+    assertThat(relay.getAttributes().contains(Content.CONTENT_ETAG), is(false));
+    assertThat(relay.getAttributes().contains(Content.CONTENT_LAST_MODIFIED), is(false));
+    assertThat(relay.getAttributes().get("other"), is("value"));
+    assertThat(relay.tee().getAttributes().get(Content.CONTENT_ETAG), is("\"remote\""));
+
+    Content stored = new Content(new BytesPayload(bytes, "application/octet-stream"));
+    stored.getAttributes().set(Content.CONTENT_ETAG, "\"stored\"");
+    relay.complete(stored);
+
+    assertThat(relay.getAttributes().get(Content.CONTENT_ETAG), is("\"stored\""));
+    relay.close();
+  }
+
+  @Test
+  public void lateReadersAreServedFromStoredContent() throws Exception {
+    underTest.complete(storeInChunks());
+
+    assertThat(underTest.isSpooling(), is(false));
+    assertThat(read(underTest), is(bytes));
+  }
+
+  @Test
+  public void unconsumedRemoteContentIsDrainedForReaders() throws Exception {
+    InputStream in = underTest.openInputStream();
+    Future<byte[]> reader = executor.submit(() -> {
+      try {
+        return toByteArray(in);
+      }
+      finally {
+        in.close();
+      }
+    });
+
+    try (InputStream tee = underTest.tee().openInputStream()) {
+      tee.read(new byte[10]);
+    }
+    underTest.complete(null);
+
+    assertThat(reader.get(), is(bytes));
+  }
+
+  @Test
+  public void readersFailWhenStoreFails() throws Exception {
+    InputStream in = underTest.openInputStream();
+    try (InputStream tee = underTest.tee().openInputStream()) {
+      tee.read(new byte[10]);
+    }
+    underTest.fail(new IOException("invalid checksum"));
+
+    try {
+      toByteArray(in);
+      fail("Expected IOException");
+    }
+    catch (IOException e) {
+      assertThat(e.getCause().getMessage(), is("invalid checksum"));
+    }
+    finally {
+      in.close();
+    }
+    assertThat(underTest.isSpooling(), is(false));
+  }
+
+  private Content storeInChunks() throws IOException {
+    byte[] buffer = new byte[1000];
+    try (InputStream in = underTest.tee().openInputStream()) {
+      while (in.read(buffer) >= 0) {
+        Thread.yield();
+      }
+    }
+    return new Content(new BytesPayload(bytes, "application/octet-stream"));
+  }
+
+  private static byte[] read(final Content content) throws IOException {
+    try (InputStream in = content.openInputStream()) {
+      return toByteArray(in);
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.proxy;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.security.ClientInfo;
+import org.sonatype.nexus.security.ClientInfoProvider;
+
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+public class StreamThroughExecutorTest
+    extends TestSupport
+{
+  private final ThreadLocal<String> remoteIp = new ThreadLocal<>();
+
+  private final ThreadLocal<String> userId = new ThreadLocal<>();
+
+  @Mock
+  private Subject subject;
+
+  @Mock
+  private ClientInfoProvider clientInfoProvider;
+
+  private StreamThroughExecutor underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    when(subject.associateWith(any(Runnable.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    when(subject.associateWith(any(Callable.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    ThreadContext.bind(subject);
+
+    when(clientInfoProvider.getCurrentThreadClientInfo()).thenAnswer(invocation ->
+        remoteIp.get() != null ? ClientInfo.builder().remoteIP(remoteIp.get()).userId(userId.get()).build() : null);
+    doAnswer(invocation -> {
+      remoteIp.set(invocation.getArgument(0));
+      userId.set(invocation.getArgument(1));
+      return null;
+    }).when(clientInfoProvider).setClientInfo(any(), any());
+    doAnswer(invocation -> {
+      remoteIp.remove();
+      userId.remove();
+      return null;
+    }).when(clientInfoProvider).unsetClientInfo();
+
+    underTest = new StreamThroughExecutor(clientInfoProvider, 1);
+    underTest.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    underTest.stop();
+    ThreadContext.unbindSubject();
+  }
+
+  @Test
+  public void storesSeeTheClientInfoOfTheRequest() throws Exception {
+    CompletableFuture<ClientInfo> storeClientInfo = new CompletableFuture<>();
+
+    clientInfoProvider.setClientInfo("10.0.0.1", "alice");
+    try {
+      underTest.execute(() -> storeClientInfo.complete(clientInfoProvider.getCurrentThreadClientInfo()));
+    }
+    finally {
+      clientInfoProvider.unsetClientInfo();
+    }
+
+    ClientInfo clientInfo = storeClientInfo.get(5, SECONDS);
+    assertThat(clientInfo.getRemoteIP(), is("10.0.0.1"));
+    assertThat(clientInfo.getUserid(), is("alice"));
+
+    // the pool thread doesn't keep the client info for later stores
+    CompletableFuture<ClientInfo> laterClientInfo = new CompletableFuture<>();
+    underTest.execute(() -> laterClientInfo.complete(clientInfoProvider.getCurrentThreadClientInfo()));
+    assertThat(laterClientInfo.get(5, SECONDS), is(nullValue()));
+  }
+
+  @Test(expected = RejectedExecutionException.class)
+  public void storesAreRejectedWhenStopped() throws Exception {
+    underTest.stop();
+
+    underTest.execute(() -> { });
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.routing.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.routing.RoutingMode;
+import org.sonatype.nexus.repository.routing.RoutingRule;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class RoutingRuleMatcherTest
+    extends TestSupport
+{
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+
+  @Test
+  public void blockModeBlocksMatchingPaths() {
+    RoutingRuleMatcher underTest = matcher(RoutingMode.BLOCK, "^/com/sonatype/.*", ".*foobar.*");
+
+    assertThat(underTest.isAllowed("/org/apache/tomcat/catalina"), is(true));
+    assertThat(underTest.isAllowed("/com/sonatype/internal/secrets"), is(false));
+    assertThat(underTest.isAllowed("/com/foobar/"), is(false));
+  }
+
+  @Test
+  public void allowModeBlocksOtherPaths() {
+    RoutingRuleMatcher underTest = matcher(RoutingMode.ALLOW, ".*foobar.*", "^/org/apache/.*");
+
+    assertThat(underTest.isAllowed("/org/apache/tomcat/catalina"), is(true));
+    assertThat(underTest.isAllowed("/com/foobar/"), is(true));
+    assertThat(underTest.isAllowed("/com/sonatype/internal/secrets"), is(false));
+  }
+
+  @Test
+  public void matchersMustMatchEntirePaths() {
+    RoutingRuleMatcher underTest = matcher(RoutingMode.ALLOW, "/org/.*|/net/.*", "/com");
+
+    assertThat(underTest.isAllowed("/net/x"), is(true));
+    assertThat(underTest.isAllowed("/com"), is(true));
+    assertThat(underTest.isAllowed("/com/x"), is(false));
+  }
+
+  @Test
+  public void matchersKeepTheirMeaningWhenCombined() {
+    RoutingRuleMatcher underTest =
+        matcher(RoutingMode.ALLOW, "(?i)/ORG/.*", "/(a)\\1", "\\Q/a.b", "(?x) /c # comment", "(?<n>x)\\k<n>");
+
+    assertThat(underTest.isAllowed("/org/apache"), is(true));
+    assertThat(underTest.isAllowed("/aa"), is(true));
+    assertThat(underTest.isAllowed("/a.b"), is(true));
+    assertThat(underTest.isAllowed("/axb"), is(false));
+    assertThat(underTest.isAllowed("/c"), is(true));
+    assertThat(underTest.isAllowed("xx"), is(true));
+    assertThat(underTest.isAllowed("/ab"), is(false));
+  }
+
+  @Test
+  public void inlineFlagsDontLeakIntoOtherMatchers() {
+    RoutingRuleMatcher underTest = matcher(RoutingMode.ALLOW, "(?i)/org/.*", "/com/.*");
+
+    assertThat(underTest.isAllowed("/ORG/x"), is(true));
+    assertThat(underTest.isAllowed("/COM/x"), is(false));
+  }
+
+  @Test
+  public void ruleWithoutMatchersMatchesNothing() {
+    RoutingRuleData rule = rule(RoutingMode.BLOCK);
+    rule.matchers(Collections.emptyList());
+
+    assertThat(new RoutingRuleMatcher(rule, metricRegistry).isAllowed("/any"), is(true));
+  }
+
+  @Test
+  public void evaluationsAreMeasuredPerRule() {
+    RoutingRuleMatcher underTest = matcher(RoutingMode.BLOCK, "/com/.*");
+
+    underTest.isAllowed("/com/x");
+    underTest.isAllowed("/org/x");
+
+    assertThat(metricRegistry.timer(name(RoutingRule.class, "test-rule", "evaluations")).getCount(), is(2L));
+    assertThat(metricRegistry.meter(name(RoutingRule.class, "test-rule", "blocked")).getCount(), is(1L));
+  }
+
+  @Test
+  public void removeMetricsKeepsMetricsOfRuleWithDottedName() {
+    matcher(RoutingMode.BLOCK, "/com/.*");
+    RoutingRuleData other = rule(RoutingMode.BLOCK);
+    other.name("test-rule.b");
+    other.matchers(Collections.emptyList());
+    new RoutingRuleMatcher(other, metricRegistry);
+
+    RoutingRuleMatcher.removeMetrics(metricRegistry, "test-rule");
+
+    assertThat(metricRegistry.getNames(), contains(
+        name(RoutingRule.class, "test-rule.b", "blocked"),
+        name(RoutingRule.class, "test-rule.b", "evaluations")));
+  }
+
+  private RoutingRuleMatcher matcher(final RoutingMode mode, final String... matchers) {
+    RoutingRuleData rule = rule(mode);
+    rule.matchers(Arrays.asList(matchers));
+    return new RoutingRuleMatcher(rule, metricRegistry);
+  }
+
+  private static RoutingRuleData rule(final RoutingMode mode) {
+    RoutingRuleData rule = new RoutingRuleData();
+    rule.name("test-rule");
+    rule.description("some description");
+    rule.mode(mode);
+    return rule;
+  }
+}
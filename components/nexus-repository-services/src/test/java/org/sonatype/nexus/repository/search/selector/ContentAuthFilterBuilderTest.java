@@ -0,0 +1,213 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.search.selector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.Format;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.manager.RepositoryManager;
+import org.sonatype.nexus.repository.security.RepositoryContentSelectorPermission;
+import org.sonatype.nexus.repository.security.RepositoryViewPermission;
+import org.sonatype.nexus.security.SecurityHelper;
+import org.sonatype.nexus.selector.CselSelector;
+import org.sonatype.nexus.selector.CselToSql;
+import org.sonatype.nexus.selector.JexlEngine;
+import org.sonatype.nexus.selector.JexlSelector;
+import org.sonatype.nexus.selector.SelectorConfiguration;
+import org.sonatype.nexus.selector.SelectorEvaluationException;
+import org.sonatype.nexus.selector.SelectorManager;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.shiro.authz.Permission;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static java.util.Collections.singletonList;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.existsQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.security.BreadActions.READ;
+
+/**
+ * Tests for {@link ContentAuthFilterBuilder}.
+ */
+public class ContentAuthFilterBuilderTest
+    extends TestSupport
+{
+  private static final QueryBuilder SCRIPT_FILTER = termQuery("script", "stand-in");
+
+  @Mock
+  private SecurityHelper securityHelper;
+
+  @Mock
+  private SelectorManager selectorManager;
+
+  @Mock
+  private RepositoryManager repositoryManager;
+
+  private final JexlEngine jexlEngine = new JexlEngine();
+
+  private final List<Permission> granted = new ArrayList<>();
+
+  private final List<SelectorConfiguration> selectors = new ArrayList<>();
+
+  private Repository repository;
+
+  private ContentAuthFilterBuilder underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    repository = repository("maven-releases", "maven2");
+
+    when(securityHelper.anyPermitted(any())).thenAnswer(invocation -> Arrays.stream(invocation.getArguments())
+        .anyMatch(permission -> granted.stream().anyMatch(p -> p.implies((Permission) permission))));
+    when(selectorManager.browseActive(anyCollection(), anyCollection())).thenReturn(selectors);
+    doAnswer(invocation -> {
+      SelectorConfiguration selector = invocation.getArgument(0);
+      if (!CselSelector.TYPE.equals(selector.getType())) {
+        throw new SelectorEvaluationException("Not CSEL");
+      }
+      try {
+        CselToSql<SelectorQueryBuilder> cselToSql = invocation.getArgument(2);
+        cselToSql.transformCselToSql(jexlEngine.parseExpression(selector.getAttributes().get("expression")),
+            invocation.getArgument(1));
+      }
+      catch (RuntimeException e) {
+        throw new SelectorEvaluationException("Failed", e);
+      }
+      return null;
+    }).when(selectorManager).toSql(any(), any(), any());
+
+    underTest = new ContentAuthFilterBuilder(securityHelper, selectorManager, repositoryManager, true);
+  }
+
+  @Test
+  public void viewPermittedRepositoryIsFilteredByName() {
+    granted.add(new RepositoryViewPermission("maven2", "maven-releases", READ));
+
+    assertThat(underTest.buildFilter(singletonList(repository), SCRIPT_FILTER),
+        is(filter(boolQuery().minimumShouldMatch(1).should(termQuery("repository_name", "maven-releases")))));
+  }
+
+  @Test
+  public void viewPermittedGroupPermitsMember() {
+    when(repositoryManager.findContainingGroups("maven-releases")).thenReturn(singletonList("maven-public"));
+    granted.add(new RepositoryViewPermission("maven2", "maven-public", READ));
+
+    assertThat(underTest.buildFilter(singletonList(repository), SCRIPT_FILTER),
+        is(filter(boolQuery().minimumShouldMatch(1).should(termQuery("repository_name", "maven-releases")))));
+  }
+
+  @Test
+  public void formatSelectorIsCompiled() {
+    selector("maven-only", CselSelector.TYPE, "format == \"maven2\"");
+
+    assertThat(underTest.buildFilter(singletonList(repository), SCRIPT_FILTER),
+        is(filter(boolQuery().minimumShouldMatch(1).should(boolQuery()
+            .filter(termQuery("repository_name", "maven-releases"))
+            .filter(boolQuery().minimumShouldMatch(1).should(termQuery("format", "maven2")))))));
+  }
+
+  @Test
+  public void pathSelectorUsesScript() {
+    selector("jars", CselSelector.TYPE, "format == \"maven2\" && path =~ \".*\\\\.jar\"");
+
+    assertThat(underTest.buildFilter(singletonList(repository), SCRIPT_FILTER), is(scripted()));
+  }
+
+  @Test
+  public void jexlSelectorUsesScript() {
+    selector("legacy", JexlSelector.TYPE, "format == \"maven2\"");
+
+    assertThat(underTest.buildFilter(singletonList(repository), SCRIPT_FILTER), is(scripted()));
+  }
+
+  @Test
+  public void anyUncompilableSelectorUsesScript() {
+    selector("maven-only", CselSelector.TYPE, "format == \"maven2\"");
+    selector("jars", CselSelector.TYPE, "path =^ \"/org/\"");
+
+    assertThat(underTest.buildFilter(singletonList(repository), SCRIPT_FILTER), is(scripted()));
+  }
+
+  @Test
+  public void selectorsWithoutPermissionAreIgnored() {
+    selectors.add(selectorConfiguration("unpermitted", CselSelector.TYPE, "path =^ \"/org/\""));
+
+    assertThat(underTest.buildFilter(singletonList(repository), SCRIPT_FILTER), is(nothingPermitted()));
+  }
+
+  @Test
+  public void nothingIsPermittedWithoutPermissions() {
+    assertThat(underTest.buildFilter(singletonList(repository), SCRIPT_FILTER), is(nothingPermitted()));
+  }
+
+  @Test
+  public void scriptIsUsedWhenDisabled() {
+    underTest = new ContentAuthFilterBuilder(securityHelper, selectorManager, repositoryManager, false);
+
+    assertThat(underTest.buildFilter(singletonList(repository), SCRIPT_FILTER), is(SCRIPT_FILTER));
+  }
+
+  private QueryBuilder scripted() {
+    return filter(boolQuery().minimumShouldMatch(1).should(boolQuery()
+        .filter(termQuery("repository_name", "maven-releases"))
+        .filter(SCRIPT_FILTER)));
+  }
+
+  private static QueryBuilder nothingPermitted() {
+    return filter(boolQuery().mustNot(matchAllQuery()));
+  }
+
+  private static QueryBuilder filter(final QueryBuilder permitted) {
+    return boolQuery().filter(existsQuery("assets.name")).filter(permitted);
+  }
+
+  private void selector(final String name, final String type, final String expression) {
+    selectors.add(selectorConfiguration(name, type, expression));
+    granted.add(new RepositoryContentSelectorPermission(name, "maven2", "maven-releases", singletonList(READ)));
+  }
+
+  private static SelectorConfiguration selectorConfiguration(
+      final String name,
+      final String type,
+      final String expression)
+  {
+    SelectorConfiguration selector = mock(SelectorConfiguration.class);
+    when(selector.getName()).thenReturn(name);
+    when(selector.getType()).thenReturn(type);
+    when(selector.getAttributes()).thenReturn(ImmutableMap.of("expression", expression));
+    return selector;
+  }
+
+  private static Repository repository(final String name, final String format) {
+    Repository repository = mock(Repository.class);
+    when(repository.getName()).thenReturn(name);
+    when(repository.getFormat()).thenReturn(new Format(format) { });
+    return repository;
+  }
+}
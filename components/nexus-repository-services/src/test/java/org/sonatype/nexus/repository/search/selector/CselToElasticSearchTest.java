@@ -0,0 +1,89 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.search.selector;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.selector.JexlEngine;
+
+import org.apache.commons.jexl3.JexlException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link CselToElasticSearch}.
+ */
+public class CselToElasticSearchTest
+    extends TestSupport
+{
+  private JexlEngine jexlEngine = new JexlEngine();
+
+  private SelectorQueryBuilder builder;
+
+  private CselToElasticSearch underTest;
+
+  @Before
+  public void setup() {
+    underTest = new CselToElasticSearch();
+    builder = new SelectorQueryBuilder()
+        .propertyAlias("format", "format");
+  }
+
+  @Test
+  public void equalTest() {
+    transform("format == \"maven2\"");
+
+    assertThat(builder.getQuery(), is(termQuery("format", "maven2")));
+  }
+
+  @Test
+  public void notEqualTest() {
+    transform("\"maven2\" != format");
+
+    assertThat(builder.getQuery(), is(boolQuery().mustNot(termQuery("format", "maven2"))));
+  }
+
+  @Test
+  public void andOrTest() {
+    transform("format != \"npm\" && (format == \"maven2\" || format == \"raw\")");
+
+    assertThat(builder.getQuery(), is(boolQuery()
+        .filter(boolQuery().mustNot(termQuery("format", "npm")))
+        .filter(boolQuery().minimumShouldMatch(1)
+            .should(termQuery("format", "maven2"))
+            .should(termQuery("format", "raw")))));
+  }
+
+  @Test(expected = JexlException.class)
+  public void unknownPropertyFails() {
+    transform("coordinate.groupId == \"org.apache\"");
+  }
+
+  @Test(expected = JexlException.class)
+  public void startsWithFails() {
+    transform("format =^ \"maven\"");
+  }
+
+  @Test(expected = JexlException.class)
+  public void regexFails() {
+    transform("format =~ \"maven.*\"");
+  }
+
+  private void transform(final String expression) {
+    underTest.transformCselToSql(jexlEngine.parseExpression(expression), builder);
+  }
+}
@@ -14,22 +14,22 @@ package org.sonatype.nexus.repository.http;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 import javax.annotation.Nullable;
 
 import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.payloads.FileChannelPayload;
 
 import com.google.common.collect.Range;
 
-import static com.google.common.io.ByteStreams.limit;
-
 /**
  * A wrapper {@link Payload} that returns only a portion of the original payload.
  *
  * @since 3.0
  */
 class PartialPayload
-    implements Payload
+    implements FileChannelPayload
 {
   private final Payload payload;
 
@@ -48,9 +48,23 @@ class PartialPayload
 
   @Override
   public InputStream openInputStream() throws IOException {
-    final InputStream payloadStream = payload.openInputStream();
-    payloadStream.skip(rangeToSend.lowerEndpoint());
-    return limit(payloadStream, partialSize);
+    return payload.openInputStream(rangeToSend.lowerEndpoint(), partialSize);
+  }
+
+  @Nullable
+  @Override
+  public FileChannel openFileChannel() throws IOException {
+    FileChannel channel = FileChannelPayload.openFileChannel(payload);
+    if (channel != null) {
+      try {
+        channel.position(channel.position() + rangeToSend.lowerEndpoint());
+      }
+      catch (IOException e) {
+        channel.close();
+        throw e;
+      }
+    }
+    return channel;
   }
 
   @Override
@@ -20,4 +20,14 @@ package org.sonatype.nexus.repository.view;
 public interface Matcher
 {
   boolean matches(Context context);
+
+  /**
+   * Returns a condition which requests must meet for this matcher to match them, letting the {@link Router} skip
+   * evaluating this matcher for others. Defaults to {@link RouteGuard#ANY}.
+   *
+   * @since 3.72
+   */
+  default RouteGuard guard() {
+    return RouteGuard.ANY;
+  }
 }
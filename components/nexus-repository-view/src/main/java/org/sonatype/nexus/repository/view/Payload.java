@@ -35,6 +35,24 @@ public interface Payload
 
   long getSize();
 
+  /**
+   * Opens a stream of at most {@code length} bytes starting at {@code offset}. By default the content before the
+   * offset is read and skipped; payloads that can read ranges directly should override this.
+   *
+   * @since 3.72
+   */
+  default InputStream openInputStream(final long offset, final long length) throws IOException {
+    InputStream in = openInputStream();
+    try {
+      ByteStreams.skipFully(in, offset);
+    }
+    catch (IOException e) {
+      in.close();
+      throw e;
+    }
+    return ByteStreams.limit(in, length);
+  }
+
   @Nullable
   String getContentType();
 
@@ -0,0 +1,161 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A condition that requests must meet for a {@link Matcher} to match them: the request action must be one of the
+ * given actions and the request path must start and end with the given literals.
+ *
+ * Guards let the {@link Router} skip routes which can't match a request without evaluating their matchers; a guard
+ * may be looser than its matcher, but never stricter.
+ *
+ * @since 3.72
+ */
+public final class RouteGuard
+{
+  /**
+   * Guard of matchers which don't declare a condition.
+   */
+  public static final RouteGuard ANY = new RouteGuard(null, "", "");
+
+  @Nullable
+  private final Set<String> actions;
+
+  private final String prefix;
+
+  private final String suffix;
+
+  private RouteGuard(@Nullable final Set<String> actions, final String prefix, final String suffix) {
+    this.actions = actions;
+    this.prefix = checkNotNull(prefix);
+    this.suffix = checkNotNull(suffix);
+  }
+
+  public static RouteGuard actions(final Collection<String> actions) {
+    return new RouteGuard(ImmutableSet.copyOf(actions), "", "");
+  }
+
+  public static RouteGuard actions(final String... actions) {
+    return actions(Arrays.asList(actions));
+  }
+
+  public static RouteGuard prefix(final String prefix) {
+    return new RouteGuard(null, prefix, "");
+  }
+
+  public static RouteGuard suffix(final String suffix) {
+    return new RouteGuard(null, "", suffix);
+  }
+
+  /**
+   * Returns the guard of the matcher, or {@link #ANY} if it has none (such as a mocked matcher).
+   */
+  public static RouteGuard of(final Matcher matcher) {
+    RouteGuard guard = matcher.guard();
+    return guard != null ? guard : ANY;
+  }
+
+  /**
+   * Guard of paths which must equal the literal.
+   */
+  public static RouteGuard literal(final String literal) {
+    return new RouteGuard(null, literal, literal);
+  }
+
+  /**
+   * The actions this guard allows, or {@code null} if it allows any action.
+   */
+  @Nullable
+  public Set<String> getActions() {
+    return actions;
+  }
+
+  /**
+   * The literal prefix this guard requires of paths, empty if none.
+   */
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /**
+   * The literal suffix this guard requires of paths, empty if none.
+   */
+  public String getSuffix() {
+    return suffix;
+  }
+
+  public boolean allows(final String action, final String path) {
+    return (actions == null || actions.contains(action)) && path.startsWith(prefix) && path.endsWith(suffix);
+  }
+
+  /**
+   * Guard of requests which both guards allow; where their literals differ the more specific one is kept.
+   */
+  public RouteGuard and(final RouteGuard other) {
+    Set<String> bothActions;
+    if (actions == null || other.actions == null) {
+      bothActions = actions == null ? other.actions : actions;
+    }
+    else {
+      bothActions = ImmutableSet.copyOf(Sets.intersection(actions, other.actions));
+    }
+    return new RouteGuard(bothActions,
+        prefix.length() >= other.prefix.length() ? prefix : other.prefix,
+        suffix.length() >= other.suffix.length() ? suffix : other.suffix);
+  }
+
+  /**
+   * Guard of requests which either guard allows.
+   */
+  public RouteGuard or(final RouteGuard other) {
+    Set<String> eitherActions = actions == null || other.actions == null ? null
+        : ImmutableSet.copyOf(Sets.union(actions, other.actions));
+    return new RouteGuard(eitherActions, commonPrefix(prefix, other.prefix), commonSuffix(suffix, other.suffix));
+  }
+
+  private static String commonPrefix(final String a, final String b) {
+    int i = 0;
+    while (i < a.length() && i < b.length() && a.charAt(i) == b.charAt(i)) {
+      i++;
+    }
+    return a.substring(0, i);
+  }
+
+  private static String commonSuffix(final String a, final String b) {
+    int i = 0;
+    while (i < a.length() && i < b.length() && a.charAt(a.length() - 1 - i) == b.charAt(b.length() - 1 - i)) {
+      i++;
+    }
+    return a.substring(a.length() - i);
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{" +
+        "actions=" + actions +
+        ", prefix='" + prefix + '\'' +
+        ", suffix='" + suffix + '\'' +
+        '}';
+  }
+}
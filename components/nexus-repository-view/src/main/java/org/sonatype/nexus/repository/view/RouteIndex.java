@@ -0,0 +1,113 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Dispatch table of a {@link Router}. Routes are bucketed by the request actions their {@link RouteGuard} allows, then
+ * arranged in a trie by the literal path prefix it requires; finding the route of a request only evaluates the
+ * matchers of routes whose guard allows it, in their original order, so the first matching route still wins.
+ *
+ * @since 3.72
+ */
+class RouteIndex
+{
+  private final List<Route> routes;
+
+  private final RouteGuard[] guards;
+
+  private final Map<String, Node> actionTries = new HashMap<>();
+
+  private final Node otherActionTrie;
+
+  RouteIndex(final List<Route> routes) {
+    this.routes = routes;
+    this.guards = routes.stream().map(route -> RouteGuard.of(route.getMatcher())).toArray(RouteGuard[]::new);
+
+    Set<String> actions = Arrays.stream(guards)
+        .map(RouteGuard::getActions)
+        .filter(Objects::nonNull)
+        .flatMap(Set::stream)
+        .collect(toSet());
+    for (String action : actions) {
+      actionTries.put(action, trie(action));
+    }
+    otherActionTrie = trie(null);
+  }
+
+  /**
+   * Builds the trie of routes allowing the action, or only those allowing any action if {@code null}.
+   */
+  private Node trie(@Nullable final String action) {
+    Node root = new Node();
+    for (int i = 0; i < guards.length; i++) {
+      Set<String> allowed = guards[i].getActions();
+      if (allowed == null || allowed.contains(action)) {
+        root.add(guards[i].getPrefix(), 0, i);
+      }
+    }
+    return root;
+  }
+
+  /**
+   * Returns the position of the first route matching the request, or -1 if none match.
+   */
+  int find(final Context context) {
+    Request request = context.getRequest();
+    String path = request.getPath();
+
+    Node node = actionTries.getOrDefault(request.getAction(), otherActionTrie);
+    BitSet candidates = new BitSet(guards.length);
+    for (int depth = 0; node != null; depth++) {
+      for (int i : node.routes) {
+        candidates.set(i);
+      }
+      node = depth < path.length() ? node.children.get(path.charAt(depth)) : null;
+    }
+
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      if (path.endsWith(guards[i].getSuffix()) && routes.get(i).getMatcher().matches(context)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static class Node
+  {
+    private final Map<Character, Node> children = new HashMap<>();
+
+    private int[] routes = new int[0];
+
+    void add(final String prefix, final int depth, final int route) {
+      if (depth == prefix.length()) {
+        routes = Arrays.copyOf(routes, routes.length + 1);
+        routes[routes.length - 1] = route;
+      }
+      else {
+        children.computeIfAbsent(prefix.charAt(depth), c -> new Node()).add(prefix, depth + 1, route);
+      }
+    }
+  }
+}
@@ -13,8 +13,10 @@
 package org.sonatype.nexus.repository.view;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.annotation.Nullable;
 
@@ -23,6 +25,7 @@ import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.recipe.RouterBuilder;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -41,11 +44,18 @@ public class Router
 
   private final DefaultRoute defaultRoute;
 
+  private final RouteIndex index;
+
+  private final LongAdder[] hits;
+
   public static final String LOCAL_ATTRIBUTE_PREFIX = "local.attribute.";
 
   public Router(final List<Route> routes, final DefaultRoute defaultRoute) {
-    this.routes = checkNotNull(routes, "Missing routes");
+    this.routes = ImmutableList.copyOf(checkNotNull(routes, "Missing routes"));
     this.defaultRoute = checkNotNull(defaultRoute, "Missing default route");
+    this.index = new RouteIndex(routes);
+    this.hits = new LongAdder[routes.size() + 1];
+    Arrays.setAll(hits, i -> new LongAdder());
   }
 
   /**
@@ -140,13 +150,29 @@ public class Router
   /**
    * Find the first matching route for the given context.
    */
-  private Route findRoute(final Context context) {
-    for (Route route : routes) {
-      if (route.getMatcher().matches(context)) {
-        return route;
-      }
+  @VisibleForTesting
+  Route findRoute(final Context context) {
+    int position = index.find(context);
+    if (position < 0) {
+      hits[routes.size()].increment();
+      return defaultRoute;
+    }
+    hits[position].increment();
+    return routes.get(position);
+  }
+
+  /**
+   * Returns how many requests each route has handled, in route order followed by the default route.
+   *
+   * @since 3.72
+   */
+  public Map<Route, Long> getRouteHits() {
+    Map<Route, Long> routeHits = new LinkedHashMap<>();
+    for (int i = 0; i < routes.size(); i++) {
+      routeHits.put(routes.get(i), hits[i].sum());
     }
-    return defaultRoute;
+    routeHits.put(defaultRoute, hits[routes.size()].sum());
+    return routeHits;
   }
 
   //
@@ -18,6 +18,7 @@ import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.repository.view.Context;
 import org.sonatype.nexus.repository.view.Matcher;
 import org.sonatype.nexus.repository.view.Request;
+import org.sonatype.nexus.repository.view.RouteGuard;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -45,4 +46,9 @@ public class ActionMatcher
     final String action = context.getRequest().getAction();
     return allowedActions.contains(action);
   }
+
+  @Override
+  public RouteGuard guard() {
+    return RouteGuard.actions(allowedActions);
+  }
 }
@@ -15,6 +15,7 @@ package org.sonatype.nexus.repository.view.matchers;
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.repository.view.Context;
 import org.sonatype.nexus.repository.view.Matcher;
+import org.sonatype.nexus.repository.view.RouteGuard;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -53,6 +54,11 @@ public class LiteralMatcher
     }
   }
 
+  @Override
+  public RouteGuard guard() {
+    return ignoreCase ? RouteGuard.ANY : RouteGuard.literal(literal);
+  }
+
   @Override
   public String toString() {
     return getClass().getSimpleName() + "{" +
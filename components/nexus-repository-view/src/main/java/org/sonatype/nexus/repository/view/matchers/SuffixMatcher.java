@@ -16,6 +16,7 @@ import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.common.text.Strings2;
 import org.sonatype.nexus.repository.view.Context;
 import org.sonatype.nexus.repository.view.Matcher;
+import org.sonatype.nexus.repository.view.RouteGuard;
 
 import com.google.common.annotations.VisibleForTesting;
 
@@ -61,6 +62,11 @@ public class SuffixMatcher
     }
   }
 
+  @Override
+  public RouteGuard guard() {
+    return ignoreCase ? RouteGuard.ANY : RouteGuard.suffix(suffix);
+  }
+
   @Override
   public String toString() {
     return getClass().getSimpleName() + "{" +
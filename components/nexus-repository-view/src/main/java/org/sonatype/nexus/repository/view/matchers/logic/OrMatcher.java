@@ -17,6 +17,7 @@ import java.util.List;
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.repository.view.Context;
 import org.sonatype.nexus.repository.view.Matcher;
+import org.sonatype.nexus.repository.view.RouteGuard;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
@@ -56,6 +57,11 @@ public class OrMatcher
     return false;
   }
 
+  @Override
+  public RouteGuard guard() {
+    return matchers.stream().map(RouteGuard::of).reduce(RouteGuard::or).orElse(RouteGuard.ANY);
+  }
+
   @Override
   public String toString() {
     return getClass().getSimpleName() + "{" +
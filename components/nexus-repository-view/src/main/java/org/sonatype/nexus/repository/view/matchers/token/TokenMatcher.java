@@ -18,6 +18,7 @@ import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.repository.view.Context;
 import org.sonatype.nexus.repository.view.Matcher;
 import org.sonatype.nexus.repository.view.Request;
+import org.sonatype.nexus.repository.view.RouteGuard;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -76,4 +77,9 @@ public class TokenMatcher
     });
     return true;
   }
+
+  @Override
+  public RouteGuard guard() {
+    return parser.guard();
+  }
 }
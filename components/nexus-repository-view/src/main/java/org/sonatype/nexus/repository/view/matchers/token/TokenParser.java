@@ -25,6 +25,7 @@ import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 
 import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.repository.view.RouteGuard;
 
 
 /**
@@ -53,6 +54,8 @@ public class TokenParser
 
   private final Pattern pattern;
 
+  private final RouteGuard guard;
+
   public TokenParser(final String templatePattern) {
     final List<Token> tokens = new PatternParser(templatePattern).getTokens();
     pattern = Pattern.compile(regexp(tokens));
@@ -65,6 +68,8 @@ public class TokenParser
         variables.add((VariableToken) token);
       }
     }
+
+    guard = guard(tokens);
   }
 
   /**
@@ -102,6 +107,26 @@ public class TokenParser
     return pattern.toString();
   }
 
+  /**
+   * Returns the literals which paths must start and end with to match the template pattern.
+   *
+   * @since 3.72
+   */
+  public RouteGuard guard() {
+    return guard;
+  }
+
+  private static RouteGuard guard(final List<Token> tokens) {
+    RouteGuard guard = RouteGuard.ANY;
+    if (!tokens.isEmpty() && tokens.get(0) instanceof LiteralToken) {
+      guard = guard.and(RouteGuard.prefix(tokens.get(0).value));
+    }
+    if (!tokens.isEmpty() && tokens.get(tokens.size() - 1) instanceof LiteralToken) {
+      guard = guard.and(RouteGuard.suffix(tokens.get(tokens.size() - 1).value));
+    }
+    return guard;
+  }
+
   private String regexp(final List<Token> tokens) {
     StringBuilder b = new StringBuilder();
     Set<String> previous = new HashSet<>();
@@ -14,11 +14,12 @@ package org.sonatype.nexus.repository.view.payloads;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 import javax.annotation.Nullable;
 
 import org.sonatype.nexus.blobstore.api.Blob;
-import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.blobstore.api.FileBackedBlob;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -28,7 +29,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * @since 3.0
  */
 public class BlobPayload
-    implements Payload
+    implements FileChannelPayload
 {
   private final Blob blob;
 
@@ -44,6 +45,17 @@ public class BlobPayload
     return blob.getInputStream();
   }
 
+  @Override
+  public InputStream openInputStream(final long offset, final long length) throws IOException {
+    return blob.getInputStream(offset, length);
+  }
+
+  @Nullable
+  @Override
+  public FileChannel openFileChannel() {
+    return blob instanceof FileBackedBlob ? ((FileBackedBlob) blob).openFileChannel() : null;
+  }
+
   @Override
   public long getSize() {
     return blob.getMetrics().getContentSize();
@@ -0,0 +1,54 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view.payloads;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Payload;
+
+/**
+ * A {@link Payload} whose content may be read from a local file, letting it be sent without copying it through the
+ * heap.
+ *
+ * @since 3.72
+ */
+public interface FileChannelPayload
+    extends Payload
+{
+  /**
+   * Opens a read-only channel positioned at the start of this payload's content; {@link #getSize()} bytes should be
+   * read from that position. Returns {@code null} when the content isn't available from a local file.
+   */
+  @Nullable
+  FileChannel openFileChannel() throws IOException;
+
+  /**
+   * Opens a file channel to the content of the given payload, looking through plain {@link Content} wrappers.
+   * Returns {@code null} when the content isn't available from a local file.
+   */
+  @Nullable
+  static FileChannel openFileChannel(final Payload payload) throws IOException {
+    Payload unwrapped = payload;
+    while (unwrapped != null && unwrapped.getClass() == Content.class) {
+      unwrapped = ((Content) unwrapped).getPayload();
+    }
+    if (unwrapped instanceof FileChannelPayload) {
+      return ((FileChannelPayload) unwrapped).openFileChannel();
+    }
+    return null;
+  }
+}
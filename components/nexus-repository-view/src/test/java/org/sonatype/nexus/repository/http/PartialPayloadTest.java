@@ -12,9 +12,11 @@
  */
 package org.sonatype.nexus.repository.http;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
 import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.payloads.BytesPayload;
 
 import com.google.common.collect.Range;
@@ -25,6 +27,10 @@ import org.junit.Test;
 import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Tests {@link PartialPayload}.
@@ -57,7 +63,25 @@ public class PartialPayloadTest
     assertThat(output, is(input));
   }
 
-  private byte[] partial(final BytesPayload bytes, final Range<Long> closed) throws IOException {
+  @Test
+  public void middleOfStream() throws IOException {
+    final byte[] output = partial(bytesPayload, Range.closed(3L, 5L));
+
+    assertThat(output, is(Bytes.toArray(asList(3, 4, 5))));
+  }
+
+  @Test
+  public void rangeIsReadFromPayload() throws IOException {
+    Payload payload = mock(Payload.class);
+    when(payload.openInputStream(3L, 3L)).thenReturn(new ByteArrayInputStream(new byte[]{3, 4, 5}));
+
+    try (final PartialPayload partial = new PartialPayload(payload, Range.closed(3L, 5L))) {
+      assertThat(ByteStreams.toByteArray(partial.openInputStream()), is(Bytes.toArray(asList(3, 4, 5))));
+    }
+    verify(payload, never()).openInputStream();
+  }
+
+  private byte[] partial(final Payload bytes, final Range<Long> closed) throws IOException {
     try (final PartialPayload partial = new PartialPayload(bytes, closed)) {
       return ByteStreams.toByteArray(partial.openInputStream());
     }
@@ -12,10 +12,18 @@
  */
 package org.sonatype.nexus.repository.view;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.view.matchers.ActionMatcher;
+import org.sonatype.nexus.repository.view.matchers.AlwaysMatcher;
+import org.sonatype.nexus.repository.view.matchers.LiteralMatcher;
+import org.sonatype.nexus.repository.view.matchers.RegexMatcher;
+import org.sonatype.nexus.repository.view.matchers.SuffixMatcher;
+import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -24,7 +32,16 @@ import org.mockito.Mock;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.repository.http.HttpMethods.GET;
+import static org.sonatype.nexus.repository.http.HttpMethods.PUT;
 import static org.sonatype.nexus.repository.view.Router.LOCAL_ATTRIBUTE_PREFIX;
+import static org.sonatype.nexus.repository.view.matchers.logic.LogicMatchers.and;
+import static org.sonatype.nexus.repository.view.matchers.logic.LogicMatchers.not;
+import static org.sonatype.nexus.repository.view.matchers.logic.LogicMatchers.or;
 
 public class RouterTest
     extends TestSupport
@@ -38,15 +55,16 @@ public class RouterTest
   Request request;
 
   @Mock
-  Route route;
+  Handler handler;
 
-  @Mock
-  DefaultRoute defaultRoute;
+  private DefaultRoute defaultRoute;
 
+  private final AtomicInteger evaluations = new AtomicInteger();
 
   @Before
   public void setup() throws Exception {
-    underTest = new Router(Collections.singletonList(route), defaultRoute);
+    defaultRoute = new DefaultRoute(Collections.singletonList(handler));
+    underTest = new Router(Collections.singletonList(route(new AlwaysMatcher())), defaultRoute);
   }
 
   @Test
@@ -58,4 +76,81 @@ public class RouterTest
     assertThat(newContext.getAttributes().get("somekey"), is("somevalue"));
     assertThat(newContext.getAttributes().get(LOCAL_ATTRIBUTE_PREFIX + "anotherkey"), nullValue());
   }
+
+  @Test
+  public void firstMatchingRouteWins() {
+    Route any = route(new RegexMatcher(".*"));
+    Route token = route(and(new ActionMatcher(GET), new TokenMatcher("/a/{name}")));
+    underTest = new Router(Arrays.asList(token, any), defaultRoute);
+
+    assertThat(underTest.findRoute(context(GET, "/a/b")), sameInstance(token));
+    assertThat(underTest.findRoute(context(PUT, "/a/b")), sameInstance(any));
+
+    underTest = new Router(Arrays.asList(any, token), defaultRoute);
+
+    assertThat(underTest.findRoute(context(GET, "/a/b")), sameInstance(any));
+  }
+
+  @Test
+  public void routesWhichCannotMatchAreNotEvaluated() {
+    Route put = route(and(new ActionMatcher(PUT), counting()));
+    Route other = route(and(new TokenMatcher("/other/{name}"), counting()));
+    Route suffix = route(and(new SuffixMatcher(".sha1"), counting()));
+    Route target = route(and(new ActionMatcher(GET), new TokenMatcher("/a/{name}.jar"), counting()));
+    underTest = new Router(Arrays.asList(put, other, suffix, target), defaultRoute);
+
+    assertThat(underTest.findRoute(context(GET, "/a/b.jar")), sameInstance(target));
+    assertThat(evaluations.get(), is(1));
+  }
+
+  @Test
+  public void routesAreFoundThroughCompositeMatchers() {
+    Route either = route(or(new TokenMatcher("/abc/{name}"), new TokenMatcher("/abd/{name}")));
+    Route negated = route(not(new TokenMatcher("/x/{name}")));
+    Route literal = route(new LiteralMatcher("/Index.html"));
+    underTest = new Router(Arrays.asList(either, literal, negated), defaultRoute);
+
+    assertThat(underTest.findRoute(context(GET, "/abd/z")), sameInstance(either));
+    assertThat(underTest.findRoute(context(GET, "/index.HTML")), sameInstance(literal));
+    assertThat(underTest.findRoute(context(GET, "/y/z")), sameInstance(negated));
+    assertThat(underTest.findRoute(context(GET, "/x/z")), sameInstance(defaultRoute));
+  }
+
+  @Test
+  public void routeHitsAreCounted() {
+    Route token = route(new TokenMatcher("/a/{name}"));
+    underTest = new Router(Collections.singletonList(token), defaultRoute);
+
+    underTest.findRoute(context(GET, "/a/b"));
+    underTest.findRoute(context(GET, "/a/c"));
+    underTest.findRoute(context(GET, "/b"));
+
+    assertThat(underTest.getRouteHits().get(token), is(2L));
+    assertThat(underTest.getRouteHits().get(defaultRoute), is(1L));
+  }
+
+  @Test
+  public void mockedMatchersWithoutGuardAreAlwaysEvaluated() {
+    Matcher mocked = mock(Matcher.class);
+    when(mocked.matches(any())).thenReturn(true);
+    Route route = route(and(new ActionMatcher(GET), mocked));
+    underTest = new Router(Arrays.asList(route(mock(Matcher.class)), route), defaultRoute);
+
+    assertThat(underTest.findRoute(context(GET, "/a/b")), sameInstance(route));
+  }
+
+  private Route route(final Matcher matcher) {
+    return new Route(matcher, Collections.singletonList(handler));
+  }
+
+  private Matcher counting() {
+    return context -> {
+      evaluations.incrementAndGet();
+      return true;
+    };
+  }
+
+  private Context context(final String action, final String path) {
+    return new Context(repository, new Request.Builder().action(action).path(path).build());
+  }
 }
@@ -0,0 +1,335 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.s3.internal;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.nexus.blobstore.api.BlobStoreException;
+import org.sonatype.nexus.common.app.ManagedLifecycle;
+import org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.iterable.S3Objects;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.google.common.annotations.VisibleForTesting;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.STORAGE;
+
+/**
+ * Lists the objects under a prefix by partitioning the key space on the next path segment (for example the
+ * {@code vol-NN} directories of the blob store content) and listing the partitions concurrently.
+ *
+ * The returned stream is sequential; summaries from the concurrent listings are handed over through a bounded queue
+ * so memory use doesn't depend on the number of objects. Listings of all blob stores share one pool of threads, and
+ * partition listings never wait for the reader: when the queue is full they are parked until the reader has made
+ * room, so streams that are closed early or abandoned don't hold on to any thread. Close the stream to stop listing
+ * early. While the pool isn't running objects are listed sequentially.
+ *
+ * @since 3.72
+ */
+@Named
+@Singleton
+@ManagedLifecycle(phase = STORAGE)
+public class ParallelObjectLister
+    extends StateGuardLifecycleSupport
+{
+  private static final String DELIMITER = "/";
+
+  private static final int QUEUE_CAPACITY = 10_000;
+
+  private static final S3ObjectSummary END = new S3ObjectSummary();
+
+  private final int threads;
+
+  private final int queueCapacity;
+
+  private volatile ThreadPoolExecutor executor;
+
+  @Inject
+  public ParallelObjectLister(@Named("${nexus.s3.listing.threads:-16}") final int threads) {
+    this(threads, QUEUE_CAPACITY);
+  }
+
+  @VisibleForTesting
+  ParallelObjectLister(final int threads, final int queueCapacity) {
+    checkArgument(threads > 0, "Must use a positive number of threads");
+    checkArgument(queueCapacity > 1, "Must use a queue capacity greater than one");
+    this.threads = threads;
+    this.queueCapacity = queueCapacity;
+  }
+
+  @Override
+  protected void doStart() {
+    executor = new ThreadPoolExecutor(threads, threads, 60L, SECONDS, new LinkedBlockingQueue<>(),
+        new NexusThreadFactory("s3-list", "listing"));
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  @Override
+  protected void doStop() {
+    if (executor != null) {
+      // partition listings already queued still run until they are parked; readers are told of later rejections
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+  /**
+   * Number of threads currently listing partitions.
+   */
+  @VisibleForTesting
+  int getActiveCount() {
+    ThreadPoolExecutor executor = this.executor;
+    return executor != null ? executor.getActiveCount() : 0;
+  }
+
+  /**
+   * Lists all objects with the given prefix, which must be empty or end with {@value #DELIMITER}, listing at most
+   * {@code parallelism} partitions at the same time.
+   */
+  Stream<S3ObjectSummary> list(final AmazonS3 s3, final String bucket, final String prefix, final int parallelism) {
+    checkNotNull(s3);
+    checkNotNull(bucket);
+    checkArgument(parallelism > 0, "Must use a positive parallelism");
+
+    ExecutorService executor = this.executor;
+    if (executor == null) {
+      return StreamSupport.stream(S3Objects.withPrefix(s3, bucket, prefix).spliterator(), false);
+    }
+
+    List<String> partitions = new ArrayList<>();
+    List<S3ObjectSummary> topLevel = new ArrayList<>();
+
+    ObjectListing listing = s3.listObjects(new ListObjectsRequest()
+        .withBucketName(bucket)
+        .withPrefix(prefix)
+        .withDelimiter(DELIMITER));
+    while (true) {
+      partitions.addAll(listing.getCommonPrefixes());
+      topLevel.addAll(listing.getObjectSummaries());
+      if (!listing.isTruncated()) {
+        break;
+      }
+      listing = s3.listNextBatchOfObjects(listing);
+    }
+    log.debug("Listing {} partitions of {}/{} with parallelism {}", partitions.size(), bucket, prefix, parallelism);
+
+    if (partitions.isEmpty()) {
+      return topLevel.stream();
+    }
+
+    PartitionIterator iterator = new PartitionIterator(executor, s3, bucket, partitions, parallelism);
+    Stream<S3ObjectSummary> partitioned = StreamSupport
+        .stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL), false)
+        .onClose(iterator::cancel);
+    return Stream.concat(topLevel.stream(), partitioned);
+  }
+
+  /**
+   * Iterates over the summaries produced by concurrent partition listings.
+   */
+  private class PartitionIterator
+      implements Iterator<S3ObjectSummary>
+  {
+    private final BlockingQueue<S3ObjectSummary> queue = new ArrayBlockingQueue<>(queueCapacity);
+
+    private final Queue<PartitionLister> parked = new ConcurrentLinkedQueue<>();
+
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    private final ExecutorService executor;
+
+    private final AmazonS3 s3;
+
+    private final String bucket;
+
+    private final List<String> partitions;
+
+    private final AtomicInteger nextPartition = new AtomicInteger();
+
+    private int remaining;
+
+    private S3ObjectSummary next;
+
+    private volatile boolean cancelled;
+
+    PartitionIterator(
+        final ExecutorService executor,
+        final AmazonS3 s3,
+        final String bucket,
+        final List<String> partitions,
+        final int parallelism)
+    {
+      this.executor = executor;
+      this.s3 = s3;
+      this.bucket = bucket;
+      this.partitions = partitions;
+
+      int listers = Math.min(parallelism, partitions.size());
+      remaining = listers;
+      for (int i = 0; i < listers; i++) {
+        submit(new PartitionLister());
+      }
+    }
+
+    void cancel() {
+      cancelled = true;
+      parked.clear();
+      queue.clear();
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && remaining > 0) {
+        S3ObjectSummary summary = take();
+        if (summary == END) {
+          remaining--;
+        }
+        else {
+          next = summary;
+        }
+      }
+      if (next == null && failure.get() != null) {
+        throw new BlobStoreException("Unable to list bucket " + bucket, failure.get(), null);
+      }
+      return next != null;
+    }
+
+    @Override
+    public S3ObjectSummary next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      S3ObjectSummary result = next;
+      next = null;
+      return result;
+    }
+
+    private S3ObjectSummary take() {
+      if (cancelled) {
+        throw new BlobStoreException("Listing of bucket " + bucket + " was cancelled", null);
+      }
+      S3ObjectSummary summary = queue.poll();
+      if (summary != null) {
+        // resume once there is room for a good batch, rather than after every summary
+        if (queue.remainingCapacity() >= queueCapacity / 2) {
+          resumeParked();
+        }
+        return summary;
+      }
+      resumeParked();
+      try {
+        return queue.take();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        cancel();
+        throw new BlobStoreException("Interrupted while listing bucket " + bucket, e, null);
+      }
+    }
+
+    private void resumeParked() {
+      PartitionLister lister;
+      while ((lister = parked.poll()) != null) {
+        submit(lister);
+      }
+    }
+
+    private void submit(final PartitionLister lister) {
+      try {
+        executor.execute(lister);
+      }
+      catch (RejectedExecutionException e) {
+        failure.compareAndSet(null, e);
+        remaining--;
+      }
+    }
+
+    /**
+     * Lists partitions until there are none left, parking itself whenever the queue is full.
+     */
+    private class PartitionLister
+        implements Runnable
+    {
+      private Iterator<S3ObjectSummary> summaries;
+
+      private S3ObjectSummary pending;
+
+      @Override
+      public void run() {
+        while (!cancelled) {
+          if (pending == null) {
+            pending = nextSummary();
+          }
+          if (queue.offer(pending)) {
+            if (pending == END) {
+              return;
+            }
+            pending = null;
+          }
+          else {
+            parked.add(this);
+            // the reader may have emptied the queue before this lister was parked, in which case nobody resumes it
+            if (queue.remainingCapacity() == 0 || !parked.remove(this)) {
+              return;
+            }
+          }
+        }
+      }
+
+      private S3ObjectSummary nextSummary() {
+        try {
+          while (summaries == null || !summaries.hasNext()) {
+            int partition = nextPartition.getAndIncrement();
+            if (partition >= partitions.size()) {
+              return END;
+            }
+            summaries = S3Objects.withPrefix(s3, bucket, partitions.get(partition)).iterator();
+          }
+          return summaries.next();
+        }
+        catch (RuntimeException e) {
+          failure.compareAndSet(null, e);
+          return END;
+        }
+      }
+    }
+  }
+}
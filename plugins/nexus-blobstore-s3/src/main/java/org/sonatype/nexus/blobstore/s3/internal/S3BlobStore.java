@@ -12,6 +12,7 @@
  */
 package org.sonatype.nexus.blobstore.s3.internal;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
@@ -19,11 +20,15 @@ import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
@@ -59,6 +64,7 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.iterable.S3Objects;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.ObjectTagging;
 import com.amazonaws.services.s3.model.S3Object;
@@ -85,6 +91,8 @@ import static java.lang.String.format;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.stream.Collectors.toSet;
 import static java.util.stream.StreamSupport.stream;
 import static org.sonatype.nexus.blobstore.DirectPathLocationStrategy.DIRECT_PATH_ROOT;
 import static org.sonatype.nexus.blobstore.api.OperationType.DOWNLOAD;
@@ -153,6 +161,19 @@ public class S3BlobStore
 
   private static final String FILE_V1 = "file/1";
 
+  private static final String TEMPORARY_BLOB_MARKER_PREFIX = "temporary-blobs/";
+
+  /**
+   * Records that every temporary blob has a marker, written once the markers of older blobs have been backfilled.
+   */
+  private static final String TEMPORARY_BLOB_MARKERS_COMPLETE = "temporary-blobs.complete";
+
+  /**
+   * Allowance for clock differences between nodes when deciding which blobs may be newer than the temporary blob
+   * markers that were listed.
+   */
+  private static final long MARKER_LISTING_SKEW_MILLIS = 60_000;
+
   private final AmazonS3Factory amazonS3Factory;
 
   private final BucketManager bucketManager;
@@ -187,6 +208,16 @@ public class S3BlobStore
 
   private RawObjectAccess rawObjectAccess;
 
+  private ParallelObjectLister objectLister;
+
+  private int listingParallelism = 1;
+
+  private boolean temporaryBlobMarkers;
+
+  private volatile boolean temporaryBlobMarkersComplete;
+
+  private ExecutorService markerBackfillExecutor;
+
   @Inject
   public S3BlobStore(
       final AmazonS3Factory amazonS3Factory,
@@ -220,6 +251,28 @@ public class S3BlobStore
     hardDeleteTimer = registry.timer(MetricRegistry.name(S3BlobStore.class, METRIC_NAME, "hardDelete"));
   }
 
+  /**
+   * Configures how blob IDs are enumerated.
+   *
+   * @param objectLister          lists the content partitions concurrently
+   * @param listingParallelism    number of content partitions listed concurrently
+   * @param temporaryBlobMarkers  whether temporary blobs are recorded with a marker object so enumeration can tell
+   *                              them apart without requesting the metadata of every blob; must be enabled on all
+   *                              nodes sharing the blob store
+   * @since 3.72
+   */
+  @Inject
+  public void configureListing(
+      final ParallelObjectLister objectLister,
+      @Named("${nexus.s3.listing.parallelism:-8}") final int listingParallelism,
+      @Named("${nexus.s3.temporaryBlobMarkers.enabled:-false}") final boolean temporaryBlobMarkers)
+  {
+    checkArgument(listingParallelism > 0, "Listing parallelism must be positive");
+    this.objectLister = checkNotNull(objectLister);
+    this.listingParallelism = listingParallelism;
+    this.temporaryBlobMarkers = temporaryBlobMarkers;
+  }
+
   @Override
   protected void doStart() throws Exception {
     // ensure blobstore is supported
@@ -245,10 +298,25 @@ public class S3BlobStore
       this.executorService = newFixedThreadPool(8,
           new NexusThreadFactory("s3-blobstore", "async-ops"));
     }
+
+    startContentCache();
+
+    if (temporaryBlobMarkers) {
+      startTemporaryBlobMarkerBackfill();
+    }
+    else {
+      // markers aren't maintained while disabled, so they must be backfilled again before being relied on
+      deleteQuietly(temporaryBlobMarkersCompletePath());
+    }
   }
 
   @Override
   protected void doStop() throws Exception {
+    if (markerBackfillExecutor != null) {
+      markerBackfillExecutor.shutdownNow();
+      markerBackfillExecutor = null;
+    }
+    stopContentCache();
     liveBlobs = null;
     if (executorService != null) {
       executorService.shutdown();
@@ -265,6 +333,21 @@ public class S3BlobStore
     return getLocation(id) + BLOB_FILE_CONTENT_SUFFIX;
   }
 
+  /**
+   * Returns path of the marker recording that the blob is temporary.
+   */
+  private String temporaryBlobMarkerPath(final BlobId id) {
+    return temporaryBlobMarkerPath(id.asUniqueString());
+  }
+
+  private String temporaryBlobMarkerPath(final String blobId) {
+    return getBucketPrefix() + TEMPORARY_BLOB_MARKER_PREFIX + blobId;
+  }
+
+  private String temporaryBlobMarkersCompletePath() {
+    return getBucketPrefix() + TEMPORARY_BLOB_MARKERS_COMPLETE;
+  }
+
   private String metadataFilePath() {
     return getBucketPrefix() + METADATA_FILENAME;
   }
@@ -337,7 +420,12 @@ public class S3BlobStore
     try {
       log.debug("Writing blob {} to {}", blobId, blobPath);
 
+      if (temporaryBlobMarkers && headers.containsKey(TEMPORARY_BLOB_HEADER)) {
+        s3.putObject(getConfiguredBucket(), temporaryBlobMarkerPath(blobId), "");
+      }
+
       final StreamMetrics streamMetrics = ingester.ingestTo(blobPath);
+      invalidateCachedContent(blobId);
       final BlobMetrics metrics = new BlobMetrics(new DateTime(), streamMetrics.getSha1(), streamMetrics.getSize());
       blob.refresh(headers, metrics);
       S3BlobAttributes blobAttributes = writeBlobAttributes(headers, attributePath, metrics);
@@ -352,6 +440,9 @@ public class S3BlobStore
       // Something went wrong, clean up the files we created
       deleteQuietly(attributePath);
       deleteQuietly(blobPath);
+      if (temporaryBlobMarkers && headers.containsKey(TEMPORARY_BLOB_HEADER)) {
+        deleteQuietly(temporaryBlobMarkerPath(blobId));
+      }
       throw new BlobStoreException(e, blobId);
     }
     finally {
@@ -386,6 +477,9 @@ public class S3BlobStore
       log.debug("Attempting to make blob with id: {} and path: {} permanent.", blobId, blobPath);
       blob.refresh(headers, metrics);
       writeBlobAttributes(headers, attributePath, metrics);
+      if (temporaryBlobMarkers) {
+        deleteQuietly(temporaryBlobMarkerPath(blobId));
+      }
       return blob;
     }
     catch (IOException e) {
@@ -506,7 +600,11 @@ public class S3BlobStore
       s3.setObjectTagging(tagAsDeleted(contentPath(blobId)));
       // tag the attributes
       s3.setObjectTagging(tagAsDeleted(attributePath(blobId)));
+      if (temporaryBlobMarkers && blobAttributes.getHeaders().containsKey(TEMPORARY_BLOB_HEADER)) {
+        deleteQuietly(temporaryBlobMarkerPath(blobId));
+      }
       blob.markStale();
+      invalidateCachedContent(blobId);
 
       Long contentSize = getContentSizeForDeletion(blobAttributes);
       if (contentSize != null) {
@@ -564,7 +662,14 @@ public class S3BlobStore
       Long contentSize = getContentSizeForDeletion(blobAttributes);
 
       String blobPath = contentPath(blobId);
-      boolean blobDeleted = batchDelete(blobPath, attributePath);
+      invalidateCachedContent(blobId);
+      boolean blobDeleted;
+      if (temporaryBlobMarkers && isTemporary(blobAttributes)) {
+        blobDeleted = batchDelete(blobPath, attributePath, temporaryBlobMarkerPath(blobId));
+      }
+      else {
+        blobDeleted = batchDelete(blobPath, attributePath);
+      }
 
       if (blobDeleted && contentSize != null) {
         metricsService.recordDeletion(contentSize);
@@ -578,6 +683,10 @@ public class S3BlobStore
     }
   }
 
+  private static boolean isTemporary(final S3BlobAttributes blobAttributes) {
+    return blobAttributes.getHeaders() != null && blobAttributes.getHeaders().containsKey(TEMPORARY_BLOB_HEADER);
+  }
+
   @Nullable
   @Timed
   private Long getContentSizeForDeletion(final S3BlobAttributes blobAttributes) {
@@ -680,6 +789,7 @@ public class S3BlobStore
   public void remove() {
     try {
       metricsService.remove();
+      removeContentCache();
 
       boolean contentEmpty = s3.listObjects(getConfiguredBucket(), getContentPrefix()).getObjectSummaries().isEmpty();
       if (contentEmpty) {
@@ -715,8 +825,23 @@ public class S3BlobStore
 
     @Override
     protected InputStream doGetInputStream() {
-      S3Object object = s3.getObject(getConfiguredBucket(), contentPath(getId()));
-      return performanceLogger.maybeWrapForPerformanceLogging(object.getObjectContent());
+      return getCachedInputStream(this, () -> {
+        S3Object object = s3.getObject(getConfiguredBucket(), contentPath(getId()));
+        return performanceLogger.maybeWrapForPerformanceLogging(object.getObjectContent());
+      });
+    }
+
+    @Override
+    protected InputStream doGetInputStream(final long offset, final long length) {
+      if (length <= 0) {
+        return new ByteArrayInputStream(new byte[0]);
+      }
+      return getCachedInputStream(this, offset, length, () -> {
+        GetObjectRequest request = new GetObjectRequest(getConfiguredBucket(), contentPath(getId()))
+            .withRange(offset, offset + length - 1);
+        S3Object object = s3.getObject(request);
+        return performanceLogger.maybeWrapForPerformanceLogging(object.getObjectContent());
+      });
     }
   }
 
@@ -728,8 +853,7 @@ public class S3BlobStore
   @Override
   @Timed
   public Stream<BlobId> getBlobIdStream() {
-    Iterable<S3ObjectSummary> summaries = S3Objects.withPrefix(s3, getConfiguredBucket(), getContentPrefix());
-    return blobIdStream(stream(summaries.spliterator(), false));
+    return blobIdStream(listContent());
   }
 
   @Override
@@ -738,10 +862,9 @@ public class S3BlobStore
       throw new IllegalArgumentException("sinceDays must >= 0");
     }
     else {
-      Iterable<S3ObjectSummary> summaries = S3Objects.withPrefix(s3, getConfiguredBucket(), getContentPrefix());
       OffsetDateTime offsetDateTime = Instant.now().minus(sinceDays, ChronoUnit.DAYS).atOffset(ZoneOffset.UTC);
 
-      return blobIdStream(stream(summaries.spliterator(), false)
+      return blobIdStream(listContent()
           .filter(s3objectSummary -> s3objectSummary.getLastModified().toInstant().atOffset(ZoneOffset.UTC).isAfter(offsetDateTime)));
     }
   }
@@ -757,10 +880,121 @@ public class S3BlobStore
         .map(this::attributePathToDirectPathBlobId);
   }
 
+  /**
+   * Lists all content objects, partitioned by volume when listing in parallel.
+   */
+  private Stream<S3ObjectSummary> listContent() {
+    if (objectLister != null && listingParallelism > 1) {
+      return objectLister.list(s3, getConfiguredBucket(), getContentPrefix(), listingParallelism);
+    }
+    Iterable<S3ObjectSummary> summaries = S3Objects.withPrefix(s3, getConfiguredBucket(), getContentPrefix());
+    return stream(summaries.spliterator(), false);
+  }
+
   private Stream<S3ObjectSummary> nonTempBlobPropertiesFileStream(final Stream<S3ObjectSummary> summaries) {
-    return summaries
-        .filter(o -> o.getKey().endsWith(BLOB_FILE_ATTRIBUTES_SUFFIX))
-        .filter(this::isNotTempBlob);
+    Stream<S3ObjectSummary> propertiesFiles = summaries.filter(o -> o.getKey().endsWith(BLOB_FILE_ATTRIBUTES_SUFFIX));
+    if (temporaryBlobMarkers && temporaryBlobMarkersComplete) {
+      return propertiesFiles.filter(notMarkedAsTemporary());
+    }
+    return propertiesFiles.filter(this::isNotTempBlob);
+  }
+
+  /**
+   * Starts adding the markers missing for temporary blobs written before markers were enabled, unless a previous
+   * backfill completed. Enumeration requests the metadata of each blob until the backfill completes.
+   */
+  private void startTemporaryBlobMarkerBackfill() {
+    temporaryBlobMarkersComplete = s3.doesObjectExist(getConfiguredBucket(), temporaryBlobMarkersCompletePath());
+    if (!temporaryBlobMarkersComplete) {
+      markerBackfillExecutor = newSingleThreadExecutor(new NexusThreadFactory("s3-blobstore", "temporary-blob-markers"));
+      markerBackfillExecutor.execute(this::backfillTemporaryBlobMarkers);
+    }
+  }
+
+  @VisibleForTesting
+  void backfillTemporaryBlobMarkers() {
+    String blobStoreName = blobStoreConfiguration.getName();
+    log.info("Adding missing temporary blob markers to blob store {}", blobStoreName);
+    try (Stream<S3ObjectSummary> summaries = listContent()) {
+      Iterator<S3ObjectSummary> propertiesFiles =
+          summaries.filter(o -> o.getKey().endsWith(BLOB_FILE_ATTRIBUTES_SUFFIX)).iterator();
+      while (propertiesFiles.hasNext()) {
+        if (Thread.currentThread().isInterrupted()) {
+          log.info("Stopped adding temporary blob markers to blob store {}", blobStoreName);
+          return;
+        }
+        S3ObjectSummary propertiesFile = propertiesFiles.next();
+        if (isTempBlob(propertiesFile.getKey())) {
+          markAsTemporary(blobIdOf(propertiesFile), propertiesFile.getKey());
+        }
+      }
+      s3.putObject(getConfiguredBucket(), temporaryBlobMarkersCompletePath(), "");
+      temporaryBlobMarkersComplete = true;
+      log.info("Added missing temporary blob markers to blob store {}", blobStoreName);
+    }
+    catch (Exception e) {
+      log.warn("Failed to add missing temporary blob markers to blob store {}, the metadata of each blob will be "
+          + "requested when listing it", blobStoreName, e);
+    }
+  }
+
+  private void markAsTemporary(final String blobId, final String propertiesKey) {
+    String markerPath = temporaryBlobMarkerPath(blobId);
+    s3.putObject(getConfiguredBucket(), markerPath, "");
+    // the blob may have been made permanent, and its marker deleted, before this marker was written
+    boolean stillTemporary = false;
+    try {
+      stillTemporary = isTempBlob(propertiesKey);
+    }
+    finally {
+      if (!stillTemporary) {
+        deleteQuietly(markerPath);
+      }
+    }
+  }
+
+  /**
+   * Whether the blob with the given properties file is temporary; {@code false} if the blob no longer exists.
+   */
+  private boolean isTempBlob(final String propertiesKey) {
+    try {
+      return s3.getObjectMetadata(getConfiguredBucket(), propertiesKey).getUserMetadata()
+          .containsKey(TEMPORARY_BLOB_HEADER);
+    }
+    catch (AmazonS3Exception e) {
+      if (e.getStatusCode() == 404) {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  private static String blobIdOf(final S3ObjectSummary propertiesFile) {
+    String fileName = new S3AttributesLocation(propertiesFile).getFileName();
+    return fileName.substring(0, fileName.length() - BLOB_FILE_ATTRIBUTES_SUFFIX.length());
+  }
+
+  /**
+   * Decides which blobs are temporary from the temporary blob markers, without requesting the metadata of each blob.
+   * Blobs changed after the markers were listed are checked individually as they may have been created since.
+   */
+  private Predicate<S3ObjectSummary> notMarkedAsTemporary() {
+    Date listed = new Date(System.currentTimeMillis() - MARKER_LISTING_SKEW_MILLIS);
+    String markerPrefix = getBucketPrefix() + TEMPORARY_BLOB_MARKER_PREFIX;
+    Set<String> temporaryBlobIds = stream(
+        S3Objects.withPrefix(s3, getConfiguredBucket(), markerPrefix).spliterator(), false)
+        .map(summary -> summary.getKey().substring(markerPrefix.length()))
+        .collect(toSet());
+
+    return summary -> {
+      if (temporaryBlobIds.contains(blobIdOf(summary))) {
+        return false;
+      }
+      if (summary.getLastModified() == null || summary.getLastModified().after(listed)) {
+        return isNotTempBlob(summary);
+      }
+      return true;
+    };
   }
 
   private boolean isNotTempBlob(final S3ObjectSummary object) {
@@ -813,6 +1047,7 @@ public class S3BlobStore
       S3BlobAttributes s3BlobAttributes = (S3BlobAttributes) getBlobAttributes(blobId);
       s3BlobAttributes.updateFrom(blobAttributes);
       s3BlobAttributes.store();
+      invalidateCachedContent(blobId);
     }
     catch (Exception e) {
       log.error("Unable to set BlobAttributes for blob id: {}, exception: {}",
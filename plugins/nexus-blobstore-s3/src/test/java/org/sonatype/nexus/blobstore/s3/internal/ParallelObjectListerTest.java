@@ -0,0 +1,229 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.s3.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.blobstore.api.BlobStoreException;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ParallelObjectListerTest
+    extends TestSupport
+{
+  private static final List<String> KEYS = Arrays.asList(
+      "content/metadata.properties",
+      "content/vol-01/chap-01/a.properties",
+      "content/vol-01/chap-02/b.properties",
+      "content/vol-02/chap-01/c.properties",
+      "content/vol-03/chap-01/d.properties",
+      "content/directpath/e.properties");
+
+  @Mock
+  private AmazonS3 s3;
+
+  private List<String> keys = KEYS;
+
+  private int pageSize = Integer.MAX_VALUE;
+
+  private ParallelObjectLister underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    when(s3.listObjects(any(ListObjectsRequest.class))).thenAnswer(invocation -> {
+      ListObjectsRequest request = invocation.getArgument(0);
+      return listing(request.getPrefix(), request.getDelimiter(), null);
+    });
+    when(s3.listNextBatchOfObjects(any(ObjectListing.class))).thenAnswer(invocation -> {
+      ObjectListing previous = invocation.getArgument(0);
+      return listing(previous.getPrefix(), previous.getDelimiter(), previous.getNextMarker());
+    });
+    underTest = new ParallelObjectLister(2, 4);
+    underTest.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    underTest.stop();
+  }
+
+  @Test
+  public void listsAllPartitions() {
+    assertThat(list("content/"), containsInAnyOrder(KEYS.toArray()));
+  }
+
+  @Test
+  public void partitionsOnTheNextPathSegment() {
+    list("content/");
+
+    verify(s3).listObjects(argThat((ListObjectsRequest request) ->
+        "content/".equals(request.getPrefix()) && "/".equals(request.getDelimiter())));
+    for (String partition : Arrays.asList("content/vol-01/", "content/vol-02/", "content/vol-03/",
+        "content/directpath/")) {
+      verify(s3).listObjects(argThat((ListObjectsRequest request) ->
+          partition.equals(request.getPrefix()) && request.getDelimiter() == null));
+    }
+    verify(s3, never()).listObjects(argThat((ListObjectsRequest request) ->
+        "content/vol-01/chap-01/".equals(request.getPrefix())));
+  }
+
+  @Test
+  public void followsMarkersOfTruncatedListings() {
+    pageSize = 1;
+
+    assertThat(list("content/"), containsInAnyOrder(KEYS.toArray()));
+    verify(s3, atLeastOnce()).listNextBatchOfObjects(argThat((ObjectListing listing) ->
+        "content/".equals(listing.getPrefix()) && "/".equals(listing.getDelimiter())));
+    verify(s3, atLeastOnce()).listNextBatchOfObjects(argThat((ObjectListing listing) ->
+        "content/vol-01/".equals(listing.getPrefix())));
+  }
+
+  @Test
+  public void listsSequentiallyWhenStopped() throws Exception {
+    underTest.stop();
+
+    assertThat(list("content/"), containsInAnyOrder(KEYS.toArray()));
+    verify(s3, never()).listObjects(argThat((ListObjectsRequest request) -> request.getDelimiter() != null));
+  }
+
+  @Test
+  public void failuresArePropagated() {
+    when(s3.listObjects(argThat((ListObjectsRequest request) -> "content/vol-02/".equals(request.getPrefix()))))
+        .thenThrow(new AmazonS3Exception("failed"));
+
+    try (Stream<S3ObjectSummary> summaries = underTest.list(s3, "mybucket", "content/", 2)) {
+      summaries.count();
+      fail("Expected BlobStoreException");
+    }
+    catch (BlobStoreException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void listersDoNotWaitForTheReader() throws Exception {
+    keys = manyKeys();
+
+    try (Stream<S3ObjectSummary> summaries = underTest.list(s3, "mybucket", "content/", 2)) {
+      Iterator<S3ObjectSummary> iterator = summaries.iterator();
+      iterator.next();
+
+      awaitIdle();
+
+      List<String> listed = new ArrayList<>();
+      iterator.forEachRemaining(summary -> listed.add(summary.getKey()));
+      assertThat(listed.size(), is(keys.size() - 1));
+    }
+  }
+
+  @Test
+  public void closingTheStreamStopsListing() throws Exception {
+    keys = manyKeys();
+
+    Stream<S3ObjectSummary> summaries = underTest.list(s3, "mybucket", "content/", 2);
+    summaries.iterator().next();
+    summaries.close();
+
+    awaitIdle();
+  }
+
+  private List<String> list(final String prefix) {
+    try (Stream<S3ObjectSummary> summaries = underTest.list(s3, "mybucket", prefix, 2)) {
+      return summaries.map(S3ObjectSummary::getKey).collect(Collectors.toList());
+    }
+  }
+
+  private void awaitIdle() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (underTest.getActiveCount() > 0) {
+      if (System.nanoTime() > deadline) {
+        fail("Listing threads are still busy");
+      }
+      Thread.sleep(10);
+    }
+  }
+
+  private static List<String> manyKeys() {
+    List<String> keys = new ArrayList<>();
+    for (int vol = 1; vol <= 4; vol++) {
+      for (int i = 0; i < 50; i++) {
+        keys.add(String.format("content/vol-%02d/chap-01/%03d.properties", vol, i));
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Lists the keys under the prefix after the marker, rolling keys up to the next delimiter into common prefixes.
+   */
+  private ObjectListing listing(final String prefix, final String delimiter, final String marker) {
+    ObjectListing listing = new ObjectListing();
+    listing.setBucketName("mybucket");
+    listing.setPrefix(prefix);
+    listing.setDelimiter(delimiter);
+    listing.setMarker(marker);
+    int entries = 0;
+    for (String key : keys.stream().sorted().collect(Collectors.toList())) {
+      if (!key.startsWith(prefix)) {
+        continue;
+      }
+      int next = delimiter == null ? -1 : key.indexOf(delimiter, prefix.length());
+      String entry = next >= 0 ? key.substring(0, next + 1) : key;
+      if ((marker != null && entry.compareTo(marker) <= 0) || listing.getCommonPrefixes().contains(entry)) {
+        continue;
+      }
+      if (entries == pageSize) {
+        listing.setTruncated(true);
+        break;
+      }
+      if (next >= 0) {
+        listing.getCommonPrefixes().add(entry);
+      }
+      else {
+        S3ObjectSummary summary = new S3ObjectSummary();
+        summary.setBucketName("mybucket");
+        summary.setKey(key);
+        listing.getObjectSummaries().add(summary);
+      }
+      listing.setNextMarker(entry);
+      entries++;
+    }
+    return listing;
+  }
+}
@@ -78,6 +78,10 @@ class S3BlobStoreTest
 
   AmazonS3 s3 = Mock()
 
+  static final String TEMP_PROPERTIES = 'myPrefix/content/vol-01/chap-01/12345678-1234-1234-1234-123456789abc.properties'
+
+  static final String PERMANENT_PROPERTIES = 'myPrefix/content/vol-01/chap-01/12345678-1234-1234-1234-123456789def.properties'
+
   S3BlobStore blobStore = new S3BlobStore(amazonS3Factory, locationResolver, uploader, copier, false, false, false,
       storeMetrics, dryRunPrefix, bucketManager, blobStoreQuotaUsageChecker)
 
@@ -701,6 +705,75 @@ class S3BlobStoreTest
       0 * s3.deleteObjects(_)
   }
 
+  def 'missing temporary blob markers are backfilled before they are relied on'() {
+    given: 'blob store using temporary blob markers'
+      blobStore.configureListing(Mock(ParallelObjectLister), 1, true)
+      blobStore.init(config)
+      s3.doesObjectExist('mybucket', 'myPrefix/temporary-blobs.complete') >> true
+      blobStore.doStart()
+
+      s3.listObjects(_ as ListObjectsRequest) >> { listObjectsRequest ->
+        def listing = new ObjectListing()
+        listing.objectSummaries << new S3ObjectSummary(bucketName: 'mybucket', key: TEMP_PROPERTIES)
+        listing.objectSummaries << new S3ObjectSummary(bucketName: 'mybucket', key: PERMANENT_PROPERTIES)
+        listing.truncated = false
+        return listing
+      }
+      s3.getObjectMetadata('mybucket', TEMP_PROPERTIES) >> getTempBlobMetadata()
+      s3.getObjectMetadata('mybucket', PERMANENT_PROPERTIES) >> new ObjectMetadata()
+
+    when: 'missing markers are backfilled'
+      blobStore.backfillTemporaryBlobMarkers()
+
+    then: 'the unmarked temporary blob is marked and the backfill is recorded'
+      1 * s3.putObject('mybucket', 'myPrefix/temporary-blobs/12345678-1234-1234-1234-123456789abc', '')
+      1 * s3.putObject('mybucket', 'myPrefix/temporary-blobs.complete', '')
+      0 * s3.deleteObject(_, _)
+  }
+
+  def 'temporary blob markers are only relied on once backfilled'() {
+    given: 'blob store using backfilled temporary blob markers'
+      blobStore.configureListing(Mock(ParallelObjectLister), 1, true)
+      blobStore.init(config)
+      s3.doesObjectExist('mybucket', 'myPrefix/temporary-blobs.complete') >> true
+      blobStore.doStart()
+
+      def lastModified = new Date(System.currentTimeMillis() - 3_600_000)
+      s3.listObjects(_ as ListObjectsRequest) >> { ListObjectsRequest request ->
+        def listing = new ObjectListing()
+        if (request.prefix == 'myPrefix/temporary-blobs/') {
+          listing.objectSummaries << new S3ObjectSummary(bucketName: 'mybucket',
+              key: 'myPrefix/temporary-blobs/12345678-1234-1234-1234-123456789abc', lastModified: lastModified)
+        }
+        else {
+          listing.objectSummaries << new S3ObjectSummary(bucketName: 'mybucket', key: TEMP_PROPERTIES,
+              lastModified: lastModified)
+          listing.objectSummaries << new S3ObjectSummary(bucketName: 'mybucket', key: PERMANENT_PROPERTIES,
+              lastModified: lastModified)
+        }
+        listing.truncated = false
+        return listing
+      }
+
+    when: 'blob ids are listed'
+      def blobIds = blobStore.getBlobIdStream().collect(Collectors.toList())
+
+    then: 'the marked blob is skipped without requesting the metadata of each blob'
+      blobIds*.asUniqueString() == ['12345678-1234-1234-1234-123456789def']
+      0 * s3.getObjectMetadata(_, _)
+  }
+
+  def 'disabling temporary blob markers discards their backfill'() {
+    given: 'blob store not using temporary blob markers'
+      blobStore.init(config)
+
+    when: 'the blob store starts'
+      blobStore.doStart()
+
+    then: 'markers must be backfilled again when re-enabled'
+      1 * s3.deleteObject('mybucket', 'myPrefix/temporary-blobs.complete')
+  }
+
   private mockS3Object(String contents) {
     S3Object s3Object = Mock()
     s3Object.getObjectContent() >> new S3ObjectInputStream(new ByteArrayInputStream(contents.bytes), null)
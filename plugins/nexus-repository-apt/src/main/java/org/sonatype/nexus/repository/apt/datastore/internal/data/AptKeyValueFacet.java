@@ -12,10 +12,14 @@
  */
 package org.sonatype.nexus.repository.apt.datastore.internal.data;
 
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.sonatype.nexus.common.entity.Continuation;
 import org.sonatype.nexus.common.entity.Continuations;
 import org.sonatype.nexus.repository.Facet.Exposed;
 import org.sonatype.nexus.repository.apt.AptFormat;
@@ -28,6 +32,9 @@ import org.apache.commons.lang3.StringUtils;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+/**
+ * Stores AptDeb metadata, using the package architecture as category so indexes can be rebuilt per architecture.
+ */
 @Named(AptFormat.NAME)
 @Exposed
 public class AptKeyValueFacet
@@ -35,7 +42,10 @@ public class AptKeyValueFacet
 {
   private final int limit;
 
-  private final static String CATEGORY = StringUtils.EMPTY;
+  /**
+   * Category of metadata stored before it was grouped by architecture.
+   */
+  private final static String LEGACY_CATEGORY = StringUtils.EMPTY;
 
   @Inject
   public AptKeyValueFacet(
@@ -50,12 +60,26 @@ public class AptKeyValueFacet
   /**
    * Store AptDeb metadata
    *
-   * @param assetId     the assetId
-   * @param componentId the componentId
-   * @param metadata    the json of an AptDeb metadata
+   * @param assetId      the assetId
+   * @param componentId  the componentId
+   * @param architecture the architecture of the package
+   * @param metadata     the json of an AptDeb metadata
    */
-  public void addPackageMetadata(final int componentId, final int assetId, final String metadata) {
-    set(CATEGORY, aptKey(componentId, assetId), metadata);
+  public void addPackageMetadata(
+      final int componentId,
+      final int assetId,
+      final String architecture,
+      final String metadata)
+  {
+    checkArgument(StringUtils.isNotEmpty(architecture), "Package architecture is required");
+    String key = aptKey(componentId, assetId);
+    // the asset may have been replaced by a package for another architecture
+    for (String category : findCategories(key)) {
+      if (!category.equals(architecture)) {
+        remove(category, key);
+      }
+    }
+    set(architecture, key, metadata);
   }
 
   /**
@@ -65,14 +89,42 @@ public class AptKeyValueFacet
    * @param componentId the componentId
    */
   public void removePackageMetadata(final int componentId, final int assetId) {
-    remove(CATEGORY, aptKey(componentId, assetId));
+    String key = aptKey(componentId, assetId);
+    for (String category : findCategories(key)) {
+      remove(category, key);
+    }
   }
 
   /**
    * Remove all AptDeb metadata.
    */
   public void removeAllPackageMetadata() {
-    removeAll(CATEGORY);
+    removeAll();
+  }
+
+  /**
+   * Moves metadata stored before it was grouped by architecture into the category of its architecture.
+   *
+   * @param architectureOf extracts the architecture from the json of an AptDeb metadata
+   */
+  public void migratePackageMetadata(final Function<String, String> architectureOf) {
+    Continuation<KeyValue> legacy;
+    // each page is moved before the next is fetched, so always browse from the start
+    while (!(legacy = browseValues(LEGACY_CATEGORY, limit, null)).isEmpty()) {
+      for (KeyValue keyValue : legacy) {
+        set(architectureOf.apply(keyValue.getValue()), keyValue.getKey(), keyValue.getValue());
+        remove(LEGACY_CATEGORY, keyValue.getKey());
+      }
+    }
+  }
+
+  /**
+   * Browse the architectures which have AptDeb metadata.
+   */
+  public Set<String> browseArchitectures() {
+    Set<String> architectures = new TreeSet<>(browseCategories());
+    architectures.remove(LEGACY_CATEGORY);
+    return architectures;
   }
 
   /**
@@ -81,8 +133,18 @@ public class AptKeyValueFacet
    * @return a stream of value objects representing AptDeb metadata as String
    */
   public Stream<String> browsePackagesMetadata() {
+    return browseCategories().stream().flatMap(this::browsePackagesMetadata);
+  }
+
+  /**
+   * Browse AptDeb metadata of a single architecture.
+   *
+   * @return a stream of value objects representing AptDeb metadata as String
+   */
+  public Stream<String> browsePackagesMetadata(final String architecture) {
     return Continuations
-        .streamOf((browseLimit, continuationToken) -> browseValues(CATEGORY, browseLimit, continuationToken), limit)
+        .streamOf((browseLimit, continuationToken) ->
+            browseValues(architecture, browseLimit, continuationToken), limit)
         .map(KeyValue::getValue);
   }
 
@@ -17,17 +17,22 @@ import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.inject.Named;
 
@@ -87,6 +92,7 @@ import static org.sonatype.nexus.repository.apt.internal.ReleaseName.RELEASE_GPG
 public class AptHostedMetadataFacet
     extends FacetSupport
 {
+  private static final List<String> INDEX_EXTENSIONS = Arrays.asList(StringUtils.EMPTY, GZ, BZ2);
 
   private final ObjectMapper mapper;
 
@@ -125,7 +131,8 @@ public class AptHostedMetadataFacet
     checkNotNull(asset);
     log.debug("Storing metadata for repository: {} asset: {}", getRepository().getName(), asset.path());
     componentId(asset).ifPresent(componentId ->
-        data().addPackageMetadata(componentId, InternalIds.internalAssetId(asset), serialize(asset))
+        data().addPackageMetadata(componentId, InternalIds.internalAssetId(asset), getArchitecture(asset),
+            serialize(asset))
     );
   }
 
@@ -156,6 +163,14 @@ public class AptHostedMetadataFacet
     content().deleteAssetsByPrefix(normalizeAssetPath(mainBinaryPrefix()));
   }
 
+  /**
+   * Removes metadata for a single architecture
+   */
+  private void removeMetadataForArchitecture(final String architecture) {
+    log.debug("Removing metadata for architecture {}: {}", architecture, getRepository().getName());
+    content().deleteAssetsByPrefix(normalizeAssetPath(mainBinaryPrefix() + architecture + "/"));
+  }
+
   private Content doRebuildMetadata(final List<AssetChange> changeList) throws IOException {
     log.debug("Starting rebuilding metadata at {}", getRepository().getName());
     OffsetDateTime rebuildStart = clock.clusterTime();
@@ -163,12 +178,26 @@ public class AptHostedMetadataFacet
     AptContentFacet aptFacet = content();
     AptSigningFacet signingFacet = signing();
 
-    removeMetadataPerArchitecture();
+    data().migratePackageMetadata(json -> deserialize(json).get(P_ARCHITECTURE).toString());
+
+    // without a list of changes we don't know which architectures are affected, so rebuild them all
+    if (changeList.isEmpty()) {
+      removeMetadataPerArchitecture();
+    }
 
     StringBuilder sha256Builder = new StringBuilder();
     StringBuilder md5Builder = new StringBuilder();
+    Map<String, List<FluentAsset>> keptIndexes = new TreeMap<>();
     String releaseFile;
-    try (CompressingTempFileStore store = buildPackageIndexes(changeList)) {
+    try (CompressingTempFileStore store = buildPackageIndexes(changeList, keptIndexes)) {
+      for (Map.Entry<String, List<FluentAsset>> entry : keptIndexes.entrySet()) {
+        for (int i = 0; i < INDEX_EXTENSIONS.size(); i++) {
+          String filename = packageRelativeIndexName(entry.getKey(), INDEX_EXTENSIONS.get(i));
+          addSignatureItem(md5Builder, MD5, entry.getValue().get(i), filename);
+          addSignatureItem(sha256Builder, SHA256, entry.getValue().get(i), filename);
+        }
+      }
+
       for (Map.Entry<String, CompressingTempFileStore.FileMetadata> entry : store.getFiles().entrySet()) {
         FluentAsset metadataAsset = aptFacet.put(
             packageIndexName(entry.getKey(), StringUtils.EMPTY),
@@ -193,9 +222,12 @@ public class AptHostedMetadataFacet
         addSignatureItem(sha256Builder, SHA256, bzMetadataAsset, packageRelativeIndexName(entry.getKey(), BZ2));
       }
 
+      Set<String> architectures = new TreeSet<>(keptIndexes.keySet());
+      architectures.addAll(store.getFiles().keySet());
+
       releaseFile = buildReleaseFile(
           aptFacet.getDistribution(),
-          store.getFiles().keySet(),
+          architectures,
           md5Builder.toString(),
           sha256Builder.toString()
       );
@@ -222,48 +254,62 @@ public class AptHostedMetadataFacet
     return releaseFileAsset.download();
   }
 
-  private CompressingTempFileStore buildPackageIndexes(final List<AssetChange> changes)
-      throws IOException
+  /**
+   * Streams package metadata from the key-value store into per-architecture package indexes, one record at a time.
+   *
+   * Only architectures touched by the given changes are regenerated, along with any architecture whose indexes are
+   * missing, and only their metadata is read; when there are no changes every architecture is regenerated. The
+   * existing indexes of the other architectures are added to {@code keptIndexes}.
+   */
+  private CompressingTempFileStore buildPackageIndexes(
+      final List<AssetChange> changes,
+      final Map<String, List<FluentAsset>> keptIndexes) throws IOException
   {
     CompressingTempFileStore result = new CompressingTempFileStore();
     Map<String, Writer> streams = new HashMap<>();
     boolean ok = false;
     try {
-      Set<String> architectures =
-          changes.stream()
-              .map(change -> getArchitecture(change.getAsset()))
-              .collect(Collectors.toSet());
-
-      final List<Map<String, Object>> packagesInfo = data()
-          .browsePackagesMetadata()
-          .map(this::deserialize)
-          .collect(Collectors.toList());
-
-      packagesInfo.stream().map(x -> x.get(P_ARCHITECTURE).toString())
-          .collect(Collectors.toCollection(() -> architectures));
-
-      Map<String, List<Map<String, Object>>> assetsPerArch = new HashMap<>();
-      for (String architecture : architectures) {
-        List<Map<String, Object>> assets = packagesInfo.stream()
-            .filter(x -> x.get(P_ARCHITECTURE).toString().equals(architecture))
-            .collect(Collectors.toList());
-        assetsPerArch.put(architecture, assets);
-      }
+      // NOTE:  We exclude added assets as well to account for the case where we are replacing an asset
+      Set<String> excludeNames = changes.stream().map(c -> c.getAsset().path()).collect(Collectors.toSet());
 
-      for (List<Map<String, Object>> assets : assetsPerArch.values()) {
-        Optional<AssetChange> removeAssetChange =
-            changes.stream()
-                .filter(change -> change.getAsset().kind().equals(DEB))
-                .filter(change -> change.getAction() == AssetAction.REMOVED)
-                .findAny();
-
-        if (assets.isEmpty() && removeAssetChange.isPresent()) {
-          createEmptyMetadataFile(result, streams, removeAssetChange.get());
+      if (changes.isEmpty()) {
+        try (Stream<String> packagesMetadata = data().browsePackagesMetadata()) {
+          writeMetadata(result, streams, excludeNames, packagesMetadata);
+        }
+      }
+      else {
+        Set<String> regenerate = new TreeSet<>();
+        for (AssetChange change : changes) {
+          String architecture = getArchitecture(change.getAsset());
+          if (architecture != null) {
+            regenerate.add(architecture);
+          }
+        }
+        for (String architecture : data().browseArchitectures()) {
+          if (!regenerate.contains(architecture)) {
+            Optional<List<FluentAsset>> indexes = findPackageIndexes(architecture);
+            if (indexes.isPresent()) {
+              keptIndexes.put(architecture, indexes.get());
+            }
+            else {
+              regenerate.add(architecture);
+            }
+          }
         }
-        else {
-          createMetadataFileWithData(changes, result, streams, assets);
+        for (String architecture : regenerate) {
+          removeMetadataForArchitecture(architecture);
+          try (Stream<String> packagesMetadata = data().browsePackagesMetadata(architecture)) {
+            writeMetadata(result, streams, excludeNames, packagesMetadata);
+          }
         }
       }
+
+      // architectures emptied by a removal still need an (empty) index
+      changes.stream()
+          .filter(change -> change.getAsset().kind().equals(DEB))
+          .filter(change -> change.getAction() == AssetAction.REMOVED)
+          .forEach(change -> createEmptyMetadataFile(result, streams, change));
+
       ok = true;
     }
     finally {
@@ -278,25 +324,49 @@ public class AptHostedMetadataFacet
     return result;
   }
 
-  private void createMetadataFileWithData(
-      final List<AssetChange> changes,
+  private void writeMetadata(
+      final CompressingTempFileStore result,
+      final Map<String, Writer> streams,
+      final Set<String> excludeNames,
+      final Stream<String> packagesMetadata) throws IOException
+  {
+    Iterator<String> itr = packagesMetadata.iterator();
+    while (itr.hasNext()) {
+      writeMetadata(result, streams, excludeNames, deserialize(itr.next()));
+    }
+  }
+
+  private void writeMetadata(
       final CompressingTempFileStore result,
       final Map<String, Writer> streams,
-      final List<Map<String, Object>> assets) throws IOException
+      final Set<String> excludeNames,
+      final Map<String, Object> asset) throws IOException
   {
-    // NOTE:  We exclude added assets as well to account for the case where we are replacing an asset
-    Set<String> excludeNames = changes.stream().map(c -> c.getAsset().path()).collect(Collectors.toSet());
-
-    for (Map<String, Object> asset : assets) {
-      final String name = asset.get(P_PACKAGE_NAME).toString();
-      final String arch = asset.get(P_ARCHITECTURE).toString();
-      Writer outWriter = streams.computeIfAbsent(arch, result::openOutput);
-      if (!excludeNames.contains(name)) {
-        final String indexSection = asset.get(P_INDEX_SECTION).toString();
-        outWriter.write(indexSection);
-        outWriter.write("\n\n");
+    final String name = asset.get(P_PACKAGE_NAME).toString();
+    final String arch = asset.get(P_ARCHITECTURE).toString();
+    Writer outWriter = streams.computeIfAbsent(arch, result::openOutput);
+    if (!excludeNames.contains(name)) {
+      final String indexSection = asset.get(P_INDEX_SECTION).toString();
+      outWriter.write(indexSection);
+      outWriter.write("\n\n");
+    }
+  }
+
+  /**
+   * Returns the existing package indexes of the architecture, in {@link #INDEX_EXTENSIONS} order, if they are all
+   * present along with their blobs.
+   */
+  private Optional<List<FluentAsset>> findPackageIndexes(final String architecture) {
+    List<FluentAsset> indexes = new ArrayList<>();
+    for (String ext : INDEX_EXTENSIONS) {
+      Optional<FluentAsset> index = content().getAsset(packageIndexName(architecture, ext));
+      if (!index.isPresent() || !index.get().blob().isPresent()) {
+        log.debug("Missing {} index for architecture {}: {}", ext, architecture, getRepository().getName());
+        return Optional.empty();
       }
+      indexes.add(index.get());
     }
+    return Optional.of(indexes);
   }
 
   private String buildReleaseFile(
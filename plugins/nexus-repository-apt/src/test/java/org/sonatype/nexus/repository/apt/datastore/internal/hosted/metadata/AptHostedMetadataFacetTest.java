@@ -0,0 +1,224 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.apt.datastore.internal.hosted.metadata;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.common.cooperation2.datastore.DefaultCooperation2Factory;
+import org.sonatype.nexus.common.time.Clock;
+import org.sonatype.nexus.repository.Format;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.apt.datastore.AptContentFacet;
+import org.sonatype.nexus.repository.apt.datastore.internal.data.AptKeyValueFacet;
+import org.sonatype.nexus.repository.apt.datastore.internal.hosted.AssetChange;
+import org.sonatype.nexus.repository.apt.internal.gpg.AptSigningFacet;
+import org.sonatype.nexus.repository.apt.internal.hosted.AssetAction;
+import org.sonatype.nexus.repository.content.AssetBlob;
+import org.sonatype.nexus.repository.content.fluent.FluentAsset;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Payload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static com.google.common.io.ByteStreams.toByteArray;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.repository.apt.internal.AptProperties.DEB;
+import static org.sonatype.nexus.repository.apt.internal.AptProperties.P_ARCHITECTURE;
+import static org.sonatype.nexus.repository.apt.internal.AptProperties.P_INDEX_SECTION;
+import static org.sonatype.nexus.repository.apt.internal.AptProperties.P_PACKAGE_NAME;
+
+public class AptHostedMetadataFacetTest
+    extends TestSupport
+{
+  private static final String DIST = "dists/bionic/";
+
+  private static final String[] INDEX_EXTENSIONS = {"", ".gz", ".bz2"};
+
+  @Mock
+  private Repository repository;
+
+  @Mock
+  private AptContentFacet content;
+
+  @Mock
+  private AptKeyValueFacet data;
+
+  @Mock
+  private AptSigningFacet signing;
+
+  @Mock
+  private Clock clock;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private final Map<String, FluentAsset> assets = new HashMap<>();
+
+  private final Map<String, String> written = new HashMap<>();
+
+  private AptHostedMetadataFacet underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    when(repository.getName()).thenReturn("apt-hosted");
+    when(repository.getFormat()).thenReturn(new Format("apt") { });
+    when(repository.facet(AptContentFacet.class)).thenReturn(content);
+    when(repository.facet(AptKeyValueFacet.class)).thenReturn(data);
+    when(repository.facet(AptSigningFacet.class)).thenReturn(signing);
+    when(clock.clusterTime()).thenReturn(OffsetDateTime.now());
+
+    when(content.getDistribution()).thenReturn("bionic");
+    when(content.getAsset(anyString()))
+        .thenAnswer(invocation -> Optional.ofNullable(assets.get(invocation.<String>getArgument(0))));
+    when(content.put(anyString(), any(Payload.class))).thenAnswer(invocation -> {
+      String path = invocation.getArgument(0);
+      try (InputStream in = invocation.<Payload>getArgument(1).openInputStream()) {
+        written.put(path, new String(toByteArray(in), StandardCharsets.UTF_8));
+      }
+      FluentAsset asset = storedAsset();
+      when(asset.download()).thenReturn(mock(Content.class));
+      assets.put(path, asset);
+      return asset;
+    });
+    when(signing.signInline(anyString())).thenReturn(new byte[0]);
+    when(signing.signExternal(anyString())).thenReturn(new byte[0]);
+
+    DefaultCooperation2Factory cooperationFactory = new DefaultCooperation2Factory();
+    underTest = new AptHostedMetadataFacet(mapper, clock, cooperationFactory, false, Duration.ofSeconds(0),
+        Duration.ofSeconds(30), 10);
+    underTest.attach(repository);
+    underTest.init();
+  }
+
+  @Test
+  public void addingPackageOnlyRegeneratesItsArchitecture() throws Exception {
+    existingIndexes("i386");
+    when(data.browseArchitectures()).thenReturn(new TreeSet<>(Arrays.asList("amd64", "i386")));
+    when(data.browsePackagesMetadata("amd64")).thenReturn(Stream.of(metadata("nano", "amd64")));
+
+    underTest.rebuildMetadata(Collections.singletonList(change(AssetAction.ADDED, "amd64")));
+
+    verify(data, never()).browsePackagesMetadata("i386");
+    verify(data, never()).browsePackagesMetadata();
+    verify(content).deleteAssetsByPrefix("/dists/bionic/main/binary-amd64/");
+    verify(content, never()).deleteAssetsByPrefix("/dists/bionic/main/binary-i386/");
+    assertThat(written.get(packages("amd64")), containsString("Package: nano"));
+    assertThat(written, not(hasKey(packages("i386"))));
+    assertThat(written.get(DIST + "Release"), containsString("Architectures: amd64 i386"));
+    assertThat(written.get(DIST + "Release"), containsString("main/binary-i386/Packages.gz"));
+  }
+
+  @Test
+  public void removingLastPackageOfArchitectureWritesEmptyIndex() throws Exception {
+    existingIndexes("i386");
+    when(data.browseArchitectures()).thenReturn(new TreeSet<>(Collections.singletonList("i386")));
+    when(data.browsePackagesMetadata("amd64")).thenReturn(Stream.empty());
+
+    underTest.rebuildMetadata(Collections.singletonList(change(AssetAction.REMOVED, "amd64")));
+
+    verify(data, never()).browsePackagesMetadata("i386");
+    assertThat(written.get(packages("amd64")), is(""));
+    assertThat(written.get(DIST + "Release"), containsString("Architectures: amd64 i386"));
+  }
+
+  @Test
+  public void architectureWithMissingIndexIsRebuilt() throws Exception {
+    existingIndexes("i386");
+    assets.remove(packages("i386") + ".bz2");
+    when(data.browseArchitectures()).thenReturn(new TreeSet<>(Arrays.asList("amd64", "i386")));
+    when(data.browsePackagesMetadata("amd64")).thenReturn(Stream.of(metadata("nano", "amd64")));
+    when(data.browsePackagesMetadata("i386")).thenReturn(Stream.of(metadata("vim", "i386")));
+
+    underTest.rebuildMetadata(Collections.singletonList(change(AssetAction.ADDED, "amd64")));
+
+    verify(content).deleteAssetsByPrefix("/dists/bionic/main/binary-i386/");
+    assertThat(written.get(packages("i386")), containsString("Package: vim"));
+    assertThat(written.get(DIST + "Release"), containsString("main/binary-i386/Packages.bz2"));
+  }
+
+  @Test
+  public void rebuildWithoutChangesRegeneratesEveryArchitecture() throws Exception {
+    existingIndexes("i386");
+    when(data.browsePackagesMetadata())
+        .thenReturn(Stream.of(metadata("nano", "amd64"), metadata("vim", "i386")));
+
+    underTest.rebuildMetadata(Collections.emptyList());
+
+    verify(data).migratePackageMetadata(any());
+    verify(content).deleteAssetsByPrefix("/dists/bionic/main/binary-");
+    assertThat(written.get(packages("amd64")), containsString("Package: nano"));
+    assertThat(written.get(packages("i386")), containsString("Package: vim"));
+  }
+
+  private void existingIndexes(final String architecture) {
+    for (String ext : INDEX_EXTENSIONS) {
+      assets.put(packages(architecture) + ext, storedAsset());
+    }
+  }
+
+  private static String packages(final String architecture) {
+    return DIST + "main/binary-" + architecture + "/Packages";
+  }
+
+  private static FluentAsset storedAsset() {
+    AssetBlob blob = mock(AssetBlob.class);
+    when(blob.checksums()).thenReturn(ImmutableMap.of("MD5", "md5", "SHA256", "sha256"));
+    when(blob.blobSize()).thenReturn(10L);
+    FluentAsset asset = mock(FluentAsset.class);
+    when(asset.blob()).thenReturn(Optional.of(blob));
+    return asset;
+  }
+
+  private AssetChange change(final AssetAction action, final String architecture) {
+    FluentAsset asset = mock(FluentAsset.class);
+    when(asset.repository()).thenReturn(repository);
+    when(asset.kind()).thenReturn(DEB);
+    when(asset.path()).thenReturn("/pool/n/nano/nano_" + architecture + ".deb");
+    when(asset.attributes()).thenReturn(new NestedAttributesMap("attributes",
+        new HashMap<>(ImmutableMap.of("apt", ImmutableMap.of(P_ARCHITECTURE, architecture)))));
+    return new AssetChange(action, asset);
+  }
+
+  private String metadata(final String name, final String architecture) throws IOException {
+    return mapper.writeValueAsString(ImmutableMap.of(
+        P_PACKAGE_NAME, name,
+        P_ARCHITECTURE, architecture,
+        P_INDEX_SECTION, "Package: " + name + "\nArchitecture: " + architecture));
+  }
+}
@@ -12,12 +12,21 @@
  */
 package org.sonatype.nexus.repository.httpbridge.internal;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Map;
+import java.util.Optional;
 
 import javax.annotation.Nullable;
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import javax.servlet.ServletException;
@@ -26,14 +35,22 @@ import javax.servlet.http.HttpServletResponse;
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.repository.http.HttpMethods;
 import org.sonatype.nexus.repository.httpbridge.HttpResponseSender;
+import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.Request;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.Status;
+import org.sonatype.nexus.repository.view.payloads.FileChannelPayload;
+
+import com.google.common.annotations.VisibleForTesting;
 
 /**
  * Default {@link HttpResponseSender}.
  *
+ * Payloads backed by local files are transferred from their {@link FileChannel} to the servlet container as
+ * {@link ByteBuffer}s when its output stream supports that (as Jetty's does), so their content isn't copied through
+ * the heap. Other payloads, or containers without such support, are copied as streams.
+ *
  * @since 3.0
  */
 @Named
@@ -42,6 +59,36 @@ public class DefaultHttpResponseSender
     extends ComponentSupport
     implements HttpResponseSender
 {
+  /**
+   * Public {@code write(ByteBuffer)} methods of servlet output stream implementations, if they have one.
+   */
+  private static final ClassValue<Optional<MethodHandle>> BYTE_BUFFER_WRITERS = new ClassValue<Optional<MethodHandle>>()
+  {
+    @Override
+    protected Optional<MethodHandle> computeValue(final Class<?> type) {
+      try {
+        return Optional.of(MethodHandles.publicLookup()
+            .findVirtual(type, "write", MethodType.methodType(void.class, ByteBuffer.class))
+            .asType(MethodType.methodType(void.class, OutputStream.class, ByteBuffer.class)));
+      }
+      catch (NoSuchMethodException | IllegalAccessException e) { // NOSONAR
+        return Optional.empty();
+      }
+    }
+  };
+
+  private boolean sendFileEnabled = true;
+
+  /**
+   * @since 3.72
+   */
+  @Inject
+  public void setSendFileEnabled(
+      @Named("${nexus.http.response.sendFile.enabled:-true}") final boolean sendFileEnabled)
+  {
+    this.sendFileEnabled = sendFileEnabled;
+  }
+
   @Override
   public void send(@Nullable final Request request, final Response response, final HttpServletResponse httpResponse)
       throws ServletException, IOException
@@ -74,7 +121,7 @@ public class DefaultHttpResponseSender
             httpResponse.setContentLengthLong(payload.getSize());
           }
 
-          if (request != null && !HttpMethods.HEAD.equals(request.getAction())) {
+          if (request != null && !HttpMethods.HEAD.equals(request.getAction()) && !sendFile(payload, httpResponse)) {
             try (InputStream input = payload.openInputStream(); OutputStream output = httpResponse.getOutputStream()) {
               payload.copy(input, output);
             }
@@ -86,4 +133,91 @@ public class DefaultHttpResponseSender
       }
     }
   }
+
+  /**
+   * Writes the payload straight from its file when both the payload and the servlet container allow it.
+   *
+   * @return {@code true} if the payload was sent, {@code false} if it should be copied as a stream instead
+   */
+  @VisibleForTesting
+  boolean sendFile(final Payload payload, final HttpServletResponse httpResponse) throws IOException {
+    if (!sendFileEnabled || !(payload instanceof FileChannelPayload || payload instanceof Content)) {
+      return false;
+    }
+    long size = payload.getSize();
+    if (size == Payload.UNKNOWN_SIZE) {
+      return false;
+    }
+    OutputStream output = httpResponse.getOutputStream();
+    MethodHandle writer = BYTE_BUFFER_WRITERS.get(output.getClass()).orElse(null);
+    if (writer == null) {
+      return false;
+    }
+    FileChannel channel = FileChannelPayload.openFileChannel(payload);
+    if (channel == null) {
+      return false;
+    }
+    // the output is closed even when the transfer fails, as the stream copy does
+    try (FileChannel input = channel; OutputStream out = output) {
+      long position = input.position();
+      if (input.size() - position < size) {
+        throw new IOException("Content is shorter than its expected size of " + size + " bytes");
+      }
+      log.trace("Sending {} bytes from file", size);
+      WritableByteChannel target = new ByteBufferWriterChannel(writer, out);
+      long remaining = size;
+      while (remaining > 0) {
+        long transferred = input.transferTo(position, remaining, target);
+        if (transferred <= 0) {
+          throw new EOFException("Content ended " + remaining + " bytes before its expected size of " + size);
+        }
+        position += transferred;
+        remaining -= transferred;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Adapts the {@code write(ByteBuffer)} method of a servlet output stream to a {@link WritableByteChannel}.
+   */
+  private static class ByteBufferWriterChannel
+      implements WritableByteChannel
+  {
+    private final MethodHandle writer;
+
+    private final OutputStream output;
+
+    ByteBufferWriterChannel(final MethodHandle writer, final OutputStream output) {
+      this.writer = writer;
+      this.output = output;
+    }
+
+    @Override
+    public int write(final ByteBuffer buffer) throws IOException {
+      int length = buffer.remaining();
+      try {
+        writer.invokeExact(output, buffer);
+      }
+      catch (IOException | RuntimeException | Error e) {
+        throw e;
+      }
+      catch (Throwable e) {
+        throw new IOException(e);
+      }
+      // the write is blocking, so the whole buffer has been consumed
+      buffer.position(buffer.limit());
+      return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+      // the output is closed by the sender
+    }
+  }
 }
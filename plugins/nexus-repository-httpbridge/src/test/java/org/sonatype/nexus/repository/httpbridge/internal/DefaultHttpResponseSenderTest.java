@@ -13,11 +13,17 @@
 package org.sonatype.nexus.repository.httpbridge.internal;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
 
 import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletResponse;
 
 import org.sonatype.goodies.testsupport.TestSupport;
@@ -29,10 +35,13 @@ import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.Request;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.Status;
+import org.sonatype.nexus.repository.view.payloads.PathPayload;
 import org.sonatype.nexus.repository.view.payloads.StringPayload;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -42,6 +51,8 @@ import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -56,6 +67,9 @@ public class DefaultHttpResponseSenderTest
 
   private static final byte[] TEST_CONTENT = "TEST CONTENT".getBytes(StandardCharsets.UTF_8);
 
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
   private final HttpResponseSender underTest = new DefaultHttpResponseSender();
 
   @Mock
@@ -175,4 +189,131 @@ public class DefaultHttpResponseSenderTest
     verify(httpServletResponse).setStatus(403, "You can't see this");
   }
 
+  @Test
+  public void filePayloadIsWrittenAsByteBuffers() throws Exception {
+    when(request.getAction()).thenReturn(HttpMethods.GET);
+    ByteBufferOutputStream bufferOutput = new ByteBufferOutputStream();
+    when(httpServletResponse.getOutputStream()).thenReturn(bufferOutput);
+
+    DefaultHttpResponseSender sender = new DefaultHttpResponseSender();
+    sender.setSendFileEnabled(true);
+    sender.send(request, HttpResponses.ok(new PathPayload(testFile(), "text/plain")), httpServletResponse);
+
+    assertThat(bufferOutput.buffers.toByteArray(), is(TEST_CONTENT));
+    assertThat(bufferOutput.streamed, is(false));
+  }
+
+  @Test
+  public void largeFilePayloadIsWrittenCompletely() throws Exception {
+    when(request.getAction()).thenReturn(HttpMethods.GET);
+    ByteBufferOutputStream bufferOutput = new ByteBufferOutputStream();
+    when(httpServletResponse.getOutputStream()).thenReturn(bufferOutput);
+    byte[] content = new byte[1024 * 1024 + 7];
+    new Random(1).nextBytes(content);
+    Path file = tempFolder.newFile().toPath();
+    Files.write(file, content);
+
+    DefaultHttpResponseSender sender = new DefaultHttpResponseSender();
+    sender.send(request, HttpResponses.ok(new PathPayload(file, "application/octet-stream")), httpServletResponse);
+
+    assertThat(bufferOutput.buffers.toByteArray(), is(content));
+    assertThat(bufferOutput.closed, is(true));
+  }
+
+  @Test
+  public void outputIsClosedWhenFilePayloadCannotBeWritten() throws Exception {
+    when(request.getAction()).thenReturn(HttpMethods.GET);
+    ByteBufferOutputStream bufferOutput = new ByteBufferOutputStream();
+    bufferOutput.failWrites = true;
+    when(httpServletResponse.getOutputStream()).thenReturn(bufferOutput);
+
+    DefaultHttpResponseSender sender = new DefaultHttpResponseSender();
+    try {
+      sender.send(request, HttpResponses.ok(new PathPayload(testFile(), "text/plain")), httpServletResponse);
+      fail("Expected IOException");
+    }
+    catch (IOException e) {
+      assertThat(bufferOutput.closed, is(true));
+    }
+  }
+
+  @Test
+  public void filePayloadIsCopiedWhenContainerCannotWriteByteBuffers() throws Exception {
+    when(request.getAction()).thenReturn(HttpMethods.GET);
+
+    DefaultHttpResponseSender sender = new DefaultHttpResponseSender();
+    sender.setSendFileEnabled(true);
+    sender.send(request, HttpResponses.ok(new PathPayload(testFile(), "text/plain")), httpServletResponse);
+
+    verify(output, atLeastOnce()).write(any(byte[].class), anyInt(), anyInt());
+  }
+
+  @Test
+  public void filePayloadIsCopiedWhenSendFileIsDisabled() throws Exception {
+    when(request.getAction()).thenReturn(HttpMethods.GET);
+    ByteBufferOutputStream bufferOutput = new ByteBufferOutputStream();
+    when(httpServletResponse.getOutputStream()).thenReturn(bufferOutput);
+
+    DefaultHttpResponseSender sender = new DefaultHttpResponseSender();
+    sender.setSendFileEnabled(false);
+    sender.send(request, HttpResponses.ok(new PathPayload(testFile(), "text/plain")), httpServletResponse);
+
+    assertThat(bufferOutput.buffers.size(), is(0));
+    assertThat(bufferOutput.streamed, is(true));
+  }
+
+  private Path testFile() throws IOException {
+    Path file = tempFolder.newFile().toPath();
+    Files.write(file, TEST_CONTENT);
+    return file;
+  }
+
+  /**
+   * Servlet output stream which, like Jetty's, also accepts {@link ByteBuffer}s.
+   */
+  public static class ByteBufferOutputStream
+      extends ServletOutputStream
+  {
+    private final ByteArrayOutputStream buffers = new ByteArrayOutputStream();
+
+    private boolean streamed;
+
+    private boolean failWrites;
+
+    private boolean closed;
+
+    public void write(final ByteBuffer buffer) throws IOException {
+      if (failWrites) {
+        throw new IOException("Connection reset");
+      }
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      buffers.write(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void write(final int b) {
+      streamed = true;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+      streamed = true;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(final WriteListener writeListener) {
+      // not used
+    }
+  }
 }
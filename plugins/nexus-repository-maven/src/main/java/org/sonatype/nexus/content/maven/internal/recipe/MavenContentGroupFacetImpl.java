@@ -51,6 +51,7 @@ import org.sonatype.nexus.repository.maven.internal.Constants;
 import org.sonatype.nexus.repository.maven.internal.MavenMimeRulesSource;
 import org.sonatype.nexus.repository.maven.internal.group.ArchetypeCatalogMerger;
 import org.sonatype.nexus.repository.maven.internal.group.MavenGroupFacet;
+import org.sonatype.nexus.repository.maven.internal.group.MergedMetadataCache;
 import org.sonatype.nexus.repository.maven.internal.group.RepositoryMetadataMerger;
 import org.sonatype.nexus.repository.types.GroupType;
 import org.sonatype.nexus.repository.view.Content;
@@ -69,6 +70,7 @@ import com.google.common.eventbus.Subscribe;
 import com.google.common.hash.HashCode;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.io.ByteStreams.toByteArray;
 import static java.lang.String.valueOf;
 import static java.util.Arrays.stream;
@@ -96,11 +98,12 @@ public class MavenContentGroupFacetImpl
       final RepositoryManager repositoryManager,
       final ConstraintViolationFactory constraintViolationFactory,
       @Named(GroupType.NAME) final Type groupType,
-      RepositoryCacheInvalidationService repositoryCacheInvalidationService)
+      RepositoryCacheInvalidationService repositoryCacheInvalidationService,
+      final MergedMetadataCache mergedMetadataCache)
   {
     super(repositoryManager, constraintViolationFactory, groupType, repositoryCacheInvalidationService);
 
-    repositoryMetadataMerger = new RepositoryMetadataMerger();
+    repositoryMetadataMerger = new RepositoryMetadataMerger(checkNotNull(mergedMetadataCache));
     archetypeCatalogMerger = new ArchetypeCatalogMerger();
   }
 
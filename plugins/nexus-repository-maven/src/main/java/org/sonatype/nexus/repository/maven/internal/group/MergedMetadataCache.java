@@ -0,0 +1,82 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.group;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.common.ByteSize;
+import org.sonatype.goodies.common.ComponentSupport;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Remembers merged Maven group metadata, shared by all group repositories within a common memory budget.
+ *
+ * Results are keyed by the path and the identity of each member's metadata, so a result is only re-used while none
+ * of the members have changed; groups with the same members share their results.
+ *
+ * @since 3.72
+ */
+@Named
+@Singleton
+public class MergedMetadataCache
+    extends ComponentSupport
+{
+  private final Cache<String, byte[]> merged;
+
+  @Inject
+  public MergedMetadataCache(@Named("${nexus.maven.metadata.mergeCache.maxSize:-16mb}") final ByteSize maxSize) {
+    this.merged = CacheBuilder.newBuilder()
+        .maximumWeight(checkNotNull(maxSize).toBytes())
+        .weigher((String key, byte[] content) -> key.length() + content.length)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Returns the result previously merged from the given members, or {@code null} if it isn't remembered.
+   */
+  @Nullable
+  public byte[] get(final String path, final List<String> memberKeys) {
+    return merged.getIfPresent(key(path, memberKeys));
+  }
+
+  /**
+   * Remembers the result merged from the given members.
+   */
+  public void put(final String path, final List<String> memberKeys, final byte[] content) {
+    merged.put(key(path, memberKeys), checkNotNull(content));
+  }
+
+  @VisibleForTesting
+  long getHitCount() {
+    return merged.stats().hitCount();
+  }
+
+  private static String key(final String path, final List<String> memberKeys) {
+    StringBuilder key = new StringBuilder(path);
+    for (String memberKey : memberKeys) {
+      key.append('\n').append(memberKey);
+    }
+    return key.toString();
+  }
+}
@@ -12,7 +12,10 @@
  */
 package org.sonatype.nexus.repository.maven.internal.group;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -22,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.function.BiPredicate;
 
 import javax.annotation.Nonnull;
@@ -29,13 +33,17 @@ import javax.annotation.Nullable;
 
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.common.app.VersionComparator;
+import org.sonatype.nexus.common.hash.HashAlgorithm;
 import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.content.Asset;
+import org.sonatype.nexus.repository.content.AssetBlob;
 import org.sonatype.nexus.repository.maven.MavenPath;
 import org.sonatype.nexus.repository.maven.internal.Constants;
 import org.sonatype.nexus.repository.maven.internal.MavenModels;
 import org.sonatype.nexus.repository.view.Content;
 
 import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
 import org.apache.maven.artifact.repository.metadata.Metadata;
 import org.apache.maven.artifact.repository.metadata.Plugin;
 import org.apache.maven.artifact.repository.metadata.Snapshot;
@@ -44,17 +52,37 @@ import org.apache.maven.artifact.repository.metadata.Versioning;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.io.ByteStreams.toByteArray;
+import static java.util.stream.Collectors.toList;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.sonatype.nexus.common.app.VersionComparator.version;
 
 /**
  * Maven 2 repository metadata merger.
  *
+ * When given a {@link MergedMetadataCache}, the result of merging member metadata is remembered along with the content
+ * hash of each member's metadata; as long as none of the members change the previous result is re-used without
+ * parsing anything.
+ *
  * @since 3.0
  */
 public class RepositoryMetadataMerger
     extends ComponentSupport
 {
+  @Nullable
+  private final MergedMetadataCache mergedMetadataCache;
+
+  public RepositoryMetadataMerger() {
+    this(null);
+  }
+
+  /**
+   * @since 3.72
+   */
+  public RepositoryMetadataMerger(@Nullable final MergedMetadataCache mergedMetadataCache) {
+    this.mergedMetadataCache = mergedMetadataCache;
+  }
+
   /**
    * Merges the contents of passed in metadata.
    */
@@ -63,42 +91,120 @@ public class RepositoryMetadataMerger
                     final Map<Repository, Content> contents)
   {
     log.debug("Merge metadata for {}", mavenPath.getPath());
-    List<Envelope> metadatas = new ArrayList<>(contents.size());
     try {
+      List<Member> members = new ArrayList<>(contents.size());
       for (Map.Entry<Repository, Content> entry : contents.entrySet()) {
-        addReadMetadata(mavenPath, metadatas, entry);
+        members.add(mergedMetadataCache != null ? readMember(mavenPath, entry) : new Member(mavenPath, entry));
       }
 
-      final Metadata mergedMetadata = merge(metadatas);
-      if (mergedMetadata == null) {
+      if (mergedMetadataCache == null) {
+        final Metadata mergedMetadata = merge(readMetadata(members));
+        if (mergedMetadata != null) {
+          MavenModels.writeMetadata(outputStream, mergedMetadata);
+        }
         return;
       }
-      MavenModels.writeMetadata(outputStream, mergedMetadata);
+
+      List<String> memberKeys = members.stream().map(member -> member.key).collect(toList());
+      byte[] merged = mergedMetadataCache.get(mavenPath.getPath(), memberKeys);
+      if (merged == null) {
+        final Metadata mergedMetadata = merge(readMetadata(members));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (mergedMetadata != null) {
+          MavenModels.writeMetadata(out, mergedMetadata);
+        }
+        merged = out.toByteArray();
+        mergedMetadataCache.put(mavenPath.getPath(), memberKeys, merged);
+      }
+      else {
+        log.trace("Re-using merged metadata for {}", mavenPath.getPath());
+      }
+      outputStream.write(merged);
     }
     catch (IOException e) {
       log.error("Unable to merge {}", mavenPath, e);
     }
   }
 
-  private void addReadMetadata(final MavenPath mavenPath,
-                               final List<Envelope> metadatas,
-                               final Entry<Repository, Content> entry) throws IOException
-  {
-    final String origin = entry.getKey().getName() + " @ " + mavenPath.getPath();
-    try {
-      final Metadata metadata = MavenModels.readMetadata(entry.getValue().openInputStream());
-      if (metadata == null) {
-        log.debug("Corrupted repository metadata: {}, source: {}", origin, entry.getValue());
-        return;
+  private List<Envelope> readMetadata(final List<Member> members) throws IOException {
+    List<Envelope> metadatas = new ArrayList<>(members.size());
+    for (Member member : members) {
+      try {
+        final Metadata metadata = MavenModels.readMetadata(member.openInputStream());
+        if (metadata == null) {
+          log.debug("Corrupted repository metadata: {}, source: {}", member.origin, member.content);
+          continue;
+        }
+        metadatas.add(new Envelope(member.origin, metadata));
       }
-      metadatas.add(new Envelope(origin, metadata));
+      catch (IOException e) {
+        log.debug("Error downloading repository metadata: {}, source: {}", member.origin, member.content);
+        throw new IOException("Error downloading repository metadata for " + member.origin + ": " + e.getMessage(), e);
+      }
+    }
+    return metadatas;
+  }
+
+  /**
+   * Reads the identity of a member's metadata, preferring the checksum of its stored blob; otherwise the content is
+   * read and hashed.
+   */
+  private Member readMember(final MavenPath mavenPath, final Entry<Repository, Content> entry) throws IOException {
+    String origin = origin(mavenPath, entry);
+    Content content = entry.getValue();
+    Optional<String> sha1 = Optional.ofNullable(content.getAttributes().get(Asset.class))
+        .flatMap(Asset::blob)
+        .map(AssetBlob::checksums)
+        .map(checksums -> checksums.get(HashAlgorithm.SHA1.name()));
+    if (sha1.isPresent()) {
+      return new Member(origin, content, entry.getKey().getName() + ':' + sha1.get(), null);
+    }
+    try (InputStream in = content.openInputStream()) {
+      byte[] bytes = toByteArray(in);
+      String hash = Hashing.sha256().hashBytes(bytes).toString();
+      return new Member(origin, content, entry.getKey().getName() + ':' + hash, bytes);
     }
     catch (IOException e) {
-      log.debug("Error downloading repository metadata: {}, source: {}", origin, entry.getValue());
+      log.debug("Error downloading repository metadata: {}, source: {}", origin, content);
       throw new IOException("Error downloading repository metadata for " + origin + ": " + e.getMessage(), e);
     }
   }
 
+  private static String origin(final MavenPath mavenPath, final Entry<Repository, Content> entry) {
+    return entry.getKey().getName() + " @ " + mavenPath.getPath();
+  }
+
+  /**
+   * Member metadata being merged.
+   */
+  private static class Member
+  {
+    private final String origin;
+
+    private final Content content;
+
+    @Nullable
+    private final String key;
+
+    @Nullable
+    private final byte[] bytes;
+
+    Member(final MavenPath mavenPath, final Entry<Repository, Content> entry) {
+      this(origin(mavenPath, entry), entry.getValue(), null, null);
+    }
+
+    Member(final String origin, final Content content, @Nullable final String key, @Nullable final byte[] bytes) {
+      this.origin = origin;
+      this.content = content;
+      this.key = key;
+      this.bytes = bytes;
+    }
+
+    InputStream openInputStream() throws IOException {
+      return bytes != null ? new ByteArrayInputStream(bytes) : content.openInputStream();
+    }
+  }
+
   /**
    * Model version, since Maven 3.x it is "1.1.0".
    */
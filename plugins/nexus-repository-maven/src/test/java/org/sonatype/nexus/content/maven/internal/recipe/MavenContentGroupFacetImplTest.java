@@ -26,6 +26,7 @@ import org.sonatype.nexus.repository.content.fluent.FluentAssetBuilder;
 import org.sonatype.nexus.repository.content.fluent.FluentAssets;
 import org.sonatype.nexus.repository.manager.RepositoryManager;
 import org.sonatype.nexus.repository.maven.internal.Maven2MavenPathParser;
+import org.sonatype.nexus.repository.maven.internal.group.MergedMetadataCache;
 import org.sonatype.nexus.validation.ConstraintViolationFactory;
 
 import org.junit.Before;
@@ -59,7 +60,7 @@ public class MavenContentGroupFacetImplTest
   @Before
   public void setup() {
     underTest = spy(new MavenContentGroupFacetImpl(repositoryManager, constraintViolationFactory, groupType,
-        repositoryCacheInvalidationService));
+        repositoryCacheInvalidationService, mock(MergedMetadataCache.class)));
   }
 
   /**
@@ -12,15 +12,24 @@
  */
 package org.sonatype.nexus.repository.maven.internal.group;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import javax.annotation.Nullable;
+
+import org.sonatype.goodies.common.ByteSize;
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.maven.MavenPath;
+import org.sonatype.nexus.repository.maven.internal.MavenModels;
 import org.sonatype.nexus.repository.maven.internal.group.RepositoryMetadataMerger.Envelope;
 import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
 
 import com.google.common.base.Function;
 import com.google.common.base.Strings;
@@ -45,6 +54,8 @@ import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * UT for {@link RepositoryMetadataMerger}
@@ -300,4 +311,43 @@ public class RepositoryMetadataMergerTest
     assertThat(m.getVersioning().getSnapshot().getTimestamp(), equalTo("20150323.121500"));
     assertThat(m.getVersioning().getSnapshot().getBuildNumber(), equalTo(2));
   }
+
+  @Test
+  public void mergedResultIsReusedWhileMembersAreUnchanged() throws Exception {
+    Metadata m1 = a("org.foo", "some-project", "20150324121500", "1.0.1", "1.0.1", "1.0.0", "1.0.1");
+    Metadata m2 = a("org.foo", "some-project", "20150324121700", "1.0.2", "1.0.2", "1.0.2");
+    when(mavenPath.getPath()).thenReturn("org/foo/some-project/maven-metadata.xml");
+    MergedMetadataCache cache = new MergedMetadataCache(ByteSize.megaBytes(1));
+
+    byte[] merged = merge(cache, m1, m2);
+    assertThat(merge(cache, m1, m2), equalTo(merged));
+    assertThat(cache.getHitCount(), is(1L));
+    assertThat(merge(null, m1, m2), equalTo(merged));
+
+    Metadata m = MavenModels.readMetadata(new ByteArrayInputStream(merged));
+    assertThat(m.getVersioning().getVersions(), contains("1.0.0", "1.0.1", "1.0.2"));
+    assertThat(m.getVersioning().getRelease(), equalTo("1.0.2"));
+
+    m2.getVersioning().addVersion("1.0.3");
+    m = MavenModels.readMetadata(new ByteArrayInputStream(merge(cache, m1, m2)));
+    assertThat(m.getVersioning().getVersions(), contains("1.0.0", "1.0.1", "1.0.2", "1.0.3"));
+  }
+
+  private byte[] merge(@Nullable final MergedMetadataCache cache, final Metadata... metadatas) throws Exception {
+    Map<Repository, Content> contents = new LinkedHashMap<>();
+    for (int i = 0; i < metadatas.length; i++) {
+      Repository member = mock(Repository.class);
+      when(member.getName()).thenReturn("member-" + i);
+      contents.put(member, new Content(new BytesPayload(bytes(metadatas[i]), "text/xml")));
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new RepositoryMetadataMerger(cache).merge(out, mavenPath, contents);
+    return out.toByteArray();
+  }
+
+  private static byte[] bytes(final Metadata metadata) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MavenModels.writeMetadata(out, metadata);
+    return out.toByteArray();
+  }
 }
@@ -0,0 +1,115 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.benchmarks;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.datastore.mybatis.handlers.AttributesTypeHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the JSON mapping of asset attributes by {@link AttributesTypeHandler}, which happens whenever content
+ * metadata is read from or written to the database.
+ *
+ * @since 3.72
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttributesJsonBenchmark
+{
+  private final JsonAttributesTypeHandler typeHandler = new JsonAttributesTypeHandler();
+
+  private NestedAttributesMap attributes;
+
+  private byte[] json;
+
+  @Setup
+  public void setUp() throws SQLException {
+    attributes = new NestedAttributesMap("attributes", new HashMap<>());
+
+    NestedAttributesMap maven2 = attributes.child("maven2");
+    maven2.set("groupId", "org.sonatype.nexus");
+    maven2.set("artifactId", "nexus-common");
+    maven2.set("version", "3.72.0-01");
+    maven2.set("baseVersion", "3.72.0-01");
+    maven2.set("extension", "jar");
+    maven2.set("asset_kind", "ARTIFACT");
+
+    NestedAttributesMap checksum = attributes.child("checksum");
+    checksum.set("md5", "0b1e0d6bb5b0a2f5e2e9e0d8d0f1f6b8");
+    checksum.set("sha1", "2fd4e1c67a2d28fced849ee1bb76e7391b93eb12");
+    checksum.set("sha256", "d7a8fbb307d7809469ca9abcb0082e4f8d5651e46d3cdb762d02d0bf37c9e592");
+    checksum.set("sha512", "07e547d9586f6a73f73fbac0435ed76951218fb7d0c8d788a309d785436bbb64"
+        + "2e93a252a954f23912547d1e8a3b5ed6e1bfd7097821233fa0538f3db854fee6");
+
+    NestedAttributesMap content = attributes.child("content");
+    content.set("last_modified", 1718000000000L);
+    content.set("etag", "\"2fd4e1c67a2d28fced849ee1bb76e7391b93eb12\"");
+
+    NestedAttributesMap provenance = attributes.child("provenance");
+    provenance.set("hashes_not_verified", false);
+    provenance.set("tags", Arrays.asList("release", "oss", "3.72"));
+
+    json = typeHandler.write(attributes.backing());
+  }
+
+  @Benchmark
+  public byte[] write() throws SQLException {
+    return typeHandler.write(attributes.backing());
+  }
+
+  @Benchmark
+  public NestedAttributesMap read() throws SQLException {
+    return new NestedAttributesMap("attributes", typeHandler.read(json));
+  }
+
+  @Benchmark
+  public NestedAttributesMap roundTrip() throws SQLException {
+    return new NestedAttributesMap("attributes", typeHandler.read(typeHandler.write(attributes.backing())));
+  }
+
+  /**
+   * Exposes the JSON mapping of {@link AttributesTypeHandler} without going through JDBC.
+   */
+  private static class JsonAttributesTypeHandler
+      extends AttributesTypeHandler
+  {
+    byte[] write(final Map<String, ?> value) throws SQLException {
+      return writeToJson(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    Map<String, Object> read(final byte[] bytes) throws SQLException {
+      return (Map<String, Object>) readFromJson(bytes);
+    }
+  }
+}
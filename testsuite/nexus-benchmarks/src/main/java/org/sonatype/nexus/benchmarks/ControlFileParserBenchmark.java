@@ -0,0 +1,87 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.nexus.repository.apt.internal.debian.ControlFile;
+import org.sonatype.nexus.repository.apt.internal.debian.ControlFileParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Measures parsing of APT {@code Packages} indexes, which are rebuilt whenever a hosted repository changes.
+ *
+ * @since 3.72
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControlFileParserBenchmark
+{
+  @Param({"10", "1000"})
+  public int packages;
+
+  private byte[] index;
+
+  @Setup
+  public void setUp() {
+    StringBuilder packagesFile = new StringBuilder();
+    for (int i = 0; i < packages; i++) {
+      packagesFile
+          .append("Package: package-").append(i).append('\n')
+          .append("Version: 1.").append(i).append(".0-1\n")
+          .append("Architecture: amd64\n")
+          .append("Maintainer: Example Maintainers <maintainers@example.com>\n")
+          .append("Installed-Size: ").append(1000 + i).append('\n')
+          .append("Depends: libc6 (>= 2.17), libssl1.1 (>= 1.1.0)\n")
+          .append("Filename: pool/main/p/package-").append(i).append("/package-").append(i).append("_1.").append(i)
+          .append(".0-1_amd64.deb\n")
+          .append("Size: ").append(20000 + i).append('\n')
+          .append("MD5sum: 0b1e0d6bb5b0a2f5e2e9e0d8d0f1f6b8\n")
+          .append("SHA1: 2fd4e1c67a2d28fced849ee1bb76e7391b93eb12\n")
+          .append("SHA256: d7a8fbb307d7809469ca9abcb0082e4f8d5651e46d3cdb762d02d0bf37c9e592\n")
+          .append("Section: utils\n")
+          .append("Priority: optional\n")
+          .append("Description: Example package ").append(i).append('\n')
+          .append(" A longer description of the example package,\n")
+          .append(" spread over several continuation lines.\n")
+          .append(" .\n")
+          .append(" It ends with a paragraph of its own.\n")
+          .append('\n');
+    }
+    index = packagesFile.toString().getBytes(UTF_8);
+  }
+
+  @Benchmark
+  public ControlFile parse() throws IOException {
+    return new ControlFileParser().parseControlFile(new ByteArrayInputStream(index));
+  }
+}
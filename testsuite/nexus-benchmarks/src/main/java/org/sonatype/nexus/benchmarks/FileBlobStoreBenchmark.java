@@ -0,0 +1,144 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.nexus.blobstore.BlobStoreReconciliationLogger;
+import org.sonatype.nexus.blobstore.DefaultBlobIdLocationResolver;
+import org.sonatype.nexus.blobstore.MockBlobStoreConfiguration;
+import org.sonatype.nexus.blobstore.api.Blob;
+import org.sonatype.nexus.blobstore.api.BlobId;
+import org.sonatype.nexus.blobstore.api.BlobStoreConfiguration;
+import org.sonatype.nexus.blobstore.file.FileBlobDeletionIndex;
+import org.sonatype.nexus.blobstore.file.FileBlobStore;
+import org.sonatype.nexus.blobstore.file.internal.SimpleFileOperations;
+import org.sonatype.nexus.blobstore.file.internal.datastore.metrics.DatastoreFileBlobStoreMetricsService;
+import org.sonatype.nexus.blobstore.quota.BlobStoreQuotaUsageChecker;
+import org.sonatype.nexus.common.app.ApplicationDirectories;
+import org.sonatype.nexus.common.io.DirectoryHelper;
+import org.sonatype.nexus.common.log.DryRunPrefix;
+import org.sonatype.nexus.common.node.NodeAccess;
+
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static com.google.common.io.ByteStreams.exhaust;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.blobstore.api.BlobStore.BLOB_NAME_HEADER;
+import static org.sonatype.nexus.blobstore.api.BlobStore.CREATED_BY_HEADER;
+
+/**
+ * Measures {@link FileBlobStore} writes and reads against a temporary directory, with and without content
+ * deduplication.
+ *
+ * Every created blob is hard deleted again so the store doesn't grow with the number of invocations; the measured
+ * time of {@link #create} therefore includes the deletion.
+ *
+ * @since 3.72
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileBlobStoreBenchmark
+{
+  private static final Map<String, String> HEADERS = ImmutableMap.of(
+      CREATED_BY_HEADER, "benchmark",
+      BLOB_NAME_HEADER, "benchmark/content.bin");
+
+  @Param({"1024", "1048576"})
+  public int size;
+
+  @Param({"false", "true"})
+  public boolean deduplicate;
+
+  private Path root;
+
+  private FileBlobStore blobStore;
+
+  private byte[] content;
+
+  private BlobId existingBlobId;
+
+  @Setup
+  public void setUp() throws Exception {
+    root = Files.createTempDirectory("file-blob-store-benchmark");
+
+    NodeAccess nodeAccess = mock(NodeAccess.class);
+    when(nodeAccess.getId()).thenReturn(UUID.randomUUID().toString());
+    DryRunPrefix dryRunPrefix = mock(DryRunPrefix.class);
+    when(dryRunPrefix.get()).thenReturn("");
+    ApplicationDirectories applicationDirectories = mock(ApplicationDirectories.class);
+    when(applicationDirectories.getWorkDirectory(anyString())).thenReturn(root.toFile());
+
+    BlobStoreConfiguration configuration = new MockBlobStoreConfiguration();
+    configuration.setName("benchmark");
+    configuration.attributes(FileBlobStore.CONFIG_KEY).set(FileBlobStore.PATH_KEY, root.toString());
+    configuration.attributes(FileBlobStore.CONFIG_KEY).set(FileBlobStore.DEDUPLICATE_KEY, deduplicate);
+
+    blobStore = new FileBlobStore(root.resolve("content"), new DefaultBlobIdLocationResolver(),
+        new SimpleFileOperations(), mock(DatastoreFileBlobStoreMetricsService.class), configuration,
+        applicationDirectories, nodeAccess, dryRunPrefix, mock(BlobStoreReconciliationLogger.class), 0L,
+        mock(BlobStoreQuotaUsageChecker.class), mock(FileBlobDeletionIndex.class));
+    blobStore.start();
+
+    content = new byte[size];
+    new Random(size).nextBytes(content);
+    existingBlobId = blobStore.create(new ByteArrayInputStream(content), HEADERS).getId();
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    blobStore.stop();
+    DirectoryHelper.deleteIfExists(root);
+  }
+
+  @Benchmark
+  public BlobId create() {
+    Blob blob = blobStore.create(new ByteArrayInputStream(content), HEADERS);
+    blobStore.deleteHard(blob.getId());
+    return blob.getId();
+  }
+
+  @Benchmark
+  public long get() throws IOException {
+    Blob blob = blobStore.get(existingBlobId);
+    try (InputStream in = blob.getInputStream()) {
+      return exhaust(in);
+    }
+  }
+}
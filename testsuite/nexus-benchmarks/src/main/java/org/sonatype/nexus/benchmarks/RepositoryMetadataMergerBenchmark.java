@@ -0,0 +1,145 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.goodies.common.ByteSize;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.maven.MavenPath;
+import org.sonatype.nexus.repository.maven.internal.Maven2MavenPathParser;
+import org.sonatype.nexus.repository.maven.internal.MavenModels;
+import org.sonatype.nexus.repository.maven.internal.group.MergedMetadataCache;
+import org.sonatype.nexus.repository.maven.internal.group.RepositoryMetadataMerger;
+import org.sonatype.nexus.repository.maven.internal.group.RepositoryMetadataMerger.Envelope;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures merging of Maven group metadata: streaming merges of member content, with and without re-use of earlier
+ * results, and merges of already parsed metadata.
+ *
+ * Each member lists an overlapping range of versions, as members of a group usually do.
+ *
+ * @since 3.72
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryMetadataMergerBenchmark
+{
+  private static final String PATH = "org/sonatype/nexus/nexus-common/maven-metadata.xml";
+
+  @Param({"2", "8"})
+  public int members;
+
+  @Param({"50", "1000"})
+  public int versions;
+
+  private MavenPath mavenPath;
+
+  private Map<Repository, Content> contents;
+
+  private List<Envelope> envelopes;
+
+  private RepositoryMetadataMerger uncachedMerger;
+
+  private RepositoryMetadataMerger cachedMerger;
+
+  @Setup
+  public void setUp() throws IOException {
+    mavenPath = new Maven2MavenPathParser().parsePath(PATH);
+    contents = new LinkedHashMap<>();
+    envelopes = new ArrayList<>();
+    for (int i = 0; i < members; i++) {
+      Repository repository = mock(Repository.class);
+      when(repository.getName()).thenReturn("member-" + i);
+
+      byte[] xml = metadata(i * versions / 2, versions).getBytes(UTF_8);
+      contents.put(repository, new Content(new BytesPayload(xml, "application/xml")));
+
+      Metadata metadata = MavenModels.readMetadata(new ByteArrayInputStream(xml));
+      envelopes.add(new Envelope(repository.getName(), metadata));
+    }
+    uncachedMerger = new RepositoryMetadataMerger();
+    cachedMerger = new RepositoryMetadataMerger(new MergedMetadataCache(ByteSize.megaBytes(16)));
+  }
+
+  @Benchmark
+  public byte[] mergeContent() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    uncachedMerger.merge(out, mavenPath, contents);
+    return out.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] mergeUnchangedContent() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    cachedMerger.merge(out, mavenPath, contents);
+    return out.toByteArray();
+  }
+
+  @Benchmark
+  public Metadata mergeParsedMetadata() {
+    return uncachedMerger.merge(envelopes);
+  }
+
+  private static String metadata(final int firstVersion, final int versionCount) {
+    StringBuilder xml = new StringBuilder()
+        .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<metadata>\n")
+        .append("  <groupId>org.sonatype.nexus</groupId>\n")
+        .append("  <artifactId>nexus-common</artifactId>\n")
+        .append("  <versioning>\n")
+        .append("    <latest>").append(version(firstVersion + versionCount - 1)).append("</latest>\n")
+        .append("    <release>").append(version(firstVersion + versionCount - 1)).append("</release>\n")
+        .append("    <versions>\n");
+    for (int v = firstVersion; v < firstVersion + versionCount; v++) {
+      xml.append("      <version>").append(version(v)).append("</version>\n");
+    }
+    return xml.append("    </versions>\n")
+        .append("    <lastUpdated>20240101000000</lastUpdated>\n")
+        .append("  </versioning>\n</metadata>\n")
+        .toString();
+  }
+
+  private static String version(final int v) {
+    return "3." + (v / 100) + '.' + (v % 100);
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.http.HttpResponses;
+import org.sonatype.nexus.repository.view.Handler;
+import org.sonatype.nexus.repository.view.Matcher;
+import org.sonatype.nexus.repository.view.Request;
+import org.sonatype.nexus.repository.view.Response;
+import org.sonatype.nexus.repository.view.Route;
+import org.sonatype.nexus.repository.view.Router;
+import org.sonatype.nexus.repository.view.matchers.ActionMatcher;
+import org.sonatype.nexus.repository.view.matchers.RegexMatcher;
+import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.repository.http.HttpMethods.GET;
+import static org.sonatype.nexus.repository.http.HttpMethods.HEAD;
+import static org.sonatype.nexus.repository.view.matchers.logic.LogicMatchers.and;
+
+/**
+ * Measures {@link Router} dispatch over a recipe-sized route table, with routes matched by {@link TokenMatcher} or by
+ * the equivalent {@link RegexMatcher}.
+ *
+ * Requests hit the first route, the last route, or fall through to the default route.
+ *
+ * @since 3.72
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouterBenchmark
+{
+  private static final String[] TOKEN_PATTERNS = {
+      "/-/v1/search",
+      "/-/npm/v1/security/audits{path:.*}",
+      "/{packageScope:@[^/]+}/{packageName}/-/{tarballName}",
+      "/{packageName}/-/{tarballName}",
+      "/-/package/{packageScope:@[^/]+}/{packageName}/dist-tags/{tagName}",
+      "/-/package/{packageName}/dist-tags/{tagName}",
+      "/{packageScope:@[^/]+}/{packageName}/{version}",
+      "/{packageName}/{version}",
+      "/{packageScope:@[^/]+}/{packageName}",
+      "/{packageName}"
+  };
+
+  private static final String[] REGEX_PATTERNS = {
+      "/-/v1/search",
+      "/-/npm/v1/security/audits(?<path>.*)",
+      "/(?<packageScope>@[^/]+)/(?<packageName>[^/]+)/-/(?<tarballName>[^/]+)",
+      "/(?<packageName>[^/]+)/-/(?<tarballName>[^/]+)",
+      "/-/package/(?<packageScope>@[^/]+)/(?<packageName>[^/]+)/dist-tags/(?<tagName>[^/]+)",
+      "/-/package/(?<packageName>[^/]+)/dist-tags/(?<tagName>[^/]+)",
+      "/(?<packageScope>@[^/]+)/(?<packageName>[^/]+)/(?<version>[^/]+)",
+      "/(?<packageName>[^/]+)/(?<version>[^/]+)",
+      "/(?<packageScope>@[^/]+)/(?<packageName>[^/]+)",
+      "/(?<packageName>[^/]+)"
+  };
+
+  private static final Handler FOUND = context -> HttpResponses.ok();
+
+  private static final Handler NOT_FOUND = context -> HttpResponses.notFound();
+
+  @Param({"token", "regex"})
+  public String matcher;
+
+  @Param({"/-/v1/search", "/left-pad", "/a/b/c/d/e"})
+  public String path;
+
+  private Repository repository;
+
+  private Router router;
+
+  private Request request;
+
+  @Setup
+  public void setUp() {
+    repository = mock(Repository.class);
+    when(repository.getName()).thenReturn("npm-proxy");
+
+    String[] patterns = "token".equals(matcher) ? TOKEN_PATTERNS : REGEX_PATTERNS;
+    Router.Builder builder = new Router.Builder();
+    for (String pattern : patterns) {
+      builder.route(new Route.Builder()
+          .matcher(and(new ActionMatcher(GET, HEAD), pathMatcher(pattern)))
+          .handler(FOUND)
+          .create());
+    }
+    router = builder.defaultHandlers(NOT_FOUND).create();
+
+    request = new Request.Builder().action(GET).path(path).build();
+  }
+
+  private Matcher pathMatcher(final String pattern) {
+    return "token".equals(matcher) ? new TokenMatcher(pattern) : new RegexMatcher(Pattern.compile(pattern));
+  }
+
+  @Benchmark
+  public Response dispatch() throws Exception {
+    return router.dispatch(repository, request, null);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.nexus.selector.ConstantVariableResolver;
+import org.sonatype.nexus.selector.CselSelector;
+import org.sonatype.nexus.selector.JexlSelector;
+import org.sonatype.nexus.selector.Selector;
+import org.sonatype.nexus.selector.SelectorFactory;
+import org.sonatype.nexus.selector.VariableSource;
+import org.sonatype.nexus.selector.VariableSourceBuilder;
+import org.sonatype.nexus.selector.internal.DatastoreCselToSql;
+import org.sonatype.nexus.validation.ConstraintViolationFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures evaluation of content selectors against an asset, as done for every permission check on content.
+ *
+ * @since 3.72
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SelectorBenchmark
+{
+  @Param({CselSelector.TYPE, JexlSelector.TYPE})
+  public String type;
+
+  @Param({
+      "format == \"maven2\"",
+      "format == \"maven2\" and path =^ \"/org/sonatype/\"",
+      "format == \"npm\" or (format == \"maven2\" and path =~ \"/org/sonatype/nexus/.*\\\\.jar\")"
+  })
+  public String expression;
+
+  private Selector selector;
+
+  private VariableSource source;
+
+  @Setup
+  public void setUp() {
+    SelectorFactory selectorFactory =
+        new SelectorFactory(mock(ConstraintViolationFactory.class), new DatastoreCselToSql());
+    selector = selectorFactory.createSelector(type, expression);
+
+    source = new VariableSourceBuilder()
+        .addResolver(new ConstantVariableResolver("maven2", "format"))
+        .addResolver(new ConstantVariableResolver("/org/sonatype/nexus/nexus-common/3.72.0/nexus-common-3.72.0.jar",
+            "path"))
+        .build();
+  }
+
+  @Benchmark
+  public boolean evaluate() {
+    return selector.evaluate(source);
+  }
+}